@@ -31,6 +31,8 @@ import org.springframework.context.annotation.Configuration;
 
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @EnableConfigurationProperties(AliAgenticAdkProperties.class)
 @Configuration
@@ -62,7 +64,9 @@ public class AgenticStorageConfiguration {
     @Bean
     @ConditionalOnProperty(name = "ali.agentic.adk.properties.flowStorageStrategy", havingValue = "redis")
     public FlowDataStorage redisFlowDataStorage(AiRedisTemplate redisTemplate, AliAgenticAdkProperties aliAgenticAdkProperties) {
-        return new RedisFlowDataStorage(redisTemplate, aliAgenticAdkProperties.getRedisKeyPrefix());
+        long nearCacheTtlMillis = TimeUnit.SECONDS.toMillis(Optional.ofNullable(aliAgenticAdkProperties.getRedisNearCacheTtlSeconds()).orElse(0));
+        return new RedisFlowDataStorage(redisTemplate, aliAgenticAdkProperties.getRedisKeyPrefix(),
+                nearCacheTtlMillis, RedisFlowDataStorage.DEFAULT_NEAR_CACHE_SIZE);
     }
 
 
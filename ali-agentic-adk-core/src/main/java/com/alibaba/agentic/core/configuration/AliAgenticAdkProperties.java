@@ -37,6 +37,36 @@ public class AliAgenticAdkProperties {
 
     private String redisKeyPrefix;
 
+    /**
+     * 异步任务最大并发执行数
+     */
+    private Integer asyncTaskConcurrency;
+
+    /**
+     * 异步任务全局排队上限，超过后拒绝提交
+     */
+    private Integer asyncTaskQueueCapacity;
+
+    /**
+     * 单个租户/流程的排队上限，避免单一来源占满队列
+     */
+    private Integer asyncTaskLaneCapacity;
+
+    /**
+     * 是否使用虚拟线程执行异步任务（运行时JDK支持时生效）
+     */
+    private Boolean asyncTaskVirtualThreads;
+
+    /**
+     * 已部署流程画布缓存的最大条目数
+     */
+    private Integer flowDeployCacheSize;
+
+    /**
+     * redis 流程定义本地近端缓存有效期（秒），不配置或小于等于 0 时不开启
+     */
+    private Integer redisNearCacheTtlSeconds;
+
 
     public String[] getPaths() {
         return paths;
@@ -94,4 +124,52 @@ public class AliAgenticAdkProperties {
         this.flowStorageStrategy = flowStorageStrategy;
     }
 
+    public Integer getAsyncTaskConcurrency() {
+        return asyncTaskConcurrency;
+    }
+
+    public void setAsyncTaskConcurrency(Integer asyncTaskConcurrency) {
+        this.asyncTaskConcurrency = asyncTaskConcurrency;
+    }
+
+    public Integer getAsyncTaskQueueCapacity() {
+        return asyncTaskQueueCapacity;
+    }
+
+    public void setAsyncTaskQueueCapacity(Integer asyncTaskQueueCapacity) {
+        this.asyncTaskQueueCapacity = asyncTaskQueueCapacity;
+    }
+
+    public Integer getAsyncTaskLaneCapacity() {
+        return asyncTaskLaneCapacity;
+    }
+
+    public void setAsyncTaskLaneCapacity(Integer asyncTaskLaneCapacity) {
+        this.asyncTaskLaneCapacity = asyncTaskLaneCapacity;
+    }
+
+    public Boolean getAsyncTaskVirtualThreads() {
+        return asyncTaskVirtualThreads;
+    }
+
+    public void setAsyncTaskVirtualThreads(Boolean asyncTaskVirtualThreads) {
+        this.asyncTaskVirtualThreads = asyncTaskVirtualThreads;
+    }
+
+    public Integer getFlowDeployCacheSize() {
+        return flowDeployCacheSize;
+    }
+
+    public void setFlowDeployCacheSize(Integer flowDeployCacheSize) {
+        this.flowDeployCacheSize = flowDeployCacheSize;
+    }
+
+    public Integer getRedisNearCacheTtlSeconds() {
+        return redisNearCacheTtlSeconds;
+    }
+
+    public void setRedisNearCacheTtlSeconds(Integer redisNearCacheTtlSeconds) {
+        this.redisNearCacheTtlSeconds = redisNearCacheTtlSeconds;
+    }
+
 }
@@ -36,6 +36,8 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.Optional;
+
 @Configuration
 @ConditionalOnClass(SmartEngine.class)
 public class FrameworkConfiguration {
@@ -80,8 +82,13 @@ public class FrameworkConfiguration {
 
     @Bean
     @ConditionalOnMissingBean
-    public TaskExecutionService taskExecutionService(TaskInstanceService taskInstanceService, Runner runner) {
-        return new DefaultTaskExecutionService(taskInstanceService, runner);
+    public TaskExecutionService taskExecutionService(TaskInstanceService taskInstanceService, Runner runner,
+                                                     AliAgenticAdkProperties aliAgenticAdkProperties) {
+        return new DefaultTaskExecutionService(taskInstanceService, runner,
+                Optional.ofNullable(aliAgenticAdkProperties.getAsyncTaskConcurrency()).orElse(DefaultTaskExecutionService.DEFAULT_CONCURRENCY),
+                Optional.ofNullable(aliAgenticAdkProperties.getAsyncTaskQueueCapacity()).orElse(DefaultTaskExecutionService.DEFAULT_QUEUE_CAPACITY),
+                Optional.ofNullable(aliAgenticAdkProperties.getAsyncTaskLaneCapacity()).orElse(DefaultTaskExecutionService.DEFAULT_LANE_CAPACITY),
+                Boolean.TRUE.equals(aliAgenticAdkProperties.getAsyncTaskVirtualThreads()));
     }
 
 
@@ -20,7 +20,6 @@ import com.alibaba.agentic.core.exceptions.BaseException;
 import com.alibaba.agentic.core.exceptions.ErrorEnum;
 import com.alibaba.agentic.core.executor.SystemContext;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.collections.MapUtils;
 import org.springframework.stereotype.Component;
 
 import java.util.Map;
@@ -35,48 +34,104 @@ public class ConditionRegistry {
     public final static Map<String, BaseCondition> conditionsMap = new ConcurrentHashMap<>();
 
     /**
-     * conditionId构造，利用gatewayId和ConditionFlowNode的flowNode字段的id构造key
+     * conditionId构造，利用所属流程定义、版本、gatewayId和ConditionFlowNode的flowNode字段的id构造key
      */
-    public static String constructConditionId(String gatewayId, String flowNodeId) {
-        return "condition_" + gatewayId + "_" + flowNodeId;
+    public static String constructConditionId(String processDefinitionId, String version, String gatewayId, String flowNodeId) {
+        return conditionIdPrefix(processDefinitionId, version) + gatewayId + "_" + flowNodeId;
+    }
+
+    private static String conditionIdPrefix(String processDefinitionId, String version) {
+        return "condition_" + processDefinitionId + "_" + version + "_";
     }
 
     /**
-     * 注册条件
+     * 注册条件，画布重新部署时覆盖旧条件
      *
+     * @param processDefinitionId
+     * @param version
      * @param gatewayId
      * @param conditionalContainer
      */
-    public static void register(String gatewayId, ConditionalContainer conditionalContainer) {
+    public static void register(String processDefinitionId, String version, String gatewayId, ConditionalContainer conditionalContainer) {
         if (Objects.isNull(conditionalContainer.getFlowNode())) {
             throw new BaseException("The instance of ConditionFlowNode has no block after branch decision. " +
                     "Please configure its field of flowNode.", ErrorEnum.PROPERTY_CONFIG_ERROR);
         }
-        String key = constructConditionId(gatewayId, conditionalContainer.getFlowNode().getId());
-        if (conditionsMap.containsKey(key)) {
-            log.warn("duplicated key of conditionId: {}, please notice", key);
-            throw new BaseException("Two nodes' id are same in conditionalFancyNodeList of one predecessor node. Please check flow configuration", ErrorEnum.FLOW_CONFIG_ERROR);
+        conditionsMap.put(constructConditionId(processDefinitionId, version, gatewayId, conditionalContainer.getFlowNode().getId()), conditionalContainer);
+    }
+
+    /**
+     * 移除流程定义的全部分支条件，画布结构变化重新部署前调用，避免旧分支的条件残留
+     *
+     * @param processDefinitionId
+     * @param version
+     */
+    public static void unregisterConditions(String processDefinitionId, String version) {
+        String prefix = conditionIdPrefix(processDefinitionId, version);
+        conditionsMap.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    /**
+     * 循环节点退出条件的conditionId，利用所属流程定义、版本与循环节点id构造key
+     */
+    public static String constructLoopConditionId(String processDefinitionId, String version, String loopNodeId) {
+        return "loop_condition_" + processDefinitionId + "_" + version + "_" + loopNodeId;
+    }
+
+    /**
+     * 注册循环节点退出条件，画布重新部署时覆盖旧条件，condition 为空时移除
+     *
+     * @param conditionId
+     * @param condition
+     */
+    public static void registerLoopCondition(String conditionId, BaseCondition condition) {
+        if (Objects.isNull(condition)) {
+            conditionsMap.remove(conditionId);
+            return;
+        }
+        conditionsMap.put(conditionId, condition);
+    }
+
+    /**
+     * 获取循环节点退出条件，未配置时返回null。优先使用本次运行画布中的条件，画布中不包含该循环节点时使用部署时注册的条件
+     *
+     * @param systemContext
+     * @param conditionId
+     * @return
+     */
+    public static BaseCondition getLoopCondition(SystemContext systemContext, String conditionId) {
+        if (Objects.nonNull(systemContext) && Objects.nonNull(systemContext.getConditions())
+                && systemContext.getConditions().containsKey(conditionId)) {
+            return systemContext.getConditions().get(conditionId);
         }
-        conditionsMap.put(key, conditionalContainer);
+        return conditionsMap.get(conditionId);
     }
 
     /**
      * 获取条件
      *
+     * @param processDefinitionId
+     * @param version
      * @param gatewayId
+     * @param flowNodeId
      * @return
      */
-    public static BaseCondition getCondition(String gatewayId, String flowNodeId) {
-        String key = constructConditionId(gatewayId, flowNodeId);
-        if (MapUtils.isEmpty(conditionsMap) || !conditionsMap.containsKey(key)) {
+    public static BaseCondition getCondition(String processDefinitionId, String version, String gatewayId, String flowNodeId) {
+        String key = constructConditionId(processDefinitionId, version, gatewayId, flowNodeId);
+        BaseCondition condition = conditionsMap.get(key);
+        if (Objects.isNull(condition)) {
             throw new BaseException(String.format("Cannot find condition with key: %s, gatewayId: %s. flowNodeId: %s.", key, gatewayId, flowNodeId), ErrorEnum.SYSTEM_ERROR);
         }
-        return conditionsMap.get(key);
+        return condition;
     }
 
 
-    public static Boolean eval(SystemContext systemContext, String activityId, String flowNodeId) {
-        BaseCondition condition = getCondition(activityId, flowNodeId);
+    public static Boolean eval(SystemContext systemContext, String processDefinitionId, String version, String activityId, String flowNodeId) {
+        BaseCondition condition = Objects.isNull(systemContext.getConditions()) ? null
+                : systemContext.getConditions().get(constructConditionId(processDefinitionId, version, activityId, flowNodeId));
+        if (Objects.isNull(condition)) {
+            condition = getCondition(processDefinitionId, version, activityId, flowNodeId);
+        }
         return condition.eval(systemContext);
     }
 
@@ -26,6 +26,7 @@ import com.alibaba.smart.framework.engine.bpmn.assembly.process.SequenceFlow;
 import com.alibaba.smart.framework.engine.context.ExecutionContext;
 import com.alibaba.smart.framework.engine.extension.annoation.ExtensionBinding;
 import com.alibaba.smart.framework.engine.extension.constant.ExtensionConstant;
+import com.alibaba.smart.framework.engine.model.assembly.ProcessDefinition;
 import com.alibaba.smart.framework.engine.model.assembly.Transition;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections.MapUtils;
@@ -72,6 +73,7 @@ public class SequenceFlowBehavior extends AbstractTransitionBehavior<SequenceFlo
             throw new BaseException(String.format("smart engine execute flow sequence flow's sourceRef or targetRef should not be empty, executionContext: %s, transition: %s.", executionContext, transition), ErrorEnum.SYSTEM_ERROR);
         }
         SystemContext systemContext = (SystemContext) request.get(ExecutionConstant.SYSTEM_CONTEXT);
-        return ConditionRegistry.eval(systemContext, sourceRefId, targetRefId);
+        ProcessDefinition processDefinition = executionContext.getProcessDefinition();
+        return ConditionRegistry.eval(systemContext, processDefinition.getId(), processDefinition.getVersion(), sourceRefId, targetRefId);
     }
 }
@@ -51,4 +51,9 @@ public class ExecutionConstant {
      */
     public static final String CALLBACK_RESULT = "callback_result";
 
+    /**
+     * 租户标识键名，异步任务按该值做公平调度。
+     */
+    public static final String TENANT_ID = "tenantId";
+
 }
@@ -17,6 +17,8 @@ package com.alibaba.agentic.core.engine.delegation;
 
 import com.alibaba.agentic.core.engine.delegation.domain.LlmRequest;
 import com.alibaba.agentic.core.engine.delegation.domain.LlmResponse;
+import com.alibaba.agentic.core.engine.delegation.domain.TypedRequestParam;
+import com.alibaba.agentic.core.engine.utils.SmartEngineUtils;
 import com.alibaba.agentic.core.exceptions.BaseException;
 import com.alibaba.agentic.core.exceptions.ErrorEnum;
 import com.alibaba.agentic.core.executor.Request;
@@ -25,7 +27,6 @@ import com.alibaba.agentic.core.executor.SystemContext;
 import com.alibaba.agentic.core.models.BasicLlm;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONArray;
-import com.alibaba.fastjson.JSONObject;
 import com.alibaba.smart.framework.engine.context.ExecutionContext;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -35,6 +36,7 @@ import org.apache.commons.collections.MapUtils;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -98,7 +100,7 @@ public class DelegationLlm extends FrameworkDelegationBase {
     @Override
     public Flowable<Result> invoke(SystemContext systemContext, Request request) throws Throwable {
         try {
-            LlmRequest llmRequest = new JSONObject(request.getParam()).toJavaObject(LlmRequest.class);
+            LlmRequest llmRequest = TypedRequestParam.unwrap(request.getParam(), LlmRequest.class);
             BasicLlm basicLlm = getModel(llmRequest.getModel());
             return basicLlm.invoke(llmRequest, systemContext)
                     .map(llmResponse -> {
@@ -117,10 +119,15 @@ public class DelegationLlm extends FrameworkDelegationBase {
 
     @Override
     public Map<String, Object> generateRequest(ExecutionContext executionContext, String activityId) {
-        Map<String, Object> properties = super.generateRequest(executionContext, activityId);
-        if (MapUtils.isEmpty(properties)) {
+        // 节点属性只在首次执行时解析，之后每次仅复制可变字段
+        LlmRequest template = SmartEngineUtils.getNodeDescriptor(executionContext, activityId, LlmRequest.class, DelegationLlm::parseLlmRequest);
+        if (template == null) {
             return Map.of();
         }
+        return new TypedRequestParam<>(copyOf(template));
+    }
+
+    static LlmRequest parseLlmRequest(Map<String, Object> properties) {
         LlmRequest request = new LlmRequest();
         request.setModelName((String) properties.get("modelName"));
         request.setModel((String) properties.get("model"));
@@ -159,10 +166,41 @@ public class DelegationLlm extends FrameworkDelegationBase {
             }
         }
         if (properties.containsKey("extraParams")) {
-            request.setExtraParams(properties.get("extraParams"));
+            // 节点生成时对象类型的值以 JSON 字符串保存，这里还原成 map 供模型直接使用
+            Object extraParams = properties.get("extraParams");
+            if (extraParams instanceof String && JSON.isValidObject((String) extraParams)) {
+                extraParams = JSON.parseObject((String) extraParams);
+            }
+            request.setExtraParams(extraParams);
+        }
+        return request;
+    }
+
+    /**
+     * 复制一份可供单次执行修改的请求，列表与消息均为新对象。
+     */
+    static LlmRequest copyOf(LlmRequest template) {
+        LlmRequest request = new LlmRequest()
+                .setModel(template.getModel())
+                .setModelName(template.getModelName())
+                .setMaxTokens(template.getMaxTokens())
+                .setTemperature(template.getTemperature())
+                .setTopP(template.getTopP())
+                .setStream(template.getStream())
+                .setUser(template.getUser());
+        if (template.getStop() != null) {
+            request.setStop(new ArrayList<>(template.getStop()));
+        }
+        if (template.getMessages() != null) {
+            List<LlmRequest.Message> messages = new ArrayList<>(template.getMessages().size());
+            for (LlmRequest.Message message : template.getMessages()) {
+                messages.add(message == null ? null : new LlmRequest.Message(message.getRole(), message.getContent()));
+            }
+            request.setMessages(messages);
         }
-        // 关键：**封装成对象再序列化！**
-        return JSONObject.parseObject(JSONObject.toJSONString(request));
+        Object extraParams = template.getExtraParams();
+        request.setExtraParams(extraParams instanceof Map ? new HashMap<>((Map<String, Object>) extraParams) : extraParams);
+        return request;
     }
 
 }
@@ -0,0 +1,216 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.agentic.core.engine.delegation;
+
+import com.alibaba.agentic.core.engine.behavior.BaseCondition;
+import com.alibaba.agentic.core.engine.behavior.ConditionRegistry;
+import com.alibaba.agentic.core.engine.constants.ExecutionConstant;
+import com.alibaba.agentic.core.engine.delegation.domain.LoopRequest;
+import com.alibaba.agentic.core.engine.delegation.domain.TypedRequestParam;
+import com.alibaba.agentic.core.engine.node.sub.LoopFlowNode;
+import com.alibaba.agentic.core.engine.utils.DelegationUtils;
+import com.alibaba.agentic.core.engine.utils.SmartEngineUtils;
+import com.alibaba.agentic.core.exceptions.BaseException;
+import com.alibaba.agentic.core.exceptions.ErrorEnum;
+import com.alibaba.agentic.core.executor.InterOutput;
+import com.alibaba.agentic.core.executor.Request;
+import com.alibaba.agentic.core.executor.Result;
+import com.alibaba.agentic.core.executor.SystemContext;
+import com.alibaba.agentic.core.flows.service.impl.FlowProcessService;
+import com.alibaba.smart.framework.engine.context.ExecutionContext;
+import com.alibaba.smart.framework.engine.model.assembly.ProcessDefinition;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.functions.Function;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DESCRIPTION
+ * 循环节点：复用已部署的循环体子流程逐轮执行，每轮结果产生后立即向下游推送
+ */
+@Component
+@Slf4j
+public class DelegationLoop extends FrameworkDelegationBase {
+
+    @Autowired
+    private FlowProcessService flowProcessService;
+
+    @Override
+    public Flowable<Result> invoke(SystemContext systemContext, Request request) throws Throwable {
+        LoopRequest loopRequest = TypedRequestParam.unwrap(request.getParam(), LoopRequest.class);
+        String bodyDefinitionId = LoopFlowNode.bodyDefinitionId(loopRequest.getProcessDefinitionId(), loopRequest.getActivityId());
+        BaseCondition exitCondition = ConditionRegistry.getLoopCondition(systemContext, ConditionRegistry.constructLoopConditionId(
+                loopRequest.getProcessDefinitionId(), loopRequest.getVersion(), loopRequest.getActivityId()));
+        return iterate(systemContext, loopRequest, exitCondition,
+                iterationContext -> runIteration(bodyDefinitionId, loopRequest.getVersion(), iterationContext),
+                Schedulers.from(DelegationParallel.getDefaultExecutor(), true));
+    }
+
+    @Override
+    protected Map<String, Object> generateRequest(ExecutionContext executionContext, String activityId) {
+        // 节点属性只在首次执行时解析
+        LoopRequest template = SmartEngineUtils.getNodeDescriptor(executionContext, activityId, LoopRequest.class, DelegationLoop::parseLoopRequest);
+        if (template == null) {
+            template = parseLoopRequest(Map.of());
+        }
+        ProcessDefinition processDefinition = executionContext.getProcessDefinition();
+        LoopRequest request = new LoopRequest()
+                .setProcessDefinitionId(processDefinition.getId())
+                .setVersion(processDefinition.getVersion())
+                .setActivityId(activityId)
+                .setMaxIterations(template.getMaxIterations())
+                .setMaxDurationMillis(template.getMaxDurationMillis())
+                .setIterateOver(template.getIterateOver())
+                .setItemKey(template.getItemKey())
+                .setConcurrency(template.getConcurrency());
+        return new TypedRequestParam<>(request);
+    }
+
+    static LoopRequest parseLoopRequest(Map<String, Object> properties) {
+        String maxIterations = (String) properties.get("maxIterations");
+        String maxDurationMillis = (String) properties.get("maxDurationMillis");
+        String itemKey = (String) properties.get("itemKey");
+        String concurrency = (String) properties.get("concurrency");
+        return new LoopRequest()
+                .setMaxIterations(StringUtils.isEmpty(maxIterations) ? LoopFlowNode.DEFAULT_MAX_ITERATIONS : Integer.parseInt(maxIterations))
+                .setMaxDurationMillis(StringUtils.isEmpty(maxDurationMillis) ? 0 : Long.parseLong(maxDurationMillis))
+                .setIterateOver((String) properties.get("iterateOver"))
+                .setItemKey(StringUtils.isEmpty(itemKey) ? LoopFlowNode.DEFAULT_ITEM_KEY : itemKey)
+                .setConcurrency(StringUtils.isEmpty(concurrency) ? 1 : Integer.parseInt(concurrency));
+    }
+
+    /**
+     * 逐轮执行循环体。
+     * <p>
+     * 按次数循环时各轮顺序执行并共享主流程的中间结果，后一轮可读取前一轮的输出；
+     * map 式循环的各项互相独立，在各自的上下文副本上执行（可并发），按元素顺序输出并合并中间结果。
+     * 任一轮失败、退出条件成立、达到最大迭代次数或总耗时上限时结束循环，未完成的迭代被取消。
+     * 配置总耗时上限时每轮迭代都在调度器线程上执行，超时取消会中断正在执行的同步迭代。
+     * </p>
+     *
+     * @param parent        主流程上下文
+     * @param request       循环配置
+     * @param exitCondition 退出条件，可为空
+     * @param body          循环体，入参为本轮迭代的上下文
+     * @param scheduler     map 式循环并发执行及受总耗时限制的迭代所用的调度器，取消时需中断执行线程
+     * @return 每轮迭代的结果流
+     */
+    static Flowable<Result> iterate(SystemContext parent, LoopRequest request, BaseCondition exitCondition,
+                                    Function<SystemContext, Flowable<Result>> body, Scheduler scheduler) {
+        return Flowable.defer(() -> {
+            // 迭代在订阅线程上同步执行时 takeUntil 无法打断，受总耗时限制的迭代切到调度器线程执行
+            boolean timed = request.getMaxDurationMillis() > 0;
+            Flowable<Result> iterations;
+            if (StringUtils.isEmpty(request.getIterateOver())) {
+                InterOutput interOutput = DelegationUtils.getInterOutput(parent);
+                iterations = Flowable.range(0, request.getMaxIterations())
+                        .concatMap(index -> {
+                            Flowable<Result> iteration = runIteration(body, ParallelBranchJoiner.fork(parent,
+                                    iterationParameter(parent, index, null, null), interOutput));
+                            return timed ? iteration.subscribeOn(scheduler) : iteration;
+                        });
+            } else {
+                List<?> items = items(parent, request.getIterateOver());
+                InterOutput snapshot = DelegationUtils.getInterOutput(parent).fork();
+                int concurrency = Math.max(1, request.getConcurrency());
+                iterations = Flowable.range(0, Math.min(items.size(), request.getMaxIterations()))
+                        .concatMapEager(index -> {
+                            SystemContext iterationContext = ParallelBranchJoiner.fork(parent,
+                                    iterationParameter(parent, index, request.getItemKey(), items.get(index)), snapshot.fork());
+                            Flowable<Iteration> iteration = runIteration(body, iterationContext)
+                                    .map(result -> new Iteration(iterationContext, result));
+                            return concurrency > 1 || timed ? iteration.subscribeOn(scheduler) : iteration;
+                        }, concurrency, 1)
+                        // concatMapEager 按元素顺序串行下发，中间结果在下游逐项合并，不会并发写主流程上下文
+                        .map(iteration -> {
+                            ParallelBranchJoiner.mergeInterOutput(parent, iteration.context);
+                            DelegationUtils.getInterOutput(iteration.context).clear();
+                            return iteration.result;
+                        })
+                        .doFinally(snapshot::clear);
+            }
+            iterations = iterations.takeUntil(result -> !result.isSuccess()
+                    || (exitCondition != null && Boolean.TRUE.equals(exitCondition.eval(parent))));
+            if (timed) {
+                iterations = iterations.takeUntil(Flowable.timer(request.getMaxDurationMillis(), TimeUnit.MILLISECONDS));
+            }
+            return iterations;
+        });
+    }
+
+    private static Flowable<Result> runIteration(Function<SystemContext, Flowable<Result>> body, SystemContext iterationContext) {
+        return Flowable.defer(() -> body.apply(iterationContext))
+                .last(Result.success(Map.of()))
+                .onErrorReturn(Result::fail)
+                .toFlowable();
+    }
+
+    private static Map<String, Object> iterationParameter(SystemContext parent, int index, String itemKey, Object item) {
+        Map<String, Object> parameter = parent.getRequestParameter() == null ? new HashMap<>() : new HashMap<>(parent.getRequestParameter());
+        parameter.put(LoopFlowNode.LOOP_INDEX_KEY, index);
+        if (itemKey != null) {
+            parameter.put(itemKey, item);
+        }
+        return parameter;
+    }
+
+    private static List<?> items(SystemContext parent, String iterateOver) {
+        Object value = parent.getRequestParameter() == null ? null : parent.getRequestParameter().get(iterateOver);
+        if (value == null) {
+            return List.of();
+        }
+        if (value instanceof List<?> list) {
+            return list;
+        }
+        throw new BaseException(String.format("loop parameter %s should be a list, but it was %s", iterateOver, value.getClass().getName()),
+                ErrorEnum.PROPERTY_CONFIG_ERROR);
+    }
+
+    private static final class Iteration {
+
+        private final SystemContext context;
+
+        private final Result result;
+
+        private Iteration(SystemContext context, Result result) {
+            this.context = context;
+            this.result = result;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Flowable<Result> runIteration(String bodyDefinitionId, String version, SystemContext iterationContext) {
+        // 节点执行时会改写请求参数，每轮迭代使用独立的请求对象
+        Request iterationRequest = new Request()
+                .setInvokeMode(iterationContext.getInvokeMode())
+                .setParam(new HashMap<>(iterationContext.getRequestParameter()));
+        Map<String, Object> response = new HashMap<>();
+        flowProcessService.startFlow(bodyDefinitionId, version,
+                Map.of(ExecutionConstant.ORIGIN_REQUEST, iterationRequest, ExecutionConstant.SYSTEM_CONTEXT, iterationContext), response);
+        Flowable<Result> result = (Flowable<Result>) response.get(ExecutionConstant.INVOKE_RESULT);
+        return result == null ? Flowable.empty() : result;
+    }
+
+}
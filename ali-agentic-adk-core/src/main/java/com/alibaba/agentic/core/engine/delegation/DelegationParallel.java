@@ -0,0 +1,159 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.agentic.core.engine.delegation;
+
+import com.alibaba.agentic.core.engine.constants.ExecutionConstant;
+import com.alibaba.agentic.core.engine.delegation.domain.ParallelRequest;
+import com.alibaba.agentic.core.engine.delegation.domain.TypedRequestParam;
+import com.alibaba.agentic.core.engine.node.sub.ParallelFlowNode;
+import com.alibaba.agentic.core.engine.utils.SmartEngineUtils;
+import com.alibaba.agentic.core.executor.Request;
+import com.alibaba.agentic.core.executor.Result;
+import com.alibaba.agentic.core.executor.SystemContext;
+import com.alibaba.agentic.core.flows.service.impl.FlowProcessService;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.smart.framework.engine.context.ExecutionContext;
+import com.alibaba.smart.framework.engine.model.assembly.ProcessDefinition;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * DESCRIPTION
+ * 并行节点：在执行器上并发启动各分支子流程，按汇合策略合并结果
+ */
+@Component
+@Slf4j
+public class DelegationParallel extends FrameworkDelegationBase {
+
+    // processDefinitionId:version:activityId -> executor
+    private final static Map<String, ExecutorService> executorMap = new ConcurrentHashMap<>();
+
+    private static volatile ExecutorService defaultExecutor;
+
+    @Autowired
+    private FlowProcessService flowProcessService;
+
+    /**
+     * 注册并行节点的自定义执行器，executorService 为空时使用默认执行器
+     */
+    public static void registerExecutor(String processDefinitionId, String version, String activityId, ExecutorService executorService) {
+        String key = executorKey(processDefinitionId, version, activityId);
+        if (executorService == null) {
+            executorMap.remove(key);
+            return;
+        }
+        executorMap.put(key, executorService);
+    }
+
+    @Override
+    public Flowable<Result> invoke(SystemContext systemContext, Request request) throws Throwable {
+        ParallelRequest parallelRequest = TypedRequestParam.unwrap(request.getParam(), ParallelRequest.class);
+        ExecutorService executorService = executorMap.get(executorKey(parallelRequest.getProcessDefinitionId(),
+                parallelRequest.getVersion(), parallelRequest.getActivityId()));
+        if (executorService == null) {
+            executorService = getDefaultExecutor();
+        }
+        // 分支结果只计算一次，避免回调链多次订阅时重复执行所有分支
+        return ParallelBranchJoiner.join(systemContext, parallelRequest.getBranchNodeIds(),
+                (index, branchContext) -> runBranch(parallelRequest, index, branchContext),
+                parallelRequest.getJoinStrategy(), parallelRequest.getQuorum(), parallelRequest.getBranchTimeoutMillis(),
+                Schedulers.from(executorService, true)).cache();
+    }
+
+    @Override
+    protected Map<String, Object> generateRequest(ExecutionContext executionContext, String activityId) {
+        // 节点属性只在首次执行时解析
+        ParallelRequest template = SmartEngineUtils.getNodeDescriptor(executionContext, activityId, ParallelRequest.class, DelegationParallel::parseParallelRequest);
+        if (template == null) {
+            template = parseParallelRequest(Map.of());
+        }
+        ProcessDefinition processDefinition = executionContext.getProcessDefinition();
+        ParallelRequest request = new ParallelRequest()
+                .setProcessDefinitionId(processDefinition.getId())
+                .setVersion(processDefinition.getVersion())
+                .setActivityId(activityId)
+                .setJoinStrategy(template.getJoinStrategy())
+                .setQuorum(template.getQuorum())
+                .setBranchTimeoutMillis(template.getBranchTimeoutMillis())
+                .setBranchNodeIds(template.getBranchNodeIds());
+        return new TypedRequestParam<>(request);
+    }
+
+    static ParallelRequest parseParallelRequest(Map<String, Object> properties) {
+        String joinStrategy = (String) properties.get("joinStrategy");
+        String quorum = (String) properties.get("quorum");
+        String branchTimeoutMillis = (String) properties.get("branchTimeoutMillis");
+        String branchNodeIds = (String) properties.get("branchNodeIds");
+        return new ParallelRequest()
+                .setJoinStrategy(StringUtils.isEmpty(joinStrategy) ? ParallelFlowNode.JoinStrategy.ALL : ParallelFlowNode.JoinStrategy.valueOf(joinStrategy))
+                .setQuorum(StringUtils.isEmpty(quorum) ? 0 : Integer.parseInt(quorum))
+                .setBranchTimeoutMillis(StringUtils.isEmpty(branchTimeoutMillis) ? 0 : Long.parseLong(branchTimeoutMillis))
+                .setBranchNodeIds(StringUtils.isEmpty(branchNodeIds) ? List.of()
+                        : Collections.unmodifiableList(JSONArray.parseArray(branchNodeIds, String.class)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Flowable<Result> runBranch(ParallelRequest parallelRequest, int index, SystemContext branchContext) {
+        String branchDefinitionId = ParallelFlowNode.branchDefinitionId(parallelRequest.getProcessDefinitionId(), parallelRequest.getActivityId(), index);
+        // 节点执行时会改写请求参数，每个分支使用独立的请求对象
+        Request branchRequest = new Request()
+                .setInvokeMode(branchContext.getInvokeMode())
+                .setParam(branchContext.getRequestParameter() == null ? new HashMap<>() : new HashMap<>(branchContext.getRequestParameter()));
+        Map<String, Object> response = new HashMap<>();
+        flowProcessService.startFlow(branchDefinitionId, parallelRequest.getVersion(),
+                Map.of(ExecutionConstant.ORIGIN_REQUEST, branchRequest, ExecutionConstant.SYSTEM_CONTEXT, branchContext), response);
+        Flowable<Result> result = (Flowable<Result>) response.get(ExecutionConstant.INVOKE_RESULT);
+        return result == null ? Flowable.empty() : result;
+    }
+
+    private static String executorKey(String processDefinitionId, String version, String activityId) {
+        return processDefinitionId + ":" + version + ":" + activityId;
+    }
+
+    static ExecutorService getDefaultExecutor() {
+        if (defaultExecutor == null) {
+            synchronized (DelegationParallel.class) {
+                if (defaultExecutor == null) {
+                    defaultExecutor = createDefaultExecutor();
+                }
+            }
+        }
+        return defaultExecutor;
+    }
+
+    private static ExecutorService createDefaultExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.info("virtual threads are not supported by current jdk, parallel branches run on cached platform threads");
+        }
+        return Executors.newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat("agentic-parallel-%d").setDaemon(true).build());
+    }
+
+}
@@ -16,7 +16,9 @@
 package com.alibaba.agentic.core.engine.delegation;
 
 import com.alibaba.agentic.core.engine.delegation.domain.FunctionCallRequest;
+import com.alibaba.agentic.core.engine.delegation.domain.TypedRequestParam;
 import com.alibaba.agentic.core.engine.node.sub.ToolParam;
+import com.alibaba.agentic.core.engine.utils.SmartEngineUtils;
 import com.alibaba.agentic.core.exceptions.BaseException;
 import com.alibaba.agentic.core.exceptions.ErrorEnum;
 import com.alibaba.agentic.core.executor.Request;
@@ -24,7 +26,6 @@ import com.alibaba.agentic.core.executor.Result;
 import com.alibaba.agentic.core.executor.SystemContext;
 import com.alibaba.agentic.core.tools.BaseTool;
 import com.alibaba.fastjson.JSONArray;
-import com.alibaba.fastjson.JSONObject;
 import com.alibaba.smart.framework.engine.context.ExecutionContext;
 import io.reactivex.rxjava3.core.Flowable;
 import lombok.extern.slf4j.Slf4j;
@@ -33,9 +34,11 @@ import org.apache.commons.collections.MapUtils;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.ServiceLoader;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -74,7 +77,22 @@ public class DelegationTool extends FrameworkDelegationBase {
     }
 
     /**
-     * 获取工具
+     * 获取工具，本次运行画布绑定的工具优先于已注册的同名工具
+     *
+     * @param systemContext
+     * @param toolName
+     * @return
+     */
+    protected BaseTool getTool(SystemContext systemContext, String toolName) {
+        if (Objects.nonNull(systemContext) && MapUtils.isNotEmpty(systemContext.getTools())
+                && systemContext.getTools().containsKey(toolName)) {
+            return systemContext.getTools().get(toolName);
+        }
+        return getTool(toolName);
+    }
+
+    /**
+     * 获取已注册的工具
      *
      * @param toolName
      * @return
@@ -89,8 +107,8 @@ public class DelegationTool extends FrameworkDelegationBase {
 
     @Override
     public Flowable<Result> invoke(SystemContext systemContext, Request request) throws Throwable {
-        FunctionCallRequest functionCallRequest = new JSONObject(request.getParam()).toJavaObject(FunctionCallRequest.class);
-        BaseTool tool = getTool(functionCallRequest.getToolName());
+        FunctionCallRequest functionCallRequest = TypedRequestParam.unwrap(request.getParam(), FunctionCallRequest.class);
+        BaseTool tool = getTool(systemContext, functionCallRequest.getToolName());
         try {
             return tool.run(functionCallRequest.getToolParameter(), systemContext)
                     .map(Result::success)
@@ -102,25 +120,29 @@ public class DelegationTool extends FrameworkDelegationBase {
 
     @Override
     public Map<String, Object> generateRequest(ExecutionContext executionContext, String activityId) {
-        FunctionCallRequest request = new FunctionCallRequest();
-        Map<String, Object> properties = super.generateRequest(executionContext, activityId);
-
-        if (MapUtils.isEmpty(properties)) {
-            return JSONObject.parseObject(JSONObject.toJSONString(request));
+        // 节点属性只在首次执行时解析，之后每次仅复制工具参数
+        FunctionCallRequest template = SmartEngineUtils.getNodeDescriptor(executionContext, activityId, FunctionCallRequest.class, DelegationTool::parseFunctionCallRequest);
+        if (template == null) {
+            return new TypedRequestParam<>(new FunctionCallRequest());
         }
+        return new TypedRequestParam<>(new FunctionCallRequest()
+                .setToolName(template.getToolName())
+                .setToolParameter(new HashMap<>(template.getToolParameter())));
+    }
+
+    static FunctionCallRequest parseFunctionCallRequest(Map<String, Object> properties) {
+        FunctionCallRequest request = new FunctionCallRequest();
         request.setToolName(String.valueOf(properties.get("functionToolName")));
 
         List<ToolParam> paramList = JSONArray.parseArray(String.valueOf(properties.get("paramList")), ToolParam.class);
-        if (CollectionUtils.isEmpty(paramList)) {
-            request.setToolParameter(new HashMap<>());
-        } else {
-            Map<String, Object> toolParameter = new HashMap<>();
+        Map<String, Object> toolParameter = new HashMap<>();
+        if (CollectionUtils.isNotEmpty(paramList)) {
             for (ToolParam param : paramList) {
                 toolParameter.put(param.getName(), param.getValue());
             }
-            request.setToolParameter(toolParameter);
         }
-        return JSONObject.parseObject(JSONObject.toJSONString(request));
+        request.setToolParameter(Collections.unmodifiableMap(toolParameter));
+        return request;
     }
 
 }
@@ -23,6 +23,7 @@ import com.alibaba.agentic.core.flows.service.TaskExecutionService;
 import com.alibaba.agentic.core.flows.service.TaskInstanceService;
 import com.alibaba.agentic.core.flows.service.domain.AsyncRequest;
 import com.alibaba.agentic.core.flows.service.domain.TaskInstance;
+import com.alibaba.agentic.core.flows.service.impl.FlowProcessService;
 import com.alibaba.agentic.core.utils.AssertUtils;
 import com.alibaba.smart.framework.engine.context.ExecutionContext;
 import com.alibaba.smart.framework.engine.delegation.JavaDelegation;
@@ -31,6 +32,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections.MapUtils;
 
 import javax.annotation.Resource;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 
@@ -111,17 +113,39 @@ public abstract class FrameworkDelegationBase implements JavaDelegation, Executo
                 .setProcessInstance(executionContext.getProcessInstance())
                 .setActivityId(activityId);
         String taskId = taskInstanceService.persistTaskInstance(taskInstance);
-        taskExecutionService.submitTask(new AsyncRequest().setTaskId(taskId)
+        AsyncRequest asyncRequest = new AsyncRequest().setTaskId(taskId)
                 .setRequest(request)
-                .setSystemContext(systemContext));
+                .setSystemContext(systemContext)
+                .setGroupKey(getAsyncGroupKey(executionContext, systemContext));
+        // 待引擎暂停当前流程后再派发，避免回调与暂停并发修改流程实例
+        FlowProcessService.runAfterSession(() -> {
+            try {
+                taskExecutionService.submitTask(asyncRequest);
+            } catch (Throwable throwable) {
+                log.error("submit async task error, taskId: {}", taskId, throwable);
+                taskExecutionService.signal(taskId, Result.fail(throwable));
+            }
+        });
         return taskId;
     }
 
+    /**
+     * 异步任务的公平调度分组，优先按请求中的租户标识，其次按流程定义
+     */
+    protected String getAsyncGroupKey(ExecutionContext executionContext, SystemContext systemContext) {
+        Object tenantId = DelegationUtils.getRequestParameter(systemContext, ExecutionConstant.TENANT_ID);
+        if (tenantId != null) {
+            return String.valueOf(tenantId);
+        }
+        return executionContext.getProcessInstance().getProcessDefinitionIdAndVersion();
+    }
+
     protected Map<String, Object> generateRequest(ExecutionContext executionContext, String activityId) {
-        Map<String, Object> smartEngineResultMap = SmartEngineUtils.getAllProperties(executionContext, activityId);
-        if (MapUtils.isEmpty(smartEngineResultMap)) {
+        Map<String, Object> propertySnapshot = SmartEngineUtils.getPropertySnapshot(executionContext, activityId);
+        if (MapUtils.isEmpty(propertySnapshot)) {
             return Map.of();
         }
+        Map<String, Object> smartEngineResultMap = new HashMap<>(propertySnapshot);
         smartEngineResultMap.put(CURRENT_ACTIVITY_ID, activityId);
         return smartEngineResultMap;
     }
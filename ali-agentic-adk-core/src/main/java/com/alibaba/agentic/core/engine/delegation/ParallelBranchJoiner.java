@@ -0,0 +1,215 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.agentic.core.engine.delegation;
+
+import com.alibaba.agentic.core.engine.node.sub.ParallelFlowNode;
+import com.alibaba.agentic.core.engine.utils.DelegationUtils;
+import com.alibaba.agentic.core.exceptions.BaseException;
+import com.alibaba.agentic.core.exceptions.ErrorEnum;
+import com.alibaba.agentic.core.executor.InterOutput;
+import com.alibaba.agentic.core.executor.InvokeMode;
+import com.alibaba.agentic.core.executor.Result;
+import com.alibaba.agentic.core.executor.SystemContext;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.functions.BiFunction;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * DESCRIPTION
+ * 并行分支的执行与汇合
+ * <p>
+ * 每个分支持有主流程中间结果的 fork，分支之间互不可见；
+ * 满足汇合条件后取消仍在运行的分支，再把成功分支新写入的中间结果合并回主流程。
+ * </p>
+ */
+final class ParallelBranchJoiner {
+
+    private ParallelBranchJoiner() {
+    }
+
+    /**
+     * @param parent              主流程上下文
+     * @param branchIds           分支标识，按声明顺序
+     * @param body                分支执行体，入参为分支序号与分支上下文
+     * @param strategy            汇合策略
+     * @param quorum              QUORUM 策略下需要成功的分支数
+     * @param branchTimeoutMillis 单个分支超时时间，小于等于0表示不限制
+     * @param scheduler           分支运行的调度器，取消时中断分支线程
+     * @return 汇合结果，data 为各成功分支的最后一个结果，键为分支标识
+     */
+    static Flowable<Result> join(SystemContext parent, List<String> branchIds,
+                                 BiFunction<Integer, SystemContext, Flowable<Result>> body,
+                                 ParallelFlowNode.JoinStrategy strategy, int quorum, long branchTimeoutMillis,
+                                 Scheduler scheduler) {
+        return Flowable.defer(() -> {
+            InterOutput interOutput = DelegationUtils.getInterOutput(parent);
+            JoinState state = new JoinState(branchIds.size(), requiredSuccess(strategy, quorum, branchIds.size()));
+            List<Branch> branches = new ArrayList<>(branchIds.size());
+            List<Flowable<Branch>> running = new ArrayList<>(branchIds.size());
+            for (int i = 0; i < branchIds.size(); i++) {
+                Branch branch = new Branch(i, branchIds.get(i), fork(parent, parent.getRequestParameter(), interOutput.fork()));
+                branches.add(branch);
+                running.add(run(branch, body, branchTimeoutMillis, scheduler));
+            }
+            return Flowable.merge(running)
+                    .takeUntil(state::accept)
+                    .ignoreElements()
+                    .andThen(Flowable.fromCallable(() -> state.finish(parent)))
+                    // 汇合或取消后释放各分支的中间结果存储
+                    .doFinally(() -> branches.forEach(branch -> DelegationUtils.getInterOutput(branch.context).clear()));
+        });
+    }
+
+    static int requiredSuccess(ParallelFlowNode.JoinStrategy strategy, int quorum, int branchCount) {
+        if (strategy == null) {
+            return branchCount;
+        }
+        return switch (strategy) {
+            case ALL -> branchCount;
+            case FIRST_SUCCESS -> Math.min(1, branchCount);
+            case QUORUM -> {
+                if (quorum <= 0 || quorum > branchCount) {
+                    throw new BaseException(String.format("parallel quorum: %s, should be in [1, %s].", quorum, branchCount),
+                            ErrorEnum.FLOW_CONFIG_ERROR);
+                }
+                yield quorum;
+            }
+        };
+    }
+
+    private static Flowable<Branch> run(Branch branch, BiFunction<Integer, SystemContext, Flowable<Result>> body,
+                                        long branchTimeoutMillis, Scheduler scheduler) {
+        Single<Result> result = Flowable.defer(() -> body.apply(branch.index, branch.context))
+                .last(Result.success(Map.of()))
+                .subscribeOn(scheduler);
+        if (branchTimeoutMillis > 0) {
+            result = result.timeout(branchTimeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        return result.onErrorReturn(throwable -> {
+                    if (throwable instanceof TimeoutException) {
+                        return Result.fail(new BaseException(String.format("parallel branch %s timed out after %s ms",
+                                branch.id, branchTimeoutMillis), ErrorEnum.SYSTEM_ERROR));
+                    }
+                    return Result.fail(throwable);
+                })
+                .map(value -> {
+                    branch.result = value;
+                    return branch;
+                })
+                .toFlowable();
+    }
+
+    /**
+     * 派生子流程（并行分支、循环迭代）使用的上下文。
+     * 节点本身已在执行线程上运行，子流程统一同步执行，避免子流程挂起后无法汇合。
+     */
+    static SystemContext fork(SystemContext parent, Map<String, Object> requestParameter,
+                              InterOutput interOutput) {
+        return new SystemContext()
+                .setExecutor(parent.getExecutor())
+                .setInvokeMode(InvokeMode.ASYNC.equals(parent.getInvokeMode()) ? InvokeMode.SYNC : parent.getInvokeMode())
+                .setProcessor(parent.getProcessor())
+                .setConditions(parent.getConditions())
+                .setTools(parent.getTools())
+                .setRequestParameter(requestParameter)
+                .setInterOutput(interOutput);
+    }
+
+    /**
+     * 将子流程上下文中新写入或改写的条目合并回主流程，未改动的旧值不会覆盖主流程中其他子流程的结果
+     */
+    static void mergeInterOutput(SystemContext parent, SystemContext child) {
+        DelegationUtils.getInterOutput(parent).merge(DelegationUtils.getInterOutput(child));
+    }
+
+    private static final class Branch {
+
+        private final int index;
+
+        private final String id;
+
+        private final SystemContext context;
+
+        private Result result;
+
+        private Branch(int index, String id, SystemContext context) {
+            this.index = index;
+            this.id = id;
+            this.context = context;
+        }
+    }
+
+    /**
+     * 汇合状态，由 merge 串行回调，无需额外同步
+     */
+    private static final class JoinState {
+
+        private final int total;
+
+        private final int required;
+
+        private final List<Branch> succeeded = new ArrayList<>();
+
+        private final List<Branch> failed = new ArrayList<>();
+
+        private JoinState(int total, int required) {
+            this.total = total;
+            this.required = required;
+        }
+
+        /**
+         * @return 是否已满足（或已不可能满足）汇合条件
+         */
+        private boolean accept(Branch branch) {
+            if (branch.result.isSuccess()) {
+                succeeded.add(branch);
+            } else {
+                failed.add(branch);
+            }
+            return succeeded.size() >= required || failed.size() > total - required;
+        }
+
+        private Result finish(SystemContext parent) {
+            succeeded.sort(Comparator.comparingInt(branch -> branch.index));
+            Map<String, Object> data = new LinkedHashMap<>();
+            for (Branch branch : succeeded) {
+                data.put(branch.id, branch.result.getData());
+            }
+            if (succeeded.size() < required) {
+                StringBuilder errorMsg = new StringBuilder(String.format("parallel join failed, required: %s, succeeded: %s, failed: %s",
+                        required, succeeded.size(), failed.size()));
+                for (Branch branch : failed) {
+                    errorMsg.append("\nbranch ").append(branch.id).append(": ").append(branch.result.getErrorMsg());
+                }
+                return new Result(false, ErrorEnum.PARALLEL_JOIN_FAILED.getCode(), errorMsg.toString(), data);
+            }
+            for (Branch branch : succeeded) {
+                mergeInterOutput(parent, branch.context);
+            }
+            return Result.success(data);
+        }
+    }
+
+}
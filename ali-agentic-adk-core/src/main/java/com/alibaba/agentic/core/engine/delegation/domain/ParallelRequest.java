@@ -0,0 +1,46 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.agentic.core.engine.delegation.domain;
+
+import com.alibaba.agentic.core.engine.node.sub.ParallelFlowNode;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.util.List;
+
+/**
+ * DESCRIPTION
+ * 并行节点执行请求
+ */
+@Data
+@Accessors(chain = true)
+public class ParallelRequest {
+
+    private String processDefinitionId;
+
+    private String version;
+
+    private String activityId;
+
+    private ParallelFlowNode.JoinStrategy joinStrategy;
+
+    private int quorum;
+
+    private long branchTimeoutMillis;
+
+    private List<String> branchNodeIds;
+
+}
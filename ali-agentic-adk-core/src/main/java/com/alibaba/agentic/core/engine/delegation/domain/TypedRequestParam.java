@@ -0,0 +1,110 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.agentic.core.engine.delegation.domain;
+
+import com.alibaba.fastjson.JSONObject;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 携带类型化请求对象的节点请求参数。
+ * <p>
+ * 执行时直接取回请求对象，省去 map 与对象之间的 JSON 转换。
+ * 作为 map 被访问时（读取、修改、持久化或日志输出），才按请求对象的JSON序列化结果生成内容，
+ * 内容与此前 {@code JSONObject.parseObject(JSONObject.toJSONString(request))} 的结果一致，
+ * 嵌套的列表与对象仍为 JSONArray/JSONObject。
+ * 内容生成后可能被任意修改，因此不再携带请求对象，取值时按 map 内容重新转换。
+ * </p>
+ */
+public class TypedRequestParam<T> extends AbstractMap<String, Object> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private transient T value;
+
+    private JSONObject content;
+
+    public TypedRequestParam(T value) {
+        this.value = value;
+    }
+
+    /**
+     * 从请求参数中取出指定类型的请求对象，参数未携带该类型对象时按JSON转换。
+     */
+    public static <T> T unwrap(Map<String, Object> param, Class<T> type) {
+        if (param instanceof TypedRequestParam) {
+            Object value = ((TypedRequestParam<?>) param).value;
+            if (type.isInstance(value)) {
+                return type.cast(value);
+            }
+        }
+        return new JSONObject(param).toJavaObject(type);
+    }
+
+    private JSONObject content() {
+        if (content == null) {
+            content = value == null ? new JSONObject() : JSONObject.parseObject(JSONObject.toJSONString(value));
+            value = null;
+        }
+        return content;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return content().entrySet();
+    }
+
+    @Override
+    public int size() {
+        return content().size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return content().containsKey(key);
+    }
+
+    @Override
+    public Object get(Object key) {
+        return content().get(key);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        return content().put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        return content().remove(key);
+    }
+
+    @Override
+    public void clear() {
+        content().clear();
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        content();
+        out.defaultWriteObject();
+    }
+
+}
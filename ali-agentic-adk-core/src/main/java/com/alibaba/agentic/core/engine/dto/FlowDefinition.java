@@ -15,9 +15,15 @@
  */
 package com.alibaba.agentic.core.engine.dto;
 
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.function.Supplier;
 
 /**
  * 流程定义数据传输对象。
@@ -25,11 +31,14 @@ import lombok.NoArgsConstructor;
  * 封装已部署流程的基本信息，包括定义ID、版本号以及对应的BPMN XML内容。
  * 用于在不同组件间传递流程定义信息。
  * </p>
+ * <p>
+ * 直接编译部署的流程不会生成 XML，此时 bpmnXml 延迟到首次读取时（持久化或调试）才按部署时记录的结构快照生成，
+ * 快照不引用画布，部署后再修改画布不影响生成结果。
+ * </p>
  *
  * @author 框架团队
  */
 @Data
-@AllArgsConstructor
 @NoArgsConstructor
 public class FlowDefinition {
 
@@ -48,4 +57,43 @@ public class FlowDefinition {
      */
     private String bpmnXml;
 
+    /**
+     * BPMN XML的延迟生成器，生成后即丢弃。
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private transient volatile Supplier<String> bpmnXmlSupplier;
+
+    public FlowDefinition(String definitionId, String version, String bpmnXml) {
+        this.definitionId = definitionId;
+        this.version = version;
+        this.bpmnXml = bpmnXml;
+    }
+
+    public FlowDefinition(String definitionId, String version, Supplier<String> bpmnXmlSupplier) {
+        this.definitionId = definitionId;
+        this.version = version;
+        this.bpmnXmlSupplier = bpmnXmlSupplier;
+    }
+
+    public String getBpmnXml() {
+        if (bpmnXmlSupplier != null) {
+            synchronized (this) {
+                Supplier<String> supplier = bpmnXmlSupplier;
+                if (supplier != null) {
+                    bpmnXml = supplier.get();
+                    bpmnXmlSupplier = null;
+                }
+            }
+        }
+        return bpmnXml;
+    }
+
+    public void setBpmnXml(String bpmnXml) {
+        this.bpmnXml = bpmnXml;
+        this.bpmnXmlSupplier = null;
+    }
+
 }
@@ -15,10 +15,13 @@
  */
 package com.alibaba.agentic.core.engine.node;
 
+import com.alibaba.agentic.core.engine.behavior.BaseCondition;
+import com.alibaba.agentic.core.engine.behavior.ConditionRegistry;
 import com.alibaba.agentic.core.engine.constants.NodeIdConstant;
 import com.alibaba.agentic.core.engine.dto.FlowDefinition;
 import com.alibaba.agentic.core.engine.utils.XmlUtils;
 import com.alibaba.agentic.core.flows.storage.FlowStorageService;
+import com.alibaba.agentic.core.tools.BaseTool;
 import com.alibaba.agentic.core.utils.ApplicationContextUtil;
 import com.alibaba.smart.framework.engine.SmartEngine;
 import com.alibaba.smart.framework.engine.bpmn.constant.BpmnNameSpaceConstant;
@@ -27,6 +30,8 @@ import com.alibaba.smart.framework.engine.exception.EngineException;
 import com.alibaba.smart.framework.engine.model.assembly.ProcessDefinition;
 import com.alibaba.smart.framework.engine.service.command.RepositoryCommandService;
 import com.alibaba.smart.framework.engine.service.query.RepositoryQueryService;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections.CollectionUtils;
@@ -36,13 +41,15 @@ import org.dom4j.io.OutputFormat;
 import org.dom4j.io.XMLWriter;
 
 import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * 流程画布。
  * <p>
  * 流程定义的核心容器，包含流程的根节点、配置信息以及部署能力。
- * 负责将流程节点结构转换为 BPMN XML 格式，并部署到执行引擎中。
+ * 负责将流程节点结构编译为执行引擎的流程模型并部署，按需生成 BPMN XML 格式。
  * </p>
  *
  * @author 框架团队
@@ -78,27 +85,237 @@ public class FlowCanvas {
 
     // 部署最终生成的bpmn xml内容
     public FlowDefinition deploy() {
+        return deploy(false);
+    }
+
+    /**
+     * 将画布直接编译为流程模型并部署到smart engine，不再经过bpmn xml解析。
+     * 持久化的xml按编译时记录的结构快照延迟生成，只有存储实现读取时才生成，部署后画布再被修改也不会影响已保存的定义。
+     *
+     * @param overwrite 为 true 时即使引擎中已缓存同 id/version 的定义也重新部署（画布结构发生变化时使用）
+     * @return 流程定义
+     */
+    public FlowDefinition deploy(boolean overwrite) {
+
+        FlowDefinitionCompiler compiler = compileDefinition();
+        ProcessDefinition processDefinition = compiler.getProcessDefinition();
+
+        // 注册分支条件，部署节点依赖的内部流程；覆盖部署时先移除旧结构遗留的分支条件
+        if (overwrite) {
+            ConditionRegistry.unregisterConditions(processDefinitionId, version);
+        }
+        for (FlowNode currentNode : collectNodes()) {
+            if (CollectionUtils.isNotEmpty(currentNode.getConditionalContainerList())) {
+                currentNode.registerConditions(this);
+            }
+            currentNode.deployInnerFlows(this, overwrite);
+        }
+
+        FlowDefinition flowDefinition = new FlowDefinition(processDefinitionId, version, compiler::toBpmnXml);
+        // deploy到smart engine中
+        this.deployProcessDefinition(processDefinition, flowDefinition, overwrite);
+
+        // 返回最终的definition
+        return flowDefinition;
+    }
+
+    /**
+     * 将画布编译为smart engine的流程模型，结构与 {@link #toBpmnXml()} 生成的xml解析结果一致。
+     *
+     * @return 流程模型
+     */
+    public ProcessDefinition compile() {
+        return compileDefinition().getProcessDefinition();
+    }
+
+    private FlowDefinitionCompiler compileDefinition() {
+
+        initDefinitionIdentity();
+
+        FlowDefinitionCompiler compiler = new FlowDefinitionCompiler(processDefinitionId, version);
+
+        //创建start节点以及指向root节点的边
+        compiler.addStartEvent(NodeIdConstant.START);
+        compiler.addSequenceFlow(NodeIdConstant.START, root.getId());
+
+        // 依次编译每个节点
+        for (FlowNode currentNode : collectNodes()) {
+            currentNode.compile(compiler);
+            if (CollectionUtils.isEmpty(currentNode.getConditionalContainerList()) && Objects.isNull(currentNode.getNext())) {
+                // 指向结束节点的边
+                compiler.addSequenceFlow(currentNode.getId(), NodeIdConstant.END);
+            }
+        }
+        compiler.addEndEvent(NodeIdConstant.END);
+
+        return compiler;
+    }
 
+    /**
+     * 生成画布对应的bpmn xml，用于持久化与调试，部署本身不依赖xml。
+     *
+     * @return bpmn xml内容
+     */
+    public String toBpmnXml() {
+
+        initDefinitionIdentity();
+
+        return renderBpmnXml(processDefinitionId, version, processElement -> {
+            //创建start节点以及指向root节点的边的片段
+            addStartNode(processElement, root);
+
+            // 依次创建每个节点的片段
+            for (FlowNode currentNode : collectNodes()) {
+                currentNode.generate(processElement);
+                if (CollectionUtils.isEmpty(currentNode.getConditionalContainerList()) && Objects.isNull(currentNode.getNext())) {
+                    // 持久化一个指向结束节点的边
+                    this.addEdgeToEnd(processElement, currentNode);
+                }
+            }
+            this.addEndNode(processElement);
+        });
+    }
+
+    /**
+     * 生成bpmn xml文档，process元素下的内容由 processWriter 写入。
+     */
+    static String renderBpmnXml(String processDefinitionId, String version, Consumer<Element> processWriter) {
         // 初始化一个xml document
         Document document = DocumentHelper.createDocument();
 
         // 创建process
         Element definitionsElement = createDefinitionsElement(document);
 
+        //校验一下是否被覆盖
+        Element processElement = createProcessElement(definitionsElement, processDefinitionId, version);
+
+        processWriter.accept(processElement);
+
+        return getXmlString(document);
+    }
+
+    /**
+     * 未指定时生成流程定义标识与默认版本号，并为未指定标识的节点生成标识。
+     */
+    public void initDefinitionIdentity() {
         if (StringUtils.isEmpty(processDefinitionId)) {
             processDefinitionId = UUID.randomUUID().toString();
         }
         if (StringUtils.isEmpty(version)) {
             version = "1.0.0";
         }
+        initNodeIds();
+    }
 
-        //校验一下是否被覆盖
-        Element processElement = createProcessElement(definitionsElement, processDefinitionId, version);
+    /**
+     * 未指定标识的节点按流程定义、版本与遍历位置生成标识，同一画布重复构建时标识不变，
+     * 部署缓存才能命中；不同流程定义之间的节点标识互不冲突。
+     */
+    private void initNodeIds() {
+        if (Objects.isNull(root)) {
+            return;
+        }
+        // 节点标识尚未生成，按对象身份遍历
+        List<FlowNode> nodes = new ArrayList<>();
+        Set<FlowNode> visitedNodeSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<FlowNode> nodeQueue = new ArrayDeque<>();
+        nodeQueue.offer(root);
+        visitedNodeSet.add(root);
+        while (!nodeQueue.isEmpty()) {
+            FlowNode currentNode = nodeQueue.poll();
+            nodes.add(currentNode);
+            List<FlowNode> successors = new ArrayList<>();
+            if (CollectionUtils.isNotEmpty(currentNode.getConditionalContainerList())) {
+                currentNode.getConditionalContainerList().forEach(conditionalFlowNode -> successors.add(conditionalFlowNode.getFlowNode()));
+                successors.add(currentNode.getElseNext());
+            } else {
+                successors.add(currentNode.getNext());
+            }
+            for (FlowNode successor : successors) {
+                if (Objects.nonNull(successor) && visitedNodeSet.add(successor)) {
+                    nodeQueue.offer(successor);
+                }
+            }
+        }
+        for (int i = 0; i < nodes.size(); i++) {
+            FlowNode node = nodes.get(i);
+            if (!node.hasId()) {
+                String seed = processDefinitionId + ":" + version + ":" + i;
+                node.setId(node.getName() + "_" + UUID.nameUUIDFromBytes(seed.getBytes(StandardCharsets.UTF_8)));
+            }
+        }
+        nodes.forEach(node -> node.initInnerFlowIdentity(this));
+    }
 
-        //创建start节点以及指向root节点的边的片段
-        addStartNode(processElement, root);
+    /**
+     * 计算画布的结构指纹。
+     * <p>
+     * 覆盖节点类型、标识、连线、网关与节点自身的配置属性，
+     * 结构不变时指纹不变，可用于判断是否需要重新生成并部署bpmn xml。
+     * </p>
+     *
+     * @return 结构指纹
+     */
+    public String fingerprint() {
+        if (StringUtils.isNotEmpty(processDefinitionId)) {
+            initDefinitionIdentity();
+        }
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        hasher.putString(Objects.toString(processDefinitionId), StandardCharsets.UTF_8);
+        hasher.putString(Objects.toString(version), StandardCharsets.UTF_8);
+        for (FlowNode node : collectNodes()) {
+            node.fingerprint(hasher);
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * 收集画布及其内部流程（并行分支、循环体）中的分支条件与循环退出条件。
+     * <p>
+     * 条件不属于流程结构，部署缓存命中时引擎中注册的仍是首次部署时的条件实例；
+     * 按画布运行时以本次收集的条件为准，见 {@link com.alibaba.agentic.core.executor.SystemContext#getConditions()}。
+     * </p>
+     *
+     * @return 条件标识到条件的映射
+     */
+    public Map<String, BaseCondition> collectConditions() {
+        Map<String, BaseCondition> conditions = new HashMap<>();
+        if (Objects.isNull(root)) {
+            return conditions;
+        }
+        initDefinitionIdentity();
+        for (FlowNode node : collectNodes()) {
+            node.collectConditions(this, conditions);
+        }
+        return conditions;
+    }
 
-        // 依次创建每个节点的片段
+    /**
+     * 收集画布及其内部流程（并行分支、循环体）中工具节点绑定的工具实例。
+     * <p>
+     * 与条件相同，工具实例不属于流程结构，部署缓存命中时不会重新注册到 {@link com.alibaba.agentic.core.engine.delegation.DelegationTool}；
+     * 按画布运行时以本次收集的工具为准，见 {@link com.alibaba.agentic.core.executor.SystemContext#getTools()}。
+     * </p>
+     *
+     * @return 工具名称到工具实例的映射
+     */
+    public Map<String, BaseTool> collectTools() {
+        Map<String, BaseTool> tools = new HashMap<>();
+        if (Objects.isNull(root)) {
+            return tools;
+        }
+        initDefinitionIdentity();
+        for (FlowNode node : collectNodes()) {
+            node.collectTools(this, tools);
+        }
+        return tools;
+    }
+
+    /**
+     * 从根节点开始广度优先遍历所有可达节点，按遍历顺序返回。
+     */
+    private List<FlowNode> collectNodes() {
+        List<FlowNode> nodes = new ArrayList<>();
         Deque<FlowNode> nodeQueue = new ArrayDeque<>();
         nodeQueue.offer(root);
         // 记录访问过的节点，防止有环情况进入死循环
@@ -106,10 +323,9 @@ public class FlowCanvas {
         visitedNodeIdSet.add(root.getId());
         while (!nodeQueue.isEmpty()) {
             FlowNode currentNode = nodeQueue.poll();
-            currentNode.generate(processElement);
+            nodes.add(currentNode);
             if (CollectionUtils.isNotEmpty(currentNode.getConditionalContainerList())) {
                 currentNode.getConditionalContainerList().forEach(conditionalFlowNode -> {
-                    currentNode.registerCondition(conditionalFlowNode);
                     if (Objects.nonNull(conditionalFlowNode.getFlowNode()) && !visitedNodeIdSet.contains(conditionalFlowNode.getFlowNode().getId())) {
                         nodeQueue.offer(conditionalFlowNode.getFlowNode());
                         visitedNodeIdSet.add(conditionalFlowNode.getFlowNode().getId());
@@ -121,35 +337,20 @@ public class FlowCanvas {
                     visitedNodeIdSet.add(currentNode.getElseNext().getId());
                 }
             } else if (Objects.nonNull(currentNode.getNext())) {
-                if (!visitedNodeIdSet.contains(currentNode.getNext().getId())){
+                if (!visitedNodeIdSet.contains(currentNode.getNext().getId())) {
                     nodeQueue.offer(currentNode.getNext());
                     visitedNodeIdSet.add(currentNode.getNext().getId());
                 }
-            } else {
-                // 持久化一个指向结束节点的边
-                this.addEdgeToEnd(processElement, currentNode);
             }
         }
-        this.addEndNode(processElement);
-
-        String xmlString = getXmlString(document);
-        // deploy到smart engine中
-        this.deployProcessDefinition(processDefinitionId, version, xmlString);
-
-        FlowDefinition flowDefinition = new FlowDefinition();
-        flowDefinition.setDefinitionId(processDefinitionId);
-        flowDefinition.setVersion(version);
-        flowDefinition.setBpmnXml(xmlString);
-
-        // 返回最终的definition
-        return flowDefinition;
+        return nodes;
     }
 
 
     /**
      * 创建definitions元素并添加命名空间
      */
-    private Element createDefinitionsElement(Document document) {
+    private static Element createDefinitionsElement(Document document) {
         Namespace bpmnNamespace = new Namespace("", BpmnNameSpaceConstant.NAME_SPACE);
         Namespace smartNamespace = new Namespace(SMART_NAMESPACE_PREFIX, SmartBase.SMART_NS);
         Element definitionsElement = document.addElement("definitions");
@@ -161,7 +362,7 @@ public class FlowCanvas {
     /**
      * 创建process元素并设置基本属性
      */
-    private Element createProcessElement(Element definitionsElement, String processDefinitionId, String version) {
+    private static Element createProcessElement(Element definitionsElement, String processDefinitionId, String version) {
         Element processElement = definitionsElement.addElement(QName.get("process", Namespace.NO_NAMESPACE));
         processElement.addAttribute("id", processDefinitionId);
         processElement.addAttribute("isExecutable", "true");
@@ -169,7 +370,7 @@ public class FlowCanvas {
         return processElement;
     }
 
-    private String getXmlString(Document document) {
+    private static String getXmlString(Document document) {
         StringWriter stringWriter = new StringWriter();
         try {
             OutputFormat format = OutputFormat.createPrettyPrint();
@@ -203,17 +404,41 @@ public class FlowCanvas {
 
 
     public void deployProcessDefinition(String defineId, String version, String xml) {
+        deployProcessDefinition(defineId, version, xml, false);
+    }
+
+    /**
+     * 部署直接编译得到的流程模型，flowDefinition 交给存储层持久化。
+     */
+    public void deployProcessDefinition(ProcessDefinition processDefinition, FlowDefinition flowDefinition, boolean overwrite) {
+        SmartEngine smartEngine = (SmartEngine) ApplicationContextUtil.getBean(SmartEngine.class);
+        FlowStorageService flowStorageService = (FlowStorageService) ApplicationContextUtil.getBean(FlowStorageService.class);
+        String defineId = processDefinition.getId();
+        String version = processDefinition.getVersion();
+        try {
+            flowStorageService.saveBpmnXml(flowDefinition);
+            if (smartEngine.getRepositoryQueryService().getCachedProcessDefinition(defineId, version) != null && !overwrite) {
+                return;
+            }
+            FlowDefinitionCompiler.install(smartEngine, processDefinition);
+            log.info("deployProcessDefinition success, defineId: {}, version: {}", defineId, version);
+        } catch (Exception e) {
+            log.error("deployProcessDefinition fail, defineId: {}, version: {}", defineId, version, e);
+            throw new EngineException(e);
+        }
+    }
+
+    public void deployProcessDefinition(String defineId, String version, String xml, boolean overwrite) {
         SmartEngine smartEngine = (SmartEngine) ApplicationContextUtil.getBean(SmartEngine.class);
         FlowStorageService flowStorageService = (FlowStorageService) ApplicationContextUtil.getBean(FlowStorageService.class);
         RepositoryQueryService repositoryQueryService = smartEngine.getRepositoryQueryService();
         try {
-            String bpmnXml = flowStorageService.getBpmnXml(defineId, version);
+            String bpmnXml = flowStorageService.replaceBpmnXml(new FlowDefinition(defineId, version, xml));
             if (bpmnXml != null) {
                 log.info("bpmnXml already exists for defineId: {}, version: {}. Overwriting existing FlowDefinition!", defineId, version);
             }
-            flowStorageService.saveBpmnXml(new FlowDefinition(defineId, version, xml));
             ProcessDefinition processDefinition = repositoryQueryService.getCachedProcessDefinition(defineId, version);
-            if (processDefinition != null) {
+            if (processDefinition != null && !overwrite) {
                 return;
             }
             RepositoryCommandService repositoryCommandService = smartEngine.getRepositoryCommandService();
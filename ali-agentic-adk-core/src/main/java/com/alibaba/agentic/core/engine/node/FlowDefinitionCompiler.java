@@ -0,0 +1,294 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.agentic.core.engine.node;
+
+import com.alibaba.agentic.core.engine.constants.PropertyConstant;
+import com.alibaba.agentic.core.engine.utils.XmlUtils;
+import com.alibaba.smart.framework.engine.SmartEngine;
+import com.alibaba.smart.framework.engine.behavior.TransitionBehavior;
+import com.alibaba.smart.framework.engine.behavior.base.AbstractActivityBehavior;
+import com.alibaba.smart.framework.engine.bpmn.assembly.event.EndEvent;
+import com.alibaba.smart.framework.engine.bpmn.assembly.event.StartEvent;
+import com.alibaba.smart.framework.engine.bpmn.assembly.extension.ExtensionElementsImpl;
+import com.alibaba.smart.framework.engine.bpmn.assembly.gateway.ExclusiveGateway;
+import com.alibaba.smart.framework.engine.bpmn.assembly.process.ProcessDefinitionImpl;
+import com.alibaba.smart.framework.engine.bpmn.assembly.process.SequenceFlow;
+import com.alibaba.smart.framework.engine.bpmn.assembly.task.ServiceTask;
+import com.alibaba.smart.framework.engine.configuration.ProcessEngineConfiguration;
+import com.alibaba.smart.framework.engine.configuration.scanner.AnnotationScanner;
+import com.alibaba.smart.framework.engine.deployment.ProcessDefinitionContainer;
+import com.alibaba.smart.framework.engine.exception.EngineException;
+import com.alibaba.smart.framework.engine.extension.constant.ExtensionConstant;
+import com.alibaba.smart.framework.engine.instance.factory.ActivityInstanceFactory;
+import com.alibaba.smart.framework.engine.instance.factory.ExecutionInstanceFactory;
+import com.alibaba.smart.framework.engine.instance.factory.ProcessInstanceFactory;
+import com.alibaba.smart.framework.engine.instance.factory.TaskInstanceFactory;
+import com.alibaba.smart.framework.engine.instance.storage.ExecutionInstanceStorage;
+import com.alibaba.smart.framework.engine.model.assembly.Activity;
+import com.alibaba.smart.framework.engine.model.assembly.BaseElement;
+import com.alibaba.smart.framework.engine.model.assembly.IdBasedElement;
+import com.alibaba.smart.framework.engine.model.assembly.ProcessDefinition;
+import com.alibaba.smart.framework.engine.model.assembly.Transition;
+import com.alibaba.smart.framework.engine.model.assembly.impl.AbstractActivity;
+import com.alibaba.smart.framework.engine.pvm.PvmActivity;
+import com.alibaba.smart.framework.engine.pvm.PvmTransition;
+import com.alibaba.smart.framework.engine.pvm.impl.DefaultPvmActivity;
+import com.alibaba.smart.framework.engine.pvm.impl.DefaultPvmProcessDefinition;
+import com.alibaba.smart.framework.engine.pvm.impl.DefaultPvmTransition;
+import com.alibaba.smart.framework.engine.smart.Properties;
+import com.alibaba.smart.framework.engine.smart.Property;
+import org.apache.commons.collections.MapUtils;
+import org.dom4j.Element;
+import org.dom4j.Namespace;
+import org.dom4j.QName;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 流程定义编译器。
+ * <p>
+ * 将流程画布直接编译为 smart engine 的 {@link ProcessDefinition} 模型并安装到引擎，
+ * 不再经过 bpmn xml 文本的生成与解析。模型各字段的取值与 smart engine 解析 xml 的结果保持一致：
+ * 元素属性写入 properties，smart:properties 以 {@link Properties} 装饰到 extensionElements 中，
+ * 因此 {@link com.alibaba.agentic.core.engine.utils.SmartEngineUtils#getAllProperties} 等读取逻辑无需区分来源。
+ * </p>
+ * <p>
+ * 编译时同时记录各元素对应的 xml 片段（只保存标识与属性的副本），
+ * 需要持久化或调试时由 {@link #toBpmnXml()} 生成与 {@link FlowCanvas#toBpmnXml()} 等价的 bpmn xml。
+ * </p>
+ */
+public class FlowDefinitionCompiler {
+
+    private final ProcessDefinitionImpl processDefinition = new ProcessDefinitionImpl();
+
+    private final List<BaseElement> baseElementList = new ArrayList<>();
+
+    private final Map<String, IdBasedElement> idBasedElementMap = new LinkedHashMap<>();
+
+    private final List<Consumer<Element>> bpmnElementWriters = new ArrayList<>();
+
+    public FlowDefinitionCompiler(String processDefinitionId, String version) {
+        processDefinition.setId(processDefinitionId);
+        processDefinition.setVersion(version);
+        Map<String, String> properties = new HashMap<>();
+        properties.put("id", processDefinitionId);
+        properties.put("isExecutable", "true");
+        properties.put("version", version);
+        processDefinition.setProperties(properties);
+        processDefinition.setBaseElementList(baseElementList);
+        processDefinition.setIdBasedElementMap(idBasedElementMap);
+    }
+
+    public StartEvent addStartEvent(String id) {
+        StartEvent startEvent = new StartEvent();
+        startEvent.setStartActivity(true);
+        bpmnElementWriters.add(processElement -> processElement.addElement(QName.get("startEvent", Namespace.NO_NAMESPACE))
+                .addAttribute("id", id));
+        return addActivity(startEvent, id, null, Map.of());
+    }
+
+    public EndEvent addEndEvent(String id) {
+        bpmnElementWriters.add(processElement -> processElement.addElement(QName.get("endEvent", Namespace.NO_NAMESPACE))
+                .addAttribute("id", id));
+        return addActivity(new EndEvent(), id, null, Map.of());
+    }
+
+    public ExclusiveGateway addExclusiveGateway(String id, String name, String defaultFlowId) {
+        Map<String, String> attributes = new HashMap<>();
+        if (defaultFlowId != null) {
+            attributes.put("default", defaultFlowId);
+        }
+        bpmnElementWriters.add(processElement -> processElement.addElement(QName.get("exclusiveGateway", Namespace.NO_NAMESPACE))
+                .addAttribute("id", id)
+                .addAttribute("name", name)
+                .addAttribute(PropertyConstant.DEFAULT, defaultFlowId));
+        return addActivity(new ExclusiveGateway(), id, name, attributes);
+    }
+
+    /**
+     * 添加服务节点。
+     *
+     * @param className           smart:class 对应的 delegation 类名
+     * @param extensionProperties smart:properties 中的属性，value 为 null 的属性与 xml 中缺省 value 等价
+     */
+    public ServiceTask addServiceTask(String id, String name, String className, Map<String, String> extensionProperties) {
+        ServiceTask serviceTask = addActivity(new ServiceTask(), id, name, Map.of("class", className));
+        Map<String, String> propertySnapshot = MapUtils.isEmpty(extensionProperties) ? Map.of() : new LinkedHashMap<>(extensionProperties);
+        bpmnElementWriters.add(processElement -> {
+            Element serviceTaskElement = processElement.addElement(QName.get("serviceTask", Namespace.NO_NAMESPACE))
+                    .addAttribute("id", id)
+                    .addAttribute("name", name)
+                    .addAttribute("smart:class", className);
+            if (!propertySnapshot.isEmpty()) {
+                Element properties = serviceTaskElement.addElement("extensionElements").addElement("smart:properties");
+                propertySnapshot.forEach((key, value) -> properties.addElement("smart:property")
+                        .addAttribute("name", key)
+                        .addAttribute("value", value));
+            }
+        });
+        if (MapUtils.isNotEmpty(extensionProperties)) {
+            Properties properties = new Properties();
+            extensionProperties.forEach((key, value) -> {
+                Property property = new Property();
+                property.setName(key);
+                property.setValue(value);
+                Map<String, String> attrs = new HashMap<>();
+                attrs.put("name", key);
+                if (value != null) {
+                    attrs.put("value", value);
+                }
+                property.setAttrs(attrs);
+                properties.getExtensionList().add(property);
+            });
+            ExtensionElementsImpl extensionElements = new ExtensionElementsImpl();
+            extensionElements.decorate(properties);
+            serviceTask.setExtensionElements(extensionElements);
+        }
+        return serviceTask;
+    }
+
+    public SequenceFlow addSequenceFlow(String sourceRef, String targetRef) {
+        return addSequenceFlow(sourceRef, targetRef, Map.of());
+    }
+
+    public SequenceFlow addSequenceFlow(String sourceRef, String targetRef, Map<String, String> attributes) {
+        SequenceFlow sequenceFlow = new SequenceFlow();
+        sequenceFlow.setId(XmlUtils.getEdgeId(sourceRef, targetRef));
+        sequenceFlow.setSourceRef(sourceRef);
+        sequenceFlow.setTargetRef(targetRef);
+        // 与自定义的SequenceFlowParser一致，边上的属性（如默认分支标记）写入properties
+        Map<String, String> properties = new HashMap<>();
+        attributes.forEach((k, v) -> {
+            if (v != null) {
+                properties.put(k, v);
+            }
+        });
+        properties.put("id", sequenceFlow.getId());
+        properties.put("sourceRef", sourceRef);
+        properties.put("targetRef", targetRef);
+        sequenceFlow.setProperties(properties);
+        add(sequenceFlow.getId(), sequenceFlow);
+        Map<String, String> attributeSnapshot = new LinkedHashMap<>(attributes);
+        bpmnElementWriters.add(processElement -> XmlUtils.genEdge(processElement, sourceRef, targetRef, attributeSnapshot));
+        return sequenceFlow;
+    }
+
+    public ProcessDefinition getProcessDefinition() {
+        return processDefinition;
+    }
+
+    /**
+     * 按编译时记录的元素生成bpmn xml，元素顺序与 {@link FlowCanvas#toBpmnXml()} 不同，解析结果一致。
+     *
+     * @return bpmn xml内容
+     */
+    public String toBpmnXml() {
+        return FlowCanvas.renderBpmnXml(processDefinition.getId(), processDefinition.getVersion(),
+                processElement -> bpmnElementWriters.forEach(writer -> writer.accept(processElement)));
+    }
+
+    /**
+     * 为编译好的流程定义构建执行模型并安装到引擎中，同 id/version 的已有定义会被覆盖。
+     * 构建过程与 smart engine 部署 xml 时一致：按 id 建立活动与连线、绑定行为并连接出入边。
+     */
+    public static void install(SmartEngine smartEngine, ProcessDefinition processDefinition) {
+        ProcessEngineConfiguration processEngineConfiguration = smartEngine.getProcessEngineConfiguration();
+        AnnotationScanner annotationScanner = processEngineConfiguration.getAnnotationScanner();
+
+        DefaultPvmProcessDefinition pvmProcessDefinition = new DefaultPvmProcessDefinition();
+        pvmProcessDefinition.setId(processDefinition.getId());
+        pvmProcessDefinition.setVersion(processDefinition.getVersion());
+        pvmProcessDefinition.setModel(processDefinition);
+
+        Map<String, PvmActivity> pvmActivityMap = new LinkedHashMap<>();
+        Map<String, PvmTransition> pvmTransitionMap = new LinkedHashMap<>();
+        for (BaseElement element : processDefinition.getBaseElementList()) {
+            if (element instanceof Transition) {
+                DefaultPvmTransition pvmTransition = new DefaultPvmTransition();
+                pvmTransition.setModel((Transition) element);
+                pvmTransitionMap.put(((Transition) element).getId(), pvmTransition);
+            } else if (element instanceof Activity) {
+                DefaultPvmActivity pvmActivity = new DefaultPvmActivity();
+                pvmActivity.setModel((Activity) element);
+                pvmActivityMap.put(((Activity) element).getId(), pvmActivity);
+                if (((Activity) element).isStartActivity()) {
+                    pvmProcessDefinition.setStartActivity(pvmActivity);
+                }
+            }
+        }
+
+        for (PvmTransition transition : pvmTransitionMap.values()) {
+            DefaultPvmTransition pvmTransition = (DefaultPvmTransition) transition;
+            Transition model = pvmTransition.getModel();
+            DefaultPvmActivity source = (DefaultPvmActivity) pvmActivityMap.get(model.getSourceRef());
+            DefaultPvmActivity target = (DefaultPvmActivity) pvmActivityMap.get(model.getTargetRef());
+            if (source == null || target == null) {
+                throw new EngineException(String.format("sequence flow %s refers to unknown activity, sourceRef: %s, targetRef: %s",
+                        model.getId(), model.getSourceRef(), model.getTargetRef()));
+            }
+            pvmTransition.setSource(source);
+            pvmTransition.setTarget(target);
+            source.addOutcomeTransition(model.getId(), pvmTransition);
+            target.addIncomeTransition(model.getId(), pvmTransition);
+            pvmTransition.setBehavior(annotationScanner.getExtensionPoint(ExtensionConstant.ACTIVITY_BEHAVIOR, TransitionBehavior.class));
+        }
+
+        for (PvmActivity pvmActivity : pvmActivityMap.values()) {
+            Activity model = pvmActivity.getModel();
+            AbstractActivityBehavior behavior = (AbstractActivityBehavior) annotationScanner.getObject(ExtensionConstant.ACTIVITY_BEHAVIOR, model.getClass());
+            behavior.setProcessInstanceFactory(annotationScanner.getExtensionPoint(ExtensionConstant.COMMON, ProcessInstanceFactory.class));
+            behavior.setExecutionInstanceFactory(annotationScanner.getExtensionPoint(ExtensionConstant.COMMON, ExecutionInstanceFactory.class));
+            behavior.setActivityInstanceFactory(annotationScanner.getExtensionPoint(ExtensionConstant.COMMON, ActivityInstanceFactory.class));
+            behavior.setTaskInstanceFactory(annotationScanner.getExtensionPoint(ExtensionConstant.COMMON, TaskInstanceFactory.class));
+            behavior.setProcessEngineConfiguration(processEngineConfiguration);
+            behavior.setExecutionInstanceStorage(annotationScanner.getExtensionPoint(ExtensionConstant.COMMON, ExecutionInstanceStorage.class));
+            pvmActivity.setBehavior(behavior);
+        }
+        pvmProcessDefinition.setActivities(pvmActivityMap);
+        pvmProcessDefinition.setTransitions(pvmTransitionMap);
+
+        ProcessDefinitionContainer processDefinitionContainer = annotationScanner.getExtensionPoint(ExtensionConstant.SERVICE, ProcessDefinitionContainer.class);
+        processDefinitionContainer.install(pvmProcessDefinition, processDefinition);
+    }
+
+    private <T extends AbstractActivity> T addActivity(T activity, String id, String name, Map<String, String> attributes) {
+        activity.setId(id);
+        activity.setName(name);
+        // 与解析xml时一致，元素上的全部属性（按local name）都写入properties
+        Map<String, String> properties = new HashMap<>(attributes);
+        properties.put("id", id);
+        if (name != null) {
+            properties.put("name", name);
+        }
+        activity.setProperties(properties);
+        add(id, activity);
+        return activity;
+    }
+
+    private void add(String id, IdBasedElement element) {
+        if (idBasedElementMap.containsKey(id)) {
+            throw new EngineException("duplicated id found: " + id);
+        }
+        idBasedElementMap.put(id, element);
+        baseElementList.add(element);
+    }
+
+}
@@ -16,6 +16,7 @@
 package com.alibaba.agentic.core.engine.node;
 
 
+import com.alibaba.agentic.core.engine.behavior.BaseCondition;
 import com.alibaba.agentic.core.engine.behavior.ConditionRegistry;
 import com.alibaba.agentic.core.engine.constants.NodeIdConstant;
 import com.alibaba.agentic.core.engine.constants.PropertyConstant;
@@ -26,16 +27,20 @@ import com.alibaba.agentic.core.engine.node.sub.ReferenceFlowNode;
 import com.alibaba.agentic.core.engine.utils.XmlUtils;
 import com.alibaba.agentic.core.exceptions.BaseException;
 import com.alibaba.agentic.core.exceptions.ErrorEnum;
+import com.alibaba.agentic.core.tools.BaseTool;
 import com.alibaba.agentic.core.utils.AssertUtils;
+import com.google.common.hash.Hasher;
 import lombok.Data;
 import lombok.Getter;
 import lombok.experimental.Accessors;
 import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.dom4j.Element;
 import org.dom4j.Namespace;
 import org.dom4j.QName;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
 
@@ -166,7 +171,123 @@ public abstract class FlowNode {
     }
 
     protected void addProperties(Element serviceTask) {
+        Map<String, String> extensionProperties = extensionProperties();
+        if (MapUtils.isEmpty(extensionProperties)) {
+            return;
+        }
+        Element extensionElements = serviceTask.addElement("extensionElements");
+        Element properties = extensionElements.addElement("smart:properties");
+        extensionProperties.forEach((k, v) -> {
+            Element prop = properties.addElement("smart:property");
+            prop.addAttribute("name", k);
+            prop.addAttribute("value", v);
+        });
+    }
 
+    /**
+     * 节点写入 smart:properties 的属性，生成xml与直接编译共用，保证两种部署方式读到的属性一致。
+     */
+    protected Map<String, String> extensionProperties() {
+        return Map.of();
+    }
+
+    // 将当前节点直接编译为流程模型，结构与generate生成的xml一致
+    protected void compile(FlowDefinitionCompiler compiler) {
+        if (!checkAtMostOneTypeOfNextNode()) {
+            throw new BaseException(
+                    String.format("next: %s, conditionalFancyNodeList: %s, only allow one type of next node.", this.next, this.conditionalContainerList),
+                    ErrorEnum.FLOW_CONFIG_ERROR
+            );
+        }
+
+        if (CollectionUtils.isNotEmpty(this.conditionalContainerList)) {
+            if (Objects.isNull(this.gateway)) {
+                throw new BaseException("gateway is null during compilation of flow definition.", ErrorEnum.SYSTEM_ERROR);
+            }
+            compiler.addSequenceFlow(this.getId(), this.gateway.getGatewayId());
+            this.conditionalContainerList.forEach(node -> {
+                if (Objects.nonNull(node.getFlowNode())) {
+                    compiler.addSequenceFlow(this.gateway.getGatewayId(), node.getFlowNode().getId());
+                }
+            });
+            String defaultFlowId = null;
+            if (Objects.nonNull(this.elseNext)) {
+                defaultFlowId = compiler.addSequenceFlow(this.gateway.getGatewayId(), this.elseNext.getId(),
+                        Map.of(PropertyConstant.SYMBOL_KEY, PropertyConstant.SYMBOL_VALUE_CONDITION_DEFAULT_FLOW)).getId();
+            }
+            compiler.addExclusiveGateway(this.gateway.getGatewayId(), this.gateway.getGatewayName(), defaultFlowId);
+        }
+
+        compiler.addServiceTask(getId(), name, getDelegationClassName(), extensionProperties());
+
+        if (Objects.nonNull(this.next)) {
+            compiler.addSequenceFlow(getId(), this.next.getId());
+        }
+    }
+
+    /**
+     * 部署节点依赖的内部流程（如并行分支），在所属画布部署时调用，默认无内部流程。
+     */
+    protected void deployInnerFlows(FlowCanvas canvas, boolean overwrite) {
+    }
+
+    /**
+     * 为节点依赖的内部流程生成确定的定义标识与节点标识，在所属画布生成标识后调用，默认无内部流程。
+     */
+    protected void initInnerFlowIdentity(FlowCanvas canvas) {
+    }
+
+    /**
+     * 收集节点各分支的条件，键为 {@link ConditionRegistry} 中的条件标识。
+     * 子类追加内部流程的条件时需先调用父类实现。
+     */
+    protected void collectConditions(FlowCanvas canvas, Map<String, BaseCondition> conditions) {
+        if (CollectionUtils.isEmpty(conditionalContainerList) || Objects.isNull(gateway)) {
+            return;
+        }
+        for (ConditionalContainer conditionalContainer : conditionalContainerList) {
+            if (Objects.nonNull(conditionalContainer.getFlowNode())) {
+                conditions.put(ConditionRegistry.constructConditionId(canvas.getProcessDefinitionId(), canvas.getVersion(),
+                        gateway.getGatewayId(), conditionalContainer.getFlowNode().getId()), conditionalContainer);
+            }
+        }
+    }
+
+    /**
+     * 收集节点绑定的工具实例，键为工具名称，默认无工具。
+     * 子类追加内部流程的工具时需先调用父类实现。
+     */
+    protected void collectTools(FlowCanvas canvas, Map<String, BaseTool> tools) {
+    }
+
+    /**
+     * 将节点结构写入指纹：类型、标识、连线与网关类型。网关标识由节点标识派生，不单独计入。
+     * 子类追加自身配置属性时需先调用父类实现。
+     */
+    protected void fingerprint(Hasher hasher) {
+        putString(hasher, getClass().getName());
+        putString(hasher, getId());
+        putString(hasher, name);
+        putString(hasher, getDelegationClassName());
+        putString(hasher, Objects.isNull(next) ? null : next.getId());
+        if (CollectionUtils.isNotEmpty(conditionalContainerList)) {
+            putString(hasher, Objects.isNull(gateway) ? null : gateway.getGatewayType());
+            for (ConditionalContainer container : conditionalContainerList) {
+                putString(hasher, container.getClass().getName());
+                putString(hasher, Objects.isNull(container.getFlowNode()) ? null : container.getFlowNode().getId());
+            }
+            putString(hasher, Objects.isNull(elseNext) ? null : elseNext.getId());
+        }
+    }
+
+    protected static void putString(Hasher hasher, String value) {
+        // 带长度前缀，避免相邻字段拼接产生歧义
+        if (value == null) {
+            hasher.putInt(-1);
+            return;
+        }
+        hasher.putInt(value.length());
+        hasher.putString(value, StandardCharsets.UTF_8);
     }
 
     // 设置自己的下一个节点
@@ -216,7 +337,7 @@ public abstract class FlowNode {
     }
 
     public FlowNode nextOnParallel(ParallelFlowNode node) {
-        throw new IllegalArgumentException("only support on parallel node");
+        return next(node);
     }
 
     public FlowNode next(FlowCanvas canvas) {
@@ -253,19 +374,30 @@ public abstract class FlowNode {
         return this;
     }
 
-    public void registerCondition(ConditionalContainer conditionalContainer) {
-        if (Objects.nonNull(conditionalContainer.getFlowNode())) {
-            ConditionRegistry.register(gateway.getGatewayId(), conditionalContainer);
-        } else {
-            throw new BaseException(String.format("The instance of ConditionFlowNode has no block after branch decision. " +
-                    "Please configure its field of flowNode. Predecessor Node: %s, Current Node: %s", this, conditionalContainer), ErrorEnum.PROPERTY_CONFIG_ERROR);
+    /**
+     * 注册当前节点各分支的条件，条件按所属流程定义隔离，画布重新部署时覆盖旧条件。
+     */
+    public void registerConditions(FlowCanvas canvas) {
+        Set<String> flowNodeIdSet = new HashSet<>();
+        for (ConditionalContainer conditionalContainer : conditionalContainerList) {
+            if (Objects.isNull(conditionalContainer.getFlowNode())) {
+                throw new BaseException(String.format("The instance of ConditionFlowNode has no block after branch decision. " +
+                        "Please configure its field of flowNode. Predecessor Node: %s, Current Node: %s", this, conditionalContainer), ErrorEnum.PROPERTY_CONFIG_ERROR);
+            }
+            if (!flowNodeIdSet.add(conditionalContainer.getFlowNode().getId())) {
+                throw new BaseException("Two nodes' id are same in conditionalFancyNodeList of one predecessor node. Please check flow configuration", ErrorEnum.FLOW_CONFIG_ERROR);
+            }
         }
+        conditionalContainerList.forEach(conditionalContainer -> ConditionRegistry.register(
+                canvas.getProcessDefinitionId(), canvas.getVersion(), gateway.getGatewayId(), conditionalContainer));
     }
 
-    protected abstract class Gateway {
+    // 是否已指定或生成节点标识
+    boolean hasId() {
+        return StringUtils.isNotBlank(id);
+    }
 
-        @Getter
-        protected String gatewayId;
+    protected abstract class Gateway {
 
         @Getter
         protected String gatewayName;
@@ -273,9 +405,15 @@ public abstract class FlowNode {
         @Getter
         protected String gatewayType;
 
-        protected void initGatewayIdAndName() {
+        /**
+         * 网关标识由所属节点标识派生，同一画布重复构建时保持不变。
+         */
+        public String getGatewayId() {
+            return FlowNode.this.getId() + "_" + this.gatewayType;
+        }
+
+        protected void initGatewayName() {
             this.gatewayName = this.gatewayType;
-            this.gatewayId = this.gatewayName + "_" + UUID.randomUUID();
         }
 
     }
@@ -283,7 +421,7 @@ public abstract class FlowNode {
     protected class ExclusiveGateway extends Gateway {
         ExclusiveGateway() {
             this.gatewayType = "exclusiveGateway";
-            initGatewayIdAndName();
+            initGatewayName();
         }
 
     }
@@ -291,7 +429,7 @@ public abstract class FlowNode {
     protected class ParallelGateway extends Gateway {
         ParallelGateway() {
             this.gatewayType = "parallelGateway";
-            initGatewayIdAndName();
+            initGatewayName();
         }
 
     }
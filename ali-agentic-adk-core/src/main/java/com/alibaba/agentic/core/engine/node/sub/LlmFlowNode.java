@@ -20,10 +20,12 @@ import com.alibaba.agentic.core.engine.delegation.DelegationLlm;
 import com.alibaba.agentic.core.engine.delegation.domain.LlmRequest;
 import com.alibaba.agentic.core.engine.node.FlowNode;
 import com.alibaba.fastjson.JSONObject;
+import com.google.common.hash.Hasher;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import org.dom4j.Element;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @EqualsAndHashCode(callSuper = true)
@@ -52,16 +54,20 @@ public class LlmFlowNode extends FlowNode {
     }
 
     @Override
-    protected void addProperties(Element serviceTask) {
-        Element extensionElements = serviceTask.addElement("extensionElements");
-        Element properties = extensionElements.addElement("smart:properties");
+    protected Map<String, String> extensionProperties() {
+        Map<String, String> properties = new LinkedHashMap<>();
         Map<String, Object> reqMap = JSONObject.parseObject(JSONObject.toJSONString(llmRequest), Map.class);
         reqMap.forEach((k, v) -> {
             if (v != null) {
-                Element prop = properties.addElement("smart:property");
-                prop.addAttribute("name", k);
-                prop.addAttribute("value", v instanceof String ? (String) v : JSONObject.toJSONString(v));
+                properties.put(k, v instanceof String ? (String) v : JSONObject.toJSONString(v));
             }
         });
+        return properties;
+    }
+
+    @Override
+    protected void fingerprint(Hasher hasher) {
+        super.fingerprint(hasher);
+        putString(hasher, JSONObject.toJSONString(llmRequest));
     }
 }
@@ -15,17 +15,62 @@
  */
 package com.alibaba.agentic.core.engine.node.sub;
 
+import com.alibaba.agentic.core.engine.behavior.BaseCondition;
+import com.alibaba.agentic.core.engine.behavior.ConditionRegistry;
+import com.alibaba.agentic.core.engine.constants.NodeType;
+import com.alibaba.agentic.core.engine.delegation.DelegationLoop;
 import com.alibaba.agentic.core.engine.node.FlowCanvas;
 import com.alibaba.agentic.core.engine.node.FlowNode;
+import com.alibaba.agentic.core.exceptions.BaseException;
+import com.alibaba.agentic.core.exceptions.ErrorEnum;
+import com.alibaba.agentic.core.tools.BaseTool;
+import com.google.common.hash.Hasher;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * DESCRIPTION
+ * 循环节点
+ * <p>
+ * 内部画布在所属画布部署时编译为独立的子流程，只部署一次，每轮迭代直接启动该子流程。
+ * 每轮迭代的结果产生后立即向下游推送；每轮结束后计算退出条件，并受最大迭代次数与总耗时限制。
+ * 配置 iterateOver 时按请求参数中的列表逐项迭代（map 式循环），concurrency 大于1时各项并发执行、按顺序输出。
+ * </p>
+ */
 @EqualsAndHashCode(callSuper = true)
 @Data
 public class LoopFlowNode extends FlowNode {
 
+    public static final int DEFAULT_MAX_ITERATIONS = 10;
+
+    /**
+     * 迭代序号在迭代请求参数中的键
+     */
+    public static final String LOOP_INDEX_KEY = "loopIndex";
+
+    /**
+     * map 式循环中当前元素在迭代请求参数中的默认键
+     */
+    public static final String DEFAULT_ITEM_KEY = "loopItem";
+
     //内部循环执行的runner
     private FlowCanvas innerCanvas;
+    //退出条件，每轮迭代结束后计算，返回true时结束循环
+    private BaseCondition exitCondition;
+    //最大迭代次数
+    private int maxIterations = DEFAULT_MAX_ITERATIONS;
+    //循环总耗时上限，小于等于0表示不限制
+    private long maxDurationMillis;
+    //map式循环所迭代的请求参数名，为空时按次数循环
+    private String iterateOver;
+    //map式循环中当前元素写入迭代请求参数的键
+    private String itemKey = DEFAULT_ITEM_KEY;
+    //map式循环的并发度
+    private int concurrency = 1;
 
     public FlowCanvas getInnerRunner() {
         return innerCanvas;
@@ -37,11 +82,95 @@ public class LoopFlowNode extends FlowNode {
 
     @Override
     protected String getNodeType() {
-        return null;
+        return NodeType.LOOP;
     }
 
     @Override
     protected String getDelegationClassName() {
-        return null;
+        return DelegationLoop.class.getName();
+    }
+
+    /**
+     * 循环体子流程的定义标识，由所属流程与循环节点唯一确定
+     */
+    public static String bodyDefinitionId(String processDefinitionId, String loopNodeId) {
+        return processDefinitionId + "_" + loopNodeId + "_body";
+    }
+
+    @Override
+    protected void deployInnerFlows(FlowCanvas canvas, boolean overwrite) {
+        if (Objects.isNull(innerCanvas) || Objects.isNull(innerCanvas.getRoot())) {
+            throw new BaseException(String.format("loop node %s has no inner canvas.", getId()), ErrorEnum.FLOW_CONFIG_ERROR);
+        }
+        if (maxIterations <= 0 || concurrency <= 0) {
+            throw new BaseException(String.format("loop node %s maxIterations: %s, concurrency: %s, should be positive.",
+                    getId(), maxIterations, concurrency), ErrorEnum.FLOW_CONFIG_ERROR);
+        }
+        ConditionRegistry.registerLoopCondition(
+                ConditionRegistry.constructLoopConditionId(canvas.getProcessDefinitionId(), canvas.getVersion(), getId()), exitCondition);
+        bodyCanvas(canvas.getProcessDefinitionId(), canvas.getVersion()).deploy(overwrite);
+    }
+
+    @Override
+    protected void initInnerFlowIdentity(FlowCanvas canvas) {
+        if (Objects.nonNull(innerCanvas) && Objects.nonNull(innerCanvas.getRoot())) {
+            bodyCanvas(canvas.getProcessDefinitionId(), canvas.getVersion()).initDefinitionIdentity();
+        }
+    }
+
+    @Override
+    protected void collectConditions(FlowCanvas canvas, Map<String, BaseCondition> conditions) {
+        super.collectConditions(canvas, conditions);
+        // 未配置退出条件时同样记录，避免回退到同结构旧画布注册的条件
+        conditions.put(ConditionRegistry.constructLoopConditionId(canvas.getProcessDefinitionId(), canvas.getVersion(), getId()), exitCondition);
+        if (Objects.nonNull(innerCanvas) && Objects.nonNull(innerCanvas.getRoot())) {
+            conditions.putAll(bodyCanvas(canvas.getProcessDefinitionId(), canvas.getVersion()).collectConditions());
+        }
+    }
+
+    @Override
+    protected void collectTools(FlowCanvas canvas, Map<String, BaseTool> tools) {
+        super.collectTools(canvas, tools);
+        if (Objects.nonNull(innerCanvas) && Objects.nonNull(innerCanvas.getRoot())) {
+            tools.putAll(bodyCanvas(canvas.getProcessDefinitionId(), canvas.getVersion()).collectTools());
+        }
+    }
+
+    @Override
+    protected Map<String, String> extensionProperties() {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("maxIterations", String.valueOf(maxIterations));
+        properties.put("maxDurationMillis", String.valueOf(maxDurationMillis));
+        if (Objects.nonNull(iterateOver)) {
+            properties.put("iterateOver", iterateOver);
+        }
+        properties.put("itemKey", itemKey);
+        properties.put("concurrency", String.valueOf(concurrency));
+        return properties;
+    }
+
+    @Override
+    protected void fingerprint(Hasher hasher) {
+        super.fingerprint(hasher);
+        hasher.putInt(maxIterations);
+        hasher.putLong(maxDurationMillis);
+        putString(hasher, iterateOver);
+        putString(hasher, itemKey);
+        hasher.putInt(concurrency);
+        // 退出条件不参与部署，每次执行按本次运行的画布解析，不计入指纹
+        if (Objects.nonNull(innerCanvas) && Objects.nonNull(innerCanvas.getRoot())) {
+            putString(hasher, bodyCanvas(null, null).fingerprint());
+        }
+    }
+
+    private FlowCanvas bodyCanvas(String processDefinitionId, String version) {
+        FlowCanvas bodyCanvas = new FlowCanvas();
+        bodyCanvas.setRoot(innerCanvas.getRoot());
+        bodyCanvas.setFlowConfig(innerCanvas.getFlowConfig());
+        if (Objects.nonNull(processDefinitionId)) {
+            bodyCanvas.setProcessDefinitionId(bodyDefinitionId(processDefinitionId, getId()));
+            bodyCanvas.setVersion(version);
+        }
+        return bodyCanvas;
     }
 }
@@ -15,22 +15,64 @@
  */
 package com.alibaba.agentic.core.engine.node.sub;
 
+import com.alibaba.agentic.core.engine.behavior.BaseCondition;
 import com.alibaba.agentic.core.engine.constants.NodeType;
+import com.alibaba.agentic.core.engine.delegation.DelegationParallel;
+import com.alibaba.agentic.core.engine.node.FlowCanvas;
 import com.alibaba.agentic.core.engine.node.FlowNode;
+import com.alibaba.agentic.core.exceptions.BaseException;
+import com.alibaba.agentic.core.exceptions.ErrorEnum;
+import com.alibaba.agentic.core.tools.BaseTool;
+import com.alibaba.fastjson.JSONArray;
+import com.google.common.hash.Hasher;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import org.apache.commons.collections.CollectionUtils;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
 
+/**
+ * DESCRIPTION
+ * 并行节点
+ * <p>
+ * 每个分支节点（连同其 next 链路）在部署时编译为独立的子流程，
+ * 执行时在执行器上并发启动各分支子流程，按汇合策略等待结果后继续执行 next 节点。
+ * 各分支使用独立的 SystemContext 副本运行，汇合时再把成功分支的中间结果合并回主流程。
+ * </p>
+ */
 @EqualsAndHashCode(callSuper = true)
 @Data
 public class ParallelFlowNode extends FlowNode {
 
     //并行条件下的所有分支node。注意，触发并行节点的前提是next节点为空
     private List<FlowNode> parallelNodeList;
-    //自定义的并发节点执行器
+    //自定义的并发节点执行器，为空时使用框架默认执行器
     private ExecutorService executorService;
+    //分支汇合策略
+    private JoinStrategy joinStrategy = JoinStrategy.ALL;
+    //QUORUM策略下需要成功的分支数
+    private int quorum;
+    //单个分支的超时时间，小于等于0表示不限制
+    private long branchTimeoutMillis;
+
+    public enum JoinStrategy {
+        /**
+         * 全部分支成功才算成功，任一分支失败立即失败并取消其余分支
+         */
+        ALL,
+        /**
+         * 首个成功的分支胜出并取消其余分支，全部失败才算失败
+         */
+        FIRST_SUCCESS,
+        /**
+         * quorum 个分支成功即胜出并取消其余分支
+         */
+        QUORUM
+    }
 
     @Override
     protected String getNodeType() {
@@ -39,6 +81,100 @@ public class ParallelFlowNode extends FlowNode {
 
     @Override
     protected String getDelegationClassName() {
-        return null;
+        return DelegationParallel.class.getName();
+    }
+
+    /**
+     * 分支子流程的定义标识，由所属流程与并行节点唯一确定
+     */
+    public static String branchDefinitionId(String processDefinitionId, String parallelNodeId, int index) {
+        return processDefinitionId + "_" + parallelNodeId + "_branch_" + index;
+    }
+
+    @Override
+    protected void deployInnerFlows(FlowCanvas canvas, boolean overwrite) {
+        if (CollectionUtils.isEmpty(parallelNodeList)) {
+            throw new BaseException(String.format("parallel node %s has no branch.", getId()), ErrorEnum.FLOW_CONFIG_ERROR);
+        }
+        if (JoinStrategy.QUORUM.equals(joinStrategy) && (quorum <= 0 || quorum > parallelNodeList.size())) {
+            throw new BaseException(String.format("parallel node %s quorum: %s, should be in [1, %s].", getId(), quorum, parallelNodeList.size()),
+                    ErrorEnum.FLOW_CONFIG_ERROR);
+        }
+        DelegationParallel.registerExecutor(canvas.getProcessDefinitionId(), canvas.getVersion(), getId(), executorService);
+        for (int i = 0; i < parallelNodeList.size(); i++) {
+            branchCanvas(i, canvas.getProcessDefinitionId(), canvas.getVersion()).deploy(overwrite);
+        }
+    }
+
+    @Override
+    protected void initInnerFlowIdentity(FlowCanvas canvas) {
+        if (CollectionUtils.isEmpty(parallelNodeList)) {
+            return;
+        }
+        for (int i = 0; i < parallelNodeList.size(); i++) {
+            branchCanvas(i, canvas.getProcessDefinitionId(), canvas.getVersion()).initDefinitionIdentity();
+        }
+    }
+
+    @Override
+    protected void collectConditions(FlowCanvas canvas, Map<String, BaseCondition> conditions) {
+        super.collectConditions(canvas, conditions);
+        if (CollectionUtils.isEmpty(parallelNodeList)) {
+            return;
+        }
+        for (int i = 0; i < parallelNodeList.size(); i++) {
+            conditions.putAll(branchCanvas(i, canvas.getProcessDefinitionId(), canvas.getVersion()).collectConditions());
+        }
+    }
+
+    @Override
+    protected void collectTools(FlowCanvas canvas, Map<String, BaseTool> tools) {
+        super.collectTools(canvas, tools);
+        if (CollectionUtils.isEmpty(parallelNodeList)) {
+            return;
+        }
+        for (int i = 0; i < parallelNodeList.size(); i++) {
+            tools.putAll(branchCanvas(i, canvas.getProcessDefinitionId(), canvas.getVersion()).collectTools());
+        }
+    }
+
+    @Override
+    protected Map<String, String> extensionProperties() {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("joinStrategy", String.valueOf(joinStrategy));
+        properties.put("quorum", String.valueOf(quorum));
+        properties.put("branchTimeoutMillis", String.valueOf(branchTimeoutMillis));
+        properties.put("branchNodeIds", JSONArray.toJSONString(branchNodeIds()));
+        return properties;
+    }
+
+    @Override
+    protected void fingerprint(Hasher hasher) {
+        super.fingerprint(hasher);
+        putString(hasher, String.valueOf(joinStrategy));
+        hasher.putInt(quorum);
+        hasher.putLong(branchTimeoutMillis);
+        if (CollectionUtils.isNotEmpty(parallelNodeList)) {
+            for (int i = 0; i < parallelNodeList.size(); i++) {
+                putString(hasher, branchCanvas(i, null, null).fingerprint());
+            }
+        }
+    }
+
+    private List<String> branchNodeIds() {
+        if (CollectionUtils.isEmpty(parallelNodeList)) {
+            return List.of();
+        }
+        return parallelNodeList.stream().map(FlowNode::getId).collect(Collectors.toList());
+    }
+
+    private FlowCanvas branchCanvas(int index, String processDefinitionId, String version) {
+        FlowCanvas branchCanvas = new FlowCanvas();
+        branchCanvas.setRoot(parallelNodeList.get(index));
+        if (processDefinitionId != null) {
+            branchCanvas.setProcessDefinitionId(branchDefinitionId(processDefinitionId, getId(), index));
+            branchCanvas.setVersion(version);
+        }
+        return branchCanvas;
     }
 }
@@ -20,11 +20,12 @@ import com.alibaba.agentic.core.engine.delegation.DelegationFlowCanvas;
 import com.alibaba.agentic.core.engine.node.FlowCanvas;
 import com.alibaba.agentic.core.engine.node.FlowNode;
 import com.alibaba.fastjson.JSONObject;
+import com.google.common.hash.Hasher;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import org.apache.commons.collections.MapUtils;
-import org.dom4j.Element;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @EqualsAndHashCode(callSuper = true)
@@ -51,23 +52,20 @@ public class ReferenceFlowNode extends FlowNode {
     }
 
     @Override
-    protected void addProperties(Element serviceTask) {
-        Element extensionElements = serviceTask.addElement("extensionElements");
-        Element properties = extensionElements.addElement("smart:properties");
-
-        Element flowDefinitionIdElement = properties.addElement("smart:property");
-        flowDefinitionIdElement.addAttribute("name", "flowDefinitionId");
-        flowDefinitionIdElement.addAttribute("value", flowDefinitionId);
-
-        Element flowVersionElement = properties.addElement("smart:property");
-        flowVersionElement.addAttribute("name", "flowVersion");
-        flowVersionElement.addAttribute("value", flowVersion);
-
-        Element requestProperties = properties.addElement("smart:property");
-        requestProperties.addAttribute("name", "parameter");
-        requestProperties.addAttribute("value", MapUtils.isEmpty(parameter) ? "{}" : JSONObject.toJSONString(parameter));
-
+    protected Map<String, String> extensionProperties() {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("flowDefinitionId", flowDefinitionId);
+        properties.put("flowVersion", flowVersion);
+        properties.put("parameter", MapUtils.isEmpty(parameter) ? "{}" : JSONObject.toJSONString(parameter));
+        return properties;
     }
 
+    @Override
+    protected void fingerprint(Hasher hasher) {
+        super.fingerprint(hasher);
+        putString(hasher, flowDefinitionId);
+        putString(hasher, flowVersion);
+        putString(hasher, MapUtils.isEmpty(parameter) ? "{}" : JSONObject.toJSONString(parameter));
+    }
 
 }
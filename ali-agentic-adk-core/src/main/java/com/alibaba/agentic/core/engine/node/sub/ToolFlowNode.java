@@ -17,16 +17,21 @@ package com.alibaba.agentic.core.engine.node.sub;
 
 import com.alibaba.agentic.core.engine.constants.NodeType;
 import com.alibaba.agentic.core.engine.delegation.DelegationTool;
+import com.alibaba.agentic.core.engine.node.FlowCanvas;
+import com.alibaba.agentic.core.engine.node.FlowDefinitionCompiler;
 import com.alibaba.agentic.core.engine.node.FlowNode;
 import com.alibaba.agentic.core.tools.BaseTool;
 import com.alibaba.fastjson.JSONObject;
+import com.google.common.hash.Hasher;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.experimental.Accessors;
 import org.apache.commons.collections.CollectionUtils;
 import org.dom4j.Element;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @EqualsAndHashCode(callSuper = true)
 @Data
@@ -73,18 +78,34 @@ public class ToolFlowNode extends FlowNode {
     }
 
     @Override
-    protected void addProperties(Element serviceTask) {
-        Element extensionElements = serviceTask.addElement("extensionElements");
-        Element properties = extensionElements.addElement("smart:properties");
+    protected void compile(FlowDefinitionCompiler compiler) {
+        super.compile(compiler);
+        if (baseTool != null) {
+            DelegationTool.register(baseTool);
+        }
+    }
 
-        Element functionToolNameProperties = properties.addElement("smart:property");
-        functionToolNameProperties.addAttribute("name", "functionToolName");
-        functionToolNameProperties.addAttribute("value", functionToolName);
+    @Override
+    protected void collectTools(FlowCanvas canvas, Map<String, BaseTool> tools) {
+        super.collectTools(canvas, tools);
+        if (baseTool != null) {
+            tools.put(functionToolName, baseTool);
+        }
+    }
 
-        Element paramListProperties = properties.addElement("smart:property");
-        paramListProperties.addAttribute("name", "paramList");
-        paramListProperties.addAttribute("value", CollectionUtils.isEmpty(paramList) ? "[]" : JSONObject.toJSONString(paramList));
+    @Override
+    protected Map<String, String> extensionProperties() {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("functionToolName", functionToolName);
+        properties.put("paramList", CollectionUtils.isEmpty(paramList) ? "[]" : JSONObject.toJSONString(paramList));
+        return properties;
+    }
 
+    @Override
+    protected void fingerprint(Hasher hasher) {
+        super.fingerprint(hasher);
+        putString(hasher, functionToolName);
+        putString(hasher, CollectionUtils.isEmpty(paramList) ? "[]" : JSONObject.toJSONString(paramList));
     }
 
 }
@@ -15,13 +15,17 @@
  */
 package com.alibaba.agentic.core.engine.utils;
 
+import com.alibaba.agentic.core.executor.InterOutput;
 import com.alibaba.agentic.core.executor.Result;
 import com.alibaba.agentic.core.executor.SystemContext;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.TypeReference;
+import com.alibaba.fastjson.parser.ParserConfig;
+import com.alibaba.fastjson.util.TypeUtils;
 import org.apache.commons.collections.MapUtils;
 
-import java.util.HashMap;
+import java.lang.reflect.Type;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -35,29 +39,33 @@ public class DelegationUtils {
     private final static String RESULT_PREFIX = "out_";
 
     public static void saveInterOutput(String activityId, SystemContext systemContext, Result result) {
-        if (systemContext.getInterOutput() == null) {
-            systemContext.setInterOutput(new HashMap<>());
-        }
+        InterOutput interOutput = getInterOutput(systemContext);
         if (MapUtils.isEmpty(result.getData())) {
             return;
         }
-        systemContext.getInterOutput().put(getInterOutputKey(activityId), result.getData());
+        interOutput.put(getInterOutputKey(activityId), result.getData());
     }
 
+    /**
+     * 以指定类型读取节点输出，每次返回独立的副本，修改副本不影响已保存的输出。
+     */
     public static <T> T getResultOfNode(SystemContext systemContext, String activityId, Class<T> clazz) {
         if (systemContext.getInterOutput() == null) {
             return null;
         }
         return Optional.ofNullable(systemContext.getInterOutput().get(getInterOutputKey(activityId)))
-                .map(map -> JSON.parseObject(JSON.toJSONString(map), clazz)).orElse(null);
+                .map(map -> DelegationUtils.<T>toJavaObject(map, clazz)).orElse(null);
     }
 
+    /**
+     * 以指定类型读取节点输出，每次返回独立的副本，修改副本不影响已保存的输出。
+     */
     public static <T> T getResultOfNode(SystemContext systemContext, String activityId, TypeReference<T> typeReference) {
         if (systemContext.getInterOutput() == null) {
             return null;
         }
         return Optional.ofNullable(systemContext.getInterOutput().get(getInterOutputKey(activityId)))
-                .map(map -> JSON.parseObject(JSON.toJSONString(map), typeReference)).orElse(null);
+                .map(map -> DelegationUtils.<T>toJavaObject(map, typeReference.getType())).orElse(null);
     }
 
 
@@ -69,6 +77,20 @@ public class DelegationUtils {
                 .map(map -> map.get(key)).orElse(null);
     }
 
+    /**
+     * 返回上下文的中间结果存储，未初始化时创建
+     */
+    public static InterOutput getInterOutput(SystemContext systemContext) {
+        if (systemContext.getInterOutput() == null) {
+            synchronized (systemContext) {
+                if (systemContext.getInterOutput() == null) {
+                    systemContext.setInterOutput(new InterOutput());
+                }
+            }
+        }
+        return (InterOutput) systemContext.getInterOutput();
+    }
+
     public static Object getRequestParameter(SystemContext systemContext, String key) {
         return Optional.ofNullable(systemContext.getRequestParameter())
                 .map(map -> map.get(key)).orElse(null);
@@ -78,4 +100,16 @@ public class DelegationUtils {
     private static String getInterOutputKey(String activityId) {
         return RESULT_PREFIX + activityId;
     }
+
+    /**
+     * 先复制为json对象树再按类型转换，不经过json字符串；类型不兼容时退回序列化转换
+     */
+    private static <T> T toJavaObject(Map<String, Object> map, Type type) {
+        Object copy = JSON.toJSON(map);
+        try {
+            return TypeUtils.cast(copy, type, ParserConfig.getGlobalInstance());
+        } catch (RuntimeException e) {
+            return JSON.parseObject(JSON.toJSONString(map), type);
+        }
+    }
 }
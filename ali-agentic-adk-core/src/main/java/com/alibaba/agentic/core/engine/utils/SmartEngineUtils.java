@@ -19,20 +19,42 @@ import com.alibaba.smart.framework.engine.constant.ExtensionElementsConstant;
 import com.alibaba.smart.framework.engine.context.ExecutionContext;
 import com.alibaba.smart.framework.engine.model.assembly.ExtensionElementContainer;
 import com.alibaba.smart.framework.engine.model.assembly.ExtensionElements;
+import com.alibaba.smart.framework.engine.model.assembly.ProcessDefinition;
 import com.alibaba.smart.framework.engine.smart.PropertyCompositeKey;
 import com.alibaba.smart.framework.engine.smart.PropertyCompositeValue;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.apache.commons.collections.MapUtils;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
 
 public class SmartEngineUtils {
 
+    /**
+     * 按流程定义缓存节点属性快照与类型化描述。以定义对象为弱引用键，重新部署产生新定义后旧缓存随之回收。
+     */
+    private static final Cache<ProcessDefinition, ConcurrentMap<String, NodeProperties>> NODE_PROPERTIES_CACHE =
+            CacheBuilder.newBuilder().weakKeys().build();
+
     public static Map<String, Object> getAllProperties(ExecutionContext executionContext, String activityId) {
-        ExtensionElementContainer idBasedElement = (ExtensionElementContainer) executionContext.getProcessDefinition().getIdBasedElementMap().get(
+        return getAllProperties(executionContext.getProcessDefinition(), activityId);
+    }
+
+    public static Map<String, Object> getAllProperties(ProcessDefinition processDefinition, String activityId) {
+        ExtensionElementContainer idBasedElement = (ExtensionElementContainer) processDefinition.getIdBasedElementMap().get(
                 activityId);
 
         ExtensionElements extensionElements = idBasedElement.getExtensionElements();
+        if (extensionElements == null) {
+            return Map.of();
+        }
         Map<PropertyCompositeKey, PropertyCompositeValue> map = (Map<PropertyCompositeKey, PropertyCompositeValue>) extensionElements.getDecorationMap().get(ExtensionElementsConstant.PROPERTIES);
         if (MapUtils.isEmpty(map)) {
             return Map.of();
@@ -46,4 +68,56 @@ public class SmartEngineUtils {
         return result;
     }
 
+    /**
+     * 获取节点属性的只读快照，同一流程定义的同一节点只解析一次。
+     *
+     * @return 只读的属性map，不可修改
+     */
+    public static Map<String, Object> getPropertySnapshot(ExecutionContext executionContext, String activityId) {
+        return getNodeProperties(executionContext.getProcessDefinition(), activityId).properties;
+    }
+
+    /**
+     * 获取节点属性编译后的类型化描述，同一流程定义的同一节点对同一类型只编译一次。
+     * <p>
+     * 描述对象在多次执行间共享，调用方不应修改，需要按请求改动时应先复制。
+     * </p>
+     *
+     * @param type   描述类型
+     * @param parser 由属性快照构建描述，节点无属性时不会调用
+     * @return 类型化描述，节点无属性时返回null
+     */
+    public static <T> T getNodeDescriptor(ExecutionContext executionContext, String activityId, Class<T> type,
+                                          Function<Map<String, Object>, T> parser) {
+        NodeProperties nodeProperties = getNodeProperties(executionContext.getProcessDefinition(), activityId);
+        if (nodeProperties.properties.isEmpty()) {
+            return null;
+        }
+        Optional<?> descriptor = nodeProperties.descriptors.computeIfAbsent(type,
+                key -> Optional.ofNullable(parser.apply(nodeProperties.properties)));
+        return type.cast(descriptor.orElse(null));
+    }
+
+    private static NodeProperties getNodeProperties(ProcessDefinition processDefinition, String activityId) {
+        ConcurrentMap<String, NodeProperties> nodes;
+        try {
+            nodes = NODE_PROPERTIES_CACHE.get(processDefinition, ConcurrentHashMap::new);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        return nodes.computeIfAbsent(activityId,
+                key -> new NodeProperties(Collections.unmodifiableMap(getAllProperties(processDefinition, key))));
+    }
+
+    private static class NodeProperties {
+
+        private final Map<String, Object> properties;
+
+        private final ConcurrentMap<Class<?>, Optional<?>> descriptors = new ConcurrentHashMap<>();
+
+        private NodeProperties(Map<String, Object> properties) {
+            this.properties = properties;
+        }
+    }
+
 }
@@ -25,12 +25,16 @@ public class XmlUtils {
 
     public static Element genEdge(Element process, String sourceCode, String targetCode) {
         Element edge = process.addElement("sequenceFlow");
-        edge.addAttribute("id", "flow_edge_" + sourceCode + "_" + targetCode);
+        edge.addAttribute("id", getEdgeId(sourceCode, targetCode));
         edge.addAttribute("sourceRef", sourceCode);
         edge.addAttribute("targetRef", targetCode);
         return edge;
     }
 
+    public static String getEdgeId(String sourceCode, String targetCode) {
+        return "flow_edge_" + sourceCode + "_" + targetCode;
+    }
+
     public static Element genEdge(Element process, String sourceCode, String targetCode, Map<String, String> propertiesMap) {
         if (MapUtils.isEmpty(propertiesMap)) {
             return genEdge(process, sourceCode, targetCode);
@@ -30,7 +30,11 @@ public enum ErrorEnum {
 
     FLOW_CONFIG_ERROR("600", "flow configuration error", false),
 
-    PROPERTY_CONFIG_ERROR("601", "property configuration error", false);
+    PROPERTY_CONFIG_ERROR("601", "property configuration error", false),
+
+    TASK_REJECTED("700", "async task rejected", true),
+
+    PARALLEL_JOIN_FAILED("701", "parallel branches failed to reach join condition", true);
 
     private final String code;
 
@@ -0,0 +1,94 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.agentic.core.executor;
+
+import com.alibaba.agentic.core.exceptions.BaseException;
+import com.alibaba.agentic.core.exceptions.ErrorEnum;
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * DESCRIPTION
+ * 基于本地文件的中间结果溢出存储，节点输出以 json 形式写入指定目录
+ * <p>
+ * 文件由 {@link InterOutput} 在条目释放时删除；未指定目录时各实例共用同一个临时目录。
+ * </p>
+ */
+public class FileInterOutputSpillStore implements InterOutputSpillStore {
+
+    private final Path directory;
+
+    public FileInterOutputSpillStore() {
+        this(DefaultDirectory.PATH);
+    }
+
+    public FileInterOutputSpillStore(Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public String save(Map<String, Object> value) {
+        String spillId = UUID.randomUUID().toString();
+        try {
+            Path file = directory.resolve(spillId);
+            Files.write(file, JSON.toJSONBytes(value));
+            return spillId;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Map<String, Object> load(String spillId) {
+        try {
+            return JSON.parseObject(Files.readAllBytes(directory.resolve(spillId)), JSONObject.class);
+        } catch (IOException e) {
+            throw new BaseException(String.format("spilled inter output %s is not readable: %s", spillId, e.getMessage()), ErrorEnum.SYSTEM_ERROR);
+        }
+    }
+
+    @Override
+    public void delete(String spillId) {
+        try {
+            Files.deleteIfExists(directory.resolve(spillId));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class DefaultDirectory {
+
+        private static final Path PATH = createTempDirectory();
+
+        private static Path createTempDirectory() {
+            try {
+                Path directory = Files.createTempDirectory("agentic-inter-output");
+                directory.toFile().deleteOnExit();
+                return directory;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,415 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.agentic.core.executor;
+
+import java.lang.ref.Cleaner;
+import java.lang.reflect.Array;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DESCRIPTION
+ * 节点间中间结果存储
+ * <p>
+ * 节点级索引为并发 Map，读取无锁，写入只更新单个条目；节点输出按原样保存，读取方可以像普通 Map 一样就地修改。
+ * fork 复制节点级索引但不复制输出本身，分支与迭代可以低成本派生；合并时只带回分支写入或删除过的条目。
+ * 指定 maxInlineBytes 与溢出存储后，内存中保留的输出总量超过上限时，会把体积最大的输出写入溢出存储，读取时再加载，
+ * 溢出的输出每次读取都是新加载的副本，就地修改不会写回。溢出数据按引用计数共享，
+ * 条目被覆盖、删除或 {@link #clear()} 时释放，fork 用完后应调用 {@link #clear()}，未释放的存储在被回收时兜底删除。
+ * </p>
+ */
+public class InterOutput extends AbstractMap<String, Map<String, Object>> {
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final long maxInlineBytes;
+
+    private final InterOutputSpillStore spillStore;
+
+    private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+
+    /**
+     * fork 出的存储记录写入或删除过的键，用于合并；子存储中已没有条目的键即为删除。主存储不记录
+     */
+    private final Set<String> writtenKeys;
+
+    /**
+     * 内存中保留的输出估算总量，在写锁内更新
+     */
+    private volatile long inlineBytes;
+
+    public InterOutput() {
+        this(0, null);
+    }
+
+    public InterOutput(Map<String, Map<String, Object>> initial) {
+        this(0, null);
+        if (initial != null) {
+            initial.forEach(this::put);
+        }
+    }
+
+    /**
+     * @param maxInlineBytes 内存中保留的输出估算总量上限，小于等于0表示不限制
+     * @param spillStore     溢出存储，为空时不限制
+     */
+    public InterOutput(long maxInlineBytes, InterOutputSpillStore spillStore) {
+        this(maxInlineBytes, spillStore, false);
+    }
+
+    private InterOutput(long maxInlineBytes, InterOutputSpillStore spillStore, boolean forked) {
+        this.maxInlineBytes = maxInlineBytes;
+        this.spillStore = spillStore;
+        this.writtenKeys = forked ? ConcurrentHashMap.newKeySet() : null;
+        if (spillStore != null) {
+            Map<String, Slot> ownedSlots = slots;
+            CLEANER.register(this, () -> ownedSlots.values().forEach(slot -> slot.release(spillStore)));
+        }
+    }
+
+    /**
+     * 以 InterOutput 形式返回给定的中间结果，普通 Map 会被复制为新的存储。
+     */
+    public static InterOutput of(Map<String, Map<String, Object>> interOutput) {
+        if (interOutput == null || interOutput instanceof InterOutput) {
+            return (InterOutput) interOutput;
+        }
+        return new InterOutput(interOutput);
+    }
+
+    /**
+     * 基于当前内容派生新的存储，双方此后的写入互不可见；输出对象本身在双方之间共享。
+     */
+    public InterOutput fork() {
+        InterOutput child = new InterOutput(maxInlineBytes, spillStore, true);
+        synchronized (this) {
+            slots.forEach((key, slot) -> child.slots.put(key, slot.retain()));
+            child.inlineBytes = inlineBytes;
+        }
+        return child;
+    }
+
+    /**
+     * 合并 fork 出的存储中写入或删除过的条目，未改动的条目不会覆盖当前存储中其他分支的结果。
+     * 应在子存储不再写入后调用，子存储的 {@link #clear()} 只用于释放，不会作为删除合并。
+     */
+    public void merge(InterOutput child) {
+        if (child.writtenKeys == null) {
+            return;
+        }
+        List<Slot> replaced = new ArrayList<>();
+        synchronized (this) {
+            for (String key : child.writtenKeys) {
+                Slot slot = child.slots.get(key);
+                Slot previous = slot == null ? slots.remove(key) : slots.put(key, slot.retain());
+                inlineBytes += inlineBytes(slot) - inlineBytes(previous);
+                markWritten(key);
+                if (previous != null) {
+                    replaced.add(previous);
+                }
+            }
+        }
+        replaced.forEach(slot -> slot.release(spillStore));
+        enforceBudget();
+    }
+
+    @Override
+    public Map<String, Object> get(Object key) {
+        while (true) {
+            Slot slot = slots.get(key);
+            if (slot == null) {
+                return null;
+            }
+            if (slot.spill == null) {
+                return slot.value;
+            }
+            if (slot.spill.tryRetain()) {
+                try {
+                    return spillStore.load(slot.spill.id);
+                } finally {
+                    slot.release(spillStore);
+                }
+            }
+            // 读取期间条目被覆盖且溢出数据已删除，重新读取最新条目
+        }
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return slots.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return slots.size();
+    }
+
+    @Override
+    public Map<String, Object> put(String key, Map<String, Object> value) {
+        Objects.requireNonNull(key);
+        Slot slot = new Slot(value, null, estimateSize(value));
+        Slot previous;
+        synchronized (this) {
+            previous = slots.put(key, slot);
+            inlineBytes += slot.size - inlineBytes(previous);
+            markWritten(key);
+        }
+        Map<String, Object> previousValue = detach(previous);
+        enforceBudget();
+        return previousValue;
+    }
+
+    @Override
+    public Map<String, Object> remove(Object key) {
+        Slot previous;
+        synchronized (this) {
+            previous = slots.remove(key);
+            if (previous == null) {
+                return null;
+            }
+            inlineBytes -= previous.inlineBytes();
+            markWritten((String) key);
+        }
+        return detach(previous);
+    }
+
+    @Override
+    public void clear() {
+        List<Slot> removed;
+        synchronized (this) {
+            removed = new ArrayList<>(slots.values());
+            slots.clear();
+            inlineBytes = 0;
+        }
+        removed.forEach(slot -> slot.release(spillStore));
+    }
+
+    @Override
+    public Set<Entry<String, Map<String, Object>>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Map<String, Object>>> iterator() {
+                Iterator<String> iterator = slots.keySet().iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Entry<String, Map<String, Object>> next() {
+                        String key = iterator.next();
+                        return new SimpleImmutableEntry<>(key, get(key));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return slots.size();
+            }
+        };
+    }
+
+    /**
+     * 当前保留在内存中的输出估算总量
+     */
+    public long getInlineBytes() {
+        return inlineBytes;
+    }
+
+    private void markWritten(String key) {
+        if (writtenKeys != null) {
+            writtenKeys.add(key);
+        }
+    }
+
+    /**
+     * 读取被移出的条目后释放其溢出数据，在写锁外调用
+     */
+    private Map<String, Object> detach(Slot slot) {
+        if (slot == null) {
+            return null;
+        }
+        try {
+            return slot.spill == null ? slot.value : spillStore.load(slot.spill.id);
+        } finally {
+            slot.release(spillStore);
+        }
+    }
+
+    /**
+     * 超出上限时依次把体积最大的输出写入溢出存储。写锁内只挑选条目与替换索引，溢出存储的读写在锁外进行，
+     * 写入期间条目被覆盖时丢弃本次溢出的数据。
+     */
+    private void enforceBudget() {
+        if (maxInlineBytes <= 0 || spillStore == null) {
+            return;
+        }
+        while (true) {
+            Map.Entry<String, Slot> largest = null;
+            synchronized (this) {
+                if (inlineBytes <= maxInlineBytes) {
+                    return;
+                }
+                for (Map.Entry<String, Slot> entry : slots.entrySet()) {
+                    Slot slot = entry.getValue();
+                    if (slot.spill == null && slot.value != null
+                            && (largest == null || slot.size > largest.getValue().size)) {
+                        largest = entry;
+                    }
+                }
+            }
+            if (largest == null) {
+                return;
+            }
+            Slot slot = largest.getValue();
+            Slot spilled = new Slot(null, new Spill(spillStore.save(slot.value)), slot.size);
+            boolean replaced;
+            synchronized (this) {
+                replaced = slots.replace(largest.getKey(), slot, spilled);
+                if (replaced) {
+                    inlineBytes -= slot.size;
+                }
+            }
+            if (!replaced) {
+                spilled.release(spillStore);
+            }
+        }
+    }
+
+    private static long inlineBytes(Slot slot) {
+        return slot == null ? 0 : slot.inlineBytes();
+    }
+
+    /**
+     * 估算输出占用的内存，只统计字符串、集合与数组等常见结构，避免为估算而序列化
+     */
+    static long estimateSize(Object value) {
+        return estimateSize(value, 0);
+    }
+
+    private static long estimateSize(Object value, int depth) {
+        if (value == null) {
+            return 0;
+        }
+        if (depth > 16) {
+            return 64;
+        }
+        if (value instanceof CharSequence chars) {
+            return 40 + 2L * chars.length();
+        }
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character) {
+            return 16;
+        }
+        if (value instanceof Map<?, ?> map) {
+            long size = 48;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                size += 32 + estimateSize(entry.getKey(), depth + 1) + estimateSize(entry.getValue(), depth + 1);
+            }
+            return size;
+        }
+        if (value instanceof Collection<?> collection) {
+            long size = 40;
+            for (Object element : collection) {
+                size += 8 + estimateSize(element, depth + 1);
+            }
+            return size;
+        }
+        if (value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            if (value.getClass().getComponentType().isPrimitive()) {
+                return 16 + 8L * length;
+            }
+            long size = 16;
+            for (int i = 0; i < length; i++) {
+                size += 8 + estimateSize(Array.get(value, i), depth + 1);
+            }
+            return size;
+        }
+        return 64;
+    }
+
+    private static final class Slot {
+
+        /**
+         * 溢出后为null
+         */
+        private final Map<String, Object> value;
+
+        private final Spill spill;
+
+        private final long size;
+
+        private Slot(Map<String, Object> value, Spill spill, long size) {
+            this.value = value;
+            this.spill = spill;
+            this.size = size;
+        }
+
+        private long inlineBytes() {
+            return spill == null ? size : 0;
+        }
+
+        private Slot retain() {
+            if (spill != null) {
+                spill.refCount.incrementAndGet();
+            }
+            return this;
+        }
+
+        private void release(InterOutputSpillStore spillStore) {
+            if (spill != null && spill.refCount.decrementAndGet() == 0) {
+                spillStore.delete(spill.id);
+            }
+        }
+    }
+
+    /**
+     * 溢出数据，由引用它的各存储共享，最后一个引用释放时删除
+     */
+    private static final class Spill {
+
+        private final String id;
+
+        private final AtomicInteger refCount = new AtomicInteger(1);
+
+        private Spill(String id) {
+            this.id = id;
+        }
+
+        private boolean tryRetain() {
+            int count;
+            do {
+                count = refCount.get();
+                if (count == 0) {
+                    return false;
+                }
+            } while (!refCount.compareAndSet(count, count + 1));
+            return true;
+        }
+    }
+
+}
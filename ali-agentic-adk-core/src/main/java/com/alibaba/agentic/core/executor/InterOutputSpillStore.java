@@ -0,0 +1,52 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.agentic.core.executor;
+
+import java.util.Map;
+
+/**
+ * DESCRIPTION
+ * 中间结果溢出存储
+ * <p>
+ * {@link InterOutput} 在限制内存占用的模式下，会把体积最大的节点输出写入溢出存储，读取时再加载。
+ * </p>
+ */
+public interface InterOutputSpillStore {
+
+    /**
+     * 保存节点输出。
+     *
+     * @param value 节点输出
+     * @return 溢出标识，用于后续读取与删除
+     */
+    String save(Map<String, Object> value);
+
+    /**
+     * 读取节点输出。
+     *
+     * @param spillId 溢出标识
+     * @return 节点输出
+     */
+    Map<String, Object> load(String spillId);
+
+    /**
+     * 删除节点输出。
+     *
+     * @param spillId 溢出标识
+     */
+    void delete(String spillId);
+
+}
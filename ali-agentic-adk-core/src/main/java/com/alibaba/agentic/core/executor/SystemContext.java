@@ -15,11 +15,12 @@
  */
 package com.alibaba.agentic.core.executor;
 
+import com.alibaba.agentic.core.engine.behavior.BaseCondition;
+import com.alibaba.agentic.core.tools.BaseTool;
 import io.reactivex.rxjava3.processors.FlowableProcessor;
 import lombok.Data;
 import lombok.experimental.Accessors;
 
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -57,7 +58,33 @@ public class SystemContext {
 
     /**
      * 节点间中间结果存储，键为节点ID，值为该节点的输出结果。
+     * <p>
+     * 实际类型为 {@link InterOutput}，可被并发读写；设置普通 Map 时会复制为 InterOutput。
+     * </p>
      */
-    private Map<String, Map<String, Object>> interOutput = new HashMap<>();
+    private Map<String, Map<String, Object>> interOutput = new InterOutput();
+
+    /**
+     * 本次运行画布中的分支条件与循环退出条件，键为条件标识。
+     * <p>
+     * 按画布运行时由本次传入的画布收集，优先于部署时注册到
+     * {@link com.alibaba.agentic.core.engine.behavior.ConditionRegistry} 的条件；按流程定义运行时为空。
+     * </p>
+     */
+    private Map<String, BaseCondition> conditions;
+
+    /**
+     * 本次运行画布中工具节点绑定的工具实例，键为工具名称。
+     * <p>
+     * 按画布运行时由本次传入的画布收集，优先于注册到
+     * {@link com.alibaba.agentic.core.engine.delegation.DelegationTool} 的同名工具；按流程定义运行时为空。
+     * </p>
+     */
+    private Map<String, BaseTool> tools;
+
+    public SystemContext setInterOutput(Map<String, Map<String, Object>> interOutput) {
+        this.interOutput = InterOutput.of(interOutput);
+        return this;
+    }
 
 }
@@ -17,6 +17,7 @@ package com.alibaba.agentic.core.flows.service;
 
 import com.alibaba.agentic.core.executor.Result;
 import com.alibaba.agentic.core.flows.service.domain.AsyncRequest;
+import com.alibaba.agentic.core.flows.service.domain.TaskExecutionMetrics;
 
 /**
  * DESCRIPTION
@@ -41,4 +42,13 @@ public interface TaskExecutionService {
      */
     void signal(String taskId, Result result);
 
+    /**
+     * 异步任务执行指标
+     *
+     * @return
+     */
+    default TaskExecutionMetrics getMetrics() {
+        return new TaskExecutionMetrics();
+    }
+
 }
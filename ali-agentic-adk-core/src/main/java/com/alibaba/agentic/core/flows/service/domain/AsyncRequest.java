@@ -34,4 +34,9 @@ public class AsyncRequest {
     private SystemContext systemContext;
 
     private Request request;
+
+    /**
+     * 公平调度分组，通常为租户或流程定义；同一分组内按提交顺序执行，分组之间轮转
+     */
+    private String groupKey;
 }
@@ -0,0 +1,60 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.agentic.core.flows.service.domain;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * 异步任务执行指标快照
+ */
+@Data
+@Accessors(chain = true)
+public class TaskExecutionMetrics {
+
+    /**
+     * 当前排队中的任务数
+     */
+    private long queueDepth;
+
+    /**
+     * 当前执行中（已派发、尚未回调）的任务数
+     */
+    private long inFlight;
+
+    private long submitted;
+
+    private long rejected;
+
+    private long completed;
+
+    private long failed;
+
+    /**
+     * 从提交到开始执行的平均/最大等待时间（毫秒）
+     */
+    private double avgWaitMillis;
+
+    private long maxWaitMillis;
+
+    /**
+     * 从开始执行到结果返回的平均/最大运行时间（毫秒）
+     */
+    private double avgRunMillis;
+
+    private long maxRunMillis;
+
+}
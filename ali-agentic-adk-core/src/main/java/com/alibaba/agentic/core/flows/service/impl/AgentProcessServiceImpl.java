@@ -18,14 +18,21 @@ package com.alibaba.agentic.core.flows.service.impl;
 import com.alibaba.agentic.core.engine.dto.FlowDefinition;
 import com.alibaba.agentic.core.engine.node.FlowCanvas;
 import com.alibaba.agentic.core.flows.service.AgentProcessService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 @Component
 public class AgentProcessServiceImpl implements AgentProcessService {
 
+    private final FlowDeploymentCache flowDeploymentCache;
+
+    @Autowired
+    public AgentProcessServiceImpl(FlowDeploymentCache flowDeploymentCache) {
+        this.flowDeploymentCache = flowDeploymentCache;
+    }
 
     @Override
     public FlowDefinition deploy(FlowCanvas flowCanvas) {
-        return flowCanvas.deploy();
+        return flowDeploymentCache.deploy(flowCanvas);
     }
 }
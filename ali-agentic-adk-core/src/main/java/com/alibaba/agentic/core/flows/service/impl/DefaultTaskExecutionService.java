@@ -15,25 +15,49 @@
  */
 package com.alibaba.agentic.core.flows.service.impl;
 
+import com.alibaba.agentic.core.exceptions.BaseException;
+import com.alibaba.agentic.core.exceptions.ErrorEnum;
 import com.alibaba.agentic.core.executor.DelegationExecutor;
 import com.alibaba.agentic.core.executor.Request;
 import com.alibaba.agentic.core.executor.Result;
 import com.alibaba.agentic.core.flows.service.TaskExecutionService;
 import com.alibaba.agentic.core.flows.service.TaskInstanceService;
 import com.alibaba.agentic.core.flows.service.domain.AsyncRequest;
+import com.alibaba.agentic.core.flows.service.domain.TaskExecutionMetrics;
 import com.alibaba.agentic.core.flows.service.domain.TaskInstance;
 import com.alibaba.agentic.core.runner.Runner;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.reactivex.rxjava3.core.Flowable;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 
-import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * DESCRIPTION
+ * 异步任务执行default实现
+ * <p>
+ * 任务提交后立即派发，不再依赖定时轮询：
+ * - 按 groupKey（租户/流程）分道排队，分道之间轮转出队，保证公平；
+ * - 通过信号量限制同时执行的任务数，结果回调后才释放名额；
+ * - 全局或单分道排队超过上限时拒绝提交，形成背压；
+ * - 订阅结果流而非阻塞等待，拿到首个结果后再 signal 驱动流程。
+ * </p>
  *
  * @author baliang.smy
  * @date 2025/7/28 14:14
@@ -41,35 +65,98 @@ import java.util.concurrent.TimeUnit;
 @Slf4j
 public class DefaultTaskExecutionService implements TaskExecutionService {
 
-    private final static Queue<AsyncRequest> queue = new LinkedBlockingQueue<>();
+    public static final int DEFAULT_CONCURRENCY = 32;
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 10000;
+
+    public static final int DEFAULT_LANE_CAPACITY = 1000;
+
+    private static final String DEFAULT_GROUP = "default";
 
     private final TaskInstanceService taskInstanceService;
 
     private final Runner runner;
 
+    private final int queueCapacity;
+
+    private final int laneCapacity;
+
+    private final Semaphore permits;
+
+    private final ExecutorService workers;
+
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+
+    private final Queue<Lane> readyLanes = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger queueDepth = new AtomicInteger();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final LongAdder submitted = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder completed = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    private final LongAdder totalWaitMillis = new LongAdder();
+
+    private final LongAdder totalRunMillis = new LongAdder();
+
+    private final AtomicLong maxWaitMillis = new AtomicLong();
+
+    private final AtomicLong maxRunMillis = new AtomicLong();
+
     public DefaultTaskExecutionService(TaskInstanceService taskInstanceService, Runner runner) {
-        this.taskInstanceService = taskInstanceService;
-        this.runner = runner;
+        this(taskInstanceService, runner, DEFAULT_CONCURRENCY, DEFAULT_QUEUE_CAPACITY, DEFAULT_LANE_CAPACITY, false);
     }
 
-    @PostConstruct
-    public void init() {
-        Executors.newScheduledThreadPool(2).scheduleAtFixedRate(() -> {
-            //log.info("scheduler queue size: {}", queue.size());
-            if (queue.isEmpty()) {
-                return;
-            }
-            AsyncRequest task = queue.poll();
-            Request request = task.getRequest();
-            Flowable<Result> result = DelegationExecutor.invoke(task.getSystemContext(), request);
-            signal(task.getTaskId(), DelegationExecutor.receive(task.getSystemContext(), request, result.blockingFirst()));
-        }, 1, 1, TimeUnit.SECONDS);
+    public DefaultTaskExecutionService(TaskInstanceService taskInstanceService, Runner runner,
+                                       int concurrency, int queueCapacity, int laneCapacity, boolean virtualThreads) {
+        if (concurrency <= 0 || queueCapacity <= 0 || laneCapacity <= 0) {
+            throw new BaseException(String.format("illegal async task config, concurrency: %s, queueCapacity: %s, laneCapacity: %s",
+                    concurrency, queueCapacity, laneCapacity), ErrorEnum.PROPERTY_CONFIG_ERROR);
+        }
+        this.taskInstanceService = taskInstanceService;
+        this.runner = runner;
+        this.queueCapacity = queueCapacity;
+        this.laneCapacity = laneCapacity;
+        this.permits = new Semaphore(concurrency);
+        this.workers = createWorkers(concurrency, virtualThreads);
     }
 
-
     @Override
     public void submitTask(AsyncRequest asyncRequest) {
-        queue.add(asyncRequest);
+        String groupKey = StringUtils.defaultIfBlank(asyncRequest.getGroupKey(), DEFAULT_GROUP);
+        if (queueDepth.incrementAndGet() > queueCapacity) {
+            queueDepth.decrementAndGet();
+            reject(asyncRequest, groupKey, "queue is full");
+        }
+        PendingTask task = new PendingTask(asyncRequest, System.currentTimeMillis());
+        try {
+            // 分道的入队、出队与移除都在 compute 内完成，空分道可以安全回收
+            lanes.compute(groupKey, (key, lane) -> {
+                if (lane == null) {
+                    lane = new Lane(key);
+                }
+                if (lane.tasks.size() >= laneCapacity) {
+                    reject(asyncRequest, groupKey, "lane is full");
+                }
+                lane.tasks.add(task);
+                if (!lane.ready) {
+                    lane.ready = true;
+                    readyLanes.add(lane);
+                }
+                return lane;
+            });
+        } catch (BaseException e) {
+            queueDepth.decrementAndGet();
+            throw e;
+        }
+        submitted.increment();
+        dispatch();
     }
 
     @Override
@@ -78,5 +165,168 @@ public class DefaultTaskExecutionService implements TaskExecutionService {
         runner.signal(taskInstance, result);
     }
 
+    @Override
+    public TaskExecutionMetrics getMetrics() {
+        long completedCount = completed.sum();
+        long finished = completedCount + failed.sum();
+        long started = finished + inFlight.get();
+        return new TaskExecutionMetrics()
+                .setQueueDepth(queueDepth.get())
+                .setInFlight(inFlight.get())
+                .setSubmitted(submitted.sum())
+                .setRejected(rejected.sum())
+                .setCompleted(completedCount)
+                .setFailed(failed.sum())
+                .setAvgWaitMillis(started == 0 ? 0 : (double) totalWaitMillis.sum() / started)
+                .setMaxWaitMillis(maxWaitMillis.get())
+                .setAvgRunMillis(finished == 0 ? 0 : (double) totalRunMillis.sum() / finished)
+                .setMaxRunMillis(maxRunMillis.get());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    /**
+     * 在有空闲名额时按分道轮转取出任务并派发。可被提交线程与完成线程并发调用。
+     */
+    private void dispatch() {
+        while (!readyLanes.isEmpty() && permits.tryAcquire()) {
+            PendingTask task = pollNext();
+            if (task == null) {
+                permits.release();
+                continue;
+            }
+            try {
+                workers.execute(() -> run(task));
+            } catch (Throwable throwable) {
+                log.error("async task dispatch error, taskId: {}", task.asyncRequest.getTaskId(), throwable);
+                inFlight.incrementAndGet();
+                complete(task.asyncRequest, Result.fail(throwable), System.currentTimeMillis(), new AtomicBoolean(false));
+            }
+        }
+    }
+
+    private PendingTask pollNext() {
+        Lane lane = readyLanes.poll();
+        if (lane == null) {
+            return null;
+        }
+        PendingTask[] polled = new PendingTask[1];
+        lanes.computeIfPresent(lane.groupKey, (key, current) -> {
+            polled[0] = current.tasks.poll();
+            if (current.tasks.isEmpty()) {
+                current.ready = false;
+                return null;
+            }
+            // 还有任务则挂到队尾，实现分道间轮转
+            readyLanes.add(current);
+            return current;
+        });
+        if (polled[0] != null) {
+            queueDepth.decrementAndGet();
+        }
+        return polled[0];
+    }
+
+    private void run(PendingTask task) {
+        long startTime = System.currentTimeMillis();
+        long waitMillis = startTime - task.submitTime;
+        totalWaitMillis.add(waitMillis);
+        maxWaitMillis.accumulateAndGet(waitMillis, Math::max);
+        inFlight.incrementAndGet();
+
+        AsyncRequest asyncRequest = task.asyncRequest;
+        Request request = asyncRequest.getRequest();
+        AtomicBoolean finished = new AtomicBoolean(false);
+        try {
+            Flowable<Result> result = DelegationExecutor.invoke(asyncRequest.getSystemContext(), request);
+            result.firstOrError().subscribe(
+                    value -> {
+                        complete(asyncRequest, value, startTime, finished);
+                        dispatch();
+                    },
+                    throwable -> {
+                        complete(asyncRequest, Result.fail(throwable), startTime, finished);
+                        dispatch();
+                    });
+        } catch (Throwable throwable) {
+            complete(asyncRequest, Result.fail(throwable), startTime, finished);
+            dispatch();
+        }
+    }
+
+    private void complete(AsyncRequest asyncRequest, Result result, long startTime, AtomicBoolean finished) {
+        if (!finished.compareAndSet(false, true)) {
+            return;
+        }
+        long runMillis = System.currentTimeMillis() - startTime;
+        totalRunMillis.add(runMillis);
+        maxRunMillis.accumulateAndGet(runMillis, Math::max);
+        try {
+            Request request = asyncRequest.getRequest();
+            signal(asyncRequest.getTaskId(), DelegationExecutor.receive(asyncRequest.getSystemContext(), request, result));
+            if (result.isSuccess()) {
+                completed.increment();
+            } else {
+                failed.increment();
+            }
+        } catch (Throwable throwable) {
+            log.error("async task signal error, taskId: {}", asyncRequest.getTaskId(), throwable);
+            failed.increment();
+        } finally {
+            inFlight.decrementAndGet();
+            permits.release();
+        }
+    }
+
+    private void reject(AsyncRequest asyncRequest, String groupKey, String reason) {
+        rejected.increment();
+        log.warn("async task rejected, taskId: {}, groupKey: {}, reason: {}", asyncRequest.getTaskId(), groupKey, reason);
+        throw new BaseException(String.format("async task rejected, groupKey: %s, reason: %s", groupKey, reason), ErrorEnum.TASK_REJECTED);
+    }
+
+    private static ExecutorService createWorkers(int concurrency, boolean virtualThreads) {
+        if (virtualThreads) {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                log.warn("virtual threads are not supported by current jdk, fallback to platform threads");
+            }
+        }
+        // 派发前已由信号量限流，工作队列长度不会超过并发数
+        return new ThreadPoolExecutor(concurrency, concurrency, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("agentic-async-task-%d").setDaemon(true).build());
+    }
+
+    private static class Lane {
+
+        private final String groupKey;
+
+        /**
+         * 仅在 lanes.compute 内访问
+         */
+        private final Queue<PendingTask> tasks = new ArrayDeque<>();
+
+        private boolean ready;
+
+        private Lane(String groupKey) {
+            this.groupKey = groupKey;
+        }
+    }
+
+    private static class PendingTask {
+
+        private final AsyncRequest asyncRequest;
+
+        private final long submitTime;
+
+        private PendingTask(AsyncRequest asyncRequest, long submitTime) {
+            this.asyncRequest = asyncRequest;
+            this.submitTime = submitTime;
+        }
+    }
 
 }
@@ -0,0 +1,130 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.agentic.core.flows.service.impl;
+
+import com.alibaba.agentic.core.configuration.AliAgenticAdkProperties;
+import com.alibaba.agentic.core.engine.dto.FlowDefinition;
+import com.alibaba.agentic.core.engine.node.FlowCanvas;
+import com.alibaba.smart.framework.engine.SmartEngine;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 已部署流程画布缓存。
+ * <p>
+ * 以 processDefinitionId/version 为键，记录画布结构指纹与部署结果。
+ * 同一画布重复运行且结构未变化时直接返回已部署的流程定义，
+ * 跳过 bpmn xml 生成与 {@link com.alibaba.agentic.core.flows.storage.FlowStorageService} 读写；
+ * 结构发生变化时重新生成并覆盖部署。
+ * </p>
+ * <p>
+ * 命中时不会遍历画布，分支条件与工具节点绑定的工具实例不会重新注册，
+ * 由调用方按本次画布收集，见 {@link FlowCanvas#collectConditions()} 与 {@link FlowCanvas#collectTools()}。
+ * </p>
+ */
+@Slf4j
+@Component
+public class FlowDeploymentCache {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+    private final SmartEngine smartEngine;
+
+    private final Cache<String, DeployedCanvas> cache;
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    @Autowired
+    public FlowDeploymentCache(SmartEngine smartEngine, AliAgenticAdkProperties aliAgenticAdkProperties) {
+        this(smartEngine, Optional.ofNullable(aliAgenticAdkProperties.getFlowDeployCacheSize()).orElse(DEFAULT_MAXIMUM_SIZE));
+    }
+
+    public FlowDeploymentCache(SmartEngine smartEngine, int maximumSize) {
+        this.smartEngine = smartEngine;
+        this.cache = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+    }
+
+    /**
+     * 部署画布，结构未变化且引擎中仍有该定义时直接命中缓存。
+     *
+     * @param flowCanvas 流程画布
+     * @return 流程定义
+     */
+    public FlowDefinition deploy(FlowCanvas flowCanvas) {
+        flowCanvas.initDefinitionIdentity();
+        String key = getKey(flowCanvas.getProcessDefinitionId(), flowCanvas.getVersion());
+        String fingerprint = flowCanvas.fingerprint();
+        DeployedCanvas deployed = cache.getIfPresent(key);
+        if (deployed != null && deployed.fingerprint.equals(fingerprint)
+                && smartEngine.getRepositoryQueryService().getCachedProcessDefinition(flowCanvas.getProcessDefinitionId(), flowCanvas.getVersion()) != null) {
+            hitCount.increment();
+            return deployed.flowDefinition;
+        }
+        missCount.increment();
+        if (deployed != null && !deployed.fingerprint.equals(fingerprint)) {
+            log.info("flow canvas changed, redeploy defineId: {}, version: {}", flowCanvas.getProcessDefinitionId(), flowCanvas.getVersion());
+        }
+        // 未命中时引擎中的同名定义可能来自已被淘汰的旧结构，一律覆盖部署
+        FlowDefinition flowDefinition = flowCanvas.deploy(true);
+        cache.put(key, new DeployedCanvas(fingerprint, flowDefinition));
+        return flowDefinition;
+    }
+
+    /**
+     * 使指定流程定义的缓存失效，下次运行时重新生成并部署。
+     */
+    public void invalidate(String processDefinitionId, String version) {
+        cache.invalidate(getKey(processDefinitionId, version));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    private static String getKey(String processDefinitionId, String version) {
+        return processDefinitionId + ":" + version;
+    }
+
+    @AllArgsConstructor
+    private static class DeployedCanvas {
+
+        private final String fingerprint;
+
+        private final FlowDefinition flowDefinition;
+    }
+
+}
@@ -28,6 +28,7 @@ import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.util.CollectionUtils;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -37,10 +38,34 @@ import java.util.Map;
 @AllArgsConstructor
 public class FlowProcessService {
 
+    /**
+     * 当前线程上正在进行的引擎调用（可嵌套）及其结束后需要执行的动作
+     */
+    private static final ThreadLocal<SessionHooks> SESSION_HOOKS = new ThreadLocal<>();
+
     private final SmartEngine smartEngine;
 
+    /**
+     * 在当前线程最外层的引擎调用结束后执行动作；当前线程不在引擎调用中时立即执行。
+     * <p>
+     * 异步节点在引擎暂停流程之前就已提交任务，若任务立即完成并 signal，
+     * 会与尚未结束的 start/signal 并发修改同一流程实例，因此需要延后到引擎调用退出后再派发。
+     * </p>
+     *
+     * @param action 待执行动作
+     */
+    public static void runAfterSession(Runnable action) {
+        SessionHooks hooks = SESSION_HOOKS.get();
+        if (hooks == null) {
+            action.run();
+            return;
+        }
+        hooks.actions.add(action);
+    }
+
 
     public ProcessInstance startFlow(FlowDefinition flowDefinition, Map<String, Object> request, Map<String, Object> response) {
+        enterSession();
         try {
             PersisterSession.create();
             return smartEngine.getProcessCommandService().start(flowDefinition.getDefinitionId(), flowDefinition.getVersion(),
@@ -52,10 +77,12 @@ public class FlowProcessService {
             throw new RuntimeException(e);
         } finally {
             PersisterSession.destroySession();
+            exitSession();
         }
     }
 
     public ProcessInstance startFlow(String flowDefinitionId, String flowVersion, Map<String, Object> request, Map<String, Object> response) {
+        enterSession();
         try {
             PersisterSession.create();
             return smartEngine.getProcessCommandService().start(flowDefinitionId, flowVersion
@@ -66,11 +93,13 @@ public class FlowProcessService {
             throw new RuntimeException(e);
         } finally {
             PersisterSession.destroySession();
+            exitSession();
         }
     }
 
 
     public void signal(ProcessInstance processInstance, String activityId, Map<String, Object> request, Map<String, Object> response) {
+        enterSession();
         try {
             PersisterSession.create();
             PersisterSession.currentSession().putProcessInstance(processInstance);
@@ -96,8 +125,39 @@ public class FlowProcessService {
             throw new RuntimeException(e);
         } finally {
             PersisterSession.destroySession();
+            exitSession();
         }
     }
 
+    private static void enterSession() {
+        SessionHooks hooks = SESSION_HOOKS.get();
+        if (hooks == null) {
+            hooks = new SessionHooks();
+            SESSION_HOOKS.set(hooks);
+        }
+        hooks.depth++;
+    }
+
+    private static void exitSession() {
+        SessionHooks hooks = SESSION_HOOKS.get();
+        if (hooks == null || --hooks.depth > 0) {
+            return;
+        }
+        SESSION_HOOKS.remove();
+        for (Runnable action : hooks.actions) {
+            try {
+                action.run();
+            } catch (Throwable throwable) {
+                log.error("run after session action error", throwable);
+            }
+        }
+    }
+
+    private static class SessionHooks {
+
+        private int depth;
+
+        private final List<Runnable> actions = new ArrayList<>();
+    }
 
 }
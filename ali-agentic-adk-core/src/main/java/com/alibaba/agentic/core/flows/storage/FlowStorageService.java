@@ -23,4 +23,13 @@ public interface FlowStorageService {
 
     String getBpmnXml(String flowDefinitionCode, String version);
 
+    /**
+     * 覆盖保存流程定义并返回覆盖前的 xml
+     */
+    default String replaceBpmnXml(FlowDefinition flowDefinition) {
+        String previous = getBpmnXml(flowDefinition.getDefinitionId(), flowDefinition.getVersion());
+        saveBpmnXml(flowDefinition);
+        return previous;
+    }
+
 }
@@ -40,5 +40,10 @@ public class FlowStorageServiceImpl implements FlowStorageService {
         return flowDataStorage.getBpmnXml(flowDefinitionCode, version);
     }
 
+    @Override
+    public String replaceBpmnXml(FlowDefinition flowDefinition) {
+        return flowDataStorage.replaceBpmnXml(flowDefinition);
+    }
+
 
 }
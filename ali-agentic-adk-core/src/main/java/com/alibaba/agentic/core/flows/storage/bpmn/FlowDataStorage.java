@@ -19,8 +19,24 @@ import com.alibaba.agentic.core.engine.dto.FlowDefinition;
 
 public interface FlowDataStorage {
 
+    /**
+     * 持久化流程定义。flowDefinition 的 xml 可能是延迟生成的，只有需要落盘的实现才应读取它。
+     *
+     * @return 已生成的 xml，未生成时返回 null
+     */
     String saveBpmnXml(FlowDefinition flowDefinition);
 
     String getBpmnXml(String flowDefinitionCode, String version);
 
+    /**
+     * 覆盖保存流程定义并返回覆盖前的 xml，远程存储实现应在一次往返内完成。
+     *
+     * @return 覆盖前的 xml，不存在时返回 null
+     */
+    default String replaceBpmnXml(FlowDefinition flowDefinition) {
+        String previous = getBpmnXml(flowDefinition.getDefinitionId(), flowDefinition.getVersion());
+        saveBpmnXml(flowDefinition);
+        return previous;
+    }
+
 }
\ No newline at end of file
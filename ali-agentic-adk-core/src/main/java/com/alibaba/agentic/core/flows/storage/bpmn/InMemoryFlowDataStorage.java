@@ -22,21 +22,22 @@ import java.util.concurrent.ConcurrentHashMap;
 
 public class InMemoryFlowDataStorage implements FlowDataStorage {
 
-    // 内存存储结构
-    private final ConcurrentHashMap<String, String> bpmnXmlMap = new ConcurrentHashMap<>();
+    // 内存存储结构，保存定义本身，xml 在读取时才生成
+    private final ConcurrentHashMap<String, FlowDefinition> flowDefinitionMap = new ConcurrentHashMap<>();
 
     @Override
     public String saveBpmnXml(FlowDefinition flowDefinition) {
         String key = flowDefinition.getDefinitionId() + ":" + flowDefinition.getVersion();
-        bpmnXmlMap.put(key, flowDefinition.getBpmnXml());
-        return flowDefinition.getBpmnXml();
+        flowDefinitionMap.put(key, flowDefinition);
+        return null;
     }
 
 
     @Override
     public String getBpmnXml(String flowDefinitionId, String version) {
         String key = flowDefinitionId + ":" + version;
-        return bpmnXmlMap.getOrDefault(key, null);
+        FlowDefinition flowDefinition = flowDefinitionMap.get(key);
+        return flowDefinition == null ? null : flowDefinition.getBpmnXml();
     }
 
-}
\ No newline at end of file
+}
@@ -17,28 +17,114 @@ package com.alibaba.agentic.core.flows.storage.bpmn;
 
 import com.alibaba.agentic.core.engine.dto.FlowDefinition;
 import com.alibaba.agentic.core.flows.storage.redis.AiRedisTemplate;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于 Redis 的流程定义存储。
+ * <p>
+ * 可选开启本地近端缓存：按 definitionId 缓存最近一次读写的版本与 xml，版本不一致即视为失效；
+ * 同一版本内容未变化的重复保存不再写 Redis，缓存到期后重新以 Redis 为准。
+ * </p>
+ */
 public class RedisFlowDataStorage implements FlowDataStorage {
 
+    public static final int DEFAULT_NEAR_CACHE_SIZE = 1024;
+
     private final AiRedisTemplate redisTemplate;
     private final String prefix;
 
+    /**
+     * 未开启近端缓存时为 null
+     */
+    private final Cache<String, CachedXml> nearCache;
+
     public RedisFlowDataStorage(AiRedisTemplate redisTemplate, String prefix) {
+        this(redisTemplate, prefix, 0, DEFAULT_NEAR_CACHE_SIZE);
+    }
+
+    /**
+     * @param nearCacheTtlMillis 近端缓存有效期，小于等于 0 时不开启
+     * @param nearCacheSize      近端缓存最多保存的流程定义数
+     */
+    public RedisFlowDataStorage(AiRedisTemplate redisTemplate, String prefix, long nearCacheTtlMillis, int nearCacheSize) {
         this.redisTemplate = redisTemplate;
         this.prefix = prefix;
+        this.nearCache = nearCacheTtlMillis > 0
+                ? CacheBuilder.newBuilder().maximumSize(nearCacheSize).expireAfterWrite(nearCacheTtlMillis, TimeUnit.MILLISECONDS).build()
+                : null;
     }
 
     @Override
     public String saveBpmnXml(FlowDefinition flowDefinition) {
-        String key = prefix + ":bpmn:" + flowDefinition.getDefinitionId() + ":" + flowDefinition.getVersion();
-        redisTemplate.set(key, flowDefinition.getBpmnXml());
-        return flowDefinition.getBpmnXml();
+        String xml = flowDefinition.getBpmnXml();
+        if (xml != null && xml.equals(getCached(flowDefinition.getDefinitionId(), flowDefinition.getVersion()))) {
+            return xml;
+        }
+        redisTemplate.set(getKey(flowDefinition.getDefinitionId(), flowDefinition.getVersion()), xml);
+        putCached(flowDefinition.getDefinitionId(), flowDefinition.getVersion(), xml);
+        return xml;
     }
 
     @Override
     public String getBpmnXml(String flowDefinitionId, String version) {
-        String key = prefix + ":bpmn:" + flowDefinitionId + ":" + version;
-        return redisTemplate.get(key);
+        String cached = getCached(flowDefinitionId, version);
+        if (cached != null) {
+            return cached;
+        }
+        String xml = redisTemplate.get(getKey(flowDefinitionId, version));
+        putCached(flowDefinitionId, version, xml);
+        return xml;
+    }
+
+    /**
+     * 使用 GETSET 一次往返完成读旧值与写新值
+     */
+    @Override
+    public String replaceBpmnXml(FlowDefinition flowDefinition) {
+        String xml = flowDefinition.getBpmnXml();
+        String previous = redisTemplate.getSet(getKey(flowDefinition.getDefinitionId(), flowDefinition.getVersion()), xml);
+        putCached(flowDefinition.getDefinitionId(), flowDefinition.getVersion(), xml);
+        return previous;
+    }
+
+    public void invalidateNearCache(String flowDefinitionId) {
+        if (nearCache != null) {
+            nearCache.invalidate(flowDefinitionId);
+        }
+    }
+
+    private String getKey(String flowDefinitionId, String version) {
+        return prefix + ":bpmn:" + flowDefinitionId + ":" + version;
+    }
+
+    private String getCached(String flowDefinitionId, String version) {
+        if (nearCache == null) {
+            return null;
+        }
+        CachedXml cached = nearCache.getIfPresent(flowDefinitionId);
+        return cached != null && Objects.equals(cached.version, version) ? cached.xml : null;
+    }
+
+    private void putCached(String flowDefinitionId, String version, String xml) {
+        if (nearCache != null && xml != null) {
+            nearCache.put(flowDefinitionId, new CachedXml(version, xml));
+        }
+    }
+
+    private static final class CachedXml {
+
+        private final String version;
+
+        private final String xml;
+
+        private CachedXml(String version, String xml) {
+            this.version = version;
+            this.xml = xml;
+        }
     }
 
-}
\ No newline at end of file
+}
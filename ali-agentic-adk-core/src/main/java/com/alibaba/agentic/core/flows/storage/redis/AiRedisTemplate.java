@@ -15,136 +15,138 @@
  */
 package com.alibaba.agentic.core.flows.storage.redis;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.extern.slf4j.Slf4j;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
+/**
+ * Jedis 访问模板
+ * <p>
+ * 所有命令都经 {@link #execute(String, Function)} 借还连接，并记录连接池等待与往返耗时；
+ * 批量读写使用 MGET/MSET 或 pipeline，一次往返完成；*Async 方法在独立线程池上执行，返回 CompletionStage，
+ * 需要 Flowable 时可用 Flowable.fromCompletionStage 转换。
+ * </p>
+ */
 @Slf4j
 public class AiRedisTemplate {
 
     private final JedisPool jedisPool;
 
+    private final Executor asyncExecutor;
+
+    private final LongAdder operations = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    private final LongAdder pipelinedCommands = new LongAdder();
+
+    private final LongAdder totalPoolWaitNanos = new LongAdder();
+
+    private final LongAdder totalRoundTripNanos = new LongAdder();
+
+    private final AtomicLong maxPoolWaitNanos = new AtomicLong();
+
+    private final AtomicLong maxRoundTripNanos = new AtomicLong();
+
     public AiRedisTemplate(JedisPool jedisPool) {
+        this(jedisPool, null);
+    }
+
+    /**
+     * @param asyncExecutor 执行 *Async 方法的线程池，为 null 时使用共享的默认线程池
+     */
+    public AiRedisTemplate(JedisPool jedisPool, Executor asyncExecutor) {
         this.jedisPool = jedisPool;
+        this.asyncExecutor = asyncExecutor;
     }
 
-    public void set(String key, String value) {
+    /**
+     * 借用一个连接执行命令，记录连接池等待与往返耗时，异常记录日志后抛出
+     */
+    public <T> T execute(String operation, Function<Jedis, T> action) {
         if (Objects.isNull(jedisPool)) {
             throw new RuntimeException("redis session not available");
         }
+        long start = System.nanoTime();
         try (Jedis jedis = jedisPool.getResource()) {
-            jedis.set(key, value);
+            long acquired = System.nanoTime();
+            record(totalPoolWaitNanos, maxPoolWaitNanos, acquired - start);
+            T result = action.apply(jedis);
+            record(totalRoundTripNanos, maxRoundTripNanos, System.nanoTime() - acquired);
+            operations.increment();
+            return result;
         } catch (Exception ex) {
-            log.error("redis set method occur exception", ex);
+            failures.increment();
+            log.error("redis {} method occur exception", operation, ex);
             throw ex;
         }
     }
 
+    public <T> CompletionStage<T> executeAsync(String operation, Function<Jedis, T> action) {
+        return CompletableFuture.supplyAsync(() -> execute(operation, action), getAsyncExecutor());
+    }
+
+    public void set(String key, String value) {
+        execute("set", jedis -> jedis.set(key, value));
+    }
+
     public void setEx(String key, String value, int time) {
-        if (Objects.isNull(jedisPool)) {
-            throw new RuntimeException("redis session not available");
-        }
-        try (Jedis jedis = jedisPool.getResource()) {
-            jedis.setex(key, time, value);
-        } catch (Exception ex) {
-            log.error("redis setEx method occur exception", ex);
-            throw ex;
-        }
+        execute("setEx", jedis -> jedis.setex(key, time, value));
     }
 
     public Long setNx(String key, String value) {
-        if (Objects.isNull(jedisPool)) {
-            throw new RuntimeException("redis session not available");
-        }
-        try (Jedis jedis = jedisPool.getResource()) {
-            return jedis.setnx(key, value);
-        } catch (Exception ex) {
-            log.error("redis setnx method occur exception", ex);
-            throw ex;
-        }
+        return execute("setnx", jedis -> jedis.setnx(key, value));
     }
 
     public String get(String key) {
-        if (Objects.isNull(jedisPool)) {
-            throw new RuntimeException("redis session not available");
-        }
-        try (Jedis jedis = jedisPool.getResource()) {
-            return jedis.get(key);
-        } catch (Exception ex) {
-            log.error("redis get method occur exception", ex);
-            throw ex;
-        }
+        return execute("get", jedis -> jedis.get(key));
     }
 
     public String getSet(String key, String value) {
-        try (Jedis jedis = jedisPool.getResource()) {
-            return jedis.getSet(key, value);
-        } catch (Exception ex) {
-            log.error("redis get method occur exception", ex);
-            throw ex;
-        }
+        return execute("getSet", jedis -> jedis.getSet(key, value));
     }
 
     public void delete(String key) {
-        if (Objects.isNull(jedisPool)) {
-            throw new RuntimeException("redis session not available");
-        }
-        try (Jedis jedis = jedisPool.getResource()) {
-            jedis.del(key);
+        try {
+            execute("del", jedis -> jedis.del(key));
         } catch (Exception ex) {
-            log.error("redis del method occur exception", ex);
-//            throw  ex;
+            // 删除失败只记录日志，已在 execute 中输出
         }
     }
 
     public Long incr(String key) {
-        if (Objects.isNull(jedisPool)) {
-            throw new RuntimeException("redis session not available");
-        }
-        try (Jedis jedis = jedisPool.getResource()) {
-            return jedis.incr(key);
-        } catch (Exception ex) {
-            log.error("redis incr method occur exception", ex);
-            throw ex;
-        }
+        return execute("incr", jedis -> jedis.incr(key));
     }
 
     public Long incrBy(String key, Long count) {
-        if (Objects.isNull(jedisPool)) {
-            throw new RuntimeException("redis session not available");
-        }
-        try (Jedis jedis = jedisPool.getResource()) {
-            return jedis.incrBy(key, count);
-        } catch (Exception ex) {
-            log.error("redis incrBy method occur exception", ex);
-            throw ex;
-        }
+        return execute("incrBy", jedis -> jedis.incrBy(key, count));
     }
 
     public Long decr(String key) {
-        if (Objects.isNull(jedisPool)) {
-            throw new RuntimeException("redis session not available");
-        }
-        try (Jedis jedis = jedisPool.getResource()) {
-            return jedis.decr(key);
-        } catch (Exception ex) {
-            log.error("redis decr method occur exception", ex);
-            throw ex;
-        }
+        return execute("decr", jedis -> jedis.decr(key));
     }
 
     public Long expire(String key, int seconds) {
-        if (Objects.isNull(jedisPool)) {
-            throw new RuntimeException("redis session not available");
-        }
-        try (Jedis jedis = jedisPool.getResource()) {
-            return jedis.expire(key, seconds);
-        } catch (Exception ex) {
-            log.error("redis expire method occur exception", ex);
-            throw ex;
-        }
+        return execute("expire", jedis -> jedis.expire(key, seconds));
     }
 
     /**
@@ -156,15 +158,7 @@ public class AiRedisTemplate {
      * 如果 key 不存在，返回 -2
      */
     public Long getExpireTime(String key) {
-        if (Objects.isNull(jedisPool)) {
-            throw new RuntimeException("redis session not available");
-        }
-        try (Jedis jedis = jedisPool.getResource()) {
-            return jedis.ttl(key);
-        } catch (Exception ex) {
-            log.error("redis getExpireTime method occur exception", ex);
-            throw ex;
-        }
+        return execute("getExpireTime", jedis -> jedis.ttl(key));
     }
 
     /**
@@ -174,14 +168,123 @@ public class AiRedisTemplate {
      * @return 如果 key 存在返回 true，否则返回 false
      */
     public boolean exists(String key) {
-        if (Objects.isNull(jedisPool)) {
-            throw new RuntimeException("redis session not available");
+        return execute("exists", jedis -> jedis.exists(key));
+    }
+
+    /**
+     * 批量读取，一次 MGET 往返
+     *
+     * @return 与 keys 顺序一致的值，不存在的 key 对应 null
+     */
+    public List<String> mGet(Collection<String> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return Collections.emptyList();
         }
-        try (Jedis jedis = jedisPool.getResource()) {
-            return jedis.exists(key);
-        } catch (Exception ex) {
-            log.error("redis exists method occur exception", ex);
-            throw ex;
+        return execute("mGet", jedis -> jedis.mget(keys.toArray(new String[0])));
+    }
+
+    /**
+     * 批量写入（不过期），一次 MSET 往返
+     */
+    public void mSet(Map<String, String> values) {
+        if (values == null || values.isEmpty()) {
+            return;
+        }
+        List<String> keysValues = new ArrayList<>(values.size() * 2);
+        values.forEach((key, value) -> {
+            keysValues.add(key);
+            keysValues.add(value);
+        });
+        execute("mSet", jedis -> jedis.mset(keysValues.toArray(new String[0])));
+    }
+
+    /**
+     * 批量写入并设置相同的过期时间，多条 SETEX 经 pipeline 一次往返
+     */
+    public void mSetEx(Map<String, String> values, int seconds) {
+        if (values == null || values.isEmpty()) {
+            return;
+        }
+        pipelined("mSetEx", pipeline -> values.forEach((key, value) -> pipeline.setex(key, seconds, value)));
+    }
+
+    /**
+     * 在同一连接上以 pipeline 发送多条命令，只等待一次往返
+     *
+     * @return 各命令的返回值，顺序与发送顺序一致
+     */
+    public List<Object> pipelined(String operation, Consumer<Pipeline> commands) {
+        return execute(operation, jedis -> {
+            Pipeline pipeline = jedis.pipelined();
+            commands.accept(pipeline);
+            List<Object> results = pipeline.syncAndReturnAll();
+            pipelinedCommands.add(results.size());
+            return results;
+        });
+    }
+
+    public CompletionStage<String> getAsync(String key) {
+        return executeAsync("get", jedis -> jedis.get(key));
+    }
+
+    public CompletionStage<Void> setExAsync(String key, String value, int seconds) {
+        return executeAsync("setEx", jedis -> {
+            jedis.setex(key, seconds, value);
+            return null;
+        });
+    }
+
+    public CompletionStage<List<String>> mGetAsync(Collection<String> keys) {
+        return CompletableFuture.supplyAsync(() -> mGet(keys), getAsyncExecutor());
+    }
+
+    public CompletionStage<Void> mSetExAsync(Map<String, String> values, int seconds) {
+        return CompletableFuture.runAsync(() -> mSetEx(values, seconds), getAsyncExecutor());
+    }
+
+    public CompletionStage<List<Object>> pipelinedAsync(String operation, Consumer<Pipeline> commands) {
+        return CompletableFuture.supplyAsync(() -> pipelined(operation, commands), getAsyncExecutor());
+    }
+
+    public RedisClientMetrics getMetrics() {
+        long succeeded = operations.sum();
+        long borrowed = succeeded + failures.sum();
+        return new RedisClientMetrics()
+                .setOperations(succeeded)
+                .setFailures(failures.sum())
+                .setPipelinedCommands(pipelinedCommands.sum())
+                .setAvgPoolWaitMicros(borrowed == 0 ? 0 : (double) TimeUnit.NANOSECONDS.toMicros(totalPoolWaitNanos.sum()) / borrowed)
+                .setMaxPoolWaitMicros(TimeUnit.NANOSECONDS.toMicros(maxPoolWaitNanos.get()))
+                .setAvgRoundTripMicros(succeeded == 0 ? 0 : (double) TimeUnit.NANOSECONDS.toMicros(totalRoundTripNanos.sum()) / succeeded)
+                .setMaxRoundTripMicros(TimeUnit.NANOSECONDS.toMicros(maxRoundTripNanos.get()))
+                .setPoolActive(jedisPool == null ? 0 : jedisPool.getNumActive())
+                .setPoolIdle(jedisPool == null ? 0 : jedisPool.getNumIdle())
+                .setPoolWaiters(jedisPool == null ? 0 : jedisPool.getNumWaiters());
+    }
+
+    private Executor getAsyncExecutor() {
+        return asyncExecutor != null ? asyncExecutor : DefaultAsyncExecutor.INSTANCE;
+    }
+
+    private static void record(LongAdder total, AtomicLong max, long nanos) {
+        total.add(nanos);
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Jedis 为阻塞客户端，异步调用不能占用公共 ForkJoinPool；并发上限实际由连接池大小决定
+     */
+    private static final class DefaultAsyncExecutor {
+
+        private static final ExecutorService INSTANCE = create();
+
+        private static ExecutorService create() {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                return Executors.newCachedThreadPool(
+                        new ThreadFactoryBuilder().setNameFormat("agentic-redis-async-%d").setDaemon(true).build());
+            }
         }
     }
-}
\ No newline at end of file
+}
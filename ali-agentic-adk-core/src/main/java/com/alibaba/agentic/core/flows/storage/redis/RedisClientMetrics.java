@@ -0,0 +1,63 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.agentic.core.flows.storage.redis;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * AiRedisTemplate 访问指标快照
+ */
+@Data
+@Accessors(chain = true)
+public class RedisClientMetrics {
+
+    /**
+     * 成功执行的往返次数，pipeline 与批量命令按一次计
+     */
+    private long operations;
+
+    private long failures;
+
+    /**
+     * 经 pipeline 发送的命令总数
+     */
+    private long pipelinedCommands;
+
+    /**
+     * 从连接池借用连接的平均/最大等待时间（微秒）
+     */
+    private double avgPoolWaitMicros;
+
+    private long maxPoolWaitMicros;
+
+    /**
+     * 借到连接后命令往返的平均/最大耗时（微秒）
+     */
+    private double avgRoundTripMicros;
+
+    private long maxRoundTripMicros;
+
+    /**
+     * 连接池当前状态
+     */
+    private int poolActive;
+
+    private int poolIdle;
+
+    private int poolWaiters;
+
+}
@@ -25,10 +25,7 @@ import com.alibaba.dashscope.aigc.generation.GenerationParam;
 import com.alibaba.dashscope.aigc.generation.GenerationResult;
 import com.alibaba.dashscope.common.Message;
 import com.alibaba.dashscope.common.Role;
-import com.alibaba.dashscope.exception.ApiException;
-import com.alibaba.dashscope.exception.InputRequiredException;
-import com.alibaba.dashscope.exception.NoApiKeyException;
-import io.reactivex.rxjava3.core.BackpressureStrategy;
+import io.reactivex.rxjava3.core.BackpressureOverflowStrategy;
 import io.reactivex.rxjava3.core.Flowable;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -36,19 +33,62 @@ import org.springframework.stereotype.Component;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
  * @author zhenkui.yzk
  * 阿里百炼Api说明:https://help.aliyun.com/zh/model-studio/use-qwen-by-calling-api
  * 使用SDK方式接入
+ * <p>
+ * 同步与流式调用各用一个 Generation 客户端：SDK 每次调用都会改写客户端的服务选项（是否 SSE、流模式），
+ * 同步与流式共用一个实例时并发调用会互相覆盖；底层 HTTP 连接由 SDK 全局共享。流式调用经 {@link LlmStreamBridge} 非阻塞地桥接 SDK 的 RxJava2 流，
+ * 缓冲区容量与溢出策略可通过 ali.agentic.adk.flownode.dashscope.stream.* 配置。
+ * </p>
  */
 @Slf4j
 @Component
 public class DashScopeLlm implements BasicLlm {
 
+    public static final int DEFAULT_STREAM_BUFFER_SIZE = 1024;
+
     private String apiKey;
 
+    private final Generation generation;
+
+    private final Generation streamGeneration;
+
+    /**
+     * 流式输出的缓冲区容量，下游消费慢于模型输出时生效
+     */
+    @Value("${ali.agentic.adk.flownode.dashscope.stream.bufferSize:" + DEFAULT_STREAM_BUFFER_SIZE + "}")
+    private int streamBufferSize = DEFAULT_STREAM_BUFFER_SIZE;
+
+    /**
+     * 缓冲区满时的处理策略：ERROR 终止流，DROP_OLDEST / DROP_LATEST 丢弃分片
+     */
+    @Value("${ali.agentic.adk.flownode.dashscope.stream.overflowStrategy:ERROR}")
+    private BackpressureOverflowStrategy streamOverflowStrategy = BackpressureOverflowStrategy.ERROR;
+
+    private Consumer<LlmStreamMetrics> streamMetricsListener = metrics ->
+            log.debug("dashscope stream finished, metrics: {}", metrics);
+
+    public DashScopeLlm() {
+        this(new Generation(), new Generation());
+    }
+
+    DashScopeLlm(Generation generation, Generation streamGeneration) {
+        this.generation = generation;
+        this.streamGeneration = streamGeneration;
+    }
+
+    /**
+     * 设置流式指标回调，可接入监控系统
+     */
+    public void setStreamMetricsListener(Consumer<LlmStreamMetrics> streamMetricsListener) {
+        this.streamMetricsListener = streamMetricsListener;
+    }
+
     @Override
     public String model() {
         return "dashscope";
@@ -133,8 +173,7 @@ public class DashScopeLlm implements BasicLlm {
 
         return Flowable.fromCallable(() -> {
             try {
-                Generation gen = new Generation();
-                GenerationResult result = gen.call(param);
+                GenerationResult result = generation.call(param);
                 return toLlmResponse(result);
             } catch (Throwable e) {
                 throw new RuntimeException("Qwen 调用失败", e);
@@ -155,16 +194,9 @@ public class DashScopeLlm implements BasicLlm {
                 .incrementalOutput(true)
                 .build();
 
-        return Flowable.create(emitter -> {
-            try {
-                Generation gen = new Generation();
-                io.reactivex.Flowable<GenerationResult> stream = gen.streamCall(param);
-                stream.blockingForEach(r -> emitter.onNext(toLlmResponse(r)));
-                emitter.onComplete();
-            } catch (ApiException | NoApiKeyException | InputRequiredException e) {
-                emitter.onError(e);
-            }
-        }, BackpressureStrategy.BUFFER);
+        // SDK 流在 OkHttp 回调线程推送，订阅即返回；streamCall 的受检异常在订阅时以 onError 传递
+        return LlmStreamBridge.bridge(llmRequest.getModelName(), () -> streamGeneration.streamCall(param),
+                this::toLlmResponse, streamBufferSize, streamOverflowStrategy, streamMetricsListener);
     }
 
     private String getApiKey() {
@@ -0,0 +1,159 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.agentic.core.models;
+
+import com.alibaba.agentic.core.engine.delegation.domain.LlmResponse;
+import io.reactivex.rxjava3.core.BackpressureOverflowStrategy;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.functions.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.reactivestreams.Publisher;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * DESCRIPTION
+ * 模型 SDK 流式结果到 RxJava3 的桥接
+ * <p>
+ * 以 Reactive Streams 的 Publisher 直接订阅 SDK 返回的流（如 DashScope 的 RxJava2 Flowable），
+ * 不占用线程阻塞等待；下游取消时取消上游订阅；SDK 推送速度超过下游消费时使用有界缓冲，
+ * 溢出按配置的策略处理；流结束时上报首 token 耗时与生成速率。
+ * </p>
+ */
+@Slf4j
+public final class LlmStreamBridge {
+
+    private LlmStreamBridge() {
+    }
+
+    /**
+     * @param model            模型名称，用于指标
+     * @param upstream         在订阅时创建 SDK 流，抛出的异常以 onError 传递
+     * @param mapper           SDK 结果到 LlmResponse 的转换
+     * @param bufferSize       缓冲区容量
+     * @param overflowStrategy 缓冲区满时的处理策略
+     * @param metricsListener  流结束时回调，可为 null
+     */
+    public static <T> Flowable<LlmResponse> bridge(String model, Callable<? extends Publisher<T>> upstream,
+                                                   Function<T, LlmResponse> mapper, int bufferSize,
+                                                   BackpressureOverflowStrategy overflowStrategy,
+                                                   Consumer<LlmStreamMetrics> metricsListener) {
+        return Flowable.defer(() -> {
+            StreamRecorder recorder = new StreamRecorder(model, metricsListener);
+            return Flowable.defer(() -> Flowable.fromPublisher(upstream.call()))
+                    .map(mapper)
+                    .doOnNext(recorder::onResponse)
+                    .onBackpressureBuffer(bufferSize, recorder::onOverflow, overflowStrategy)
+                    .doOnComplete(() -> recorder.finish(LlmStreamMetrics.STATUS_COMPLETED))
+                    .doOnError(throwable -> recorder.finish(LlmStreamMetrics.STATUS_FAILED))
+                    .doOnCancel(() -> recorder.finish(LlmStreamMetrics.STATUS_CANCELLED));
+        });
+    }
+
+    /**
+     * 单次流的计时与计数，onNext 由上游串行调用，结束只上报一次
+     */
+    private static final class StreamRecorder {
+
+        private final String model;
+
+        private final Consumer<LlmStreamMetrics> metricsListener;
+
+        private final long startNanos = System.nanoTime();
+
+        private final AtomicBoolean finished = new AtomicBoolean(false);
+
+        private volatile long firstTokenNanos;
+
+        private volatile long chunks;
+
+        private volatile long nonEmptyChunks;
+
+        private volatile long usageTokens;
+
+        private volatile long overflows;
+
+        private StreamRecorder(String model, Consumer<LlmStreamMetrics> metricsListener) {
+            this.model = model;
+            this.metricsListener = metricsListener;
+        }
+
+        private void onResponse(LlmResponse response) {
+            chunks++;
+            if (hasContent(response)) {
+                nonEmptyChunks++;
+                if (firstTokenNanos == 0) {
+                    firstTokenNanos = System.nanoTime();
+                }
+            }
+            // 增量输出时 usage 为累计值
+            if (response.getUsage() != null && response.getUsage().getCompletionTokens() != null) {
+                usageTokens = Math.max(usageTokens, response.getUsage().getCompletionTokens());
+            }
+        }
+
+        private void onOverflow() {
+            overflows++;
+        }
+
+        private void finish(String status) {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            long endNanos = System.nanoTime();
+            long completionTokens = usageTokens > 0 ? usageTokens : nonEmptyChunks;
+            LlmStreamMetrics metrics = new LlmStreamMetrics()
+                    .setModel(model)
+                    .setStatus(status)
+                    .setDurationMillis(TimeUnit.NANOSECONDS.toMillis(endNanos - startNanos))
+                    .setChunks(chunks)
+                    .setCompletionTokens(completionTokens)
+                    .setOverflows(overflows);
+            if (firstTokenNanos != 0) {
+                metrics.setTimeToFirstTokenMillis(TimeUnit.NANOSECONDS.toMillis(firstTokenNanos - startNanos));
+                long generateNanos = endNanos - firstTokenNanos;
+                if (generateNanos > 0) {
+                    metrics.setTokensPerSecond(completionTokens * 1_000_000_000d / generateNanos);
+                }
+            }
+            if (metricsListener == null) {
+                return;
+            }
+            try {
+                metricsListener.accept(metrics);
+            } catch (Throwable throwable) {
+                log.warn("llm stream metrics listener error, model: {}", model, throwable);
+            }
+        }
+
+        private static boolean hasContent(LlmResponse response) {
+            if (response.getChoices() == null) {
+                return false;
+            }
+            for (LlmResponse.Choice choice : response.getChoices()) {
+                if (StringUtils.isNotEmpty(choice.getText())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+}
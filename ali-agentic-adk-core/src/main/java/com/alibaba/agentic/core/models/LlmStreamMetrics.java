@@ -0,0 +1,74 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.agentic.core.models;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * DESCRIPTION
+ * 单次流式调用的性能指标，在流结束（完成、失败或取消）时生成一次
+ */
+@Data
+@Accessors(chain = true)
+public class LlmStreamMetrics {
+
+    public static final String STATUS_COMPLETED = "completed";
+
+    public static final String STATUS_FAILED = "failed";
+
+    public static final String STATUS_CANCELLED = "cancelled";
+
+    /**
+     * 模型名称
+     */
+    private String model;
+
+    /**
+     * 结束状态：completed、failed、cancelled
+     */
+    private String status;
+
+    /**
+     * 首个 token 到达耗时（毫秒），未收到任何内容时为 -1
+     */
+    private long timeToFirstTokenMillis = -1;
+
+    /**
+     * 从订阅到结束的总耗时（毫秒）
+     */
+    private long durationMillis;
+
+    /**
+     * 收到的分片数
+     */
+    private long chunks;
+
+    /**
+     * 生成的 token 数，优先取模型返回的 usage，缺失时按非空分片计数
+     */
+    private long completionTokens;
+
+    /**
+     * 生成速率：首 token 之后每秒生成的 token 数
+     */
+    private double tokensPerSecond;
+
+    /**
+     * 缓冲区溢出次数
+     */
+    private long overflows;
+}
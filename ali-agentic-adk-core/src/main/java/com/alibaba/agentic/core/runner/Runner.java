@@ -15,6 +15,7 @@
  */
 package com.alibaba.agentic.core.runner;
 
+import com.alibaba.agentic.core.engine.behavior.BaseCondition;
 import com.alibaba.agentic.core.engine.constants.ExecutionConstant;
 import com.alibaba.agentic.core.engine.dto.FlowDefinition;
 import com.alibaba.agentic.core.engine.node.FlowCanvas;
@@ -28,6 +29,7 @@ import com.alibaba.agentic.core.flows.service.impl.FlowProcessService;
 import com.alibaba.agentic.core.flows.storage.FlowStorageService;
 import com.alibaba.agentic.core.runner.pipeline.PipelineRequest;
 import com.alibaba.agentic.core.runner.pipeline.PipelineUtil;
+import com.alibaba.agentic.core.tools.BaseTool;
 import com.alibaba.agentic.core.utils.AssertUtils;
 import io.reactivex.rxjava3.core.Flowable;
 import io.reactivex.rxjava3.processors.FlowableProcessor;
@@ -77,11 +79,14 @@ public class Runner {
         AssertUtils.assertNotNull(request.getInvokeMode());
         FlowableProcessor<Result> resultClient = ReplayProcessor.create();
         FlowDefinition flowDefinition = agentProcessService.deploy(canvas);
-        log.info("flowDefinition: " + flowDefinition);
+        log.debug("flowDefinition: {}", flowDefinition);
+        // 条件与工具实例不随部署缓存复用，按本次画布解析
+        Map<String, BaseCondition> conditions = canvas.collectConditions();
+        Map<String, BaseTool> tools = canvas.collectTools();
         if (InvokeMode.BIDI.equals(request.getInvokeMode())) {
             request.getProcessor().subscribe(event -> {
                         try {
-                            run(flowDefinition, new Request().setInvokeMode(InvokeMode.BIDI).setParam(event)).subscribe(resultClient::onNext);
+                            run(flowDefinition, new Request().setInvokeMode(InvokeMode.BIDI).setParam(event), conditions, tools).subscribe(resultClient::onNext);
                         } catch (Throwable throwable) {
                             resultClient.onNext(Result.fail(throwable));
                         }
@@ -90,7 +95,7 @@ public class Runner {
                     resultClient::onComplete);
             return resultClient;
         }
-        return run(flowDefinition, request);
+        return run(flowDefinition, request, conditions, tools);
 
     }
 
@@ -118,14 +123,19 @@ public class Runner {
      *
      * @param flowDefinition 流程定义
      * @param request        执行请求
+     * @param conditions     本次运行画布中的条件
+     * @param tools          本次运行画布中的工具
      * @return 结果流
      */
-    private Flowable<Result> run(FlowDefinition flowDefinition, Request request) {
+    private Flowable<Result> run(FlowDefinition flowDefinition, Request request, Map<String, BaseCondition> conditions,
+                                 Map<String, BaseTool> tools) {
         return PipelineUtil.doPipe(PipelineRequest.builder()
                 .flowDefinition(flowDefinition)
                 .request(Map.of(ExecutionConstant.ORIGIN_REQUEST, request,
                         ExecutionConstant.SYSTEM_CONTEXT, new SystemContext()
                                 .setInvokeMode(request.getInvokeMode())
+                                .setConditions(conditions)
+                                .setTools(tools)
                                 .setRequestParameter(request.getParam()))).build());
     }
 
@@ -0,0 +1,267 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.agentic.core.tools;
+
+import com.alibaba.agentic.core.exceptions.BaseException;
+import com.alibaba.agentic.core.exceptions.ErrorEnum;
+import com.alibaba.agentic.core.executor.SystemContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.adk.tools.Annotations;
+import io.reactivex.rxjava3.core.Flowable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * DESCRIPTION
+ * FunctionTool 的预编译调用器
+ * <p>
+ * 创建工具时一次性完成：参数名解析、按参数类型选定转换器、将 Method 转为 MethodHandle；
+ * 每次调用只做参数查找、转换与 invokeExact，不再重复读取注解和创建 ObjectMapper。
+ * </p>
+ */
+final class FunctionToolInvoker {
+
+    /**
+     * 配置完成后只读使用，线程安全，所有工具共享
+     */
+    static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final MethodType SPREAD_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    private final Method func;
+
+    private final Object instance;
+
+    private final ArgumentBinder[] binders;
+
+    /**
+     * 无法生成 MethodHandle 时为 null，退回反射调用
+     */
+    private final MethodHandle handle;
+
+    private FunctionToolInvoker(Object instance, Method func) {
+        this.func = func;
+        this.instance = instance;
+        Parameter[] parameters = func.getParameters();
+        this.binders = new ArgumentBinder[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            binders[i] = ArgumentBinder.compile(parameters[i]);
+        }
+        this.handle = unreflect(instance, func);
+    }
+
+    static FunctionToolInvoker compile(Object instance, Method func) {
+        return new FunctionToolInvoker(instance, func);
+    }
+
+    static String parameterName(Parameter parameter) {
+        return parameter.isAnnotationPresent(Annotations.Schema.class)
+                && !parameter.getAnnotation(Annotations.Schema.class).name().isEmpty()
+                ? parameter.getAnnotation(Annotations.Schema.class).name()
+                : parameter.getName();
+    }
+
+    static boolean isSystemContext(Parameter parameter) {
+        return parameter.getType().isAssignableFrom(SystemContext.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    Flowable<Map<String, Object>> invoke(Map<String, Object> args, SystemContext systemContext) {
+        Object[] arguments = new Object[binders.length];
+        for (int i = 0; i < binders.length; i++) {
+            arguments[i] = binders[i].bind(args, systemContext);
+        }
+        try {
+            Object result = handle != null ? (Object) handle.invokeExact(arguments) : func.invoke(instance, arguments);
+            if (result == null) {
+                return Flowable.empty();
+            } else if (result instanceof Flowable) {
+                return (Flowable<Map<String, Object>>) result;
+            } else {
+                return Flowable.just((Map<String, Object>) result);
+            }
+        } catch (InvocationTargetException e) {
+            return Flowable.error(e.getTargetException());
+        } catch (Throwable e) {
+            return Flowable.error(e);
+        }
+    }
+
+    private static MethodHandle unreflect(Object instance, Method func) {
+        boolean isStatic = Modifier.isStatic(func.getModifiers());
+        if (!isStatic && !func.getDeclaringClass().isInstance(instance)) {
+            // 保持反射调用的报错行为，由 Method.invoke 在调用时抛出
+            return null;
+        }
+        try {
+            MethodHandle methodHandle = MethodHandles.publicLookup().unreflect(func);
+            if (!isStatic) {
+                methodHandle = methodHandle.bindTo(instance);
+            }
+            return methodHandle.asSpreader(Object[].class, func.getParameterCount()).asType(SPREAD_TYPE);
+        } catch (IllegalAccessException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 按目标类型选定转换器：常见的数值、布尔与字符串走快速路径，其余交给共享的 ObjectMapper
+     */
+    private static Function<Object, Object> valueConverter(Class<?> type) {
+        JavaType javaType = OBJECT_MAPPER.constructType(type);
+        Function<Object, Object> fallback = value -> OBJECT_MAPPER.convertValue(value, javaType);
+        if (type.equals(Integer.class) || type.equals(int.class)) {
+            return value -> value instanceof Integer ? value : fallback.apply(value);
+        } else if (type.equals(Long.class) || type.equals(long.class)) {
+            return value -> {
+                if (value instanceof Long) {
+                    return value;
+                }
+                // 模型返回的小整数通常是 Integer，需拓宽为 Long，否则装箱参数与 List<Long> 元素类型不匹配
+                return value instanceof Integer i ? Long.valueOf(i) : fallback.apply(value);
+            };
+        } else if (type.equals(Double.class) || type.equals(double.class)) {
+            return value -> {
+                if (value instanceof Double || value instanceof Float || value instanceof Integer || value instanceof Long) {
+                    return ((Number) value).doubleValue();
+                }
+                return fallback.apply(value);
+            };
+        } else if (type.equals(Float.class) || type.equals(float.class)) {
+            return value -> {
+                if (value instanceof Double || value instanceof Float || value instanceof Integer || value instanceof Long) {
+                    return ((Number) value).floatValue();
+                }
+                return fallback.apply(value);
+            };
+        } else if (type.equals(Boolean.class) || type.equals(boolean.class)) {
+            return value -> value instanceof Boolean ? value : fallback.apply(value);
+        } else if (type.equals(String.class)) {
+            return value -> value instanceof String ? value : fallback.apply(value);
+        }
+        return fallback;
+    }
+
+    private static boolean isSimpleType(Class<?> cls) {
+        return cls == Integer.class
+                || cls == Long.class
+                || cls == Double.class
+                || cls == Float.class
+                || cls == Boolean.class
+                || cls == String.class;
+    }
+
+    /**
+     * 单个参数的绑定规则，创建工具时按参数声明预先计算
+     */
+    private static final class ArgumentBinder {
+
+        private final String name;
+
+        private final boolean systemContext;
+
+        /**
+         * 实参为 List 时使用，非 List 参数为 null
+         */
+        private final Function<List<Object>, Object> listConverter;
+
+        /**
+         * 实参为 Map 时使用（List 参数除外）
+         */
+        private final Function<Object, Object> mapConverter;
+
+        private final Function<Object, Object> valueConverter;
+
+        private ArgumentBinder(String name, boolean systemContext, Function<List<Object>, Object> listConverter,
+                               Function<Object, Object> mapConverter, Function<Object, Object> valueConverter) {
+            this.name = name;
+            this.systemContext = systemContext;
+            this.listConverter = listConverter;
+            this.mapConverter = mapConverter;
+            this.valueConverter = valueConverter;
+        }
+
+        static ArgumentBinder compile(Parameter parameter) {
+            String name = parameterName(parameter);
+            if (isSystemContext(parameter)) {
+                return new ArgumentBinder(name, true, null, null, null);
+            }
+            Class<?> paramType = parameter.getType();
+            Function<Object, Object> valueConverter = valueConverter(paramType);
+            if (paramType.equals(List.class)) {
+                return new ArgumentBinder(name, false, listConverter(parameter), null, valueConverter);
+            }
+            JavaType javaType = OBJECT_MAPPER.constructType(paramType);
+            return new ArgumentBinder(name, false, null,
+                    value -> OBJECT_MAPPER.convertValue(value, javaType), valueConverter);
+        }
+
+        private static Function<List<Object>, Object> listConverter(Parameter parameter) {
+            Type elementType = parameter.getParameterizedType() instanceof ParameterizedType parameterizedType
+                    ? parameterizedType.getActualTypeArguments()[0] : Object.class;
+            Function<Object, Object> elementConverter;
+            if (elementType instanceof Class<?> cls && isSimpleType(cls)) {
+                elementConverter = valueConverter(cls);
+            } else {
+                JavaType javaType = OBJECT_MAPPER.constructType(elementType);
+                elementConverter = value -> OBJECT_MAPPER.convertValue(value, javaType);
+            }
+            return values -> {
+                List<Object> list = new ArrayList<>(values.size());
+                for (Object value : values) {
+                    list.add(elementConverter.apply(value));
+                }
+                return list;
+            };
+        }
+
+        @SuppressWarnings("unchecked")
+        Object bind(Map<String, Object> args, SystemContext systemContext) {
+            if (this.systemContext) {
+                return systemContext;
+            }
+            if (!args.containsKey(name)) {
+                throw new BaseException(
+                        String.format(
+                                "The parameter '%s' was not found in the arguments provided by the model.",
+                                name), ErrorEnum.SYSTEM_ERROR);
+            }
+            Object argValue = args.get(name);
+            if (listConverter != null) {
+                if (argValue instanceof List) {
+                    return listConverter.apply((List<Object>) argValue);
+                }
+            } else if (argValue instanceof Map) {
+                return mapConverter.apply(argValue);
+            }
+            return valueConverter.apply(argValue);
+        }
+    }
+
+}
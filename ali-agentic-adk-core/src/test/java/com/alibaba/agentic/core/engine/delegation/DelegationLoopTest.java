@@ -0,0 +1,136 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.agentic.core.engine.delegation;
+
+import com.alibaba.agentic.core.engine.delegation.domain.LoopRequest;
+import com.alibaba.agentic.core.engine.node.sub.LoopFlowNode;
+import com.alibaba.agentic.core.engine.utils.DelegationUtils;
+import com.alibaba.agentic.core.executor.InvokeMode;
+import com.alibaba.agentic.core.executor.Result;
+import com.alibaba.agentic.core.executor.SystemContext;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DelegationLoopTest {
+
+    private final ExecutorService executorService = Executors.newCachedThreadPool();
+
+    private final Scheduler scheduler = Schedulers.from(executorService, true);
+
+    @AfterEach
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void testExitConditionSeesPreviousIterations() {
+        SystemContext parent = new SystemContext().setInvokeMode(InvokeMode.SYNC).setRequestParameter(Map.of("query", "q"));
+        List<Result> results = DelegationLoop.iterate(parent, loopRequest(10),
+                        context -> Integer.valueOf(2).equals(DelegationUtils.getResultOfNode(context, "agent", "turn")),
+                        context -> {
+                            Integer index = (Integer) context.getRequestParameter().get(LoopFlowNode.LOOP_INDEX_KEY);
+                            Result result = Result.success(Map.of("turn", index, "query", context.getRequestParameter().get("query")));
+                            DelegationUtils.saveInterOutput("agent", context, result);
+                            return Flowable.just(result);
+                        }, scheduler)
+                .toList().blockingGet();
+        assertEquals(List.of(0, 1, 2), results.stream().map(result -> result.getData().get("turn")).collect(Collectors.toList()));
+        assertEquals("q", results.get(0).getData().get("query"));
+        assertEquals(2, DelegationUtils.getResultOfNode(parent, "agent", "turn"));
+    }
+
+    @Test
+    public void testBudgets() {
+        SystemContext parent = new SystemContext().setInvokeMode(InvokeMode.SYNC);
+        assertEquals(3, DelegationLoop.iterate(parent, loopRequest(3),
+                null, context -> Flowable.just(Result.success(Map.of())), scheduler).count().blockingGet());
+
+        // 单轮失败时结束循环并输出失败结果
+        List<Result> failed = DelegationLoop.iterate(parent, loopRequest(3), null,
+                context -> Flowable.error(new IllegalStateException("boom")), scheduler).toList().blockingGet();
+        assertEquals(1, failed.size());
+        assertFalse(failed.get(0).isSuccess());
+
+        long start = System.currentTimeMillis();
+        long count = DelegationLoop.iterate(parent, loopRequest(1000).setMaxDurationMillis(200), null,
+                        context -> Flowable.just(Result.success(Map.of())).delay(50, TimeUnit.MILLISECONDS), scheduler)
+                .count().blockingGet();
+        assertTrue(count < 10);
+        assertTrue(System.currentTimeMillis() - start < 1000);
+    }
+
+    @Test
+    public void testDurationBudgetInterruptsRunningIteration() throws InterruptedException {
+        SystemContext parent = new SystemContext().setInvokeMode(InvokeMode.SYNC);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        // 同步阻塞的迭代只能通过中断执行线程取消
+        List<Result> results = DelegationLoop.iterate(parent, loopRequest(3).setMaxDurationMillis(100), null,
+                        context -> Flowable.fromCallable(() -> {
+                            try {
+                                Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                            } catch (InterruptedException e) {
+                                interrupted.countDown();
+                                throw e;
+                            }
+                            return Result.success(Map.of());
+                        }), scheduler)
+                .toList().blockingGet();
+        assertTrue(results.isEmpty());
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testConcurrentMapLoopKeepsOrder() throws InterruptedException {
+        SystemContext parent = new SystemContext().setInvokeMode(InvokeMode.SYNC)
+                .setRequestParameter(Map.of("cities", List.of("hz", "sh", "bj")));
+        CountDownLatch allStarted = new CountDownLatch(3);
+        LoopRequest request = loopRequest(10).setIterateOver("cities").setItemKey("city").setConcurrency(3);
+        List<Result> results = DelegationLoop.iterate(parent, request, null, context -> Flowable.fromCallable(() -> {
+                    allStarted.countDown();
+                    // 各项串行执行时无法全部到达
+                    assertTrue(allStarted.await(1, TimeUnit.SECONDS));
+                    String city = (String) context.getRequestParameter().get("city");
+                    Result result = Result.success(Map.of("city", city));
+                    DelegationUtils.saveInterOutput("weather_" + city, context, result);
+                    return result;
+                }), scheduler)
+                .toList().blockingGet();
+        assertEquals(List.of("hz", "sh", "bj"), results.stream().map(result -> result.getData().get("city")).collect(Collectors.toList()));
+        for (String city : List.of("hz", "sh", "bj")) {
+            assertEquals(city, DelegationUtils.getResultOfNode(parent, "weather_" + city, "city"));
+        }
+    }
+
+    private LoopRequest loopRequest(int maxIterations) {
+        return new LoopRequest().setMaxIterations(maxIterations).setItemKey(LoopFlowNode.DEFAULT_ITEM_KEY).setConcurrency(1);
+    }
+
+}
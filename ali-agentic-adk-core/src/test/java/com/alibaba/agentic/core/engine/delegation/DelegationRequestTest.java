@@ -0,0 +1,151 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.agentic.core.engine.delegation;
+
+import com.alibaba.agentic.core.engine.delegation.domain.FunctionCallRequest;
+import com.alibaba.agentic.core.engine.delegation.domain.LlmRequest;
+import com.alibaba.agentic.core.engine.delegation.domain.TypedRequestParam;
+import com.alibaba.agentic.core.engine.node.FlowCanvas;
+import com.alibaba.agentic.core.engine.node.sub.LlmFlowNode;
+import com.alibaba.agentic.core.engine.node.sub.ToolFlowNode;
+import com.alibaba.agentic.core.engine.node.sub.ToolParam;
+import com.alibaba.agentic.core.engine.utils.SmartEngineUtils;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.alibaba.smart.framework.engine.context.ExecutionContext;
+import com.alibaba.smart.framework.engine.context.impl.DefaultExecutionContext;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DelegationRequestTest {
+
+    @Test
+    public void testLlmRequestFromCachedDescriptor() {
+        ExecutionContext executionContext = executionContext();
+        DelegationLlm delegationLlm = new DelegationLlm();
+
+        Map<String, Object> first = delegationLlm.generateRequest(executionContext, "llmNode");
+        Map<String, Object> second = delegationLlm.generateRequest(executionContext, "llmNode");
+
+        LlmRequest firstRequest = TypedRequestParam.unwrap(first, LlmRequest.class);
+        LlmRequest secondRequest = TypedRequestParam.unwrap(second, LlmRequest.class);
+        assertEquals(llmRequest(), firstRequest);
+        assertEquals(firstRequest, secondRequest);
+        // 每次执行拿到独立的可变副本
+        assertNotSame(firstRequest, secondRequest);
+        assertNotSame(firstRequest.getMessages().get(0), secondRequest.getMessages().get(0));
+        assertTrue(firstRequest.getExtraParams() instanceof Map);
+        // map内容与JSON序列化结果一致，持久化后仍可还原
+        assertEquals(JSONObject.parseObject(JSONObject.toJSONString(firstRequest)), JSONObject.parseObject(JSONObject.toJSONString(first)));
+        assertEquals(firstRequest, TypedRequestParam.unwrap(JSONObject.parseObject(JSONObject.toJSONString(first)), LlmRequest.class));
+    }
+
+    @Test
+    public void testToolRequestFromCachedDescriptor() {
+        ExecutionContext executionContext = executionContext();
+        DelegationTool delegationTool = new DelegationTool();
+
+        Map<String, Object> param = delegationTool.generateRequest(executionContext, "toolNode");
+        FunctionCallRequest request = TypedRequestParam.unwrap(param, FunctionCallRequest.class);
+        assertEquals("weather_tool", request.getToolName());
+        assertEquals(Map.of("city", "hz"), request.getToolParameter());
+        request.getToolParameter().put("city", "sh");
+
+        FunctionCallRequest next = TypedRequestParam.unwrap(delegationTool.generateRequest(executionContext, "toolNode"), FunctionCallRequest.class);
+        assertEquals(Map.of("city", "hz"), next.getToolParameter());
+
+        // 修改参数后按map内容重新转换
+        param.put("toolName", "other_tool");
+        assertEquals("other_tool", TypedRequestParam.unwrap(param, FunctionCallRequest.class).getToolName());
+    }
+
+    @Test
+    public void testParamModifiedThroughAnyPathIsReconverted() {
+        ExecutionContext executionContext = executionContext();
+        DelegationTool delegationTool = new DelegationTool();
+
+        Map<String, Object> param = delegationTool.generateRequest(executionContext, "toolNode");
+        param.putIfAbsent("extra", 1);
+        param.compute("toolName", (key, value) -> "computed_tool");
+        assertEquals("computed_tool", TypedRequestParam.unwrap(param, FunctionCallRequest.class).getToolName());
+
+        param = delegationTool.generateRequest(executionContext, "toolNode");
+        param.entrySet().stream().filter(entry -> "toolName".equals(entry.getKey())).forEach(entry -> entry.setValue("entry_tool"));
+        assertEquals("entry_tool", TypedRequestParam.unwrap(param, FunctionCallRequest.class).getToolName());
+
+        // 嵌套对象的修改同样生效
+        param = delegationTool.generateRequest(executionContext, "toolNode");
+        ((Map<String, Object>) param.get("toolParameter")).put("city", "sh");
+        assertEquals(Map.of("city", "sh"), TypedRequestParam.unwrap(param, FunctionCallRequest.class).getToolParameter());
+    }
+
+    @Test
+    public void testLlmParamKeepsJsonTypes() {
+        Map<String, Object> param = new DelegationLlm().generateRequest(executionContext(), "llmNode");
+        // 与此前按JSON转换生成的参数类型一致
+        assertTrue(param.get("messages") instanceof JSONArray);
+        JSONObject message = ((JSONArray) param.get("messages")).getJSONObject(0);
+        assertEquals("hello", message.getString("content"));
+        message.put("content", "changed");
+        assertEquals("changed", TypedRequestParam.unwrap(param, LlmRequest.class).getMessages().get(0).getContent());
+    }
+
+    @Test
+    public void testDescriptorSharedPerDefinition() {
+        ExecutionContext executionContext = executionContext();
+        LlmRequest first = SmartEngineUtils.getNodeDescriptor(
+                executionContext, "llmNode", LlmRequest.class, DelegationLlm::parseLlmRequest);
+        LlmRequest second = SmartEngineUtils.getNodeDescriptor(
+                executionContext, "llmNode", LlmRequest.class, properties -> {
+                    throw new IllegalStateException("should be cached");
+                });
+        assertSame(first, second);
+    }
+
+    private ExecutionContext executionContext() {
+        LlmFlowNode llmNode = new LlmFlowNode(llmRequest());
+        llmNode.setId("llmNode");
+        ToolFlowNode toolNode = new ToolFlowNode("weather_tool", List.of(new ToolParam().setName("city").setValue("hz")));
+        toolNode.setId("toolNode");
+        llmNode.next(toolNode);
+
+        FlowCanvas canvas = new FlowCanvas();
+        canvas.setRoot(llmNode);
+        canvas.setProcessDefinitionId("descriptor-test");
+        ExecutionContext executionContext = new DefaultExecutionContext();
+        executionContext.setProcessDefinition(canvas.compile());
+        return executionContext;
+    }
+
+    private static LlmRequest llmRequest() {
+        LlmRequest llmRequest = new LlmRequest();
+        llmRequest.setModel("dashscope");
+        llmRequest.setModelName("qwen-plus");
+        llmRequest.setTemperature(0.7);
+        llmRequest.setStop(List.of("END"));
+        llmRequest.setMessages(List.of(new LlmRequest.Message("user", "hello")));
+        llmRequest.setExtraParams(new JSONObject(Map.of("enable_thinking", false)));
+        return llmRequest;
+    }
+
+}
@@ -0,0 +1,165 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.agentic.core.engine.delegation;
+
+import com.alibaba.agentic.core.engine.node.sub.ParallelFlowNode;
+import com.alibaba.agentic.core.engine.utils.DelegationUtils;
+import com.alibaba.agentic.core.exceptions.ErrorEnum;
+import com.alibaba.agentic.core.executor.InvokeMode;
+import com.alibaba.agentic.core.executor.Result;
+import com.alibaba.agentic.core.executor.SystemContext;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ParallelBranchJoinerTest {
+
+    private final ExecutorService executorService = Executors.newCachedThreadPool();
+
+    private final Scheduler scheduler = Schedulers.from(executorService, true);
+
+    @AfterEach
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void testJoinAllRunsConcurrentlyAndMergesOutputs() {
+        SystemContext parent = new SystemContext().setInvokeMode(InvokeMode.SYNC);
+        DelegationUtils.saveInterOutput("before", parent, Result.success(Map.of("v", 0)));
+        CountDownLatch allStarted = new CountDownLatch(3);
+        long start = System.currentTimeMillis();
+        Result result = ParallelBranchJoiner.join(parent, List.of("a", "b", "c"), (index, context) -> Flowable.fromCallable(() -> {
+                    allStarted.countDown();
+                    // 分支串行执行时无法全部到达
+                    assertTrue(allStarted.await(1, TimeUnit.SECONDS));
+                    Result branchResult = Result.success(Map.of("index", index));
+                    DelegationUtils.saveInterOutput("node" + index, context, branchResult);
+                    return branchResult;
+                }), ParallelFlowNode.JoinStrategy.ALL, 0, 0, scheduler)
+                .blockingFirst();
+        assertTrue(result.isSuccess());
+        assertTrue(System.currentTimeMillis() - start < 1000);
+        assertEquals(List.of("a", "b", "c"), List.copyOf(result.getData().keySet()));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i, DelegationUtils.getResultOfNode(parent, "node" + i, "index"));
+        }
+        assertEquals(0, DelegationUtils.getResultOfNode(parent, "before", "v"));
+    }
+
+    @Test
+    public void testJoinAllFailsFast() {
+        SystemContext parent = new SystemContext().setInvokeMode(InvokeMode.SYNC);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        Result result = ParallelBranchJoiner.join(parent, List.of("ok", "slow", "bad"), (index, context) -> switch (index) {
+                    case 0 -> Flowable.just(Result.success(Map.of("v", 1)));
+                    case 1 -> blockUntilInterrupted(started, cancelled);
+                    default -> Flowable.fromCallable(() -> {
+                        started.await();
+                        return Result.fail(new IllegalStateException("boom"));
+                    });
+                }, ParallelFlowNode.JoinStrategy.ALL, 0, 0, scheduler)
+                .blockingFirst();
+        assertFalse(result.isSuccess());
+        assertEquals(ErrorEnum.PARALLEL_JOIN_FAILED.getCode(), result.getCode());
+        assertTrue(result.getErrorMsg().contains("branch bad"));
+        awaitCancelled(cancelled);
+    }
+
+    @Test
+    public void testFirstSuccessCancelsLosers() {
+        SystemContext parent = new SystemContext().setInvokeMode(InvokeMode.SYNC);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        Result result = ParallelBranchJoiner.join(parent, List.of("slow", "failed", "fast"), (index, context) -> switch (index) {
+                    case 0 -> blockUntilInterrupted(started, cancelled);
+                    case 1 -> Flowable.error(new IllegalStateException("boom"));
+                    default -> Flowable.fromCallable(() -> {
+                        started.await();
+                        DelegationUtils.saveInterOutput("fast", context, Result.success(Map.of("v", 2)));
+                        return Result.success(Map.of("v", 2));
+                    });
+                }, ParallelFlowNode.JoinStrategy.FIRST_SUCCESS, 0, 0, scheduler)
+                .blockingFirst();
+        assertTrue(result.isSuccess());
+        assertEquals(List.of("fast"), List.copyOf(result.getData().keySet()));
+        assertEquals(2, DelegationUtils.getResultOfNode(parent, "fast", "v"));
+        awaitCancelled(cancelled);
+    }
+
+    @Test
+    public void testQuorumWithBranchTimeout() {
+        SystemContext parent = new SystemContext().setInvokeMode(InvokeMode.SYNC);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        Result result = ParallelBranchJoiner.join(parent, List.of("a", "b", "hang"), (index, context) -> index == 2
+                        ? blockUntilInterrupted(started, cancelled)
+                        : Flowable.just(Result.success(Map.of("v", index))),
+                ParallelFlowNode.JoinStrategy.QUORUM, 3, 100, scheduler)
+                .blockingFirst();
+        assertFalse(result.isSuccess());
+        assertTrue(result.getErrorMsg().contains("timed out"));
+        assertEquals(2, result.getData().size());
+        awaitCancelled(cancelled);
+
+        assertTrue(ParallelBranchJoiner.join(parent, List.of("a", "b", "hang"), (index, context) -> index == 2
+                        ? Flowable.never()
+                        : Flowable.just(Result.success(Map.of("v", index))),
+                ParallelFlowNode.JoinStrategy.QUORUM, 2, 0, scheduler).blockingFirst().isSuccess());
+    }
+
+    @Test
+    public void testIllegalQuorum() {
+        assertThrows(RuntimeException.class, () -> ParallelBranchJoiner.join(new SystemContext(), List.of("a"),
+                (index, context) -> Flowable.empty(), ParallelFlowNode.JoinStrategy.QUORUM, 2, 0, scheduler).blockingFirst());
+    }
+
+    private Flowable<Result> blockUntilInterrupted(CountDownLatch started, CountDownLatch cancelled) {
+        return Flowable.fromCallable(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                cancelled.countDown();
+            }
+            return Result.success(Map.of());
+        });
+    }
+
+    private void awaitCancelled(CountDownLatch cancelled) {
+        try {
+            assertTrue(cancelled.await(1, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
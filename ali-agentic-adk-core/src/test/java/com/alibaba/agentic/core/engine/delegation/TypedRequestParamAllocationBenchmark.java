@@ -0,0 +1,117 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.agentic.core.engine.delegation;
+
+import com.alibaba.agentic.core.engine.delegation.domain.FunctionCallRequest;
+import com.alibaba.agentic.core.engine.delegation.domain.LlmRequest;
+import com.alibaba.agentic.core.engine.delegation.domain.TypedRequestParam;
+import com.alibaba.agentic.core.engine.node.FlowCanvas;
+import com.alibaba.agentic.core.engine.node.sub.LlmFlowNode;
+import com.alibaba.agentic.core.engine.node.sub.ToolFlowNode;
+import com.alibaba.agentic.core.engine.node.sub.ToolParam;
+import com.alibaba.fastjson.JSONObject;
+import com.alibaba.smart.framework.engine.context.ExecutionContext;
+import com.alibaba.smart.framework.engine.context.impl.DefaultExecutionContext;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 节点请求参数每次执行的分配量对比，main 方法运行
+ * <p>
+ * json：此前的做法，generateRequest 把请求对象转成 JSONObject，invoke 再把 map 转回请求对象；
+ * typed：{@link TypedRequestParam} 携带请求对象，invoke 直接取回；
+ * typed+read：执行前读取过 map 内容（如日志输出），取值退回按 map 内容转换。
+ * 三种方式都从同一个 generateRequest 出发，json 方式少算了此前从节点属性逐项解析请求的开销。
+ * 输出每次执行在当前线程上分配的字节数与耗时。
+ * </p>
+ */
+public class TypedRequestParamAllocationBenchmark {
+
+    private static final int ITERATIONS = 100_000;
+
+    private static final int ROUNDS = 5;
+
+    private static volatile Object sink;
+
+    public static void main(String[] args) {
+        ExecutionContext executionContext = executionContext();
+        DelegationLlm delegationLlm = new DelegationLlm();
+        DelegationTool delegationTool = new DelegationTool();
+        System.out.println("node\tparam\tbytesPerCall\tnsPerCall");
+        for (int round = 0; round < ROUNDS; round++) {
+            boolean report = round == ROUNDS - 1;
+            run("llm", report, () -> delegationLlm.generateRequest(executionContext, "llmNode"), LlmRequest.class);
+            run("tool", report, () -> delegationTool.generateRequest(executionContext, "toolNode"), FunctionCallRequest.class);
+        }
+    }
+
+    private static <T> void run(String node, boolean report, Supplier<Map<String, Object>> generateRequest, Class<T> type) {
+        measure(node, "json", report, () -> {
+            Map<String, Object> param = JSONObject.parseObject(JSONObject.toJSONString(
+                    TypedRequestParam.unwrap(generateRequest.get(), type)));
+            return new JSONObject(param).toJavaObject(type);
+        });
+        measure(node, "typed", report, () -> TypedRequestParam.unwrap(generateRequest.get(), type));
+        measure(node, "typed+read", report, () -> {
+            Map<String, Object> param = generateRequest.get();
+            sink = param.size();
+            return TypedRequestParam.unwrap(param, type);
+        });
+    }
+
+    private static void measure(String node, String param, boolean report, Supplier<Object> call) {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocated = threadMXBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink = call.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocated;
+        if (report) {
+            System.out.printf("%s\t%s\t%d\t%d%n", node, param, allocated / ITERATIONS, elapsed / ITERATIONS);
+        }
+    }
+
+    private static ExecutionContext executionContext() {
+        LlmRequest llmRequest = new LlmRequest();
+        llmRequest.setModel("dashscope");
+        llmRequest.setModelName("qwen-plus");
+        llmRequest.setTemperature(0.7);
+        llmRequest.setStop(List.of("END"));
+        llmRequest.setMessages(List.of(new LlmRequest.Message("system", "You are a weather assistant."),
+                new LlmRequest.Message("user", "What is the weather in Hangzhou for the next 7 days?")));
+        llmRequest.setExtraParams(new JSONObject(Map.of("enable_thinking", false)));
+        LlmFlowNode llmNode = new LlmFlowNode(llmRequest);
+        llmNode.setId("llmNode");
+        ToolFlowNode toolNode = new ToolFlowNode("weather_tool", List.of(new ToolParam().setName("city").setValue("hz"),
+                new ToolParam().setName("days").setValue("7")));
+        toolNode.setId("toolNode");
+        llmNode.next(toolNode);
+
+        FlowCanvas canvas = new FlowCanvas();
+        canvas.setRoot(llmNode);
+        canvas.setProcessDefinitionId("allocation-benchmark");
+        ExecutionContext executionContext = new DefaultExecutionContext();
+        executionContext.setProcessDefinition(canvas.compile());
+        return executionContext;
+    }
+
+}
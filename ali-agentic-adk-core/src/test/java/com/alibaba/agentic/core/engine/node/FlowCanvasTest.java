@@ -0,0 +1,375 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.agentic.core.engine.node;
+
+import com.alibaba.agentic.core.configuration.FrameworkConfiguration;
+import com.alibaba.agentic.core.engine.behavior.BaseCondition;
+import com.alibaba.agentic.core.engine.behavior.ConditionRegistry;
+import com.alibaba.agentic.core.engine.delegation.DelegationTool;
+import com.alibaba.agentic.core.engine.delegation.domain.FunctionCallRequest;
+import com.alibaba.agentic.core.engine.delegation.domain.LlmRequest;
+import com.alibaba.agentic.core.engine.delegation.domain.TypedRequestParam;
+import com.alibaba.agentic.core.engine.dto.FlowDefinition;
+import com.alibaba.agentic.core.engine.node.sub.ConditionalContainer;
+import com.alibaba.agentic.core.engine.node.sub.LlmFlowNode;
+import com.alibaba.agentic.core.engine.node.sub.LoopFlowNode;
+import com.alibaba.agentic.core.engine.node.sub.NopFlowNode;
+import com.alibaba.agentic.core.engine.node.sub.ParallelFlowNode;
+import com.alibaba.agentic.core.engine.node.sub.ToolFlowNode;
+import com.alibaba.agentic.core.engine.node.sub.ToolParam;
+import com.alibaba.agentic.core.executor.Request;
+import com.alibaba.agentic.core.executor.Result;
+import com.alibaba.agentic.core.executor.SystemContext;
+import com.alibaba.agentic.core.flows.service.impl.CustomInstanceAccessService;
+import com.alibaba.agentic.core.flows.service.impl.FlowDeploymentCache;
+import com.alibaba.agentic.core.flows.storage.FlowStorageService;
+import com.alibaba.agentic.core.flows.storage.bpmn.InMemoryFlowDataStorage;
+import com.alibaba.agentic.core.tools.BaseTool;
+import com.alibaba.agentic.core.utils.ApplicationContextUtil;
+import com.alibaba.smart.framework.engine.SmartEngine;
+import com.alibaba.smart.framework.engine.bpmn.assembly.process.SequenceFlow;
+import com.alibaba.smart.framework.engine.constant.ExtensionElementsConstant;
+import com.alibaba.smart.framework.engine.deployment.ProcessDefinitionContainer;
+import com.alibaba.smart.framework.engine.extension.constant.ExtensionConstant;
+import com.alibaba.smart.framework.engine.model.assembly.ExtensionElementContainer;
+import com.alibaba.smart.framework.engine.model.assembly.IdBasedElement;
+import com.alibaba.smart.framework.engine.model.assembly.ProcessDefinition;
+import com.alibaba.smart.framework.engine.model.assembly.Transition;
+import com.alibaba.smart.framework.engine.model.assembly.impl.AbstractActivity;
+import com.alibaba.smart.framework.engine.pvm.PvmProcessDefinition;
+import com.alibaba.smart.framework.engine.smart.PropertyCompositeKey;
+import com.alibaba.smart.framework.engine.smart.PropertyCompositeValue;
+import io.reactivex.rxjava3.core.Flowable;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class FlowCanvasTest {
+
+    @Test
+    public void testFingerprintStableForUnchangedCanvas() {
+        FlowCanvas canvas = canvas("hello");
+        String fingerprint = canvas.fingerprint();
+        assertEquals(fingerprint, canvas.fingerprint());
+        assertEquals(fingerprint, canvas("hello").fingerprint());
+    }
+
+    @Test
+    public void testFingerprintChangesWithStructure() {
+        String fingerprint = canvas("hello").fingerprint();
+        assertNotEquals(fingerprint, canvas("world").fingerprint());
+
+        FlowCanvas canvas = canvas("hello");
+        canvas.setVersion("2.0.0");
+        assertNotEquals(fingerprint, canvas.fingerprint());
+
+        canvas = canvas("hello");
+        ((ToolFlowNode) canvas.getRoot().getNext()).setParamList(List.of(new ToolParam().setName("city").setValue("hz")));
+        assertNotEquals(fingerprint, canvas.fingerprint());
+    }
+
+    @Test
+    public void testCompiledDefinitionMatchesParsedXml() {
+        FlowCanvas canvas = branchCanvas();
+        SmartEngine smartEngine = new FrameworkConfiguration().constructSmartEngine(new CustomInstanceAccessService(), null);
+
+        smartEngine.getRepositoryCommandService().deployWithUTF8Content(canvas.toBpmnXml());
+        ProcessDefinition parsed = smartEngine.getRepositoryQueryService().getCachedProcessDefinition("compile-test", "1.0.0");
+        ProcessDefinition compiled = canvas.compile();
+        assertSameModel(parsed, compiled);
+
+        // 直接编译的定义可覆盖xml部署的定义并被引擎查询到
+        FlowDefinitionCompiler.install(smartEngine, compiled);
+        assertEquals(compiled, smartEngine.getRepositoryQueryService().getCachedProcessDefinition("compile-test", "1.0.0"));
+        PvmProcessDefinition pvmProcessDefinition = smartEngine.getProcessEngineConfiguration().getAnnotationScanner()
+                .getExtensionPoint(ExtensionConstant.SERVICE, ProcessDefinitionContainer.class)
+                .getPvmProcessDefinition("compile-test", "1.0.0");
+        assertNotNull(pvmProcessDefinition.getStartActivity());
+        assertEquals(3, pvmProcessDefinition.getActivities().get(
+                canvas.getRoot().getGateway().getGatewayId()).getOutcomeTransitions().size());
+    }
+
+    private static void assertSameModel(ProcessDefinition parsed, ProcessDefinition compiled) {
+        assertEquals(parsed.getIdBasedElementMap().keySet(), compiled.getIdBasedElementMap().keySet());
+        for (Map.Entry<String, IdBasedElement> entry : parsed.getIdBasedElementMap().entrySet()) {
+            IdBasedElement expected = entry.getValue();
+            IdBasedElement actual = compiled.getIdBasedElementMap().get(entry.getKey());
+            assertEquals(expected.getClass(), actual.getClass(), entry.getKey());
+            if (expected instanceof AbstractActivity) {
+                assertEquals(((AbstractActivity) expected).getProperties(), ((AbstractActivity) actual).getProperties(), entry.getKey());
+                assertEquals(((AbstractActivity) expected).isStartActivity(), ((AbstractActivity) actual).isStartActivity(), entry.getKey());
+            }
+            if (expected instanceof Transition) {
+                assertEquals(((Transition) expected).getSourceRef(), ((Transition) actual).getSourceRef(), entry.getKey());
+                assertEquals(((Transition) expected).getTargetRef(), ((Transition) actual).getTargetRef(), entry.getKey());
+                assertEquals(((SequenceFlow) expected).getProperties(), ((SequenceFlow) actual).getProperties(), entry.getKey());
+            }
+            assertEquals(extensionProperties(expected), extensionProperties(actual), entry.getKey());
+        }
+    }
+
+    @Test
+    public void testConditionalCanvasRebuiltHitsDeploymentCache() {
+        // 分支目标与兜底节点均未指定标识
+        String fingerprint = conditionalCanvas("hello").fingerprint();
+        assertEquals(fingerprint, conditionalCanvas("hello").fingerprint());
+        assertNotEquals(fingerprint, conditionalCanvas("world").fingerprint());
+
+        SmartEngine smartEngine = new FrameworkConfiguration().constructSmartEngine(new CustomInstanceAccessService(), null);
+        InMemoryFlowDataStorage flowDataStorage = new InMemoryFlowDataStorage();
+        ApplicationContext previous = ApplicationContextUtil.getApplicationContext();
+        GenericApplicationContext context = deploymentContext(smartEngine, flowDataStorage);
+        try {
+            FlowDeploymentCache flowDeploymentCache = new FlowDeploymentCache(smartEngine, 16);
+            FlowCanvas first = conditionalCanvas("hello");
+            flowDeploymentCache.deploy(first);
+            // 保存的xml按部署时的结构快照延迟生成，之后修改画布不影响已部署的定义
+            first.getRoot().setName("renamed");
+            String bpmnXml = flowDataStorage.getBpmnXml("conditional-test", "1.0.0");
+            assertFalse(bpmnXml.contains("renamed"));
+            assertEquals(bpmnXml, flowDataStorage.getBpmnXml("conditional-test", "1.0.0"));
+            SmartEngine parsingEngine = new FrameworkConfiguration().constructSmartEngine(new CustomInstanceAccessService(), null);
+            parsingEngine.getRepositoryCommandService().deployWithUTF8Content(bpmnXml);
+            assertSameModel(parsingEngine.getRepositoryQueryService().getCachedProcessDefinition("conditional-test", "1.0.0"),
+                    conditionalCanvas("hello").compile());
+            FlowCanvas second = conditionalCanvas("hello");
+            flowDeploymentCache.deploy(second);
+            assertEquals(1, flowDeploymentCache.getMissCount());
+            assertEquals(1, flowDeploymentCache.getHitCount());
+            assertEquals(first.getRoot().getGateway().getGatewayId(), second.getRoot().getGateway().getGatewayId());
+
+            int conditionCount = ConditionRegistry.conditionsMap.size();
+            for (int i = 0; i < 3; i++) {
+                flowDeploymentCache.deploy(conditionalCanvas(i % 2 == 0 ? "world" : "hello"));
+            }
+            // 结构变化覆盖部署时条件被替换而不是累积
+            assertEquals(4, flowDeploymentCache.getMissCount());
+            assertEquals(conditionCount, ConditionRegistry.conditionsMap.size());
+        } finally {
+            context.getBean(ApplicationContextUtil.class).setApplicationContext(previous);
+            context.close();
+        }
+    }
+
+    @Test
+    public void testToolsResolvedFromRunningCanvas() throws Throwable {
+        SmartEngine smartEngine = new FrameworkConfiguration().constructSmartEngine(new CustomInstanceAccessService(), null);
+        ApplicationContext previous = ApplicationContextUtil.getApplicationContext();
+        GenericApplicationContext context = deploymentContext(smartEngine, new InMemoryFlowDataStorage());
+        try {
+            FlowDeploymentCache flowDeploymentCache = new FlowDeploymentCache(smartEngine, 16);
+            flowDeploymentCache.deploy(toolCanvas("deployed"));
+            // 只换工具实例的画布命中部署缓存，不会重新注册工具
+            FlowCanvas running = toolCanvas("running");
+            flowDeploymentCache.deploy(running);
+            assertEquals(1, flowDeploymentCache.getHitCount());
+
+            Request request = new Request().setParam(new TypedRequestParam<>(new FunctionCallRequest()
+                    .setToolName("rebuilt_tool").setToolParameter(new HashMap<>())));
+            Result result = new DelegationTool().invoke(new SystemContext().setTools(running.collectTools()), request).blockingFirst();
+            assertEquals("running", result.getData().get("instance"));
+        } finally {
+            context.getBean(ApplicationContextUtil.class).setApplicationContext(previous);
+            context.close();
+        }
+    }
+
+    private FlowCanvas toolCanvas(String instance) {
+        ToolFlowNode toolNode = new ToolFlowNode(List.of(), new BaseTool() {
+            @Override
+            public String name() {
+                return "rebuilt_tool";
+            }
+
+            @Override
+            public Flowable<Map<String, Object>> run(Map<String, Object> args, SystemContext systemContext) {
+                return Flowable.just(Map.of("instance", instance));
+            }
+        });
+        toolNode.setId("toolNode");
+        FlowCanvas canvas = new FlowCanvas();
+        canvas.setRoot(toolNode);
+        canvas.setProcessDefinitionId("tool-test");
+        canvas.setVersion("1.0.0");
+        return canvas;
+    }
+
+    private static GenericApplicationContext deploymentContext(SmartEngine smartEngine, InMemoryFlowDataStorage flowDataStorage) {
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.registerBean(SmartEngine.class, () -> smartEngine);
+        context.registerBean(FlowStorageService.class, () -> new FlowStorageService() {
+            @Override
+            public String saveBpmnXml(FlowDefinition flowDefinition) {
+                return flowDataStorage.saveBpmnXml(flowDefinition);
+            }
+
+            @Override
+            public String getBpmnXml(String flowDefinitionCode, String version) {
+                return flowDataStorage.getBpmnXml(flowDefinitionCode, version);
+            }
+        });
+        context.registerBean(ApplicationContextUtil.class);
+        context.refresh();
+        return context;
+    }
+
+    @Test
+    public void testConditionsResolvedFromRunningCanvas() {
+        BaseCondition deployedCondition = systemContext -> true;
+        BaseCondition runningCondition = systemContext -> false;
+        FlowCanvas deployed = loopCanvas(deployedCondition);
+        FlowCanvas running = loopCanvas(runningCondition);
+        // 退出条件不属于流程结构，只换条件的画布命中部署缓存
+        assertEquals(deployed.fingerprint(), running.fingerprint());
+
+        String conditionId = ConditionRegistry.constructLoopConditionId("loop-test", "1.0.0", "loopNode");
+        ConditionRegistry.registerLoopCondition(conditionId, deployedCondition);
+        try {
+            Map<String, BaseCondition> conditions = running.collectConditions();
+            assertSame(runningCondition, ConditionRegistry.getLoopCondition(new SystemContext().setConditions(conditions), conditionId));
+            assertNull(ConditionRegistry.getLoopCondition(new SystemContext().setConditions(loopCanvas(null).collectConditions()), conditionId));
+            assertSame(deployedCondition, ConditionRegistry.getLoopCondition(new SystemContext(), conditionId));
+            // 循环体中的分支条件一并收集
+            assertEquals(3, conditions.size());
+        } finally {
+            ConditionRegistry.registerLoopCondition(conditionId, null);
+        }
+    }
+
+    private FlowCanvas loopCanvas(BaseCondition exitCondition) {
+        FlowCanvas body = canvas("hello");
+        FlowNode bodyRoot = body.getRoot();
+        FlowNode toolNode = bodyRoot.getNext();
+        bodyRoot.setNext(null);
+        bodyRoot.nextOnCondition(List.of(condition(toolNode), condition(new NopFlowNode())));
+        LoopFlowNode loopNode = new LoopFlowNode();
+        loopNode.setId("loopNode");
+        loopNode.setInnerCanvas(body);
+        loopNode.setExitCondition(exitCondition);
+
+        FlowCanvas canvas = new FlowCanvas();
+        canvas.setRoot(loopNode);
+        canvas.setProcessDefinitionId("loop-test");
+        canvas.setVersion("1.0.0");
+        return canvas;
+    }
+
+    private FlowCanvas conditionalCanvas(String prompt) {
+        FlowCanvas canvas = canvas(prompt);
+        FlowNode root = canvas.getRoot();
+        FlowNode toolNode = root.getNext();
+        root.setNext(null);
+        root.nextOnCondition(List.of(condition(toolNode), condition(new NopFlowNode())));
+        canvas.setProcessDefinitionId("conditional-test");
+        return canvas;
+    }
+
+    private static Map<String, String> extensionProperties(IdBasedElement element) {
+        Map<String, String> result = new HashMap<>();
+        if (!(element instanceof ExtensionElementContainer) || ((ExtensionElementContainer) element).getExtensionElements() == null) {
+            return result;
+        }
+        Map<PropertyCompositeKey, PropertyCompositeValue> map = (Map<PropertyCompositeKey, PropertyCompositeValue>)
+                ((ExtensionElementContainer) element).getExtensionElements().getDecorationMap().get(ExtensionElementsConstant.PROPERTIES);
+        if (map != null) {
+            map.forEach((key, value) -> result.put(key.getName(), value.getValue()));
+        }
+        return result;
+    }
+
+    private FlowCanvas branchCanvas() {
+        FlowCanvas canvas = canvas("hello");
+        FlowNode root = canvas.getRoot();
+        FlowNode toolNode = root.getNext();
+        root.setNext(null);
+        NopFlowNode nopNode = new NopFlowNode();
+        nopNode.setId("nopNode");
+        root.nextOnCondition(List.of(condition(toolNode), condition(nopNode)));
+        canvas.setProcessDefinitionId("compile-test");
+        return canvas;
+    }
+
+    private static ConditionalContainer condition(FlowNode flowNode) {
+        ConditionalContainer container = new ConditionalContainer() {
+            @Override
+            public Boolean eval(SystemContext systemContext) {
+                return true;
+            }
+        };
+        container.setFlowNode(flowNode);
+        return container;
+    }
+
+    @Test
+    public void testParallelFingerprintCoversBranches() {
+        String fingerprint = parallelCanvas("hz", ParallelFlowNode.JoinStrategy.ALL).fingerprint();
+        assertEquals(fingerprint, parallelCanvas("hz", ParallelFlowNode.JoinStrategy.ALL).fingerprint());
+        assertNotEquals(fingerprint, parallelCanvas("sh", ParallelFlowNode.JoinStrategy.ALL).fingerprint());
+        assertNotEquals(fingerprint, parallelCanvas("hz", ParallelFlowNode.JoinStrategy.FIRST_SUCCESS).fingerprint());
+
+        // 分支不进入主流程，由并行节点在部署时单独部署为子流程
+        ProcessDefinition processDefinition = parallelCanvas("hz", ParallelFlowNode.JoinStrategy.ALL).compile();
+        assertNotNull(processDefinition.getIdBasedElementMap().get("parallelNode"));
+        assertNull(processDefinition.getIdBasedElementMap().get("searchNode"));
+    }
+
+    private FlowCanvas parallelCanvas(String city, ParallelFlowNode.JoinStrategy joinStrategy) {
+        ToolFlowNode searchNode = new ToolFlowNode("search_tool", List.of(new ToolParam().setName("city").setValue(city)));
+        searchNode.setId("searchNode");
+        ToolFlowNode lookupNode = new ToolFlowNode("lookup_tool", List.of());
+        lookupNode.setId("lookupNode");
+        ParallelFlowNode parallelNode = new ParallelFlowNode();
+        parallelNode.setId("parallelNode");
+        parallelNode.setParallelNodeList(List.of(searchNode, lookupNode));
+        parallelNode.setJoinStrategy(joinStrategy);
+
+        FlowCanvas canvas = new FlowCanvas();
+        canvas.setRoot(new NopFlowNode().setId("nopNode").nextOnParallel(parallelNode));
+        canvas.setProcessDefinitionId("parallel-test");
+        canvas.setVersion("1.0.0");
+        return canvas;
+    }
+
+    private FlowCanvas canvas(String prompt) {
+        LlmRequest llmRequest = new LlmRequest();
+        llmRequest.setModel("dashscope");
+        llmRequest.setModelName("qwen-plus");
+        llmRequest.setMessages(List.of(new LlmRequest.Message("user", prompt)));
+        LlmFlowNode llmNode = new LlmFlowNode(llmRequest);
+        llmNode.setId("llmNode");
+        ToolFlowNode toolNode = new ToolFlowNode("weather_tool", List.of());
+        toolNode.setId("toolNode");
+        llmNode.next(toolNode);
+
+        FlowCanvas canvas = new FlowCanvas();
+        canvas.setRoot(llmNode);
+        canvas.setProcessDefinitionId("fingerprint-test");
+        canvas.setVersion("1.0.0");
+        return canvas;
+    }
+
+}
@@ -0,0 +1,178 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.agentic.core.executor;
+
+import com.alibaba.agentic.core.engine.delegation.domain.LlmResponse;
+import com.alibaba.agentic.core.engine.utils.DelegationUtils;
+import com.alibaba.fastjson.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InterOutputTest {
+
+    @Test
+    public void testConcurrentIterationAndMutableOutputs() {
+        InterOutput interOutput = new InterOutput();
+        interOutput.put("a", new HashMap<>(Map.of("v", 1)));
+        Map<String, Map<String, Object>> iterated = new HashMap<>();
+        for (Map.Entry<String, Map<String, Object>> entry : interOutput.entrySet()) {
+            // 遍历过程中写入不会抛出并发修改异常
+            interOutput.put("b", Map.of("v", 2));
+            iterated.put(entry.getKey(), entry.getValue());
+        }
+        assertEquals(Map.of("v", 1), iterated.get("a"));
+        assertEquals(2, interOutput.size());
+        // 与普通 Map 一样，读取到的输出可以就地修改
+        interOutput.get("a").put("v", 3);
+        assertEquals(3, interOutput.get("a").get("v"));
+    }
+
+    @Test
+    public void testForkAndMerge() {
+        InterOutput parent = new InterOutput();
+        parent.put("shared", Map.of("v", 0));
+        InterOutput left = parent.fork();
+        InterOutput right = parent.fork();
+        left.put("left", Map.of("v", 1));
+        right.put("right", Map.of("v", 2));
+        right.put("shared", Map.of("v", 3));
+        assertNull(parent.get("left"));
+        assertNull(left.get("right"));
+
+        parent.merge(right);
+        parent.merge(left);
+        // left 未改写 shared，不会覆盖 right 的结果
+        assertEquals(Map.of("v", 3), parent.get("shared"));
+        assertEquals(Map.of("v", 1), parent.get("left"));
+        assertEquals(Map.of("v", 2), parent.get("right"));
+    }
+
+    @Test
+    public void testRemoveInForkIsMerged() {
+        InterOutput parent = new InterOutput();
+        parent.put("removed", Map.of("v", 0));
+        parent.put("kept", Map.of("v", 1));
+        InterOutput left = parent.fork();
+        InterOutput right = parent.fork();
+        assertEquals(Map.of("v", 0), left.remove("removed"));
+        right.put("right", Map.of("v", 2));
+        // 合并前分支的删除对父存储不可见
+        assertEquals(Map.of("v", 0), parent.get("removed"));
+
+        parent.merge(right);
+        parent.merge(left);
+        assertFalse(parent.containsKey("removed"));
+        assertEquals(Map.of("v", 1), parent.get("kept"));
+        assertEquals(Map.of("v", 2), parent.get("right"));
+
+        // 删除后重新写入按写入合并
+        InterOutput rewritten = parent.fork();
+        rewritten.remove("kept");
+        rewritten.put("kept", Map.of("v", 3));
+        parent.merge(rewritten);
+        assertEquals(Map.of("v", 3), parent.get("kept"));
+    }
+
+    @Test
+    public void testTypedViewWithoutReserialization() {
+        LlmResponse llmResponse = new LlmResponse();
+        LlmResponse.Choice choice = new LlmResponse.Choice();
+        choice.setText("hello");
+        choice.setIndex(0);
+        llmResponse.setId("id");
+        llmResponse.setChoices(List.of(choice));
+        Map<String, Object> data = new ObjectMapper().convertValue(llmResponse, new com.fasterxml.jackson.core.type.TypeReference<>() {});
+
+        SystemContext systemContext = new SystemContext();
+        DelegationUtils.saveInterOutput("llmNode", systemContext, Result.success(data));
+        LlmResponse view = DelegationUtils.getResultOfNode(systemContext, "llmNode", LlmResponse.class);
+        assertEquals("hello", view.getChoices().get(0).getText());
+        // 每次读取返回独立副本
+        view.getChoices().get(0).setText("changed");
+        assertEquals("hello", DelegationUtils.getResultOfNode(systemContext, "llmNode", LlmResponse.class).getChoices().get(0).getText());
+        Map<String, Object> map = DelegationUtils.getResultOfNode(systemContext, "llmNode", new TypeReference<Map<String, Object>>() {});
+        assertEquals("id", map.get("id"));
+        map.put("id", "changed");
+        assertNotSame(map, DelegationUtils.getResultOfNode(systemContext, "llmNode", Map.class));
+        assertEquals("id", DelegationUtils.getResultOfNode(systemContext, "llmNode", "id"));
+    }
+
+    @Test
+    public void testSpillLargestOutputs(@TempDir Path directory) throws Exception {
+        InterOutput interOutput = new InterOutput(1024, new FileInterOutputSpillStore(directory));
+        interOutput.put("small", Map.of("text", "x"));
+        interOutput.put("large", Map.of("text", "y".repeat(2000)));
+        assertTrue(interOutput.getInlineBytes() <= 1024);
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+        assertEquals("y".repeat(2000), interOutput.get("large").get("text"));
+        assertEquals("x", interOutput.get("small").get("text"));
+
+        // 覆盖后删除旧的溢出数据
+        interOutput.put("large", Map.of("text", "z"));
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+        assertEquals(Map.of("text", "z"), interOutput.get("large"));
+    }
+
+    @Test
+    public void testForkReleasesSpilledOutputs(@TempDir Path directory) throws Exception {
+        InterOutput parent = new InterOutput(1024, new FileInterOutputSpillStore(directory));
+        parent.put("large", Map.of("text", "y".repeat(2000)));
+        InterOutput child = parent.fork();
+        child.put("branch", Map.of("text", "b".repeat(2000)));
+        assertEquals(2, fileCount(directory));
+
+        // 合并后父存储持有分支写入的溢出数据，分支释放不影响父存储
+        parent.merge(child);
+        child.clear();
+        assertEquals(2, fileCount(directory));
+        assertEquals("b".repeat(2000), parent.get("branch").get("text"));
+
+        // 未合并的分支释放时删除自己写入的溢出数据，共享的数据由父存储保留
+        InterOutput abandoned = parent.fork();
+        abandoned.put("abandoned", Map.of("text", "a".repeat(2000)));
+        assertEquals(3, fileCount(directory));
+        abandoned.clear();
+        assertEquals(2, fileCount(directory));
+        assertEquals("y".repeat(2000), parent.get("large").get("text"));
+
+        parent.clear();
+        assertEquals(0, fileCount(directory));
+    }
+
+    private static long fileCount(Path directory) throws Exception {
+        try (var files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+}
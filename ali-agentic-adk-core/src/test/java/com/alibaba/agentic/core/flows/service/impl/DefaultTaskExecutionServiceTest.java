@@ -0,0 +1,129 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.agentic.core.flows.service.impl;
+
+import com.alibaba.agentic.core.exceptions.BaseException;
+import com.alibaba.agentic.core.exceptions.ErrorEnum;
+import com.alibaba.agentic.core.executor.InvokeMode;
+import com.alibaba.agentic.core.executor.Request;
+import com.alibaba.agentic.core.executor.Result;
+import com.alibaba.agentic.core.executor.SystemContext;
+import com.alibaba.agentic.core.flows.service.domain.AsyncRequest;
+import com.alibaba.agentic.core.flows.service.domain.TaskExecutionMetrics;
+import com.alibaba.agentic.core.flows.service.domain.TaskInstance;
+import com.alibaba.agentic.core.runner.Runner;
+import io.reactivex.rxjava3.core.Flowable;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DefaultTaskExecutionServiceTest {
+
+    private final List<String> signaled = new CopyOnWriteArrayList<>();
+
+    private final DefaultTaskInstanceService taskInstanceService = new DefaultTaskInstanceService();
+
+    private final Runner runner = new Runner() {
+        @Override
+        public void signal(TaskInstance taskInstance, Result result) {
+            signaled.add(taskInstance.getId());
+        }
+    };
+
+    @Test
+    public void testDispatchImmediately() throws InterruptedException {
+        DefaultTaskExecutionService service = new DefaultTaskExecutionService(taskInstanceService, runner);
+        CountDownLatch done = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            service.submitTask(asyncRequest("immediate-" + i, "flow", done, null));
+        }
+        assertTrue(done.await(500, TimeUnit.MILLISECONDS));
+        waitSignaled(3);
+        TaskExecutionMetrics metrics = service.getMetrics();
+        assertEquals(3, metrics.getSubmitted());
+        assertEquals(3, metrics.getCompleted());
+        assertEquals(0, metrics.getQueueDepth());
+        service.shutdown();
+    }
+
+    @Test
+    public void testRoundRobinBetweenGroups() throws InterruptedException {
+        DefaultTaskExecutionService service = new DefaultTaskExecutionService(taskInstanceService, runner, 1, 100, 100, false);
+        CountDownLatch block = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(4);
+        service.submitTask(asyncRequest("a1", "tenantA", done, block));
+        service.submitTask(asyncRequest("a2", "tenantA", done, null));
+        service.submitTask(asyncRequest("a3", "tenantA", done, null));
+        service.submitTask(asyncRequest("b1", "tenantB", done, null));
+        assertEquals(3, service.getMetrics().getQueueDepth());
+        block.countDown();
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        waitSignaled(4);
+        assertEquals(List.of("a1", "a2", "b1", "a3"), signaled);
+        service.shutdown();
+    }
+
+    @Test
+    public void testRejectWhenLaneIsFull() throws InterruptedException {
+        DefaultTaskExecutionService service = new DefaultTaskExecutionService(taskInstanceService, runner, 1, 100, 1, false);
+        CountDownLatch block = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(3);
+        service.submitTask(asyncRequest("full-1", "tenantA", done, block));
+        service.submitTask(asyncRequest("full-2", "tenantA", done, null));
+        BaseException exception = assertThrows(BaseException.class,
+                () -> service.submitTask(asyncRequest("full-3", "tenantA", done, null)));
+        assertEquals(ErrorEnum.TASK_REJECTED, exception.getErrorEnum());
+        // 其他分道不受影响
+        service.submitTask(asyncRequest("full-4", "tenantB", done, null));
+        assertEquals(1, service.getMetrics().getRejected());
+        block.countDown();
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        service.shutdown();
+    }
+
+    private AsyncRequest asyncRequest(String taskId, String groupKey, CountDownLatch done, CountDownLatch block) {
+        taskInstanceService.persistTaskInstance(new TaskInstance().setId(taskId));
+        SystemContext systemContext = new SystemContext()
+                .setInvokeMode(InvokeMode.ASYNC)
+                .setExecutor((context, request) -> Flowable.fromCallable(() -> {
+                    if (block != null) {
+                        block.await();
+                    }
+                    done.countDown();
+                    return Result.success(Map.of("taskId", taskId));
+                }));
+        return new AsyncRequest().setTaskId(taskId)
+                .setGroupKey(groupKey)
+                .setSystemContext(systemContext)
+                .setRequest(new Request().setInvokeMode(InvokeMode.ASYNC));
+    }
+
+    private void waitSignaled(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 1000;
+        while (signaled.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.agentic.core.flows.storage.bpmn;
+
+import com.alibaba.agentic.core.engine.dto.FlowDefinition;
+import com.alibaba.agentic.core.flows.storage.redis.AiRedisTemplate;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class RedisFlowDataStorageTest {
+
+    private final RecordingRedisTemplate redisTemplate = new RecordingRedisTemplate();
+
+    @Test
+    public void testNearCacheSkipsUnchangedWritesAndReads() {
+        RedisFlowDataStorage storage = new RedisFlowDataStorage(redisTemplate, "test", 60_000, 16);
+        storage.saveBpmnXml(new FlowDefinition("flow", "1", "<xml-1/>"));
+        storage.saveBpmnXml(new FlowDefinition("flow", "1", "<xml-1/>"));
+        assertEquals("<xml-1/>", storage.getBpmnXml("flow", "1"));
+        assertEquals(List.of("set test:bpmn:flow:1"), redisTemplate.commands);
+
+        // 内容变化仍然写入
+        storage.saveBpmnXml(new FlowDefinition("flow", "1", "<xml-1b/>"));
+        assertEquals(2, redisTemplate.commands.size());
+    }
+
+    @Test
+    public void testVersionMismatchInvalidatesNearCache() {
+        RedisFlowDataStorage storage = new RedisFlowDataStorage(redisTemplate, "test", 60_000, 16);
+        storage.saveBpmnXml(new FlowDefinition("flow", "1", "<xml-1/>"));
+        redisTemplate.store.put("test:bpmn:flow:2", "<xml-2/>");
+
+        assertEquals("<xml-2/>", storage.getBpmnXml("flow", "2"));
+        assertEquals("get test:bpmn:flow:2", redisTemplate.commands.get(1));
+        assertEquals("<xml-2/>", storage.getBpmnXml("flow", "2"));
+        assertEquals(2, redisTemplate.commands.size());
+    }
+
+    @Test
+    public void testReplaceUsesSingleRoundTrip() {
+        RedisFlowDataStorage storage = new RedisFlowDataStorage(redisTemplate, "test");
+        assertNull(storage.replaceBpmnXml(new FlowDefinition("flow", "1", "<xml-1/>")));
+        assertEquals("<xml-1/>", storage.replaceBpmnXml(new FlowDefinition("flow", "1", "<xml-1b/>")));
+        assertEquals(List.of("getSet test:bpmn:flow:1", "getSet test:bpmn:flow:1"), redisTemplate.commands);
+    }
+
+    @Test
+    public void testWithoutNearCacheAlwaysHitsRedis() {
+        RedisFlowDataStorage storage = new RedisFlowDataStorage(redisTemplate, "test");
+        storage.saveBpmnXml(new FlowDefinition("flow", "1", "<xml-1/>"));
+        storage.saveBpmnXml(new FlowDefinition("flow", "1", "<xml-1/>"));
+        storage.getBpmnXml("flow", "1");
+        assertEquals(3, redisTemplate.commands.size());
+    }
+
+    private static class RecordingRedisTemplate extends AiRedisTemplate {
+
+        private final Map<String, String> store = new HashMap<>();
+
+        private final List<String> commands = new ArrayList<>();
+
+        private RecordingRedisTemplate() {
+            super(null);
+        }
+
+        @Override
+        public void set(String key, String value) {
+            commands.add("set " + key);
+            store.put(key, value);
+        }
+
+        @Override
+        public String get(String key) {
+            commands.add("get " + key);
+            return store.get(key);
+        }
+
+        @Override
+        public String getSet(String key, String value) {
+            commands.add("getSet " + key);
+            return store.put(key, value);
+        }
+    }
+
+}
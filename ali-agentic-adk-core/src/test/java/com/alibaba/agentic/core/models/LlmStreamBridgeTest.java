@@ -0,0 +1,104 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.agentic.core.models;
+
+import com.alibaba.agentic.core.engine.delegation.domain.LlmResponse;
+import io.reactivex.rxjava3.core.BackpressureOverflowStrategy;
+import io.reactivex.rxjava3.exceptions.MissingBackpressureException;
+import io.reactivex.rxjava3.subscribers.TestSubscriber;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LlmStreamBridgeTest {
+
+    @Test
+    public void testBridgeRxJava2StreamAndReportMetrics() {
+        AtomicReference<LlmStreamMetrics> metrics = new AtomicReference<>();
+        io.reactivex.Flowable<String> upstream = io.reactivex.Flowable.just("Hello", ",", " world");
+
+        List<LlmResponse> responses = LlmStreamBridge.bridge("qwen", () -> upstream, LlmStreamBridgeTest::response,
+                16, BackpressureOverflowStrategy.ERROR, metrics::set).toList().blockingGet();
+
+        assertEquals(3, responses.size());
+        assertEquals(" world", responses.get(2).getChoices().get(0).getText());
+        assertNotNull(metrics.get());
+        assertEquals(LlmStreamMetrics.STATUS_COMPLETED, metrics.get().getStatus());
+        assertEquals(3, metrics.get().getChunks());
+        assertEquals(3, metrics.get().getCompletionTokens());
+        assertTrue(metrics.get().getTimeToFirstTokenMillis() >= 0);
+    }
+
+    @Test
+    public void testCancellationReachesUpstream() {
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        AtomicReference<LlmStreamMetrics> metrics = new AtomicReference<>();
+        io.reactivex.Flowable<String> upstream = io.reactivex.Flowable.create(emitter -> {
+            emitter.setCancellable(() -> cancelled.set(true));
+            emitter.onNext("first");
+        }, io.reactivex.BackpressureStrategy.BUFFER);
+
+        TestSubscriber<LlmResponse> subscriber = LlmStreamBridge.bridge("qwen", () -> upstream,
+                LlmStreamBridgeTest::response, 16, BackpressureOverflowStrategy.ERROR, metrics::set).test();
+        subscriber.assertValueCount(1);
+        subscriber.cancel();
+
+        assertTrue(cancelled.get());
+        assertEquals(LlmStreamMetrics.STATUS_CANCELLED, metrics.get().getStatus());
+    }
+
+    @Test
+    public void testBoundedBufferOverflowStrategy() {
+        io.reactivex.Flowable<String> upstream = io.reactivex.Flowable.range(0, 10).map(String::valueOf);
+
+        TestSubscriber<LlmResponse> failing = LlmStreamBridge.bridge("qwen", () -> upstream,
+                LlmStreamBridgeTest::response, 4, BackpressureOverflowStrategy.ERROR, null).test(0);
+        failing.assertError(MissingBackpressureException.class);
+
+        AtomicReference<LlmStreamMetrics> metrics = new AtomicReference<>();
+        TestSubscriber<LlmResponse> dropping = LlmStreamBridge.bridge("qwen", () -> upstream,
+                LlmStreamBridgeTest::response, 4, BackpressureOverflowStrategy.DROP_OLDEST, metrics::set).test(0);
+        dropping.requestMore(10);
+        dropping.assertComplete();
+        assertEquals(List.of("6", "7", "8", "9"), dropping.values().stream()
+                .map(response -> response.getChoices().get(0).getText()).toList());
+        assertEquals(6, metrics.get().getOverflows());
+    }
+
+    @Test
+    public void testUpstreamCreationErrorIsSignalled() {
+        AtomicReference<LlmStreamMetrics> metrics = new AtomicReference<>();
+        LlmStreamBridge.<String>bridge("qwen", () -> {
+                    throw new IllegalStateException("no api key");
+                }, LlmStreamBridgeTest::response, 4, BackpressureOverflowStrategy.ERROR, metrics::set)
+                .test()
+                .assertError(IllegalStateException.class);
+        assertEquals(LlmStreamMetrics.STATUS_FAILED, metrics.get().getStatus());
+    }
+
+    private static LlmResponse response(String text) {
+        LlmResponse.Choice choice = new LlmResponse.Choice();
+        choice.setText(text);
+        return new LlmResponse().setChoices(List.of(choice));
+    }
+
+}
@@ -0,0 +1,155 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.agentic.core.tools;
+
+import com.alibaba.agentic.core.executor.SystemContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.adk.tools.Annotations;
+import io.reactivex.rxjava3.core.Flowable;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * FunctionTool 调用耗时对比，main 方法运行
+ * <p>
+ * reflective：此前 FunctionTool 每次调用的做法，读取参数与注解、每次转换新建 ObjectMapper、Method.invoke；
+ * compiled：{@link FunctionToolInvoker}，预先计算参数绑定规则，共享 ObjectMapper，MethodHandle 调用。
+ * 分别测量基本类型、List&lt;Long&gt; 与 POJO + SystemContext 三种参数，输出每次调用的纳秒数。
+ * </p>
+ */
+public class FunctionToolInvokerBenchmark {
+
+    private static final int ITERATIONS = 200_000;
+
+    private static final int ROUNDS = 5;
+
+    private static volatile Object sink;
+
+    public static void main(String[] args) throws Exception {
+        FunctionToolTest.Tools tools = new FunctionToolTest.Tools();
+        SystemContext systemContext = new SystemContext();
+        System.out.println("case\tinvoker\tnsPerCall");
+        run("primitive", tools, FunctionToolTest.Tools.class.getMethod("add", int.class, double.class),
+                Map.of("a", 1, "b", 2.5f), systemContext);
+        run("list", tools, FunctionToolTest.Tools.class.getMethod("total", List.class),
+                Map.of("values", List.of(1, 2, 3L, 4, 5)), systemContext);
+        run("pojo", tools, FunctionToolTest.Tools.class.getMethod("move", FunctionToolTest.Point.class, SystemContext.class),
+                Map.of("point", Map.of("x", 1, "y", 2)), systemContext);
+    }
+
+    private static void run(String name, Object instance, Method method, Map<String, Object> args,
+                            SystemContext systemContext) {
+        FunctionToolInvoker invoker = FunctionToolInvoker.compile(instance, method);
+        Object expected = reflective(instance, method, args, systemContext).blockingFirst();
+        if (!expected.equals(invoker.invoke(args, systemContext).blockingFirst())) {
+            throw new IllegalStateException("invokers disagree for " + name);
+        }
+        for (int round = 0; round < ROUNDS; round++) {
+            boolean report = round == ROUNDS - 1;
+            measure(name, "reflective", report, () -> reflective(instance, method, args, systemContext));
+            measure(name, "compiled", report, () -> invoker.invoke(args, systemContext));
+        }
+    }
+
+    private static void measure(String name, String invoker, boolean report, Call call) {
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink = call.invoke();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (report) {
+            System.out.printf("%s\t%s\t%.0f%n", name, invoker, (double) elapsed / ITERATIONS);
+        }
+    }
+
+    /**
+     * 此前 FunctionTool.run 的参数绑定与调用
+     */
+    @SuppressWarnings("unchecked")
+    private static Flowable<Map<String, Object>> reflective(Object instance, Method func, Map<String, Object> args,
+                                                            SystemContext systemContext) {
+        Parameter[] parameters = func.getParameters();
+        Object[] arguments = new Object[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            String paramName = parameters[i].isAnnotationPresent(Annotations.Schema.class)
+                    && !parameters[i].getAnnotation(Annotations.Schema.class).name().isEmpty()
+                    ? parameters[i].getAnnotation(Annotations.Schema.class).name()
+                    : parameters[i].getName();
+            if (parameters[i].getType().isAssignableFrom(SystemContext.class)) {
+                arguments[i] = systemContext;
+                continue;
+            }
+            Class<?> paramType = parameters[i].getType();
+            Object argValue = args.get(paramName);
+            if (paramType.equals(List.class)) {
+                if (argValue instanceof List) {
+                    Type type = ((ParameterizedType) parameters[i].getParameterizedType()).getActualTypeArguments()[0];
+                    List<Object> list = new ArrayList<>();
+                    for (Object value : (List<Object>) argValue) {
+                        list.add(castValue(value, (Class<?>) type));
+                    }
+                    arguments[i] = list;
+                    continue;
+                }
+            } else if (argValue instanceof Map) {
+                arguments[i] = new ObjectMapper().convertValue(argValue, paramType);
+                continue;
+            }
+            arguments[i] = castValue(argValue, paramType);
+        }
+        try {
+            Object result = func.invoke(instance, arguments);
+            if (result == null) {
+                return Flowable.empty();
+            } else if (result instanceof Flowable) {
+                return (Flowable<Map<String, Object>>) result;
+            } else {
+                return Flowable.just((Map<String, Object>) result);
+            }
+        } catch (Exception e) {
+            return Flowable.error(e);
+        }
+    }
+
+    private static Object castValue(Object value, Class<?> type) {
+        if ((type.equals(Integer.class) || type.equals(int.class)) && value instanceof Integer) {
+            return value;
+        }
+        if (type.equals(Long.class) || type.equals(long.class)) {
+            if (value instanceof Long) {
+                return value;
+            }
+            // 此前 Integer 元素原样放入 List<Long>，这里按编译后的行为拓宽，保证两边结果一致
+            if (value instanceof Integer i) {
+                return i.longValue();
+            }
+        } else if ((type.equals(Double.class) || type.equals(double.class)) && value instanceof Number n) {
+            return n.doubleValue();
+        }
+        return new ObjectMapper().convertValue(value, type);
+    }
+
+    private interface Call {
+        Object invoke();
+    }
+
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.agentic.core.tools;
+
+import com.alibaba.agentic.core.exceptions.BaseException;
+import com.alibaba.agentic.core.executor.SystemContext;
+import com.google.adk.tools.Annotations;
+import io.reactivex.rxjava3.core.Flowable;
+import lombok.Data;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FunctionToolTest {
+
+    @Data
+    public static class Point {
+        private int x;
+        private int y;
+    }
+
+    public static class Tools {
+
+        public Map<String, Object> add(@Annotations.Schema(name = "a") int a, @Annotations.Schema(name = "b") double b) {
+            return Map.of("sum", a + b);
+        }
+
+        public Map<String, Object> total(@Annotations.Schema(name = "values") List<Long> values) {
+            return Map.of("total", values.stream().mapToLong(Long::longValue).sum());
+        }
+
+        public Map<String, Object> length(@Annotations.Schema(name = "points") List<Point> points) {
+            return Map.of("x", points.stream().mapToInt(Point::getX).sum());
+        }
+
+        public Flowable<Map<String, Object>> move(@Annotations.Schema(name = "point") Point point,
+                                                  SystemContext systemContext) {
+            return Flowable.just(Map.of("x", point.getX() + 1, "context", systemContext));
+        }
+
+        public static Map<String, Object> fail(@Annotations.Schema(name = "message") String message) {
+            throw new IllegalStateException(message);
+        }
+    }
+
+    @Test
+    public void testPrimitiveArguments() throws Exception {
+        FunctionTool tool = FunctionTool.creat(new Tools(), Tools.class.getMethod("add", int.class, double.class));
+        assertEquals(Map.of("sum", 3.5d), tool.run(Map.of("a", 1, "b", 2.5f), new SystemContext()).blockingFirst());
+        // 同一工具可重复调用
+        assertEquals(Map.of("sum", 5.0d), tool.run(Map.of("a", 2, "b", 3L), new SystemContext()).blockingFirst());
+    }
+
+    @Test
+    public void testListArguments() throws Exception {
+        FunctionTool total = FunctionTool.creat(new Tools(), Tools.class.getMethod("total", List.class));
+        assertEquals(Map.of("total", 6L), total.run(Map.of("values", List.of(1, 2, 3L)), new SystemContext()).blockingFirst());
+
+        FunctionTool length = FunctionTool.creat(new Tools(), Tools.class.getMethod("length", List.class));
+        List<Map<String, Object>> points = List.of(Map.of("x", 1, "y", 2), Map.of("x", 3, "y", 4));
+        assertEquals(Map.of("x", 4), length.run(Map.of("points", points), new SystemContext()).blockingFirst());
+    }
+
+    @Test
+    public void testPojoAndSystemContextArguments() throws Exception {
+        FunctionTool tool = FunctionTool.creat(new Tools(), Tools.class.getMethod("move", Point.class, SystemContext.class));
+        assertEquals(List.of("point"), tool.declaration().parameters().get().required().get());
+        SystemContext systemContext = new SystemContext();
+        Map<String, Object> result = tool.run(Map.of("point", Map.of("x", 1, "y", 2)), systemContext).blockingFirst();
+        assertEquals(2, result.get("x"));
+        assertSame(systemContext, result.get("context"));
+    }
+
+    @Test
+    public void testErrors() throws Exception {
+        FunctionTool add = FunctionTool.creat(new Tools(), Tools.class.getMethod("add", int.class, double.class));
+        assertThrows(BaseException.class, () -> add.run(Map.of("a", 1), new SystemContext()));
+
+        FunctionTool fail = FunctionTool.creat(null, Tools.class.getMethod("fail", String.class));
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> fail.run(Map.of("message", "boom"), new SystemContext()).blockingFirst());
+        assertEquals("boom", exception.getMessage());
+    }
+
+}
@@ -58,6 +58,31 @@ public class AdkBrowserUseProperties {
 
     private String instanceGroupId;
 
+    /**
+     * 命令结果首次轮询的延迟（毫秒），之后按指数退避
+     */
+    private Long commandPollInitialDelayMillis;
+
+    /**
+     * 命令结果轮询的最大间隔（毫秒）
+     */
+    private Long commandPollMaxDelayMillis;
+
+    /**
+     * 命令从下发到完成的超时时间（秒）
+     */
+    private Integer commandTimeoutSeconds;
+
+    /**
+     * 单个桌面同时执行的命令数上限
+     */
+    private Integer commandConcurrencyPerDesktop;
+
+    /**
+     * 浏览器回调等待项的保留时间（秒），超时未回调的等待项会被清理
+     */
+    private Integer pendingRequestTtlSeconds;
+
     public String getComputerResourceId() {
         return computerResourceId;
     }
@@ -185,4 +210,44 @@ public class AdkBrowserUseProperties {
     public void setMobileResourceId(String mobileResourceId) {
         this.mobileResourceId = mobileResourceId;
     }
+
+    public Long getCommandPollInitialDelayMillis() {
+        return commandPollInitialDelayMillis;
+    }
+
+    public void setCommandPollInitialDelayMillis(Long commandPollInitialDelayMillis) {
+        this.commandPollInitialDelayMillis = commandPollInitialDelayMillis;
+    }
+
+    public Long getCommandPollMaxDelayMillis() {
+        return commandPollMaxDelayMillis;
+    }
+
+    public void setCommandPollMaxDelayMillis(Long commandPollMaxDelayMillis) {
+        this.commandPollMaxDelayMillis = commandPollMaxDelayMillis;
+    }
+
+    public Integer getCommandTimeoutSeconds() {
+        return commandTimeoutSeconds;
+    }
+
+    public void setCommandTimeoutSeconds(Integer commandTimeoutSeconds) {
+        this.commandTimeoutSeconds = commandTimeoutSeconds;
+    }
+
+    public Integer getCommandConcurrencyPerDesktop() {
+        return commandConcurrencyPerDesktop;
+    }
+
+    public void setCommandConcurrencyPerDesktop(Integer commandConcurrencyPerDesktop) {
+        this.commandConcurrencyPerDesktop = commandConcurrencyPerDesktop;
+    }
+
+    public Integer getPendingRequestTtlSeconds() {
+        return pendingRequestTtlSeconds;
+    }
+
+    public void setPendingRequestTtlSeconds(Integer pendingRequestTtlSeconds) {
+        this.pendingRequestTtlSeconds = pendingRequestTtlSeconds;
+    }
 }
@@ -17,6 +17,8 @@ package com.alibaba.agentic.computer.use.enums;
 
 public enum ScriptExecuteStatusEnum {
 
+    PENDING("Pending"),
+    RUNNING("Running"),
     SUCCESS("Success"),
     FAILED("Failed"),
     TIMEOUT("Timeout");
@@ -30,4 +32,11 @@ public enum ScriptExecuteStatusEnum {
     public String getMessage() {
         return this.message;
     }
+
+    /**
+     * 命令是否仍在执行中（尚未到达终态）
+     */
+    public static boolean isInProgress(String status) {
+        return PENDING.message.equalsIgnoreCase(status) || RUNNING.message.equalsIgnoreCase(status);
+    }
 }
@@ -15,32 +15,82 @@
  */
 package com.alibaba.agentic.computer.use.service;
 
+import com.alibaba.agentic.computer.use.configuration.AdkBrowserUseProperties;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.reactivex.rxjava3.core.Flowable;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.collections.MapUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+/**
+ * 浏览器回调结果的等待与分发
+ * <p>
+ * 下发命令时登记 requestId，回调到达后完成对应的 future 并移除等待项，结果另存入有界的最近结果缓存，
+ * 供回调先于查询到达时读取；等待项超过保留时间后由后台清理，未完成的以 TimeoutException 结束。
+ * </p>
+ */
 @Slf4j
 @Data
 @Component
 public class BrowserUseServiceCaller {
 
+    public static final int DEFAULT_PENDING_REQUEST_TTL_SECONDS = 600;
+
+    private static final long WAIT_TIMEOUT_SECONDS = 120;
+
+    private static final int MAX_RECENT_RESULTS = 1024;
+
     private Map<String, CompletableFuture<String>> pendingRequest = new ConcurrentHashMap<>();
 
-    public String callAndWait(String requestId, Runnable runnable) {
-        CompletableFuture<String> future = new CompletableFuture<>();
-        pendingRequest.put(requestId, future);
+    /**
+     * requestId 的登记时间，用于清理过期的等待项
+     */
+    private final Map<String, Long> registerTime = new ConcurrentHashMap<>();
 
-        //执行下发
-        runnable.run();
+    /**
+     * 已回调的结果，按数量与保留时间淘汰
+     */
+    private final Cache<String, String> recentResults;
+
+    private final long pendingRequestTtlMillis;
+
+    private final ScheduledExecutorService evictor;
+
+    public BrowserUseServiceCaller() {
+        this(TimeUnit.SECONDS.toMillis(DEFAULT_PENDING_REQUEST_TTL_SECONDS));
+    }
+
+    @Autowired
+    public BrowserUseServiceCaller(AdkBrowserUseProperties properties) {
+        this(TimeUnit.SECONDS.toMillis(Optional.ofNullable(properties.getPendingRequestTtlSeconds()).orElse(DEFAULT_PENDING_REQUEST_TTL_SECONDS)));
+    }
 
+    public BrowserUseServiceCaller(long pendingRequestTtlMillis) {
+        this.pendingRequestTtlMillis = pendingRequestTtlMillis;
+        this.recentResults = CacheBuilder.newBuilder().maximumSize(MAX_RECENT_RESULTS)
+                .expireAfterWrite(pendingRequestTtlMillis, TimeUnit.MILLISECONDS).build();
+        this.evictor = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("agentic-browser-request-evictor-%d").setDaemon(true).build());
+        long period = Math.max(1000L, pendingRequestTtlMillis / 4);
+        this.evictor.scheduleWithFixedDelay(this::evictExpired, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public String callAndWait(String requestId, Runnable runnable) {
         try {
-            return future.get(120, TimeUnit.SECONDS);
+            return callAsync(requestId, runnable).get(WAIT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
         } catch (Exception e) {
             log.error("callAndWait fail, requestId: {}",requestId, e);
             return null;
@@ -48,29 +98,112 @@ public class BrowserUseServiceCaller {
     }
 
     public void call(String requestId, Runnable runnable) {
-        CompletableFuture<String> future = new CompletableFuture<>();
-        pendingRequest.put(requestId, future);
+        callAsync(requestId, runnable);
+    }
+
+    /**
+     * 登记 requestId 并执行下发，返回的 future 在回调到达或等待项过期时完成，调用线程不阻塞
+     */
+    public CompletableFuture<String> callAsync(String requestId, Runnable runnable) {
+        CompletableFuture<String> future = register(requestId);
         //执行下发
-        runnable.run();
+        try {
+            runnable.run();
+        } catch (RuntimeException e) {
+            remove(requestId, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+        return future;
+    }
+
+    public Flowable<String> callFlowable(String requestId, Runnable runnable) {
+        return Flowable.defer(() -> Flowable.fromCompletionStage(callAsync(requestId, runnable)));
     }
 
     public void handleCallback(String requestId, String result) {
         CompletableFuture<String> future = pendingRequest.get(requestId);
         if (future != null && !future.isDone()) {
+            if (result != null) {
+                recentResults.put(requestId, result);
+            }
+            remove(requestId, future);
             future.complete(result);
         }
     }
 
     public String getByRequestId(String requestId) {
-        if(MapUtils.isEmpty(pendingRequest) || !pendingRequest.containsKey(requestId)) {
-            return null;
+        CompletableFuture<String> future = pendingRequest.get(requestId);
+        if (future == null) {
+            return recentResults.getIfPresent(requestId);
         }
         try {
-            return pendingRequest.get(requestId).get(120, TimeUnit.SECONDS);
+            return future.get(WAIT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
         } catch (Exception e) {
             log.error("getByRequestId fail, requestId: {}",requestId, e);
             return null;
         }
     }
 
+    /**
+     * 非阻塞地获取回调结果，requestId 未登记时返回以 null 完成的 future
+     */
+    public CompletableFuture<String> getByRequestIdAsync(String requestId) {
+        CompletableFuture<String> future = pendingRequest.get(requestId);
+        return future == null ? CompletableFuture.completedFuture(recentResults.getIfPresent(requestId)) : future;
+    }
+
+    public int getPendingCount() {
+        return pendingRequest.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        evictor.shutdownNow();
+    }
+
+    private CompletableFuture<String> register(String requestId) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        // 重新下发后不再返回上一轮的结果
+        recentResults.invalidate(requestId);
+        registerTime.put(requestId, System.currentTimeMillis());
+        CompletableFuture<String> previous = pendingRequest.put(requestId, future);
+        if (previous != null && !previous.isDone()) {
+            // 同一 requestId 重新下发时，旧的等待方改为等待新一轮的结果
+            future.whenComplete((result, throwable) -> {
+                if (throwable != null) {
+                    previous.completeExceptionally(throwable);
+                } else {
+                    previous.complete(result);
+                }
+            });
+        }
+        return future;
+    }
+
+    private void remove(String requestId, CompletableFuture<String> future) {
+        if (pendingRequest.remove(requestId, future)) {
+            registerTime.remove(requestId);
+        }
+    }
+
+    private void evictExpired() {
+        try {
+            long expireBefore = System.currentTimeMillis() - pendingRequestTtlMillis;
+            registerTime.forEach((requestId, time) -> {
+                if (time > expireBefore) {
+                    return;
+                }
+                CompletableFuture<String> future = pendingRequest.get(requestId);
+                // 以登记时间判断，避免清理掉刚刚重新登记的等待项
+                if (future != null && registerTime.remove(requestId, time)) {
+                    pendingRequest.remove(requestId, future);
+                    future.completeExceptionally(new TimeoutException("browser callback not received, requestId: " + requestId));
+                }
+            });
+        } catch (Throwable throwable) {
+            log.error("evict pending browser request error", throwable);
+        }
+    }
+
 }
@@ -0,0 +1,354 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.agentic.computer.use.service;
+
+import com.alibaba.agentic.computer.use.configuration.AdkBrowserUseProperties;
+import com.alibaba.agentic.computer.use.enums.ScriptExecuteStatusEnum;
+import com.alibaba.agentic.computer.use.service.dto.DesktopCommandResponse;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.reactivex.rxjava3.core.Flowable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * 桌面命令异步完成服务
+ * <p>
+ * 命令下发后不再由调用线程循环查询结果：
+ * - 共享的调度线程定期收集到期的待完成命令，按桌面分组批量查询执行结果，查询间隔按指数退避；
+ * - 调用方拿到 CompletableFuture 或 Flowable，轮询到终态时完成；
+ * - 超过超时时间仍未完成的命令以 TimeoutException 结束并移除；
+ * - 每个桌面同时执行的命令数受限，超出的命令排队，前一个完成后再下发；
+ * - 命令下发与 future 的完成都在有界的工作线程池上进行，调用方的后续处理不会占用轮询线程。
+ * </p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "ali.adk.browser.use.properties.enable", havingValue = "true")
+public class CommandCompletionService {
+
+    public static final long DEFAULT_POLL_INITIAL_DELAY_MILLIS = 500L;
+
+    public static final long DEFAULT_POLL_MAX_DELAY_MILLIS = 8000L;
+
+    public static final int DEFAULT_TIMEOUT_SECONDS = 300;
+
+    public static final int DEFAULT_CONCURRENCY_PER_DESKTOP = 1;
+
+    /**
+     * 单次调度最多查询的命令数
+     */
+    public static final int POLL_BATCH_SIZE = 50;
+
+    private static final long TICK_MILLIS = 200L;
+
+    private static final int WORKER_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+    private final EcdCommandService ecdCommandService;
+
+    private final long initialDelayMillis;
+
+    private final long maxDelayMillis;
+
+    private final long timeoutMillis;
+
+    private final int concurrencyPerDesktop;
+
+    private final Map<String, PendingInvocation> pending = new ConcurrentHashMap<>();
+
+    private final Map<String, DesktopLane> lanes = new ConcurrentHashMap<>();
+
+    /**
+     * 上一批查询尚未返回时跳过本次调度，避免请求堆积
+     */
+    private final AtomicBoolean polling = new AtomicBoolean(false);
+
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * 执行批量查询，与调度线程分开，查询耗时不影响超时检查
+     */
+    private final ExecutorService poller;
+
+    private final ThreadPoolExecutor workers;
+
+    @Autowired
+    public CommandCompletionService(EcdCommandService ecdCommandService, AdkBrowserUseProperties properties) {
+        this(ecdCommandService,
+                Optional.ofNullable(properties.getCommandPollInitialDelayMillis()).orElse(DEFAULT_POLL_INITIAL_DELAY_MILLIS),
+                Optional.ofNullable(properties.getCommandPollMaxDelayMillis()).orElse(DEFAULT_POLL_MAX_DELAY_MILLIS),
+                TimeUnit.SECONDS.toMillis(Optional.ofNullable(properties.getCommandTimeoutSeconds()).orElse(DEFAULT_TIMEOUT_SECONDS)),
+                Optional.ofNullable(properties.getCommandConcurrencyPerDesktop()).orElse(DEFAULT_CONCURRENCY_PER_DESKTOP));
+    }
+
+    public CommandCompletionService(EcdCommandService ecdCommandService, long initialDelayMillis, long maxDelayMillis,
+                                    long timeoutMillis, int concurrencyPerDesktop) {
+        if (initialDelayMillis <= 0 || maxDelayMillis < initialDelayMillis || timeoutMillis <= 0 || concurrencyPerDesktop <= 0) {
+            throw new IllegalArgumentException(String.format("illegal command completion config, initialDelayMillis: %s, "
+                            + "maxDelayMillis: %s, timeoutMillis: %s, concurrencyPerDesktop: %s",
+                    initialDelayMillis, maxDelayMillis, timeoutMillis, concurrencyPerDesktop));
+        }
+        this.ecdCommandService = ecdCommandService;
+        this.initialDelayMillis = initialDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.timeoutMillis = timeoutMillis;
+        this.concurrencyPerDesktop = concurrencyPerDesktop;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("agentic-command-poller-%d").setDaemon(true).build());
+        this.poller = Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder().setNameFormat("agentic-command-batch-poller-%d").setDaemon(true).build());
+        this.workers = new ThreadPoolExecutor(WORKER_THREADS, WORKER_THREADS, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("agentic-command-worker-%d").setDaemon(true).build());
+        this.workers.allowCoreThreadTimeOut(true);
+        this.scheduler.scheduleWithFixedDelay(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 在指定桌面上下发命令并异步等待其完成
+     *
+     * @param desktopId  桌面 id，用于并发控制
+     * @param dispatcher 实际下发命令，返回 invokeId，返回 null 视为下发失败
+     */
+    public CompletableFuture<DesktopCommandResponse> submit(String desktopId, Supplier<String> dispatcher) {
+        CompletableFuture<DesktopCommandResponse> future = new CompletableFuture<>();
+        enqueue(desktopId, future, () -> dispatch(desktopId, dispatcher, future));
+        return future;
+    }
+
+    /**
+     * 占用桌面名额在工作线程上执行任务，用于不需要等待完成状态的后续命令（如脚本下发成功后执行脚本）
+     *
+     * @param desktopId 桌面 id，用于并发控制
+     * @param task      任务，返回值即 future 的结果
+     */
+    public <T> CompletableFuture<T> execute(String desktopId, Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        enqueue(desktopId, future, () -> {
+            try {
+                future.complete(task.get());
+            } catch (Throwable throwable) {
+                future.completeExceptionally(throwable);
+            }
+        });
+        return future;
+    }
+
+    public Flowable<DesktopCommandResponse> submitFlowable(String desktopId, Supplier<String> dispatcher) {
+        return Flowable.defer(() -> Flowable.fromCompletionStage(submit(desktopId, dispatcher)));
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        poller.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private void enqueue(String desktopId, CompletableFuture<?> future, Runnable task) {
+        DesktopLane lane = lanes.computeIfAbsent(desktopId, DesktopLane::new);
+        synchronized (lane) {
+            lane.queue.add(new QueuedCommand(task, future));
+        }
+        drain(lane);
+    }
+
+    private void drain(DesktopLane lane) {
+        while (true) {
+            QueuedCommand command;
+            synchronized (lane) {
+                if (lane.running >= concurrencyPerDesktop || lane.queue.isEmpty()) {
+                    return;
+                }
+                lane.running++;
+                command = lane.queue.poll();
+            }
+            // 无论成功、失败还是超时，结束后都释放桌面名额并尝试下发排队的命令
+            command.future.whenComplete((response, throwable) -> {
+                synchronized (lane) {
+                    lane.running--;
+                }
+                drain(lane);
+            });
+            workers.execute(command.task);
+        }
+    }
+
+    private void dispatch(String desktopId, Supplier<String> dispatcher, CompletableFuture<DesktopCommandResponse> future) {
+        String invokeId;
+        try {
+            invokeId = dispatcher.get();
+        } catch (Throwable throwable) {
+            future.completeExceptionally(throwable);
+            return;
+        }
+        if (invokeId == null) {
+            future.completeExceptionally(new IllegalStateException("command dispatch failed, desktopId: " + desktopId));
+            return;
+        }
+        long now = System.currentTimeMillis();
+        PendingInvocation invocation = new PendingInvocation(invokeId, desktopId, future, now + timeoutMillis, now + initialDelayMillis, initialDelayMillis);
+        pending.put(invokeId, invocation);
+        future.whenComplete((response, throwable) -> pending.remove(invokeId, invocation));
+    }
+
+    private void tick() {
+        try {
+            long now = System.currentTimeMillis();
+            List<PendingInvocation> due = new ArrayList<>();
+            for (PendingInvocation invocation : pending.values()) {
+                if (invocation.deadline <= now) {
+                    if (pending.remove(invocation.invokeId, invocation)) {
+                        workers.execute(() -> invocation.future.completeExceptionally(new TimeoutException(String.format(
+                                "command not finished in %s ms, invokeId: %s", timeoutMillis, invocation.invokeId))));
+                    }
+                } else if (invocation.nextPollAt <= now && due.size() < POLL_BATCH_SIZE) {
+                    due.add(invocation);
+                }
+            }
+            if (!due.isEmpty() && polling.compareAndSet(false, true)) {
+                poller.execute(() -> poll(due));
+            }
+        } catch (Throwable throwable) {
+            log.error("command completion tick error", throwable);
+        }
+    }
+
+    private void poll(List<PendingInvocation> due) {
+        List<Runnable> completions = new ArrayList<>();
+        try {
+            Map<String, List<PendingInvocation>> byDesktop = new HashMap<>();
+            for (PendingInvocation invocation : due) {
+                byDesktop.computeIfAbsent(invocation.desktopId, desktopId -> new ArrayList<>()).add(invocation);
+            }
+            long now = System.currentTimeMillis();
+            for (Map.Entry<String, List<PendingInvocation>> entry : byDesktop.entrySet()) {
+                Map<String, DesktopCommandResponse> results = Collections.emptyMap();
+                try {
+                    List<String> invokeIds = new ArrayList<>(entry.getValue().size());
+                    for (PendingInvocation invocation : entry.getValue()) {
+                        invokeIds.add(invocation.invokeId);
+                    }
+                    results = ecdCommandService.getCommandResults(entry.getKey(), invokeIds);
+                } catch (Throwable throwable) {
+                    log.error("poll command results error, desktopId: {}, size: {}", entry.getKey(), entry.getValue().size(), throwable);
+                }
+                for (PendingInvocation invocation : entry.getValue()) {
+                    DesktopCommandResponse response = results.get(invocation.invokeId);
+                    if (response != null && !ScriptExecuteStatusEnum.isInProgress(response.getInvocationStatus())) {
+                        if (pending.remove(invocation.invokeId, invocation)) {
+                            completions.add(() -> invocation.future.complete(response));
+                        }
+                    } else {
+                        invocation.backOff(now, maxDelayMillis);
+                    }
+                }
+            }
+        } finally {
+            // 退避时间更新后再允许下一次调度，避免同一批命令被重复查询
+            polling.set(false);
+        }
+        // 调用方的后续处理在工作线程上执行，不占用轮询线程
+        completions.forEach(workers::execute);
+    }
+
+    private static class DesktopLane {
+
+        private final String desktopId;
+
+        /**
+         * 仅在持有 lane 锁时访问
+         */
+        private final Queue<QueuedCommand> queue = new ArrayDeque<>();
+
+        private int running;
+
+        private DesktopLane(String desktopId) {
+            this.desktopId = desktopId;
+        }
+    }
+
+    private static class QueuedCommand {
+
+        private final Runnable task;
+
+        /**
+         * 完成时释放桌面名额
+         */
+        private final CompletableFuture<?> future;
+
+        private QueuedCommand(Runnable task, CompletableFuture<?> future) {
+            this.task = task;
+            this.future = future;
+        }
+    }
+
+    private static class PendingInvocation {
+
+        private final String invokeId;
+
+        private final String desktopId;
+
+        private final CompletableFuture<DesktopCommandResponse> future;
+
+        private final long deadline;
+
+        private volatile long nextPollAt;
+
+        private volatile long delayMillis;
+
+        private PendingInvocation(String invokeId, String desktopId, CompletableFuture<DesktopCommandResponse> future,
+                                  long deadline, long nextPollAt, long delayMillis) {
+            this.invokeId = invokeId;
+            this.desktopId = desktopId;
+            this.future = future;
+            this.deadline = deadline;
+            this.nextPollAt = nextPollAt;
+            this.delayMillis = delayMillis;
+        }
+
+        private void backOff(long now, long maxDelayMillis) {
+            delayMillis = Math.min(delayMillis * 2, maxDelayMillis);
+            nextPollAt = now + delayMillis;
+        }
+    }
+
+}
@@ -23,7 +23,10 @@ import com.aliyun.ecd20201002.models.GetLoginTokenRequest;
 import com.aliyun.eds_aic20230930.models.DescribeAndroidInstancesRequest;
 import com.aliyun.eds_aic20230930.models.DescribeAndroidInstancesResponseBody;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public interface EcdCommandService {
 
@@ -40,6 +43,27 @@ public interface EcdCommandService {
 
     List<DesktopCommandResponse> getCommandResult(DescribeInvocationsRequest request, String regionId);
 
+    /**
+     * 批量查询同一桌面上命令的执行结果，供轮询调度器在一次调度中处理该桌面所有待完成的命令。
+     * 默认实现逐个查询，实现方可按桌面一次查询最近的命令。
+     *
+     * @param desktopId 命令所在的桌面 id
+     * @param invokeIds 待查询的命令
+     * @return invokeId 到首个桌面执行结果的映射，查询不到的 invokeId 不出现在结果中
+     */
+    default Map<String, DesktopCommandResponse> getCommandResults(String desktopId, Collection<String> invokeIds) {
+        Map<String, DesktopCommandResponse> results = new HashMap<>();
+        for (String invokeId : invokeIds) {
+            DescribeInvocationsRequest request = new DescribeInvocationsRequest();
+            request.setInvokeId(invokeId);
+            List<DesktopCommandResponse> response = getCommandResult(request);
+            if (response != null && !response.isEmpty()) {
+                results.put(invokeId, response.get(0));
+            }
+        }
+        return results;
+    }
+
     String getLoginToken(GetLoginTokenRequest request);
 
     String getAuthCode(String userId);
@@ -32,8 +32,11 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 
 @Slf4j
@@ -41,6 +44,13 @@ import java.util.List;
 @ConditionalOnProperty(name = "ali.adk.browser.use.properties.enable", havingValue = "true")
 public class EcdCommandServiceImpl implements EcdCommandService{
 
+    /**
+     * 按桌面批量查询时单次返回的命令数范围
+     */
+    private static final int MIN_DESCRIBE_RESULTS = 20;
+
+    private static final int MAX_DESCRIBE_RESULTS = 100;
+
     @Autowired
     private Client client;
     @Autowired
@@ -140,6 +150,43 @@ public class EcdCommandServiceImpl implements EcdCommandService{
         }
     }
 
+    /**
+     * 按桌面查询一次最近的命令并按 invokeId 匹配，最近记录中找不到的命令再逐个查询
+     */
+    @Override
+    public Map<String, DesktopCommandResponse> getCommandResults(String desktopId, Collection<String> invokeIds) {
+        Map<String, DesktopCommandResponse> results = new HashMap<>();
+        if (desktopId != null) {
+            DescribeInvocationsRequest request = new DescribeInvocationsRequest();
+            request.setDesktopId(desktopId);
+            request.setIncludeOutput(Boolean.TRUE);
+            request.setMaxResults(Math.min(MAX_DESCRIBE_RESULTS, Math.max(invokeIds.size(), MIN_DESCRIBE_RESULTS)));
+            try {
+                DescribeInvocationsResponse response = client.describeInvocations(request);
+                for (DescribeInvocationsResponseBody.DescribeInvocationsResponseBodyInvocations invocation : response.getBody().invocations) {
+                    if (invokeIds.contains(invocation.getInvokeId()) && invocation.getInvokeDesktops() != null
+                            && !invocation.getInvokeDesktops().isEmpty()) {
+                        results.put(invocation.getInvokeId(), convert(invocation, invocation.getInvokeDesktops().get(0)));
+                    }
+                }
+            } catch (Exception e) {
+                log.error("AliyunEcdServiceImpl getCommandResults error, desktopId: {}, invokeIds: {}", desktopId, invokeIds, e);
+            }
+        }
+        for (String invokeId : invokeIds) {
+            if (results.containsKey(invokeId)) {
+                continue;
+            }
+            DescribeInvocationsRequest request = new DescribeInvocationsRequest();
+            request.setInvokeId(invokeId);
+            List<DesktopCommandResponse> response = getCommandResult(request);
+            if (!response.isEmpty()) {
+                results.put(invokeId, response.get(0));
+            }
+        }
+        return results;
+    }
+
     @Override
     public String getLoginToken(GetLoginTokenRequest request) {
         try {
@@ -178,14 +225,20 @@ public class EcdCommandServiceImpl implements EcdCommandService{
     private List<DesktopCommandResponse> convert(List<DescribeInvocationsResponseBody.DescribeInvocationsResponseBodyInvocations> invocations) {
         List<DesktopCommandResponse> responseList = new ArrayList<>();
         for (DescribeInvocationsResponseBody.DescribeInvocationsResponseBodyInvocationsInvokeDesktops invokeDesktop : invocations.get(0).getInvokeDesktops()) {
-            DesktopCommandResponse response = new DesktopCommandResponse();
-            response.setOutput(invokeDesktop.getOutput());
-            response.setComputerId(invokeDesktop.getDesktopId());
-            response.setFinishTime(invokeDesktop.getFinishTime());
-            response.setInvocationStatus(invocations.get(0).getInvocationStatus());
-            response.setDropped(invokeDesktop.getDropped());
-            responseList.add(response);
+            responseList.add(convert(invocations.get(0), invokeDesktop));
         }
         return responseList;
     }
+
+    private DesktopCommandResponse convert(DescribeInvocationsResponseBody.DescribeInvocationsResponseBodyInvocations invocation,
+                                           DescribeInvocationsResponseBody.DescribeInvocationsResponseBodyInvocationsInvokeDesktops invokeDesktop) {
+        DesktopCommandResponse response = new DesktopCommandResponse();
+        response.setInvokeId(invocation.getInvokeId());
+        response.setOutput(invokeDesktop.getOutput());
+        response.setComputerId(invokeDesktop.getDesktopId());
+        response.setFinishTime(invokeDesktop.getFinishTime());
+        response.setInvocationStatus(invocation.getInvocationStatus());
+        response.setDropped(invokeDesktop.getDropped());
+        return response;
+    }
 }
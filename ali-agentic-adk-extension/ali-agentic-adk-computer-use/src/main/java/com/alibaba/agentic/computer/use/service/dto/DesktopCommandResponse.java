@@ -22,6 +22,8 @@ import java.io.Serializable;
 @Data
 public class DesktopCommandResponse implements Serializable {
     private static final long serialVersionUID = -4569620632167589077L;
+    private String invokeId;
+
     private String output;
 
     private String computerId;
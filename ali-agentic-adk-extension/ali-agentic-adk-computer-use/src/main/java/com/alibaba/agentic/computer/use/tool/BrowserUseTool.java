@@ -18,6 +18,7 @@ package com.alibaba.agentic.computer.use.tool;
 
 import com.alibaba.agentic.computer.use.configuration.AdkBrowserUseProperties;
 import com.alibaba.agentic.computer.use.service.BrowserUseServiceCaller;
+import com.alibaba.agentic.computer.use.service.CommandCompletionService;
 import com.alibaba.agentic.computer.use.service.EcdCommandService;
 import com.alibaba.agentic.computer.use.service.dto.DesktopCommandResponse;
 import com.alibaba.agentic.computer.use.utils.CodeToBatConverter;
@@ -26,11 +27,13 @@ import com.alibaba.agentic.core.utils.ApplicationContextUtil;
 import com.aliyun.ecd20200930.models.DescribeInvocationsRequest;
 import com.aliyun.ecd20200930.models.RunCommandRequest;
 import com.google.adk.tools.Annotations;
+import io.reactivex.rxjava3.core.Flowable;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 public class BrowserUseTool {
@@ -75,32 +78,49 @@ public class BrowserUseTool {
         return ecdCommandService.runCommand(runCommandRequest);
     }
 
+    /**
+     * 同步版本，供只支持 Map 返回值的工具框架使用；等待期间不再轮询远程接口，只阻塞在 future 上
+     */
     public static Map<String, String> runCommand(
             @Annotations.Schema(description = "the python script used to run") String pythonScript) {
+        return runCommandAsync(pythonScript).join();
+    }
+
+    public static Flowable<Map<String, String>> runCommandFlowable(
+            @Annotations.Schema(description = "the python script used to run") String pythonScript) {
+        return Flowable.defer(() -> Flowable.fromCompletionStage(runCommandAsync(pythonScript)));
+    }
 
+    /**
+     * 下发脚本后由 {@link CommandCompletionService} 统一轮询完成状态，成功后再执行脚本；
+     * 执行脚本同样占用桌面名额，在服务的工作线程上下发，不阻塞完成通知所在的线程
+     */
+    public static CompletableFuture<Map<String, String>> runCommandAsync(String pythonScript) {
         StringBasedLetterSnowflake snowflake = (StringBasedLetterSnowflake) ApplicationContextUtil.getBean(StringBasedLetterSnowflake.class);
+        CommandCompletionService commandCompletionService = (CommandCompletionService) ApplicationContextUtil.getBean(CommandCompletionService.class);
+        AdkBrowserUseProperties adkBrowserUseProperties = (AdkBrowserUseProperties) ApplicationContextUtil.getBean(AdkBrowserUseProperties.class);
         //生成一个随机的文件名
         String fileName = snowflake.nextId() + ".py";
-
-        String invokeId = createPythonFile(pythonScript, fileName);
-
-        DesktopCommandResponse response = getCommandResult(invokeId);
-        if(Objects.isNull(response)) {
-            return Map.of("result", "任务下发失败，任务id: " + invokeId);
-        }
-        while (StringUtils.equalsIgnoreCase(response.getInvocationStatus(), "Pending")
-                || StringUtils.equalsIgnoreCase(response.getInvocationStatus(), "Running")) {
-            response = getCommandResult(invokeId);
-            if(Objects.isNull(response)) {
-                return Map.of("result", "任务下发失败，任务id: " + invokeId);
-            }
-        }
-
-
-        if(!StringUtils.equalsIgnoreCase(response.getInvocationStatus(), "Success")) {
-            return Map.of("result", "任务下发失败，output: " + response.getOutput());
-        }
-        return Map.of("result", runScript(fileName));
+        String desktopId = adkBrowserUseProperties.getComputerResourceId();
+        String[] invokeId = new String[1];
+
+        return commandCompletionService.submit(desktopId, () -> {
+                    invokeId[0] = createPythonFile(pythonScript, fileName);
+                    return invokeId[0];
+                })
+                .exceptionally(throwable -> {
+                    log.warn("runCommand createPythonFile not finished, invokeId: {}", invokeId[0], throwable);
+                    return null;
+                })
+                .thenCompose(response -> {
+                    if (Objects.isNull(response)) {
+                        return CompletableFuture.completedFuture(Map.of("result", "任务下发失败，任务id: " + invokeId[0]));
+                    }
+                    if (!StringUtils.equalsIgnoreCase(response.getInvocationStatus(), "Success")) {
+                        return CompletableFuture.completedFuture(Map.of("result", "任务下发失败，output: " + response.getOutput()));
+                    }
+                    return commandCompletionService.execute(desktopId, () -> Map.of("result", runScript(fileName)));
+                });
     }
 
     //脚本下发的执行结果查询
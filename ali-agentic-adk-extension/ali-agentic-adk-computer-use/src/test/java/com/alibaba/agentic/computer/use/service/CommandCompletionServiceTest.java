@@ -0,0 +1,210 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.agentic.computer.use.service;
+
+import com.alibaba.agentic.computer.use.service.dto.DesktopCommandResponse;
+import com.aliyun.ecd20200930.models.CreateCdsFileRequest;
+import com.aliyun.ecd20200930.models.DescribeInvocationsRequest;
+import com.aliyun.ecd20200930.models.RunCommandRequest;
+import com.aliyun.ecd20201002.models.GetLoginTokenRequest;
+import com.aliyun.eds_aic20230930.models.DescribeAndroidInstancesRequest;
+import com.aliyun.eds_aic20230930.models.DescribeAndroidInstancesResponseBody;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CommandCompletionServiceTest {
+
+    private CommandCompletionService service;
+
+    @AfterEach
+    public void tearDown() {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    public void testPollsEachDesktopInOneBatch() throws Exception {
+        FakeEcdCommandService ecd = new FakeEcdCommandService();
+        service = new CommandCompletionService(ecd, 50, 100, 5000, 3);
+        List<CompletableFuture<DesktopCommandResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            String invokeId = "d1-" + i;
+            futures.add(service.submit("d1", () -> invokeId));
+        }
+        futures.add(service.submit("d2", () -> "d2-0"));
+        Thread.sleep(300);
+        ecd.finishAll();
+
+        for (CompletableFuture<DesktopCommandResponse> future : futures) {
+            assertEquals("Success", future.get(5, TimeUnit.SECONDS).getInvocationStatus());
+        }
+        assertTrue(ecd.batches.size() > 0);
+        for (Batch batch : ecd.batches) {
+            // 每次查询只包含同一桌面的命令
+            assertTrue(batch.invokeIds.stream().allMatch(invokeId -> invokeId.startsWith(batch.desktopId + "-")));
+        }
+        assertEquals(0, ecd.singleQueries.get());
+        assertEquals(0, service.getPendingCount());
+    }
+
+    @Test
+    public void testExecuteWaitsForDesktopPermit() throws Exception {
+        FakeEcdCommandService ecd = new FakeEcdCommandService();
+        service = new CommandCompletionService(ecd, 50, 100, 5000, 1);
+        CompletableFuture<DesktopCommandResponse> command = service.submit("d1", () -> "d1-0");
+        AtomicBoolean executed = new AtomicBoolean(false);
+        CompletableFuture<String> script = service.execute("d1", () -> {
+            executed.set(true);
+            return "done";
+        });
+        Thread.sleep(300);
+        // 前一个命令未完成时，桌面名额已被占用
+        assertFalse(executed.get());
+
+        ecd.finishAll();
+        command.get(5, TimeUnit.SECONDS);
+        assertEquals("done", script.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCompletesOnWorkerThread() throws Exception {
+        FakeEcdCommandService ecd = new FakeEcdCommandService();
+        ecd.finishAll();
+        service = new CommandCompletionService(ecd, 50, 100, 5000, 1);
+        String thread = service.submit("d1", () -> "d1-0")
+                .thenApply(response -> Thread.currentThread().getName())
+                .get(5, TimeUnit.SECONDS);
+        assertTrue(thread.startsWith("agentic-command-worker-"), thread);
+    }
+
+    @Test
+    public void testTimeoutAndDispatchFailure() {
+        FakeEcdCommandService ecd = new FakeEcdCommandService();
+        service = new CommandCompletionService(ecd, 50, 100, 300, 1);
+
+        ExecutionException timeout = assertThrows(ExecutionException.class,
+                () -> service.submit("d1", () -> "d1-0").get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, timeout.getCause());
+
+        ExecutionException failed = assertThrows(ExecutionException.class,
+                () -> service.submit("d1", () -> null).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, failed.getCause());
+        assertEquals(0, service.getPendingCount());
+    }
+
+    private static class Batch {
+
+        private final String desktopId;
+
+        private final List<String> invokeIds;
+
+        private Batch(String desktopId, Collection<String> invokeIds) {
+            this.desktopId = desktopId;
+            this.invokeIds = new ArrayList<>(invokeIds);
+        }
+    }
+
+    /**
+     * 命令在 finishAll 之前一直处于运行中
+     */
+    private static class FakeEcdCommandService implements EcdCommandService {
+
+        private final List<Batch> batches = new CopyOnWriteArrayList<>();
+
+        private final AtomicInteger singleQueries = new AtomicInteger();
+
+        private volatile boolean finished;
+
+        private void finishAll() {
+            finished = true;
+        }
+
+        @Override
+        public Map<String, DesktopCommandResponse> getCommandResults(String desktopId, Collection<String> invokeIds) {
+            batches.add(new Batch(desktopId, invokeIds));
+            Map<String, DesktopCommandResponse> results = new HashMap<>();
+            for (String invokeId : invokeIds) {
+                DesktopCommandResponse response = new DesktopCommandResponse();
+                response.setInvokeId(invokeId);
+                response.setInvocationStatus(finished ? "Success" : "Running");
+                results.put(invokeId, response);
+            }
+            return results;
+        }
+
+        @Override
+        public List<DesktopCommandResponse> getCommandResult(DescribeInvocationsRequest request) {
+            singleQueries.incrementAndGet();
+            return List.of();
+        }
+
+        @Override
+        public List<DesktopCommandResponse> getCommandResult(DescribeInvocationsRequest request, String regionId) {
+            return getCommandResult(request);
+        }
+
+        @Override
+        public String uploadScript(CreateCdsFileRequest createCdsFileRequest) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String runCommand(RunCommandRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String runCommand(RunCommandRequest request, String regionId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getLoginToken(GetLoginTokenRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getAuthCode(String userId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<DescribeAndroidInstancesResponseBody.DescribeAndroidInstancesResponseBodyInstanceModel> getAndroidInstance(
+                DescribeAndroidInstancesRequest request) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -28,14 +28,14 @@ import java.util.List;
 public abstract class BaseCache {
 
     /**
-     * 获取缓存key
+     * 获取缓存key，为提示与生成参数的定长摘要
      *
      * @param prompt
      * @param llmString
      * @return
      */
     public String getCacheKey(String prompt, String llmString) {
-        return prompt + llmString;
+        return LlmCacheKeys.hash(prompt, llmString);
     }
 
     /**
@@ -0,0 +1,56 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.langengine.core.caches;
+
+import lombok.Data;
+
+/**
+ * 缓存统计
+ */
+@Data
+public class CacheStats {
+
+    private long hits;
+
+    private long misses;
+
+    /**
+     * 因超出条数或容量上限被淘汰的条目数
+     */
+    private long evictions;
+
+    /**
+     * 因过期被移除的条目数
+     */
+    private long expirations;
+
+    /**
+     * 转存到 GenerationSpillStore 的条目数
+     */
+    private long spills;
+
+    private long entries;
+
+    /**
+     * 内存中条目的估算字节数，转存的条目只计引用
+     */
+    private long estimatedBytes;
+
+    public double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.langengine.core.caches;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.alibaba.langengine.core.messages.BaseMessage;
+import com.alibaba.langengine.core.outputs.Generation;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 以 JSON 文件保存生成结果，每个缓存键一个文件
+ * 消息的具体类型单独记录在 messageClass 中，读取时只接受 BaseMessage 的子类，不依赖 fastjson 的 autoType
+ */
+@Slf4j
+public class DiskGenerationSpillStore implements GenerationSpillStore {
+
+    private static final String TEXT = "text";
+
+    private static final String GENERATION_INFO = "generationInfo";
+
+    private static final String MESSAGE = "message";
+
+    private static final String MESSAGE_CLASS = "messageClass";
+
+    private final Path directory;
+
+    public DiskGenerationSpillStore(Path directory) {
+        try {
+            this.directory = Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new RuntimeException("create spill directory error: " + directory, e);
+        }
+    }
+
+    @Override
+    public String put(String key, List<Generation> generations) {
+        Path file = directory.resolve(key + ".json");
+        Path temp = null;
+        try {
+            // 先写临时文件再改名，读取方不会看到写了一半的文件
+            temp = Files.createTempFile(directory, key, ".tmp");
+            Files.write(temp, JSON.toJSONBytes(toRecords(generations)));
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return file.getFileName().toString();
+        } catch (IOException | RuntimeException e) {
+            log.warn("spill generations error, key: " + key, e);
+            if (temp != null) {
+                remove(temp.getFileName().toString());
+            }
+            return null;
+        }
+    }
+
+    @Override
+    public List<Generation> get(String ref) {
+        try {
+            return fromRecords(JSON.parseArray(new String(Files.readAllBytes(directory.resolve(ref)), StandardCharsets.UTF_8)));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException | ClassNotFoundException e) {
+            log.warn("read spilled generations error, ref: " + ref, e);
+            return null;
+        }
+    }
+
+    @Override
+    public void remove(String ref) {
+        try {
+            Files.deleteIfExists(directory.resolve(ref));
+        } catch (IOException e) {
+            log.warn("remove spilled generations error, ref: " + ref, e);
+        }
+    }
+
+    private static JSONArray toRecords(List<Generation> generations) {
+        JSONArray records = new JSONArray(generations.size());
+        for (Generation generation : generations) {
+            JSONObject record = new JSONObject();
+            record.put(TEXT, generation.getText());
+            record.put(GENERATION_INFO, generation.getGenerationInfo());
+            if (generation.getMessage() != null) {
+                record.put(MESSAGE_CLASS, generation.getMessage().getClass().getName());
+                record.put(MESSAGE, generation.getMessage());
+            }
+            records.add(record);
+        }
+        return records;
+    }
+
+    private static List<Generation> fromRecords(JSONArray records) throws ClassNotFoundException {
+        List<Generation> generations = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            JSONObject record = records.getJSONObject(i);
+            Generation generation = new Generation();
+            generation.setText(record.getString(TEXT));
+            generation.setGenerationInfo(record.getJSONObject(GENERATION_INFO));
+            String messageClass = record.getString(MESSAGE_CLASS);
+            if (messageClass != null) {
+                Class<? extends BaseMessage> type = Class.forName(messageClass, false, BaseMessage.class.getClassLoader())
+                        .asSubclass(BaseMessage.class);
+                generation.setMessage(record.getJSONObject(MESSAGE).toJavaObject(type));
+            }
+            generations.add(generation);
+        }
+        return generations;
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.langengine.core.caches;
+
+import com.alibaba.langengine.core.outputs.Generation;
+
+import java.util.List;
+
+/**
+ * 大体积生成结果的外部存储，InMemoryCache 在内存中只保留其返回的引用
+ */
+public interface GenerationSpillStore {
+
+    /**
+     * 保存生成结果
+     *
+     * @param key
+     * @param generations
+     * @return 引用，保存失败时返回 null
+     */
+    String put(String key, List<Generation> generations);
+
+    /**
+     * 读取生成结果
+     *
+     * @param ref
+     * @return 不存在时返回 null
+     */
+    List<Generation> get(String ref);
+
+    /**
+     * 删除生成结果
+     *
+     * @param ref
+     */
+    void remove(String ref);
+}
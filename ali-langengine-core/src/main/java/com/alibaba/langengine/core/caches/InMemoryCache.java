@@ -16,43 +16,234 @@
 package com.alibaba.langengine.core.caches;
 
 import com.alibaba.fastjson.JSON;
+import com.alibaba.langengine.core.messages.BaseMessage;
 import com.alibaba.langengine.core.outputs.Generation;
 import com.alibaba.langengine.core.prompt.MessageInfoDO;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Cache that stores things in memory.
  *
+ * 生成结果按 LRU 淘汰，同时受条数与估算字节数上限约束，支持按条目设置过期时间；
+ * 配置 GenerationSpillStore 后，超过阈值的大体积结果转存到外部，内存中只保留引用。
+ *
  * @author xiaoxuan.lp
  */
 @Slf4j
 public class InMemoryCache extends BaseCache {
 
+    public static final long DEFAULT_MAX_ENTRIES = 10000;
+
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
     private static final String SESSION_PREFIX_KEY = "chatmessage_";
 
+    /**
+     * 每个条目的固定开销估算：链表节点、条目对象与列表
+     */
+    private static final long ENTRY_OVERHEAD_BYTES = 128;
+
+    private static final long GENERATION_OVERHEAD_BYTES = 64;
+
+    /**
+     * 会话消息，与生成结果分开存放，不参与淘汰
+     */
     private Map<String, Object> cache = new ConcurrentHashMap<>();
 
+    private final long maxEntries;
+
+    private final long maxBytes;
+
+    /**
+     * 默认过期时间，小于等于 0 表示不过期
+     */
+    private final long defaultTtlMillis;
+
+    private final GenerationSpillStore spillStore;
+
+    /**
+     * 超过该估算字节数的结果转存到 spillStore
+     */
+    private final long spillThresholdBytes;
+
+    /**
+     * 按访问顺序排列，仅在持有自身锁时访问
+     */
+    private final LinkedHashMap<String, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long estimatedBytes;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder expirations = new LongAdder();
+
+    private final LongAdder spills = new LongAdder();
+
+    public InMemoryCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES, 0);
+    }
+
+    public InMemoryCache(long maxEntries, long maxBytes, long defaultTtlMillis) {
+        this(maxEntries, maxBytes, defaultTtlMillis, null, Long.MAX_VALUE);
+    }
+
+    public InMemoryCache(long maxEntries, long maxBytes, long defaultTtlMillis,
+                         GenerationSpillStore spillStore, long spillThresholdBytes) {
+        if (maxEntries <= 0 || maxBytes <= 0) {
+            throw new IllegalArgumentException("maxEntries and maxBytes must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.defaultTtlMillis = defaultTtlMillis;
+        this.spillStore = spillStore;
+        this.spillThresholdBytes = spillThresholdBytes;
+    }
+
     @Override
     public List<Generation> get(String prompt, String llmString) {
         String cacheKey = getCacheKey(prompt, llmString);
-        return (List<Generation>)cache.get(cacheKey);
+        CacheEntry entry;
+        CacheEntry expired = null;
+        synchronized (entries) {
+            entry = entries.get(cacheKey);
+            if (entry != null && entry.isExpired(System.currentTimeMillis())) {
+                expired = removeEntry(cacheKey);
+                entry = null;
+            }
+        }
+        if (expired != null) {
+            expirations.increment();
+            release(expired);
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        List<Generation> generations = entry.generations;
+        if (generations == null) {
+            generations = spillStore.get(entry.spillRef);
+            if (generations == null) {
+                // 外部存储中的结果已丢失
+                invalidate(cacheKey, entry);
+                misses.increment();
+                return null;
+            }
+        }
+        hits.increment();
+        return generations;
     }
 
     @Override
     public void update(String prompt, String llmString, List<Generation> returnVal) {
+        update(prompt, llmString, returnVal, defaultTtlMillis);
+    }
+
+    /**
+     * 写入缓存并指定该条目的过期时间
+     *
+     * @param prompt
+     * @param llmString
+     * @param returnVal
+     * @param ttlMillis 小于等于 0 表示不过期
+     */
+    public void update(String prompt, String llmString, List<Generation> returnVal, long ttlMillis) {
+        if (returnVal == null) {
+            return;
+        }
         String cacheKey = getCacheKey(prompt, llmString);
-        cache.put(cacheKey, returnVal);
+        long expireAt = ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : Long.MAX_VALUE;
+        long keyBytes = ENTRY_OVERHEAD_BYTES + 2L * cacheKey.length();
+        long valueBytes = estimateBytes(returnVal);
+
+        CacheEntry entry = null;
+        if (spillStore != null && valueBytes > spillThresholdBytes) {
+            String spillRef = spillStore.put(cacheKey, returnVal);
+            if (spillRef != null) {
+                entry = new CacheEntry(null, spillRef, keyBytes + 2L * spillRef.length(), expireAt);
+                spills.increment();
+            }
+        }
+        if (entry == null) {
+            entry = new CacheEntry(returnVal, null, keyBytes + valueBytes, expireAt);
+        }
+        if (entry.bytes > maxBytes) {
+            log.warn("generations too large to cache, estimated bytes: {}", entry.bytes);
+            release(entry);
+            return;
+        }
+
+        List<CacheEntry> removed = new ArrayList<>();
+        synchronized (entries) {
+            CacheEntry previous = entries.put(cacheKey, entry);
+            if (previous != null) {
+                estimatedBytes -= previous.bytes;
+                removed.add(previous);
+            }
+            estimatedBytes += entry.bytes;
+            Iterator<Map.Entry<String, CacheEntry>> iterator = entries.entrySet().iterator();
+            while ((entries.size() > maxEntries || estimatedBytes > maxBytes) && iterator.hasNext()) {
+                CacheEntry eldest = iterator.next().getValue();
+                if (eldest == entry) {
+                    continue;
+                }
+                iterator.remove();
+                estimatedBytes -= eldest.bytes;
+                removed.add(eldest);
+                evictions.increment();
+            }
+        }
+        for (CacheEntry cacheEntry : removed) {
+            if (cacheEntry.spillRef != null && !cacheEntry.spillRef.equals(entry.spillRef)) {
+                release(cacheEntry);
+            }
+        }
     }
 
     @Override
     public void clear() {
+        List<CacheEntry> removed;
+        synchronized (entries) {
+            removed = new ArrayList<>(entries.values());
+            entries.clear();
+            estimatedBytes = 0;
+        }
+        for (CacheEntry entry : removed) {
+            release(entry);
+        }
         cache.clear();
     }
 
+    /**
+     * 缓存统计
+     *
+     * @return
+     */
+    public CacheStats getStats() {
+        CacheStats stats = new CacheStats();
+        stats.setHits(hits.sum());
+        stats.setMisses(misses.sum());
+        stats.setEvictions(evictions.sum());
+        stats.setExpirations(expirations.sum());
+        stats.setSpills(spills.sum());
+        synchronized (entries) {
+            stats.setEntries(entries.size());
+            stats.setEstimatedBytes(estimatedBytes);
+        }
+        return stats;
+    }
+
     public List<MessageInfoDO> getMessageInfo(String sessionId) {
         String cacheKey = SESSION_PREFIX_KEY + sessionId;
         if(cache.get(cacheKey) == null) {
@@ -78,4 +269,78 @@ public class InMemoryCache extends BaseCache {
             log.warn("delete redis error#cacheKey = " + cacheKey, e);
         }
     }
+
+    private void invalidate(String cacheKey, CacheEntry entry) {
+        synchronized (entries) {
+            if (entries.get(cacheKey) != entry) {
+                return;
+            }
+            removeEntry(cacheKey);
+        }
+    }
+
+    /**
+     * 调用方需持有 entries 的锁
+     */
+    private CacheEntry removeEntry(String cacheKey) {
+        CacheEntry removed = entries.remove(cacheKey);
+        if (removed != null) {
+            estimatedBytes -= removed.bytes;
+        }
+        return removed;
+    }
+
+    private void release(CacheEntry entry) {
+        if (entry.spillRef != null) {
+            spillStore.remove(entry.spillRef);
+        }
+    }
+
+    private static long estimateBytes(List<Generation> generations) {
+        long bytes = 0;
+        for (Generation generation : generations) {
+            if (generation == null) {
+                continue;
+            }
+            bytes += GENERATION_OVERHEAD_BYTES + stringBytes(generation.getText());
+            BaseMessage message = generation.getMessage();
+            if (message != null) {
+                bytes += GENERATION_OVERHEAD_BYTES + stringBytes(message.getContent())
+                        + stringBytes(message.getReasoningContent());
+                if (message.getAdditionalKwargs() != null && !message.getAdditionalKwargs().isEmpty()) {
+                    bytes += stringBytes(message.getAdditionalKwargs().toString());
+                }
+            }
+            if (generation.getGenerationInfo() != null && !generation.getGenerationInfo().isEmpty()) {
+                bytes += stringBytes(generation.getGenerationInfo().toString());
+            }
+        }
+        return bytes;
+    }
+
+    private static long stringBytes(String value) {
+        return value == null ? 0 : 40 + 2L * value.length();
+    }
+
+    private static class CacheEntry {
+
+        private final List<Generation> generations;
+
+        private final String spillRef;
+
+        private final long bytes;
+
+        private final long expireAt;
+
+        private CacheEntry(List<Generation> generations, String spillRef, long bytes, long expireAt) {
+            this.generations = generations;
+            this.spillRef = spillRef;
+            this.bytes = bytes;
+            this.expireAt = expireAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expireAt;
+        }
+    }
 }
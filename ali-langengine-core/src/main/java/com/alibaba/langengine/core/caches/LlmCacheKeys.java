@@ -0,0 +1,157 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.langengine.core.caches;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.langengine.core.languagemodel.BaseLanguageModel;
+import com.alibaba.langengine.core.messages.BaseMessage;
+import com.alibaba.langengine.core.messages.ChatMessage;
+import com.alibaba.langengine.core.messages.FunctionMessage;
+import com.alibaba.langengine.core.messages.ToolMessage;
+import com.alibaba.langengine.core.model.fastchat.completion.chat.FunctionDefinition;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * LLM 缓存键
+ *
+ * 所有键都是定长的 SHA-256 摘要：
+ * - llmString 覆盖模型名称、采样参数、stop、functions 与 extraAttributes，避免不同模型或参数之间串用缓存
+ * - 对话消息逐条计入摘要（含角色、发送者名称与工具调用 id），不再把整个消息列表序列化成 JSON
+ */
+public final class LlmCacheKeys {
+
+    private static final HashFunction HASH_FUNCTION = Hashing.sha256();
+
+    private LlmCacheKeys() {
+    }
+
+    /**
+     * 由提示与生成参数得到缓存键
+     *
+     * @param prompt
+     * @param llmString
+     * @return
+     */
+    public static String hash(String prompt, String llmString) {
+        Hasher hasher = HASH_FUNCTION.newHasher();
+        putString(hasher, prompt);
+        putString(hasher, llmString);
+        return hasher.hash().toString();
+    }
+
+    /**
+     * 生成参数的摘要
+     *
+     * @param model
+     * @param stops
+     * @param functions
+     * @param extraAttributes
+     * @return
+     */
+    public static String llmString(BaseLanguageModel<?> model, List<String> stops, List<FunctionDefinition> functions,
+                                   Map<String, Object> extraAttributes) {
+        Hasher hasher = HASH_FUNCTION.newHasher();
+        putString(hasher, model.getClass().getName());
+        putString(hasher, model.getLlmModelName());
+        putString(hasher, String.valueOf(model.getTemperature()));
+        putString(hasher, String.valueOf(model.getTopP()));
+        putString(hasher, String.valueOf(model.getTopK()));
+        putString(hasher, String.valueOf(model.getMaxTokens()));
+        putString(hasher, String.valueOf(model.getFrequencyPenalty()));
+        putString(hasher, String.valueOf(model.getPresencePenalty()));
+        hasher.putInt(stops != null ? stops.size() : -1);
+        if (stops != null) {
+            for (String stop : stops) {
+                putString(hasher, stop);
+            }
+        }
+        putString(hasher, functions != null && !functions.isEmpty() ? toJson(functions) : null);
+        putString(hasher, extraAttributes != null && !extraAttributes.isEmpty() ? toJson(new TreeMap<>(extraAttributes)) : null);
+        return hasher.hash().toString();
+    }
+
+    /**
+     * 对话消息的摘要，用作对话模型的缓存提示
+     *
+     * @param messages
+     * @return
+     */
+    public static String messagesDigest(List<BaseMessage> messages) {
+        Hasher hasher = HASH_FUNCTION.newHasher();
+        hasher.putInt(messages != null ? messages.size() : -1);
+        if (messages != null) {
+            for (BaseMessage message : messages) {
+                if (message == null) {
+                    putString(hasher, null);
+                    continue;
+                }
+                putString(hasher, message.getClass().getName());
+                putString(hasher, message.getType());
+                putIdentity(hasher, message);
+                putString(hasher, message.getContent());
+                Map<String, Object> additionalKwargs = message.getAdditionalKwargs();
+                putString(hasher, additionalKwargs != null && !additionalKwargs.isEmpty() ? toJson(additionalKwargs) : null);
+            }
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * 角色与名称只存在于部分消息类型上，内容相同但角色或发送者不同的消息不能共用缓存
+     */
+    private static void putIdentity(Hasher hasher, BaseMessage message) {
+        String role = null;
+        String name = null;
+        String toolCallId = null;
+        if (message instanceof ChatMessage) {
+            role = ((ChatMessage) message).getRole();
+            name = ((ChatMessage) message).getName();
+        } else if (message instanceof FunctionMessage) {
+            name = ((FunctionMessage) message).getName();
+        } else if (message instanceof ToolMessage) {
+            name = ((ToolMessage) message).getName();
+            toolCallId = ((ToolMessage) message).getTool_call_id();
+        }
+        putString(hasher, role);
+        putString(hasher, name);
+        putString(hasher, toolCallId);
+    }
+
+    private static void putString(Hasher hasher, String value) {
+        if (value == null) {
+            hasher.putInt(-1);
+            return;
+        }
+        // 写入长度以区分 ("ab", "c") 与 ("a", "bc")
+        hasher.putInt(value.length());
+        hasher.putString(value, StandardCharsets.UTF_8);
+    }
+
+    private static String toJson(Object value) {
+        try {
+            return JSON.toJSONString(value);
+        } catch (Throwable e) {
+            return String.valueOf(value);
+        }
+    }
+}
@@ -17,6 +17,7 @@ package com.alibaba.langengine.core.chatmodel;
 
 import com.alibaba.fastjson.JSON;
 import com.alibaba.langengine.core.agent.AgentOutputParser;
+import com.alibaba.langengine.core.caches.LlmCacheKeys;
 import com.alibaba.langengine.core.callback.ExecutionContext;
 import com.alibaba.langengine.core.config.LangEngineConfiguration;
 import com.alibaba.langengine.core.languagemodel.BaseLanguageModel;
@@ -40,6 +41,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -82,14 +84,50 @@ public abstract class BaseChatModel<T extends ChatCompletionRequest> extends Bas
             if(executionContext != null && executionContext.getLlmResult() != null) {
                 llmResult = executionContext.getLlmResult();
             } else {
+                String llmString = LangEngineConfiguration.CurrentCache != null
+                        ? LlmCacheKeys.llmString(this, stops, functions, extraAttributes) : null;
                 List<ChatResult> results = new ArrayList<>();
+                List<Integer> missIndexes = new ArrayList<>();
+                List<Supplier<ChatResult>> calls = new ArrayList<>();
                 for (List<BaseMessage> message : messages) {
-                    ChatResult result = generateWithCache(message, functions, stops, executionContext, consumer, extraAttributes);
-                    results.add(result);
+                    // 命中缓存的直接填入，未命中的收集后统一调用模型，结果按输入顺序返回
+                    ChatResult cached = getFromCache(message, llmString);
+                    if (cached != null) {
+                        results.add(cached);
+                        continue;
+                    }
+                    missIndexes.add(results.size());
+                    results.add(null);
+                    calls.add(() -> runAndCache(message, functions, stops, consumer, extraAttributes, llmString));
+                }
 
+                List<ChatResult> called;
+                if (consumer != null) {
+                    // 流式输出的分片需要按输入顺序交给 consumer，仍逐个调用
+                    called = invokeInOrder(calls);
+                } else {
+                    called = invokeBatch(calls);
+                }
+                long totalTokens = 0L;
+                for (int i = 0; i < called.size(); i++) {
+                    ChatResult result = called.get(i);
+                    results.set(missIndexes.get(i), result);
+                    for (Generation generation : result.getGenerations()) {
+                        if (generation.getMessage() != null && generation.getMessage().getTotalTokens() != null) {
+                            totalTokens += generation.getMessage().getTotalTokens();
+                        }
+                    }
                 }
                 llmResult = new LLMResult();
                 llmResult.setGenerations(results.stream().map(result -> result.getGenerations()).collect(Collectors.toList()));
+                if (called.size() > 1) {
+                    Map<String, Object> tokenUsage = new HashMap<>();
+                    tokenUsage.put("total_tokens", totalTokens);
+                    Map<String, Object> llmOutput = new HashMap<>();
+                    llmOutput.put("batch_size", called.size());
+                    llmOutput.put("token_usage", tokenUsage);
+                    llmResult.setLlmOutput(llmOutput);
+                }
             }
             if(getCallbackManager() != null) {
                 executionContext.setMessages(messages);
@@ -110,21 +148,29 @@ public abstract class BaseChatModel<T extends ChatCompletionRequest> extends Bas
     }
 
     public ChatResult generateWithCache(List<BaseMessage> messages, List<FunctionDefinition> functions, List<String> stops, ExecutionContext executionContext, Consumer<BaseMessage> consumer, Map<String, Object> extraAttributes) {
-        String prompt = null;
-        String llmString = null;
-        if(LangEngineConfiguration.CurrentCache != null) {
-            prompt = JSON.toJSONString(messages);
-            if (!CollectionUtils.isEmpty(stops)) {
-                llmString = JSON.toJSONString(stops);
-            }
-            List<Generation> cacheVal = LangEngineConfiguration.CurrentCache.get(prompt, llmString);
-            if(cacheVal != null) {
-                ChatResult chatResult = new ChatResult();
-                chatResult.setGenerations(cacheVal);
-                return chatResult;
-            }
+        String llmString = LangEngineConfiguration.CurrentCache != null
+                ? LlmCacheKeys.llmString(this, stops, functions, extraAttributes) : null;
+        ChatResult cached = getFromCache(messages, llmString);
+        if (cached != null) {
+            return cached;
+        }
+        return runAndCache(messages, functions, stops, consumer, extraAttributes, llmString);
+    }
+
+    private ChatResult getFromCache(List<BaseMessage> messages, String llmString) {
+        if (LangEngineConfiguration.CurrentCache == null) {
+            return null;
+        }
+        List<Generation> cacheVal = LangEngineConfiguration.CurrentCache.get(LlmCacheKeys.messagesDigest(messages), llmString);
+        if (CollectionUtils.isEmpty(cacheVal)) {
+            return null;
         }
+        ChatResult chatResult = new ChatResult();
+        chatResult.setGenerations(cacheVal);
+        return chatResult;
+    }
 
+    private ChatResult runAndCache(List<BaseMessage> messages, List<FunctionDefinition> functions, List<String> stops, Consumer<BaseMessage> consumer, Map<String, Object> extraAttributes, String llmString) {
         BaseMessage resultMessage = run(messages, functions, stops, consumer, extraAttributes);
         if(resultMessage == null) {
             throw new RuntimeException("resultMessage is null");
@@ -140,7 +186,7 @@ public abstract class BaseChatModel<T extends ChatCompletionRequest> extends Bas
         chatResult.getGenerations().add(generation);
 
         if (LangEngineConfiguration.CurrentCache != null) {
-            LangEngineConfiguration.CurrentCache.update(prompt, llmString, chatResult.getGenerations());
+            LangEngineConfiguration.CurrentCache.update(LlmCacheKeys.messagesDigest(messages), llmString, chatResult.getGenerations());
         }
 
         return chatResult;
@@ -16,14 +16,24 @@
 package com.alibaba.langengine.core.embeddings;
 
 import com.alibaba.langengine.core.indexes.Document;
+import com.alibaba.langengine.core.runnables.RunnableConfig;
+import com.alibaba.langengine.core.runnables.RunnableExecutors;
 import com.alibaba.langengine.core.storage.BaseStore;
 import lombok.Data;
 
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
 
 /**
  * 用于缓存嵌入模型结果的接口
+ * <p>
+ * 一批文档先批量查缓存，未命中的按内容去重后分批并发调用底层模型，结果批量写回缓存。
+ * </p>
  *
  * @author xiaoxuan.lp
  */
@@ -34,6 +44,16 @@ public class CacheBackedEmbeddings extends Embeddings {
 
     private BaseStore<String, List<Double>> documentEmbeddingStore;
 
+    /**
+     * 每次调用底层模型的文档数，应不超过模型单次请求的上限
+     */
+    private int batchSize = 16;
+
+    /**
+     * 同时调用底层模型的最大批次数
+     */
+    private int maxConcurrency = 4;
+
     public CacheBackedEmbeddings(Embeddings underlyingEmbeddings,
                                  BaseStore<String, List<Double>> documentEmbeddingStore) {
         setUnderlyingEmbeddings(underlyingEmbeddings);
@@ -47,20 +67,107 @@ public class CacheBackedEmbeddings extends Embeddings {
 
     @Override
     public List<Document> embedDocument(List<Document> documents) {
+        List<String> texts = new ArrayList<>(documents.size());
         for (Document document : documents) {
-            List<Double> embeddingsValue = documentEmbeddingStore.get(document.getPageContent());
-            if(embeddingsValue != null && embeddingsValue.size() > 0) {
-                document.setEmbedding(embeddingsValue);
+            texts.add(document.getPageContent());
+        }
+        List<List<Double>> cached = documentEmbeddingStore.mget(texts);
+
+        // 未命中的文档按内容去重，相同内容只嵌入一次
+        Map<String, List<Document>> misses = new LinkedHashMap<>();
+        for (int i = 0; i < documents.size(); i++) {
+            List<Double> embeddingsValue = cached.get(i);
+            if (embeddingsValue != null && embeddingsValue.size() > 0) {
+                documents.get(i).setEmbedding(embeddingsValue);
             } else {
-                underlyingEmbeddings.embedDocument(Arrays.asList(new Document[] { document }));
-                documentEmbeddingStore.set(document.getPageContent(), document.getEmbedding());
+                misses.computeIfAbsent(texts.get(i), key -> new ArrayList<>()).add(documents.get(i));
+            }
+        }
+        if (misses.isEmpty()) {
+            return documents;
+        }
+
+        List<List<Document>> batches = new ArrayList<>();
+        List<Document> batch = new ArrayList<>();
+        for (List<Document> sameContent : misses.values()) {
+            batch.add(sameContent.get(0));
+            if (batch.size() >= Math.max(1, batchSize)) {
+                batches.add(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        embedBatches(batches);
+
+        Map<String, List<Double>> computed = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Document>> entry : misses.entrySet()) {
+            List<Double> embeddingsValue = entry.getValue().get(0).getEmbedding();
+            if (embeddingsValue == null || embeddingsValue.isEmpty()) {
+                continue;
+            }
+            for (Document document : entry.getValue()) {
+                document.setEmbedding(embeddingsValue);
             }
+            computed.put(entry.getKey(), embeddingsValue);
         }
+        documentEmbeddingStore.mset(computed);
         return documents;
     }
 
+    private void embedBatches(List<List<Document>> batches) {
+        if (batches.size() == 1 || maxConcurrency <= 1) {
+            for (List<Document> batch : batches) {
+                embedBatch(batch);
+            }
+            return;
+        }
+        RunnableConfig config = new RunnableConfig();
+        config.setMaxConcurrency(maxConcurrency);
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>(batches.size());
+        for (List<Document> batch : batches) {
+            futures.add(RunnableExecutors.supplyAsync(() -> {
+                embedBatch(batch);
+                return true;
+            }, config));
+        }
+        try {
+            RunnableExecutors.awaitAll(futures, config);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (TimeoutException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 底层模型多数直接在传入的文档上设置向量，也有返回新文档的，两种都兼容
+     */
+    private void embedBatch(List<Document> batch) {
+        List<Document> embedded = underlyingEmbeddings.embedDocument(new ArrayList<>(batch));
+        for (int i = 0; i < batch.size(); i++) {
+            Document document = batch.get(i);
+            if ((document.getEmbedding() == null || document.getEmbedding().isEmpty())
+                    && embedded != null && embedded.size() == batch.size()) {
+                document.setEmbedding(embedded.get(i).getEmbedding());
+            }
+        }
+    }
+
     @Override
     public List<String> embedQuery(String text, int recommend) {
         return underlyingEmbeddings.embedQuery(text, recommend);
     }
+
+    @Override
+    public EmbeddingVector embedQueryVector(String text, int recommend) {
+        return underlyingEmbeddings.embedQueryVector(text, recommend);
+    }
 }
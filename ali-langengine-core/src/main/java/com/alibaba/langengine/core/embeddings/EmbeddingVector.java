@@ -0,0 +1,279 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.langengine.core.embeddings;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * 以 float 数组存放的向量
+ * <p>
+ * 同时实现 List&lt;Double&gt;，可直接用于原有的 List 接口而不产生装箱对象；
+ * 提供 JSON 数组字符串的解析与输出，以及紧凑的二进制编码（可选 fp16 / int8 量化）。
+ * 实例不可修改。
+ * </p>
+ */
+public final class EmbeddingVector extends AbstractList<Double> implements RandomAccess {
+
+    private static final byte MAGIC = 0x45;
+
+    private final float[] values;
+
+    private EmbeddingVector(float[] values) {
+        this.values = values;
+    }
+
+    /**
+     * 包装 float 数组，调用方不应再修改该数组
+     */
+    public static EmbeddingVector of(float[] values) {
+        return new EmbeddingVector(values);
+    }
+
+    /**
+     * 从 List 转换，已是 EmbeddingVector 时直接返回
+     */
+    public static EmbeddingVector from(List<? extends Number> values) {
+        if (values == null) {
+            return null;
+        }
+        if (values instanceof EmbeddingVector) {
+            return (EmbeddingVector) values;
+        }
+        float[] array = new float[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i).floatValue();
+        }
+        return new EmbeddingVector(array);
+    }
+
+    /**
+     * 解析形如 [0.1,-0.2,3e-4] 的 JSON 数组字符串，数值也可带引号
+     */
+    public static EmbeddingVector parse(String json) {
+        if (json == null) {
+            return null;
+        }
+        int start = json.indexOf('[');
+        int end = json.lastIndexOf(']');
+        if (start < 0 || end < start) {
+            throw new IllegalArgumentException("embedding is not a json array: " + json);
+        }
+        float[] array = new float[16];
+        int size = 0;
+        int i = start + 1;
+        while (i < end) {
+            char c = json.charAt(i);
+            if (c == ',' || c == '"' || Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            int tokenStart = i;
+            while (i < end && json.charAt(i) != ',' && json.charAt(i) != '"' && !Character.isWhitespace(json.charAt(i))) {
+                i++;
+            }
+            if (size == array.length) {
+                array = Arrays.copyOf(array, size * 2);
+            }
+            array[size++] = Float.parseFloat(json.substring(tokenStart, i));
+        }
+        return new EmbeddingVector(size == array.length ? array : Arrays.copyOf(array, size));
+    }
+
+    /**
+     * 解码 {@link #toBytes(Quantization)} 的结果
+     */
+    public static EmbeddingVector fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        if (bytes.length < 6 || buffer.get() != MAGIC) {
+            throw new IllegalArgumentException("invalid embedding bytes");
+        }
+        int ordinal = buffer.get() & 0xFF;
+        if (ordinal >= Quantization.values().length) {
+            throw new IllegalArgumentException("unknown embedding quantization: " + ordinal);
+        }
+        Quantization quantization = Quantization.values()[ordinal];
+        int dimension = buffer.getInt();
+        long dataBytes = quantization == Quantization.FLOAT16 ? 2L * dimension
+                : quantization == Quantization.INT8 ? 4L + dimension : 4L * dimension;
+        if (dimension < 0 || buffer.remaining() < dataBytes) {
+            throw new IllegalArgumentException(String.format("truncated embedding bytes, quantization: %s, dimension: %s, remaining: %s",
+                    quantization, dimension, buffer.remaining()));
+        }
+        float[] array = new float[dimension];
+        switch (quantization) {
+            case FLOAT16:
+                for (int i = 0; i < dimension; i++) {
+                    array[i] = halfToFloat(buffer.getShort());
+                }
+                break;
+            case INT8:
+                float scale = buffer.getFloat();
+                for (int i = 0; i < dimension; i++) {
+                    array[i] = buffer.get() * scale;
+                }
+                break;
+            default:
+                buffer.asFloatBuffer().get(array);
+        }
+        return new EmbeddingVector(array);
+    }
+
+    /**
+     * 底层数组，不复制，调用方不应修改
+     */
+    public float[] values() {
+        return values;
+    }
+
+    public int dimension() {
+        return values.length;
+    }
+
+    /**
+     * 编码为二进制：1 字节标识、1 字节量化方式、4 字节维度，随后为数据（int8 额外带 4 字节缩放系数），小端序
+     */
+    public byte[] toBytes(Quantization quantization) {
+        int dimension = values.length;
+        ByteBuffer buffer;
+        switch (quantization) {
+            case FLOAT16:
+                buffer = header(quantization, dimension * 2);
+                for (float value : values) {
+                    buffer.putShort(floatToHalf(value));
+                }
+                break;
+            case INT8:
+                buffer = header(quantization, 4 + dimension);
+                float max = 0F;
+                for (float value : values) {
+                    max = Math.max(max, Math.abs(value));
+                }
+                float scale = max == 0F ? 1F : max / 127F;
+                buffer.putFloat(scale);
+                for (float value : values) {
+                    buffer.put((byte) Math.round(value / scale));
+                }
+                break;
+            default:
+                buffer = header(quantization, dimension * 4);
+                for (float value : values) {
+                    buffer.putFloat(value);
+                }
+        }
+        return buffer.array();
+    }
+
+    public String toJson() {
+        StringBuilder builder = new StringBuilder(values.length * 12 + 2).append('[');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(values[i]);
+        }
+        return builder.append(']').toString();
+    }
+
+    @Override
+    public Double get(int index) {
+        return (double) values[index];
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    private ByteBuffer header(Quantization quantization, int dataBytes) {
+        ByteBuffer buffer = ByteBuffer.allocate(6 + dataBytes).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(MAGIC).put((byte) quantization.ordinal()).putInt(values.length);
+        return buffer;
+    }
+
+    private static short floatToHalf(float value) {
+        int bits = Float.floatToIntBits(value);
+        int sign = (bits >>> 16) & 0x8000;
+        int exponent = ((bits >>> 23) & 0xff) - 127 + 15;
+        int mantissa = bits & 0x7fffff;
+        if (exponent >= 0x1f) {
+            // 溢出为无穷大，NaN 保留尾数
+            return (short) (sign | 0x7c00 | (((bits >>> 23) & 0xff) == 0xff && mantissa != 0 ? 0x200 : 0));
+        }
+        if (exponent <= 0) {
+            if (exponent < -10) {
+                return (short) sign;
+            }
+            mantissa |= 0x800000;
+            int shift = 14 - exponent;
+            int half = mantissa >> shift;
+            if (((mantissa >> (shift - 1)) & 1) != 0) {
+                half++;
+            }
+            return (short) (sign | half);
+        }
+        int half = sign | (exponent << 10) | (mantissa >> 13);
+        if ((mantissa & 0x1000) != 0) {
+            // 舍入进位可能进到指数位，结果仍正确
+            half++;
+        }
+        return (short) half;
+    }
+
+    private static float halfToFloat(short half) {
+        int bits = half & 0xffff;
+        int sign = (bits & 0x8000) << 16;
+        int exponent = (bits >>> 10) & 0x1f;
+        int mantissa = bits & 0x3ff;
+        if (exponent == 0) {
+            if (mantissa == 0) {
+                return Float.intBitsToFloat(sign);
+            }
+            // 非规格化数
+            float value = mantissa / 1024F / 16384F;
+            return sign == 0 ? value : -value;
+        }
+        if (exponent == 0x1f) {
+            return Float.intBitsToFloat(sign | 0x7f800000 | (mantissa << 13));
+        }
+        return Float.intBitsToFloat(sign | ((exponent - 15 + 127) << 23) | (mantissa << 13));
+    }
+
+    /**
+     * 二进制编码的量化方式
+     */
+    public enum Quantization {
+
+        /**
+         * 原始 float，无损，每维 4 字节
+         */
+        FLOAT32,
+
+        /**
+         * 半精度浮点，每维 2 字节
+         */
+        FLOAT16,
+
+        /**
+         * 按最大绝对值对称量化到 int8，每维 1 字节
+         */
+        INT8
+    }
+}
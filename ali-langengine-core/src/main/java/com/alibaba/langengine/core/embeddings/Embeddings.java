@@ -71,4 +71,20 @@ public abstract class Embeddings {
      * @return
      */
     public abstract List<String> embedQuery(String text, int recommend);
-}
\ No newline at end of file
+
+    /**
+     * 嵌入查询文本，返回 float 向量；默认解析 embedQuery 返回的 JSON 数组字符串，
+     * 能直接拿到数值的实现可覆盖此方法，省去字符串往返
+     *
+     * @param text
+     * @param recommend
+     * @return 无结果时为 null
+     */
+    public EmbeddingVector embedQueryVector(String text, int recommend) {
+        List<String> embeddingStrings = embedQuery(text, recommend);
+        if (embeddingStrings == null || embeddingStrings.isEmpty() || !embeddingStrings.get(0).startsWith("[")) {
+            return null;
+        }
+        return EmbeddingVector.parse(embeddingStrings.get(0));
+    }
+}
@@ -16,7 +16,8 @@
 package com.alibaba.langengine.core.indexes;
 
 import com.alibaba.fastjson.annotation.JSONField;
-
+import com.alibaba.langengine.core.embeddings.EmbeddingVector;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -66,6 +67,9 @@ public class Document {
     @JSONField(name = "metadata")
     private Map<String, Object> metadata;
 
+    /**
+     * 向量，统一以 {@link EmbeddingVector} 存放，避免每一维都是一个 Double 对象
+     */
     private List<Double> embedding;
 
     /**
@@ -83,6 +87,25 @@ public class Document {
      */
     private String category;
 
+    public void setEmbedding(List<Double> embedding) {
+        this.embedding = EmbeddingVector.from(embedding);
+    }
+
+    /**
+     * float 向量视图，未设置向量时为 null
+     */
+    @JSONField(serialize = false, deserialize = false)
+    @JsonIgnore
+    public EmbeddingVector getEmbeddingVector() {
+        return EmbeddingVector.from(embedding);
+    }
+
+    @JSONField(serialize = false, deserialize = false)
+    @JsonIgnore
+    public void setEmbeddingVector(float[] vector) {
+        this.embedding = vector != null ? EmbeddingVector.of(vector) : null;
+    }
+
     public Boolean hasMetadata() {
         return MapUtils.isNotEmpty(metadata);
     }
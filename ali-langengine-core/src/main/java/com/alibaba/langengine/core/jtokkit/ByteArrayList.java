@@ -69,6 +69,18 @@ class ByteArrayList {
         return size;
     }
 
+    int capacity() {
+        return array.length;
+    }
+
+    /**
+     * Returns the backing array without copying; only the first {@link #size()} bytes are meaningful and the array
+     * may be replaced by the next {@code add}.
+     */
+    byte[] elements() {
+        return array;
+    }
+
     boolean isEmpty() {
         return size == 0;
     }
@@ -18,7 +18,9 @@ package com.alibaba.langengine.core.jtokkit;
 import java.util.Arrays;
 
 class ByteArrayWrapper {
-    private final byte[] array;
+    private byte[] array;
+    private int offset;
+    private int length;
 
     /*
      * Creates a new instance of ByteArrayWrapper from the given array.
@@ -28,7 +30,42 @@ class ByteArrayWrapper {
      * constructor again.
      */
     ByteArrayWrapper(byte[] array) {
+        this(array, 0, array.length);
+    }
+
+    ByteArrayWrapper(byte[] array, int offset, int length) {
+        wrap(array, offset, length);
+    }
+
+    /**
+     * Points this wrapper at the given region of {@code array} without copying. Only meant for short-lived
+     * lookup keys that are never stored in a map, since changing the region changes {@link #hashCode()}.
+     *
+     * @param array  the backing array
+     * @param offset the index of the first byte of the region
+     * @param length the number of bytes in the region
+     * @return this wrapper
+     */
+    ByteArrayWrapper wrap(byte[] array, int offset, int length) {
+        assert offset >= 0 && length >= 0 && offset + length <= array.length;
         this.array = array;
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+
+    /**
+     * Points this wrapper at the bytes of {@code source} from startIndex (inclusive) to endIndex (exclusive), without
+     * copying them. This is the allocation free counterpart of {@link #getBytesBetween(int, int)}.
+     *
+     * @param source     the wrapper to take the region from
+     * @param startIndex the index at which the region starts (inclusive)
+     * @param endIndex   the index at which the region ends (exclusive)
+     * @return this wrapper
+     */
+    ByteArrayWrapper wrapBetween(ByteArrayWrapper source, int startIndex, int endIndex) {
+        assert startIndex >= 0 && startIndex < endIndex && endIndex <= source.length;
+        return wrap(source.array, source.offset + startIndex, endIndex - startIndex);
     }
 
     /**
@@ -37,7 +74,7 @@ class ByteArrayWrapper {
      * @return the length of this array.
      */
     int length() {
-        return array.length;
+        return length;
     }
 
     /**
@@ -51,17 +88,17 @@ class ByteArrayWrapper {
      *                                  startIndex
      */
     ByteArrayWrapper getBytesBetween(int startIndex, int endIndex) {
-        if (startIndex < 0 || startIndex >= array.length) {
+        if (startIndex < 0 || startIndex >= length) {
             throw new IndexOutOfBoundsException("startIndex out of bounds: " + startIndex + " (" + this + ")");
-        } else if (endIndex < 0 || endIndex > array.length) {
+        } else if (endIndex < 0 || endIndex > length) {
             throw new IndexOutOfBoundsException("endIndex out of bounds: " + endIndex + " (" + this + ")");
         } else if (startIndex >= endIndex) {
             throw new IllegalArgumentException("startIndex must be less than endIndex: " + startIndex + " >= " + endIndex);
         }
 
-        int length = endIndex - startIndex;
-        byte[] result = new byte[length];
-        System.arraycopy(array, startIndex, result, 0, length);
+        int resultLength = endIndex - startIndex;
+        byte[] result = new byte[resultLength];
+        System.arraycopy(array, offset + startIndex, result, 0, resultLength);
         return new ByteArrayWrapper(result);
     }
 
@@ -74,16 +111,32 @@ class ByteArrayWrapper {
         }
 
         ByteArrayWrapper that = (ByteArrayWrapper) other;
-        return Arrays.equals(array, that.array);
+        if (length != that.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (array[offset + i] != that.array[that.offset + i]) {
+                return false;
+            }
+        }
+        return true;
     }
 
+    /**
+     * Same value as {@link Arrays#hashCode(byte[])} of the wrapped region, so that regions and whole arrays with
+     * equal contents hash alike.
+     */
     @Override
     public int hashCode() {
-        return Arrays.hashCode(array);
+        int result = 1;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            result = 31 * result + array[i];
+        }
+        return result;
     }
 
     @Override
     public String toString() {
-        return Arrays.toString(array);
+        return Arrays.toString(Arrays.copyOfRange(array, offset, offset + length));
     }
 }
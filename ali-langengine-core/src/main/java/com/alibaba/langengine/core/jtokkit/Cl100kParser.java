@@ -43,8 +43,11 @@ class Cl100kParser {
             .toArray();
 
     static void split(String input, Predicate<ByteArrayList> fragmentConsumer) {
+        split(input, new ByteArrayList(), fragmentConsumer);
+    }
+
+    static void split(String input, ByteArrayList utf8Bytes, Predicate<ByteArrayList> fragmentConsumer) {
         assert isValidUTF8(input) : "Input is not UTF-8: " + input;
-        ByteArrayList utf8Bytes = new ByteArrayList();
         boolean finished = false;
         for (int endIndex = 0; endIndex < input.length() && !finished; ) {
             int startIndex = endIndex;
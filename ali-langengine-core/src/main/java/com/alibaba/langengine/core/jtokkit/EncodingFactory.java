@@ -211,12 +211,16 @@ class EncodingFactory {
 
         @Override
         int encodeOrdinaryInternal(String text, int maxTokenCount, boolean keepEncodings, IntArrayList out) {
+            TokenEncoder.Scratch scratch = scratch();
             int[] tokenCount = {0};
-            IntArrayList ranks = new IntArrayList();
-            Cl100kParser.split(text, utf8BytesList -> {
-                tokenCount[0] += encoder.addTokensAndGetCount(maxTokenCount, keepEncodings, utf8BytesList.toArray(), out, ranks);
-                return tokenCount[0] >= maxTokenCount;
-            });
+            try {
+                Cl100kParser.split(text, scratch.utf8Bytes(), utf8BytesList -> {
+                    tokenCount[0] += encoder.addTokensAndGetCount(maxTokenCount, keepEncodings, utf8BytesList, out, scratch);
+                    return tokenCount[0] >= maxTokenCount;
+                });
+            } finally {
+                scratch.trim();
+            }
             return tokenCount[0];
         }
     }
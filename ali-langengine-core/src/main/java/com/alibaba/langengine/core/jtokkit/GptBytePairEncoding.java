@@ -35,6 +35,8 @@ class GptBytePairEncoding implements Encoding {
     private final String name;
     private final Pattern pattern;
     private final SpecialEncoder specialEncoder;
+    private final ThreadLocal<TokenEncoder.Scratch> scratch = ThreadLocal.withInitial(TokenEncoder.Scratch::new);
+    private final ThreadLocal<Matcher> matchers;
 
     /**
      * Creates a new instance of {@link GptBytePairEncoding}.
@@ -46,6 +48,7 @@ class GptBytePairEncoding implements Encoding {
         this.pattern = params.getPattern();
         this.encoder = new TokenEncoder(params.getEncoder());
         this.specialEncoder = new SpecialEncoder(params.getSpecialTokensEncoder());
+        this.matchers = ThreadLocal.withInitial(() -> pattern.matcher(""));
     }
 
     @Override
@@ -105,24 +108,80 @@ class GptBytePairEncoding implements Encoding {
         return new InternalResult(out, tokenCount, false);
     }
 
+    /**
+     * Splits {@code text} and adds the tokens of every piece to {@code out} (only if {@code keepEncodings}, otherwise
+     * {@code out} may be {@code null}). All intermediate state comes from the per-thread {@link TokenEncoder.Scratch}.
+     */
     int encodeOrdinaryInternal(String text, int maxTokenCount, boolean keepEncodings, IntArrayList out) {
-        int tokenCount = 0;
-        IntArrayList ranks = new IntArrayList(); // reused to avoid allocations
-        for (Matcher matcher = pattern.matcher(text); tokenCount < maxTokenCount && matcher.find(); ) {
-            byte[] bytes = matcher.group().getBytes(UTF_8);
-            tokenCount += encoder.addTokensAndGetCount(maxTokenCount, keepEncodings, bytes, out, ranks);
+        TokenEncoder.Scratch scratch = scratch();
+        Matcher matcher = matchers.get().reset(text);
+        try {
+            int tokenCount = 0;
+            ByteArrayList utf8Bytes = scratch.utf8Bytes();
+            while (tokenCount < maxTokenCount && matcher.find()) {
+                addUtf8Bytes(text, matcher.start(), matcher.end(), utf8Bytes);
+                tokenCount += encoder.addTokensAndGetCount(maxTokenCount, keepEncodings, utf8Bytes, out, scratch);
+            }
+            return tokenCount;
+        } finally {
+            matcher.reset(""); // do not keep the text reachable from the thread
+            scratch.trim();
         }
-        return tokenCount;
     }
 
+    TokenEncoder.Scratch scratch() {
+        return scratch.get();
+    }
+
+    /**
+     * Same bytes as {@code text.substring(start, end).getBytes(UTF_8)}, including the {@code '?'} replacement of
+     * unpaired surrogates, but written into a reused buffer.
+     */
+    static void addUtf8Bytes(String text, int start, int end, ByteArrayList dst) {
+        dst.clear();
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                dst.add((byte) c);
+            } else if (c < 0x800) {
+                dst.add((byte) (0xc0 | (c >> 6)));
+                dst.add((byte) (0x80 | (c & 0x3f)));
+            } else if (!Character.isSurrogate(c)) {
+                dst.add((byte) (0xe0 | (c >> 12)));
+                dst.add((byte) (0x80 | ((c >> 6) & 0x3f)));
+                dst.add((byte) (0x80 | (c & 0x3f)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, text.charAt(++i));
+                dst.add((byte) (0xf0 | (cp >> 18)));
+                dst.add((byte) (0x80 | ((cp >> 12) & 0x3f)));
+                dst.add((byte) (0x80 | ((cp >> 6) & 0x3f)));
+                dst.add((byte) (0x80 | (cp & 0x3f)));
+            } else {
+                dst.add((byte) '?');
+            }
+        }
+    }
+
+    /**
+     * Counts without materializing the tokens: no token list, result object or per-piece byte array is allocated.
+     */
     @Override
     public int countTokens(String text) {
-        return encodeInternal(text, Integer.MAX_VALUE, false).toTokenCount();
+        if (text == null) {
+            return 0;
+        }
+
+        specialEncoder.checkForSpecialTokens(text);
+
+        return countTokensOrdinary(text);
     }
 
     @Override
     public int countTokensOrdinary(final String text) {
-        return encodeOrdinaryInternal(text, Integer.MAX_VALUE, false).toTokenCount();
+        if (text == null) {
+            return 0;
+        }
+        return encodeOrdinaryInternal(text, Integer.MAX_VALUE, false, null);
     }
 
     @Override
@@ -35,6 +35,33 @@ final class TokenEncoder {
 
     private int VERY_LARGE_TOKENIZER_BYTE_THRESHOLD;
 
+    /**
+     * Mutable state reused by a single thread across encode and count calls, so that the hot path does not allocate
+     * a byte array, a wrapper or a rank list per regex match. Instances must never be shared between threads.
+     */
+    static final class Scratch {
+        /**
+         * A buffer grown beyond this by a huge piece is dropped after the call, so that it is not pinned to the
+         * thread forever.
+         */
+        private static final int MAX_RETAINED_BYTES = 1 << 16;
+
+        final IntArrayList ranks = new IntArrayList();
+        final ByteArrayWrapper piece = new ByteArrayWrapper(new byte[0]);
+        final ByteArrayWrapper probe = new ByteArrayWrapper(new byte[0]);
+        private ByteArrayList utf8Bytes = new ByteArrayList(64);
+
+        ByteArrayList utf8Bytes() {
+            return utf8Bytes;
+        }
+
+        void trim() {
+            if (utf8Bytes.capacity() > MAX_RETAINED_BYTES) {
+                utf8Bytes = new ByteArrayList(64);
+            }
+        }
+    }
+
     TokenEncoder(Map<byte[], Integer> encoder) {
         if (!encoder.isEmpty()) {
             VERY_LARGE_TOKENIZER_BYTE_THRESHOLD = parseInt(System.getProperty(Encoding.VERY_LARGE_TOKENIZER_BYTE_THRESHOLD_KEY, "500"));
@@ -118,8 +145,8 @@ final class TokenEncoder {
         return previousIndex;
     }
 
-    int addTokensAndGetCount(int maxTokenCount, boolean keepEncodings, byte[] byteArray, IntArrayList out, IntArrayList ranks) {
-        ByteArrayWrapper match = new ByteArrayWrapper(byteArray);
+    int addTokensAndGetCount(int maxTokenCount, boolean keepEncodings, ByteArrayList utf8Bytes, IntArrayList out, Scratch scratch) {
+        ByteArrayWrapper match = scratch.piece.wrap(utf8Bytes.elements(), 0, utf8Bytes.size());
         int encoded = encode(match);
         if (encoded != MAX_RANK) {
             if (keepEncodings) {
@@ -128,14 +155,14 @@ final class TokenEncoder {
             return 1;
         } else {
             if (match.length() < VERY_LARGE_TOKENIZER_BYTE_THRESHOLD) {
-                return calculateTokensSmall(maxTokenCount, keepEncodings, out, ranks, match);
+                return calculateTokensSmall(maxTokenCount, keepEncodings, out, scratch.ranks, match, scratch.probe);
             } else {
-                return calculateTokensLarge(this, maxTokenCount, keepEncodings, out, match);
+                return calculateTokensLarge(this, maxTokenCount, keepEncodings, out, match, scratch.probe);
             }
         }
     }
 
-    private int calculateTokensSmall(int maxTokenCount, boolean keepEncodings, IntArrayList out, IntArrayList ranks, ByteArrayWrapper match) {
+    private int calculateTokensSmall(int maxTokenCount, boolean keepEncodings, IntArrayList out, IntArrayList ranks, ByteArrayWrapper match, ByteArrayWrapper probe) {
         int length = match.length();
         assert length > 1 : "Already filtered out";
         ranks.clear();
@@ -143,7 +170,7 @@ final class TokenEncoder {
 
         int minRankIndex = -1;
         for (int i = 0, minRank = MAX_RANK; i < length + 1; i++) {
-            int encoded = encode(match, i, i + 2);
+            int encoded = encode(match, i, i + 2, probe);
             if (encoded != MAX_RANK) {
                 if (encoded < minRank) {
                     minRankIndex = i;
@@ -152,11 +179,11 @@ final class TokenEncoder {
             }
             ranks.add(encoded);
         }
-        int tokenCount = mergeBytesAndGetTokenCount(match, length, ranks, minRankIndex);
+        int tokenCount = mergeBytesAndGetTokenCount(match, length, ranks, minRankIndex, probe);
         if (keepEncodings) {
             for (int start = 0, end = 1; end < ranks.size() && out.size() < maxTokenCount; end++) {
                 if (ranks.get(end) != DUMMY_RANK) {
-                    int token = encode(match, start, end);
+                    int token = encode(match, start, end, probe);
                     assert token != MAX_RANK : "Token should not be MAX_RANK";
                     out.add(token);
                     start = end;
@@ -166,7 +193,7 @@ final class TokenEncoder {
         return tokenCount;
     }
 
-    int mergeBytesAndGetTokenCount(ByteArrayWrapper piece, int length, IntArrayList ranks, int minRankIndex) {
+    int mergeBytesAndGetTokenCount(ByteArrayWrapper piece, int length, IntArrayList ranks, int minRankIndex, ByteArrayWrapper probe) {
         assert getMinRankIndex(ranks) == minRankIndex;
         while (minRankIndex >= 0) {
             int previousIndex = getPreviousIndex(ranks, minRankIndex - 1);
@@ -176,11 +203,11 @@ final class TokenEncoder {
 
             if (previousIndex >= 0) {
                 assert ranks.get(previousIndex) != DUMMY_RANK;
-                int newRank = encode(piece, previousIndex, nextNextIndex);
+                int newRank = encode(piece, previousIndex, nextNextIndex, probe);
                 ranks.set(previousIndex, newRank);
             }
             assert ranks.get(minRankIndex) != DUMMY_RANK;
-            int newRank = encode(piece, minRankIndex, nextNextNextIndex);
+            int newRank = encode(piece, minRankIndex, nextNextNextIndex, probe);
             ranks.set(minRankIndex, newRank);
 
             ranks.set(nextIndex, DUMMY_RANK);
@@ -209,11 +236,11 @@ final class TokenEncoder {
         return MAX_RANK;
     }
 
-    int encode(ByteArrayWrapper piece, int start, int end) {
+    int encode(ByteArrayWrapper piece, int start, int end, ByteArrayWrapper probe) {
         if (end > piece.length() || end - start == piece.length()) {
             return MAX_RANK;
         } else {
-            return encode(piece.getBytesBetween(start, end));
+            return encode(probe.wrapBetween(piece, start, end));
         }
     }
 
@@ -26,12 +26,12 @@ import java.util.Map;
 import java.util.TreeMap;
 
 final class TokenEncoderLarge {
-    static int calculateTokensLarge(TokenEncoder tokenEncoder, int maxTokenCount, boolean keepEncodings, IntArrayList out, ByteArrayWrapper match) {
+    static int calculateTokensLarge(TokenEncoder tokenEncoder, int maxTokenCount, boolean keepEncodings, IntArrayList out, ByteArrayWrapper match, ByteArrayWrapper probe) {
         TreeMap<Integer, LinkedHashMap<Integer, RankNode>> rankMap = new TreeMap<>();
 
         RankNode prev = null;
         for (int i = 0; i < match.length() + 1; i++) {
-            int rank = tokenEncoder.encode(match, i, i + 2);
+            int rank = tokenEncoder.encode(match, i, i + 2, probe);
             RankNode node = new RankNode(rank, i, prev);
             if (prev != null) {
                 prev.next = node;
@@ -55,7 +55,7 @@ final class TokenEncoderLarge {
                         nextNextNextNode = nextNextNode.next;
 
                 if (previousNode != null) {
-                    int newRank = tokenEncoder.encode(match, previousNode.index, nextNextNode.index);
+                    int newRank = tokenEncoder.encode(match, previousNode.index, nextNextNode.index, probe);
                     if (previousNode.rank != newRank) {
                         assert previousNode.rank != minRank;
                         removeNode(rankMap.get(previousNode.rank), rankMap, previousNode);
@@ -64,7 +64,7 @@ final class TokenEncoderLarge {
                     }
                 }
 
-                int newRank = tokenEncoder.encode(match, minNode.index, nextNextNextNode != null ? nextNextNextNode.index : Integer.MAX_VALUE);
+                int newRank = tokenEncoder.encode(match, minNode.index, nextNextNextNode != null ? nextNextNextNode.index : Integer.MAX_VALUE, probe);
                 minNode.rank = newRank;
                 rankMap.computeIfAbsent(newRank, k -> new LinkedHashMap<>()).put(minNode.index, minNode);
 
@@ -84,7 +84,7 @@ final class TokenEncoderLarge {
 
         if (keepEncodings) {
             for (RankNode head = rankMap.get(MAX_RANK).get(0); head.next != null && out.size() < maxTokenCount; head = head.next) {
-                int token = tokenEncoder.encode(match, head.index, head.next.index);
+                int token = tokenEncoder.encode(match, head.index, head.next.index, probe);
                 assert token != MAX_RANK : "Token should not be MAX_RANK";
                 out.add(token);
             }
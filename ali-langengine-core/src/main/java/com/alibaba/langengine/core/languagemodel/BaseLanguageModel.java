@@ -16,10 +16,14 @@
 package com.alibaba.langengine.core.languagemodel;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import com.alibaba.langengine.core.agent.AgentOutputParser;
 import com.alibaba.langengine.core.callback.BaseCallbackManager;
@@ -37,15 +41,24 @@ import com.alibaba.langengine.core.prompt.PromptValue;
 import com.alibaba.langengine.core.prompt.StringPromptValue;
 import com.alibaba.langengine.core.runnables.Runnable;
 import com.alibaba.langengine.core.runnables.RunnableConfig;
+import com.alibaba.langengine.core.runnables.RunnableExecutors;
 import com.alibaba.langengine.core.runnables.RunnableInput;
 import com.alibaba.langengine.core.runnables.RunnableModelInput;
 import com.alibaba.langengine.core.runnables.RunnableOutput;
 import com.alibaba.langengine.core.runnables.RunnableStringVar;
 import com.alibaba.langengine.core.tokenizers.GPT2Tokenizer;
+import com.alibaba.langengine.core.tokenizers.Tokenizer;
 import com.alibaba.langengine.core.util.JacksonUtils;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.google.common.util.concurrent.RateLimiter;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 import org.apache.commons.collections.CollectionUtils;
 
 /**
@@ -124,6 +137,32 @@ public abstract class BaseLanguageModel<T> extends Runnable<RunnableInput, Runna
      */
     private Object toolChoice = "auto";
 
+    /**
+     * 一次生成多个提示时，同时调用模型的最大数量，默认 1 即逐个调用
+     */
+    private int batchConcurrency = 1;
+
+    /**
+     * 一次生成多个提示时，每秒最多发起的模型调用数，为空表示不限速
+     */
+    private Double batchRequestsPerSecond;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private transient volatile RateLimiter batchRateLimiter;
+
+    private static final Tokenizer DEFAULT_TOKENIZER = new GPT2Tokenizer();
+
+    /**
+     * 统计 token 使用的分词器，需与模型匹配，如通义千问系列使用 QwenTokenizer；分词器无状态，可在多个模型间共享
+     */
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Tokenizer tokenizer;
+
 
     /**
      * 当前是否是流式模式
@@ -248,8 +287,7 @@ public abstract class BaseLanguageModel<T> extends Runnable<RunnableInput, Runna
      * @return
      */
     public List<Integer> getTokenIds(String text) {
-        GPT2Tokenizer tokenizer = new GPT2Tokenizer();
-        return tokenizer.encode(text);
+        return getTokenizer().encode(text);
     }
 
     /**
@@ -259,8 +297,17 @@ public abstract class BaseLanguageModel<T> extends Runnable<RunnableInput, Runna
      * @return
      */
     public int getNumTokens(String text) {
-        GPT2Tokenizer tokenizer = new GPT2Tokenizer();
-        return tokenizer.getTokenCount(text);
+        return getTokenizer().getTokenCount(text);
+    }
+
+    /**
+     * 统计 token 使用的分词器，未设置时为共享的 GPT2Tokenizer
+     *
+     * @return
+     */
+    @JsonIgnore
+    public Tokenizer getTokenizer() {
+        return tokenizer != null ? tokenizer : DEFAULT_TOKENIZER;
     }
 
     /**
@@ -512,6 +559,116 @@ public abstract class BaseLanguageModel<T> extends Runnable<RunnableInput, Runna
         return null;
     }
 
+    /**
+     * 按 batchConcurrency 与 batchRequestsPerSecond 执行一批相互独立的模型调用，返回结果与 calls 顺序一致。
+     * 每个调用在执行线程内完成，LlmResultHolder 等线程上下文需由调用方在 call 内读取并清理。
+     *
+     * @param calls
+     * @return
+     */
+    protected <R> List<R> invokeBatch(List<Supplier<R>> calls) {
+        int concurrency = Math.min(batchConcurrency, calls.size());
+        if (concurrency <= 1) {
+            return invokeInOrder(calls);
+        }
+        RunnableConfig config = new RunnableConfig();
+        config.setMaxConcurrency(concurrency);
+        List<CompletableFuture<R>> futures = new ArrayList<>(calls.size());
+        for (Supplier<R> call : calls) {
+            futures.add(RunnableExecutors.supplyAsync(() -> {
+                acquireBatchPermit();
+                return call.get();
+            }, config));
+        }
+        try {
+            return RunnableExecutors.awaitAll(futures, config);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (TimeoutException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 在当前线程按顺序逐个执行模型调用，同样受 batchRequestsPerSecond 限速，用于流式输出等需要保持顺序的场景
+     *
+     * @param calls
+     * @return
+     */
+    protected <R> List<R> invokeInOrder(List<Supplier<R>> calls) {
+        List<R> results = new ArrayList<>(calls.size());
+        for (Supplier<R> call : calls) {
+            acquireBatchPermit();
+            results.add(call.get());
+        }
+        return results;
+    }
+
+    /**
+     * 每次模型调用前获取一个限速许可，未配置 batchRequestsPerSecond 时直接返回
+     */
+    protected void acquireBatchPermit() {
+        Double permitsPerSecond = batchRequestsPerSecond;
+        if (permitsPerSecond == null || permitsPerSecond <= 0) {
+            return;
+        }
+        RateLimiter rateLimiter = batchRateLimiter;
+        if (rateLimiter == null || rateLimiter.getRate() != permitsPerSecond) {
+            synchronized (this) {
+                rateLimiter = batchRateLimiter;
+                if (rateLimiter == null) {
+                    rateLimiter = RateLimiter.create(permitsPerSecond);
+                    batchRateLimiter = rateLimiter;
+                } else if (rateLimiter.getRate() != permitsPerSecond) {
+                    rateLimiter.setRate(permitsPerSecond);
+                }
+            }
+        }
+        rateLimiter.acquire();
+    }
+
+    private static final String[] TOKEN_USAGE_KEYS = {"usage", "token_usage", "tokenUsage"};
+
+    /**
+     * 汇总多次调用的 token 用量：累加各结果中 usage / token_usage / tokenUsage 下的数值字段
+     *
+     * @param outputs
+     * @return
+     */
+    protected static Map<String, Object> sumTokenUsage(List<Map<String, Object>> outputs) {
+        Map<String, Object> total = new LinkedHashMap<>();
+        for (Map<String, Object> output : outputs) {
+            if (output == null) {
+                continue;
+            }
+            for (String key : TOKEN_USAGE_KEYS) {
+                Object usage = output.get(key);
+                if (!(usage instanceof Map)) {
+                    continue;
+                }
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) usage).entrySet()) {
+                    if (entry.getValue() instanceof Number) {
+                        String name = String.valueOf(entry.getKey());
+                        long value = ((Number) entry.getValue()).longValue();
+                        Object current = total.get(name);
+                        total.put(name, current instanceof Long ? (Long) current + value : value);
+                    }
+                }
+            }
+        }
+        return total;
+    }
+
     private PromptValue convertInput(RunnableInput input) {
         if(input instanceof PromptValue) {
             return (PromptValue)input;
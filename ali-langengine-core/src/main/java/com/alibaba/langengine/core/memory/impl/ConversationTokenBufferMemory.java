@@ -15,8 +15,11 @@
  */
 package com.alibaba.langengine.core.memory.impl;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -28,8 +31,15 @@ import com.alibaba.langengine.core.languagemodel.BaseLanguageModel;
 import com.alibaba.langengine.core.messages.BaseMessage;
 import com.alibaba.langengine.core.messages.MessageConverter;
 import com.alibaba.langengine.core.tokenizers.GPT3Tokenizer;
+import com.alibaba.langengine.core.tokenizers.Tokenizer;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 /**
  * @author aihe.ah
@@ -48,6 +58,35 @@ public class ConversationTokenBufferMemory extends BaseChatMemory {
 
     private BaseChatMessageHistory chatMemory = new ChatMessageHistory();
 
+    /**
+     * 统计 token 使用的分词器，为空时使用 GPT3Tokenizer；不随 llm 的分词器变化，避免设置 llm 后上限的含义改变
+     */
+    @JsonIgnore
+    private Tokenizer tokenizer;
+
+    private static final Tokenizer DEFAULT_TOKENIZER = new GPT3Tokenizer();
+
+    /**
+     * 与缓冲区消息一一对应的 token 数，只对新增消息分词
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final Deque<MessageTokens> messageTokens = new ArrayDeque<>();
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Tokenizer indexedTokenizer;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private int bufferTokens;
+
     public Object getBuffer() {
 
         if (isReturnMessages()) {
@@ -85,23 +124,76 @@ public class ConversationTokenBufferMemory extends BaseChatMemory {
     }
 
     @Override
-    public void saveContext(Map<String, Object> inputs, Map<String, Object> outputs) {
+    public synchronized void saveContext(Map<String, Object> inputs, Map<String, Object> outputs) {
         super.saveContext(inputs, outputs);
         List<BaseMessage> buffer = getChatMemory().getMessages();
-        GPT3Tokenizer tokenizer = new GPT3Tokenizer();
-        int currBufferLength = tokenizer.getTokenCount(
-            MessageConverter.getBufferString(buffer, getHumanPrefix(), getAiPrefix(), getSystemPrefix(), null, getToolPrefix()));
-
-        while (currBufferLength > maxTokenLimit) {
-            // Calculate the token count of the first message in the buffer
-            int firstBufferLength = tokenizer.getTokenCount(
-                MessageConverter.getBufferString(Arrays.asList(buffer.get(0)), getHumanPrefix(),
-                    getAiPrefix(), getSystemPrefix(), null, getToolPrefix()));
-            // Remove the first message in the buffer
-            buffer.remove(0);
-            // Subtract the token count of the removed message from the total count
-            currBufferLength -= firstBufferLength;
+        syncMessageTokens(buffer);
+
+        // 从最早的消息开始淘汰，直到总 token 数不超过上限
+        int evicted = 0;
+        while (bufferTokens > maxTokenLimit && !messageTokens.isEmpty()) {
+            bufferTokens -= messageTokens.pollFirst().tokens;
+            evicted++;
+        }
+        if (evicted > 0) {
+            buffer.subList(0, evicted).clear();
         }
         getChatMemory().setMessages(buffer);
     }
-}
\ No newline at end of file
+
+    /**
+     * 当前缓冲区的 token 总数，按消息分别统计后累加。
+     * 与对整个 getBufferAsString 分词相比不包含消息之间的换行符，默认的 GPT3Tokenizer 下恰好少（消息数 - 1）个 token；
+     * 淘汰时扣除的也是同一口径的单条消息 token 数
+     */
+    @JsonIgnore
+    public synchronized int getBufferTokens() {
+        syncMessageTokens(getChatMemory().getMessages());
+        return bufferTokens;
+    }
+
+    private Tokenizer resolveTokenizer() {
+        return tokenizer != null ? tokenizer : DEFAULT_TOKENIZER;
+    }
+
+    /**
+     * 已统计的消息仍是缓冲区前缀时只对新增消息分词，否则（缓冲区被替换、分词器变化）全部重新统计
+     */
+    private void syncMessageTokens(List<BaseMessage> buffer) {
+        Tokenizer current = resolveTokenizer();
+        boolean prefix = current == indexedTokenizer && messageTokens.size() <= buffer.size();
+        if (prefix) {
+            int i = 0;
+            for (MessageTokens entry : messageTokens) {
+                if (entry.message != buffer.get(i++)) {
+                    prefix = false;
+                    break;
+                }
+            }
+        }
+        if (!prefix) {
+            messageTokens.clear();
+            bufferTokens = 0;
+            indexedTokenizer = current;
+        }
+        for (int i = messageTokens.size(); i < buffer.size(); i++) {
+            BaseMessage message = buffer.get(i);
+            int tokens = current.getTokenCount(MessageConverter.getBufferString(Collections.singletonList(message),
+                getHumanPrefix(), getAiPrefix(), getSystemPrefix(), null, getToolPrefix()));
+            messageTokens.addLast(new MessageTokens(message, tokens));
+            bufferTokens += tokens;
+        }
+    }
+
+    private static class MessageTokens {
+
+        private final BaseMessage message;
+
+        private final int tokens;
+
+        private MessageTokens(BaseMessage message, int tokens) {
+            this.message = message;
+            this.tokens = tokens;
+        }
+    }
+}
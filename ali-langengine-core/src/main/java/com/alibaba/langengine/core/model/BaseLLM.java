@@ -18,6 +18,7 @@ package com.alibaba.langengine.core.model;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.langengine.core.agent.AgentOutputParser;
 import com.alibaba.langengine.core.agent.structured.StructuredChatOutputParser;
+import com.alibaba.langengine.core.caches.LlmCacheKeys;
 import com.alibaba.langengine.core.callback.ExecutionContext;
 import com.alibaba.langengine.core.config.LangEngineConfiguration;
 import com.alibaba.langengine.core.model.fastchat.completion.chat.ChatCompletionRequest;
@@ -35,6 +36,7 @@ import org.apache.commons.collections.CollectionUtils;
 
 import java.util.*;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -74,48 +76,61 @@ public abstract class BaseLLM<T extends ChatCompletionRequest> extends BaseLangu
             if (executionContext != null && executionContext.getLlmResult() != null) {
                 llmResult = executionContext.getLlmResult();
             } else {
-                String llmString = "";
-                if (stops != null && stops.size() > 0) {
-                    llmString = JSON.toJSONString(stops);
-                }
+                String llmString = LangEngineConfiguration.CurrentCache != null
+                        ? LlmCacheKeys.llmString(this, stops, null, extraAttributes) : null;
                 llmResult = new LLMResult();
                 List<List<Generation>> generationsList = new ArrayList<>();
-                if (LangEngineConfiguration.CurrentCache != null) {
-                    for (int i = 0; i < prompts.size(); i++) {
-                        String prompt = prompts.get(i);
-                        List<Generation> cacheVal = LangEngineConfiguration.CurrentCache.get(prompt, llmString);
+                List<Integer> missIndexes = new ArrayList<>();
+                List<Supplier<Generation>> calls = new ArrayList<>();
+                for (String prompt : prompts) {
+                    // 逐个提示查缓存，命中的直接填入，未命中的提示收集后统一调用模型
+                    List<Generation> cacheVal = null;
+                    if (LangEngineConfiguration.CurrentCache != null) {
+                        cacheVal = LangEngineConfiguration.CurrentCache.get(prompt, llmString);
                         if (CollectionUtils.isEmpty(cacheVal)) {
                             cacheVal = LangEngineConfiguration.CurrentCache.get(executionContext, prompt, llmString);
                         }
-                        if (cacheVal != null) {
-                            generationsList.add(cacheVal);
-                        }
                     }
+                    if (!CollectionUtils.isEmpty(cacheVal)) {
+                        generationsList.add(cacheVal);
+                        continue;
+                    }
+                    missIndexes.add(generationsList.size());
+                    generationsList.add(null);
+                    calls.add(() -> runForGeneration(prompt, stops, consumer, extraAttributes));
                 }
 
-                if (generationsList.size() > 0) {
-                    llmResult.setGenerations(generationsList);
+                List<Generation> called;
+                if (consumer != null) {
+                    // 流式输出的分片需要按提示顺序交给 consumer，仍逐个调用
+                    called = invokeInOrder(calls);
                 } else {
-                    llmResult.setGenerations(generationsList);
-                    for (String prompt : prompts) {
-                        List<Generation> generations = new ArrayList<>();
-                        generationsList.add(generations);
-                        Generation generation = new Generation();
-                        generations.add(generation);
+                    called = invokeBatch(calls);
+                }
 
-                        //大模型调用
-                        String responseContent = run(prompt, stops, consumer, extraAttributes);
-                        generation.setText(responseContent);
-                        generation.setGenerationInfo(LlmResultHolder.getResult());
+                List<Map<String, Object>> outputs = new ArrayList<>(called.size());
+                for (int i = 0; i < called.size(); i++) {
+                    int index = missIndexes.get(i);
+                    String prompt = prompts.get(index);
+                    List<Generation> generations = new ArrayList<>();
+                    generations.add(called.get(i));
+                    generationsList.set(index, generations);
+                    outputs.add(called.get(i).getGenerationInfo());
 
-                        if (LangEngineConfiguration.CurrentCache != null) {
-                            LangEngineConfiguration.CurrentCache.update(prompt, llmString, generations);
-                            LangEngineConfiguration.CurrentCache.update(executionContext, prompt, llmString, generations);
-                        }
+                    if (LangEngineConfiguration.CurrentCache != null) {
+                        LangEngineConfiguration.CurrentCache.update(prompt, llmString, generations);
+                        LangEngineConfiguration.CurrentCache.update(executionContext, prompt, llmString, generations);
                     }
-                    llmResult.setLlmOutput(LlmResultHolder.getResult());
-                    llmResult.setGenerations(generationsList);
                 }
+                if (outputs.size() == 1) {
+                    llmResult.setLlmOutput(outputs.get(0));
+                } else if (outputs.size() > 1) {
+                    Map<String, Object> llmOutput = new HashMap<>();
+                    llmOutput.put("batch_size", outputs.size());
+                    llmOutput.put("token_usage", sumTokenUsage(outputs));
+                    llmResult.setLlmOutput(llmOutput);
+                }
+                llmResult.setGenerations(generationsList);
             }
 
             onLlmEnd(this, prompts, llmResult, executionContext, consumer);
@@ -129,6 +144,20 @@ public abstract class BaseLLM<T extends ChatCompletionRequest> extends BaseLangu
         }
     }
 
+    /**
+     * 调用一次模型，并在调用线程内取出 LlmResultHolder 中的结果，避免并发调用时相互覆盖或残留在线程池线程上
+     */
+    private Generation runForGeneration(String prompt, List<String> stops, Consumer<String> consumer, Map<String, Object> extraAttributes) {
+        try {
+            Generation generation = new Generation();
+            generation.setText(run(prompt, stops, consumer, extraAttributes));
+            generation.setGenerationInfo(LlmResultHolder.getResult());
+            return generation;
+        } finally {
+            LlmResultHolder.clear();
+        }
+    }
+
     public String predict(String text, List<String> stops, ExecutionContext executionContext, Consumer<String> consumer, Map<String, Object> extraAttributes) {
         LLMResult llmResult = generate(Arrays.asList(new String[] {text}), stops, executionContext, consumer, extraAttributes);
         return llmResult.getGenerations().get(0).get(0).getText();
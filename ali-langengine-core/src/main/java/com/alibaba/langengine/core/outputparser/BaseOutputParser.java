@@ -18,12 +18,14 @@ package com.alibaba.langengine.core.outputparser;
 import com.alibaba.langengine.core.messages.BaseMessage;
 import com.alibaba.langengine.core.prompt.PromptValue;
 import com.alibaba.langengine.core.runnables.Runnable;
+import com.alibaba.langengine.core.runnables.RunnableChunkStream;
 import com.alibaba.langengine.core.runnables.RunnableConfig;
 import com.alibaba.langengine.core.runnables.RunnableInput;
 import com.alibaba.langengine.core.runnables.RunnableStringVar;
 import com.alibaba.langengine.core.util.JacksonUtils;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 
+import java.util.Objects;
 import java.util.function.Consumer;
 
 /**
@@ -64,6 +66,25 @@ public abstract class BaseOutputParser<T> extends Runnable<RunnableInput, T> {
         return parse(completion);
     }
 
+    /**
+     * 是否支持对未完成的输出做增量解析
+     *
+     * @return
+     */
+    public boolean isPartialParseSupported() {
+        return false;
+    }
+
+    /**
+     * 解析未完成的输出，用于流式场景。text 为模型截至目前输出的完整内容，尚无可输出的结果时返回 null
+     *
+     * @param text
+     * @return
+     */
+    public T parsePartial(String text) {
+        return null;
+    }
+
     public T invoke(RunnableInput input, RunnableConfig config) {
         if(input instanceof BaseMessage) {
             BaseMessage baseMessage = (BaseMessage) input;
@@ -80,4 +101,48 @@ public abstract class BaseOutputParser<T> extends Runnable<RunnableInput, T> {
     public T stream(RunnableInput input, RunnableConfig config, Consumer<Object> chunkConsumer) {
         return invoke(input, config);
     }
+
+    /**
+     * 支持增量解析时，每收到上游的块就解析一次，结果有变化才输出；否则原样转发上游的块。
+     * 模型流式回调给出的是截至当前的完整内容，因此每次都对最新的块整体解析。
+     */
+    @Override
+    public T transform(RunnableChunkStream<RunnableInput> input, RunnableConfig config, Consumer<Object> chunkConsumer) {
+        if (chunkConsumer == null || !isPartialParseSupported()) {
+            return super.transform(input, config, chunkConsumer);
+        }
+        String lastText = null;
+        T lastParsed = null;
+        while (input.hasNext()) {
+            Object chunk = input.next();
+            String text = chunkText(chunk);
+            if (text == null || text.equals(lastText)) {
+                continue;
+            }
+            lastText = text;
+            T parsed;
+            try {
+                parsed = parsePartial(text);
+            } catch (Throwable e) {
+                // 未完成的输出解析失败属于正常情况，等待更多内容
+                continue;
+            }
+            if (parsed != null && !Objects.equals(parsed, lastParsed)) {
+                lastParsed = parsed;
+                chunkConsumer.accept(parsed);
+            }
+        }
+        return invoke(input.awaitFinal(), config);
+    }
+
+    private static String chunkText(Object chunk) {
+        if (chunk instanceof String) {
+            return (String) chunk;
+        } else if (chunk instanceof BaseMessage) {
+            return ((BaseMessage) chunk).getContent();
+        } else if (chunk instanceof RunnableStringVar) {
+            return ((RunnableStringVar) chunk).getValue();
+        }
+        return null;
+    }
 }
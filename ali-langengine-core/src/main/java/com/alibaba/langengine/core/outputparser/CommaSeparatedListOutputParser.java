@@ -47,4 +47,24 @@ public class CommaSeparatedListOutputParser extends ListOutputParser {
         }
         return Arrays.stream(text.split(", ")).collect(Collectors.toList());
     }
+
+    @Override
+    public boolean isPartialParseSupported() {
+        return true;
+    }
+
+    /**
+     * 只输出已经出现分隔符的元素，最后一个元素可能尚未输出完整
+     */
+    @Override
+    public List<String> parsePartial(String text) {
+        if (text == null) {
+            return null;
+        }
+        int end = text.lastIndexOf(", ");
+        if (end < 0) {
+            return null;
+        }
+        return parse(text.substring(0, end));
+    }
 }
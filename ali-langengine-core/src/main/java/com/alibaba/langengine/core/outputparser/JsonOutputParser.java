@@ -15,6 +15,8 @@
  */
 package com.alibaba.langengine.core.outputparser;
 
+import com.alibaba.langengine.core.util.JsonUtils;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.module.jsonSchema.JsonSchema;
 import com.fasterxml.jackson.module.jsonSchema.JsonSchemaGenerator;
@@ -37,6 +39,9 @@ public class JsonOutputParser<T> extends BaseOutputParser<T> {
             "```\n" +
             "{{schema}}\n" +
             "```";
+    private static final ObjectMapper PARTIAL_MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
     private Class<T> parserClass;
 
     public JsonOutputParser(Class<T> parserClass) {
@@ -76,4 +81,25 @@ public class JsonOutputParser<T> extends BaseOutputParser<T> {
             throw new RuntimeException(e);
         }
     }
+
+    @Override
+    public boolean isPartialParseSupported() {
+        return true;
+    }
+
+    /**
+     * 补全未闭合的 JSON 后按 parserClass 解析，尚未出现的字段保持默认值
+     */
+    @Override
+    public T parsePartial(String text) {
+        String jsonStr = JsonUtils.completePartialJson(text);
+        if (jsonStr == null || !jsonStr.startsWith("{")) {
+            return null;
+        }
+        try {
+            return PARTIAL_MAPPER.readValue(jsonStr, parserClass);
+        } catch (Exception e) {
+            return null;
+        }
+    }
 }
@@ -16,6 +16,8 @@
 package com.alibaba.langengine.core.outputparser;
 
 import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.alibaba.langengine.core.util.JsonUtils;
 import lombok.Data;
 
 import java.util.HashMap;
@@ -36,14 +38,7 @@ public class JsonParser extends BaseOutputParser<Map<String, Object>> {
     @Override
     public Map<String, Object> parse(String text) {
        Map<String, Object> textJson = JSON.parseObject(text);
-
-        Map<String, Object> result = new HashMap<>();
-        for (String key : outputKeys) {
-            if(textJson.containsKey(key)) {
-                result.put(key, textJson.get(key));
-            }
-        }
-       return result;
+       return pick(textJson);
 
 //        Pattern pattern = Pattern.compile(regex);
 //        Matcher matcher = pattern.matcher(text);
@@ -57,4 +52,32 @@ public class JsonParser extends BaseOutputParser<Map<String, Object>> {
 //        }
 //        return result;
     }
+
+    @Override
+    public boolean isPartialParseSupported() {
+        return true;
+    }
+
+    /**
+     * 补全未闭合的 JSON 后解析，只返回已经出现的 outputKeys
+     */
+    @Override
+    public Map<String, Object> parsePartial(String text) {
+        Object json = JsonUtils.parsePartialJson(text);
+        if (!(json instanceof JSONObject)) {
+            return null;
+        }
+        Map<String, Object> result = pick((JSONObject) json);
+        return result.isEmpty() ? null : result;
+    }
+
+    private Map<String, Object> pick(Map<String, Object> textJson) {
+        Map<String, Object> result = new HashMap<>();
+        for (String key : outputKeys) {
+            if(textJson.containsKey(key)) {
+                result.put(key, textJson.get(key));
+            }
+        }
+        return result;
+    }
 }
@@ -31,4 +31,14 @@ public class StrOutputParser extends BaseOutputParser<String> {
         log.info("StrOutputParser:" + text);
         return text;
     }
+
+    @Override
+    public boolean isPartialParseSupported() {
+        return true;
+    }
+
+    @Override
+    public String parsePartial(String text) {
+        return text;
+    }
 }
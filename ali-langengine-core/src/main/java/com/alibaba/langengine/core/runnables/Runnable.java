@@ -23,7 +23,6 @@ import org.apache.commons.lang3.tuple.Pair;
 import java.io.Serializable;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -59,7 +58,7 @@ public abstract class Runnable<Input, Output> implements RunnableInterface<Input
     }
 
     public  CompletableFuture<Output> invokeAsync(Input input, RunnableConfig config) {
-        return CompletableFuture.supplyAsync(() -> invoke(input, config));
+        return RunnableExecutors.supplyAsync(() -> invoke(input, config), config);
     }
 
     public List<Output> batch(List<Input> inputs) {
@@ -74,19 +73,7 @@ public abstract class Runnable<Input, Output> implements RunnableInterface<Input
                 futures.add(future);
             }
 
-            CompletableFuture<Void> allFutures = CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
-
-            if(config != null) {
-                allFutures.get(config.getParallelSecondTimeout(), TimeUnit.SECONDS);
-            } else {
-                allFutures.get(1200, TimeUnit.SECONDS);
-            }
-
-            List<Output> outputs = new ArrayList<>();
-            for (CompletableFuture<Output> future : futures) {
-                outputs.add(future.get());
-            }
-            return outputs;
+            return RunnableExecutors.awaitAll(futures, config);
         } catch (Throwable e) {
             log.error("Runnable.batch error", e);
             throw new RuntimeException(e.toString());
@@ -98,7 +85,7 @@ public abstract class Runnable<Input, Output> implements RunnableInterface<Input
     }
 
     public CompletableFuture<List<Output>> batchAsync(List<Input> inputs, RunnableConfig config) {
-        return CompletableFuture.supplyAsync(() -> batch(inputs, config));
+        return RunnableExecutors.supplyAsync(() -> batch(inputs, config), config);
     }
 
     public Output stream(Input input, Consumer<Object> chunkConsumer) {
@@ -120,7 +107,7 @@ public abstract class Runnable<Input, Output> implements RunnableInterface<Input
     }
 
     public CompletableFuture<Output> streamAsync(Input input, RunnableConfig config, Consumer<Object> chunkConsumer) {
-        return CompletableFuture.supplyAsync(() -> stream(input, config, chunkConsumer));
+        return RunnableExecutors.supplyAsync(() -> stream(input, config, chunkConsumer), config);
     }
 
     public CompletableFuture<Output> streamLogAsync(Input input, Consumer<Object> chunkConsumer) {
@@ -128,7 +115,7 @@ public abstract class Runnable<Input, Output> implements RunnableInterface<Input
     }
 
     public CompletableFuture<Output> streamLogAsync(Input input, RunnableConfig config, Consumer<Object> chunkConsumer) {
-        return CompletableFuture.supplyAsync(() -> streamLog(input, config, chunkConsumer));
+        return RunnableExecutors.supplyAsync(() -> streamLog(input, config, chunkConsumer), config);
     }
 
     public RunnableInterface<Input, Output> bind(Map<String, Object> extraAttributes) {
@@ -0,0 +1,145 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.langengine.core.runnables;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * 流式转换中步骤之间传递增量块的通道
+ *
+ * 上游通过 emit 逐个写入块，并以 complete 写入完整输出（或以 fail 写入异常）结束；
+ * 下游按迭代器逐个读取块，读完后通过 awaitFinal 取得上游的完整输出。
+ * 写入端可以有多个线程，读取端只能有一个线程。
+ */
+public class RunnableChunkStream<T> implements Iterator<Object> {
+
+    private static final Object END = new Object();
+
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+
+    private volatile T finalValue;
+
+    private volatile Throwable error;
+
+    private volatile boolean cancelled;
+
+    private Object lookahead;
+
+    private boolean ended;
+
+    /**
+     * 只有完整输出、没有增量块的通道
+     *
+     * @param value
+     * @return
+     */
+    public static <T> RunnableChunkStream<T> of(T value) {
+        RunnableChunkStream<T> stream = new RunnableChunkStream<>();
+        stream.complete(value);
+        return stream;
+    }
+
+    /**
+     * 写入一个增量块，下游已取消时抛出 CancellationException 以便上游尽快停止
+     *
+     * @param chunk
+     */
+    public void emit(Object chunk) {
+        if (cancelled) {
+            throw new CancellationException("downstream of the chunk stream has been cancelled");
+        }
+        if (chunk != null) {
+            queue.add(chunk);
+        }
+    }
+
+    public void complete(T value) {
+        finalValue = value;
+        queue.add(END);
+    }
+
+    public void fail(Throwable throwable) {
+        error = throwable;
+        queue.add(END);
+    }
+
+    /**
+     * 下游不再读取时调用，之后上游的 emit 会失败
+     */
+    public void cancel() {
+        cancelled = true;
+        queue.clear();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (lookahead != null) {
+            return true;
+        }
+        if (ended) {
+            throwIfFailed();
+            return false;
+        }
+        Object item;
+        try {
+            item = queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            CancellationException exception = new CancellationException("interrupted while waiting for chunks");
+            exception.initCause(e);
+            throw exception;
+        }
+        if (item == END) {
+            ended = true;
+            throwIfFailed();
+            return false;
+        }
+        lookahead = item;
+        return true;
+    }
+
+    @Override
+    public Object next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Object item = lookahead;
+        lookahead = null;
+        return item;
+    }
+
+    /**
+     * 丢弃尚未读取的块并等待上游结束，返回上游的完整输出
+     *
+     * @return
+     */
+    public T awaitFinal() {
+        while (hasNext()) {
+            next();
+        }
+        return finalValue;
+    }
+
+    private void throwIfFailed() {
+        if (error != null) {
+            throw error instanceof RuntimeException ? (RuntimeException) error : new RuntimeException(error);
+        }
+    }
+}
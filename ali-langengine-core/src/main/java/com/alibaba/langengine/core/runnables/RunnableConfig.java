@@ -16,10 +16,16 @@
 package com.alibaba.langengine.core.runnables;
 
 import com.alibaba.langengine.core.agent.AgentAction;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import com.alibaba.langengine.core.callback.ExecutionContext;
 
@@ -49,10 +55,17 @@ public class RunnableConfig {
     private String runName;
 
     /**
-     * 并行调用的最大数量。如果未提供，则默认为ThreadPoolExecutor的默认值。
+     * 并行调用的最大数量，同一配置下嵌套的 batch/parallel 共享该上限。如果未提供，则不限制，仅受执行器自身容量约束。
      */
     private Integer maxConcurrency;
 
+    /**
+     * 异步、批量与并行调用使用的执行器。如果未提供，则使用 RunnableExecutors 的默认执行器。
+     */
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private transient Executor executor;
+
     /**
      * 调用可以递归的最大次数。 如果未提供，则默认为 25。
      */
@@ -78,4 +91,31 @@ public class RunnableConfig {
     private List<AgentAction> asyncFinishedAction;
 
     private boolean asyncInterrupt;
+
+    /**
+     * 按 maxConcurrency 创建的并发限制器
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private transient volatile RunnableExecutors.ConcurrencyLimiter concurrencyLimiter;
+
+    RunnableExecutors.ConcurrencyLimiter concurrencyLimiter() {
+        Integer max = maxConcurrency;
+        if (max == null || max <= 0) {
+            return null;
+        }
+        RunnableExecutors.ConcurrencyLimiter limiter = concurrencyLimiter;
+        if (limiter == null || limiter.getMaxConcurrency() != max) {
+            synchronized (this) {
+                limiter = concurrencyLimiter;
+                if (limiter == null || limiter.getMaxConcurrency() != max) {
+                    limiter = new RunnableExecutors.ConcurrencyLimiter(max);
+                    concurrencyLimiter = limiter;
+                }
+            }
+        }
+        return limiter;
+    }
 }
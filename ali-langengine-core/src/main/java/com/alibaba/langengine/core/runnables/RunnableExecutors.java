@@ -0,0 +1,367 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.langengine.core.runnables;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Runnable 异步、批量与并行调用的执行层
+ *
+ * 核心功能：
+ * - 任务提交到 RunnableConfig 携带的执行器，未指定时使用共享的默认执行器：JDK 21 及以上为每任务一个虚拟线程，低版本为有界线程池
+ * - 按 RunnableConfig.maxConcurrency 限流，同一个配置下嵌套的 batch/parallel 共享并发名额
+ * - 等待一组任务时，任一任务失败或超过 parallelSecondTimeout 即取消其余任务
+ */
+@Slf4j
+public final class RunnableExecutors {
+
+    /**
+     * 未指定配置时的等待超时秒数，与 RunnableConfig.parallelSecondTimeout 默认值一致
+     */
+    public static final int DEFAULT_TIMEOUT_SECONDS = 1200;
+
+    /**
+     * 低版本 JDK 下默认线程池的线程数上限
+     */
+    public static final int DEFAULT_POOL_SIZE = Math.max(64, Runtime.getRuntime().availableProcessors() * 8);
+
+    /**
+     * 持有并发名额的线程在等待子任务时，轮询排队任务的间隔
+     */
+    private static final long HELP_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private RunnableExecutors() {
+    }
+
+    /**
+     * 默认执行器，进程内共享
+     *
+     * @return
+     */
+    public static Executor getDefaultExecutor() {
+        return DefaultExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * 配置指定的执行器，未指定时返回默认执行器
+     *
+     * @param config
+     * @return
+     */
+    public static Executor getExecutor(RunnableConfig config) {
+        return config != null && config.getExecutor() != null ? config.getExecutor() : getDefaultExecutor();
+    }
+
+    /**
+     * 异步执行任务。配置了 maxConcurrency 时超出名额的任务先排队，返回的 future 被取消时会中断正在执行的任务。
+     *
+     * @param supplier
+     * @param config
+     * @return
+     */
+    public static <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier, RunnableConfig config) {
+        RunnableTask<T> task = new RunnableTask<>(supplier, getExecutor(config));
+        ConcurrencyLimiter limiter = config != null ? config.concurrencyLimiter() : null;
+        if (limiter != null) {
+            limiter.submit(task);
+        } else {
+            execute(task);
+        }
+        return task;
+    }
+
+    /**
+     * 直接提交到执行器而不经过并发限制，用于流式流水线中必须同时运行的各个阶段
+     *
+     * @param supplier
+     * @param config
+     * @return
+     */
+    static <T> CompletableFuture<T> fork(Supplier<T> supplier, RunnableConfig config) {
+        RunnableTask<T> task = new RunnableTask<>(supplier, getExecutor(config));
+        execute(task);
+        return task;
+    }
+
+    /**
+     * 等待一组任务全部完成并按顺序返回结果。
+     * 任一任务失败时立即取消其余任务并抛出该失败；超过 parallelSecondTimeout 时取消全部任务并抛出 TimeoutException。
+     *
+     * @param futures
+     * @param config
+     * @return
+     */
+    public static <T> List<T> awaitAll(List<? extends CompletableFuture<? extends T>> futures, RunnableConfig config)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        CompletableFuture<?>[] array = futures.toArray(new CompletableFuture[0]);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (CompletableFuture<?> future : array) {
+            future.whenComplete((result, throwable) -> {
+                if (throwable != null) {
+                    Throwable cause = unwrap(throwable);
+                    if (!(cause instanceof CancellationException)) {
+                        failure.compareAndSet(null, cause);
+                    }
+                    cancelAll(array);
+                }
+            });
+        }
+
+        CompletableFuture<Void> all = CompletableFuture.allOf(array);
+        int timeoutSeconds = config != null ? config.getParallelSecondTimeout() : DEFAULT_TIMEOUT_SECONDS;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        ConcurrencyLimiter limiter = config != null ? config.concurrencyLimiter() : null;
+        try {
+            while (!all.isDone()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new TimeoutException("runnable tasks did not complete within " + timeoutSeconds + " seconds");
+                }
+                if (limiter != null && limiter.isHeldByCurrentThread()) {
+                    // 当前线程占着名额阻塞会让嵌套的子任务永远排不上，先代为执行排队中的任务
+                    if (limiter.helpOne()) {
+                        continue;
+                    }
+                    remaining = Math.min(remaining, HELP_POLL_NANOS);
+                }
+                try {
+                    all.get(remaining, TimeUnit.NANOSECONDS);
+                } catch (TimeoutException | ExecutionException | CancellationException ignored) {
+                    // 超时由循环判断，失败由 failure 记录
+                }
+            }
+        } catch (InterruptedException | TimeoutException e) {
+            cancelAll(array);
+            throw e;
+        }
+
+        if (failure.get() != null) {
+            throw new ExecutionException(failure.get());
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<? extends T> future : futures) {
+            results.add(future.get());
+        }
+        return results;
+    }
+
+    private static void execute(RunnableTask<?> task) {
+        try {
+            task.executor.execute(task);
+        } catch (Throwable e) {
+            task.completeExceptionally(e);
+        }
+    }
+
+    private static void cancelAll(CompletableFuture<?>[] futures) {
+        for (CompletableFuture<?> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    private static Throwable unwrap(Throwable throwable) {
+        if (throwable instanceof CompletionException && throwable.getCause() != null) {
+            return throwable.getCause();
+        }
+        return throwable;
+    }
+
+    /**
+     * 可取消的任务，取消时中断正在执行它的线程
+     */
+    static final class RunnableTask<T> extends CompletableFuture<T> implements java.lang.Runnable {
+
+        private final Supplier<T> supplier;
+
+        private final Executor executor;
+
+        private final Object lock = new Object();
+
+        private Thread runner;
+
+        RunnableTask(Supplier<T> supplier, Executor executor) {
+            this.supplier = supplier;
+            this.executor = executor;
+        }
+
+        @Override
+        public void run() {
+            if (isDone()) {
+                return;
+            }
+            synchronized (lock) {
+                runner = Thread.currentThread();
+            }
+            try {
+                if (!isDone()) {
+                    complete(supplier.get());
+                }
+            } catch (Throwable e) {
+                completeExceptionally(e);
+            } finally {
+                synchronized (lock) {
+                    runner = null;
+                }
+                if (isCancelled()) {
+                    // 清除取消时留下的中断标记，避免影响线程后续执行的任务
+                    Thread.interrupted();
+                }
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled && mayInterruptIfRunning) {
+                synchronized (lock) {
+                    if (runner != null) {
+                        runner.interrupt();
+                    }
+                }
+            }
+            return cancelled;
+        }
+    }
+
+    /**
+     * 并发限制器，同一个 RunnableConfig 共享一个实例。
+     * 名额已满的任务进入队列，名额释放时派发；持有名额的线程等待子任务时会从队尾取任务代为执行，避免嵌套调用死锁。
+     */
+    static final class ConcurrencyLimiter {
+
+        private final int maxConcurrency;
+
+        private final AtomicInteger running = new AtomicInteger();
+
+        private final Deque<RunnableTask<?>> queue = new ConcurrentLinkedDeque<>();
+
+        private final ThreadLocal<int[]> holdDepth = ThreadLocal.withInitial(() -> new int[1]);
+
+        ConcurrencyLimiter(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        int getMaxConcurrency() {
+            return maxConcurrency;
+        }
+
+        int getRunning() {
+            return running.get();
+        }
+
+        int getQueued() {
+            return queue.size();
+        }
+
+        void submit(RunnableTask<?> task) {
+            queue.offerLast(task);
+            dispatch();
+        }
+
+        boolean isHeldByCurrentThread() {
+            return holdDepth.get()[0] > 0;
+        }
+
+        /**
+         * 由已持有名额的线程直接执行一个排队任务，不额外占用名额
+         *
+         * @return 是否执行了任务
+         */
+        boolean helpOne() {
+            RunnableTask<?> task = queue.pollLast();
+            if (task == null) {
+                return false;
+            }
+            task.run();
+            return true;
+        }
+
+        private void dispatch() {
+            while (!queue.isEmpty()) {
+                int current = running.get();
+                if (current >= maxConcurrency) {
+                    return;
+                }
+                if (!running.compareAndSet(current, current + 1)) {
+                    continue;
+                }
+                RunnableTask<?> task = queue.pollFirst();
+                if (task == null || task.isDone()) {
+                    running.decrementAndGet();
+                    continue;
+                }
+                try {
+                    task.executor.execute(() -> runHeld(task));
+                } catch (Throwable e) {
+                    running.decrementAndGet();
+                    task.completeExceptionally(e);
+                }
+            }
+        }
+
+        private void runHeld(RunnableTask<?> task) {
+            int[] depth = holdDepth.get();
+            depth[0]++;
+            try {
+                task.run();
+            } finally {
+                depth[0]--;
+                running.decrementAndGet();
+                dispatch();
+            }
+        }
+    }
+
+    private static class DefaultExecutorHolder {
+
+        private static final Executor EXECUTOR = createDefaultExecutor();
+
+        private static Executor createDefaultExecutor() {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (Throwable e) {
+                log.info("virtual threads are not available, runnables fallback to a bounded thread pool of {}", DEFAULT_POOL_SIZE);
+            }
+            // 不排队：线程用满后由提交线程自己执行，嵌套调用不会因等待池内线程而死锁，大批量调用也只会拖慢自身
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(DEFAULT_POOL_SIZE, DEFAULT_POOL_SIZE, 60L, TimeUnit.SECONDS,
+                    new SynchronousQueue<>(),
+                    new ThreadFactoryBuilder().setNameFormat("langengine-runnable-%d").setDaemon(true).build(),
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+}
@@ -132,7 +132,7 @@ public class RunnableHashMap extends HashMap<String, Object> implements Runnable
 
     @Override
     public CompletableFuture invokeAsync(Object input, RunnableConfig config) {
-        return CompletableFuture.supplyAsync(() -> invoke(input, config));
+        return RunnableExecutors.supplyAsync(() -> invoke(input, config), config);
     }
 
     @Override
@@ -157,7 +157,7 @@ public class RunnableHashMap extends HashMap<String, Object> implements Runnable
 
     @Override
     public CompletableFuture streamAsync(Object input, RunnableConfig config, Consumer chunkConsumer) {
-        return CompletableFuture.supplyAsync(() -> stream(input, config, chunkConsumer));
+        return RunnableExecutors.supplyAsync(() -> stream(input, config, chunkConsumer), config);
     }
 
     @Override
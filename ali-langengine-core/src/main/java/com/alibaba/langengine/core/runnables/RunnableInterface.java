@@ -153,6 +153,27 @@ public interface RunnableInterface<Input, Output> {
      */
     CompletableFuture<Output> streamLogAsync(Input input, RunnableConfig config, Consumer<Object> chunkConsumer);
 
+    /**
+     * Streaming transform, reads the chunks of the input while they are being produced upstream
+     * and emits the chunks of the output to chunkConsumer, returning the complete output once the input is complete.
+     * Default implementation forwards the upstream chunks and calls stream with the complete input.
+     * Subclasses that can work on partial input (e.g. output parsers) should override this method.
+     *
+     * @param input
+     * @param config
+     * @param chunkConsumer
+     * @return
+     */
+    default Output transform(RunnableChunkStream<Input> input, RunnableConfig config, Consumer<Object> chunkConsumer) {
+        while (input.hasNext()) {
+            Object chunk = input.next();
+            if (chunkConsumer != null) {
+                chunkConsumer.accept(chunk);
+            }
+        }
+        return stream(input.awaitFinal(), config, chunkConsumer);
+    }
+
     /**
      * Default implementation runs invoke in parallel
      *
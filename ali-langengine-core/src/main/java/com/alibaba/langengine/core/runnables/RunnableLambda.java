@@ -30,10 +30,20 @@ public class RunnableLambda extends Runnable<RunnableHashMap, Object> {
      */
     private Function<RunnableHashMap, Object> transform;
 
+    /**
+     * 增量块转换函数，流式场景下逐个转换上游的块，返回 null 的块不输出。为空时原样转发上游的块
+     */
+    private Function<Object, Object> chunkTransform;
+
     public RunnableLambda(Function<RunnableHashMap, Object> transform) {
         this.transform = transform;
     }
 
+    public RunnableLambda(Function<RunnableHashMap, Object> transform, Function<Object, Object> chunkTransform) {
+        this.transform = transform;
+        this.chunkTransform = chunkTransform;
+    }
+
     @Override
     public Object invoke(RunnableHashMap input, RunnableConfig config) {
         return transform.apply(input);
@@ -43,4 +53,18 @@ public class RunnableLambda extends Runnable<RunnableHashMap, Object> {
     public Object stream(RunnableHashMap input, RunnableConfig config, Consumer<Object> chunkConsumer) {
         return transform.apply(input);
     }
+
+    @Override
+    public Object transform(RunnableChunkStream<RunnableHashMap> input, RunnableConfig config, Consumer<Object> chunkConsumer) {
+        if (chunkTransform == null || chunkConsumer == null) {
+            return super.transform(input, config, chunkConsumer);
+        }
+        while (input.hasNext()) {
+            Object chunk = chunkTransform.apply(input.next());
+            if (chunk != null) {
+                chunkConsumer.accept(chunk);
+            }
+        }
+        return invoke(input.awaitFinal(), config);
+    }
 }
@@ -22,7 +22,6 @@ import lombok.extern.slf4j.Slf4j;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 /**
@@ -71,20 +70,11 @@ public class RunnableParallel extends Runnable<Object, RunnableHashMap> {
                 futures.add(future);
             }
 
-            // 使用 allOf 等待所有的 CompletableFuture 完成
-            CompletableFuture<Void> allFutures = CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
-
-            // 阻塞并等待所有 future 完成
-            if(config != null) {
-                allFutures.get(config.getParallelSecondTimeout(), TimeUnit.SECONDS);
-            } else {
-                allFutures.get(1200, TimeUnit.SECONDS);
-            }
+            // 阻塞并等待所有 future 完成，任一分支失败或超时则取消其余分支
+            List<RunnableOutput> responses = RunnableExecutors.awaitAll(futures, config);
 
             int counter = 0;
-            // 之后获取每个 CompletableFuture 的结果
-            for (CompletableFuture<RunnableOutput> future : futures) {
-                RunnableOutput response  = future.get();
+            for (RunnableOutput response : responses) {
                 if(response instanceof RunnableHashMap) {
                     runnableHashMap.putAll((RunnableHashMap)response);
                 } else {
@@ -17,13 +17,17 @@ package com.alibaba.langengine.core.runnables;
 
 import lombok.Data;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
 /**
  * A sequence of runnables, where the output of each is the input of the next.
  * RunnableSequence is the most important composition operator in LangChain as it is used in virtually every chain.
+ * When streamed, all steps run at the same time and each step receives the chunks of the previous one through transform,
+ * so a step that works on partial input (e.g. an output parser after a model) emits chunks as soon as the model does.
  *
  * @author xiaoxuan.lp
  */
@@ -62,6 +66,51 @@ public class RunnableSequence extends Runnable<Object, RunnableOutput> {
                 input = output;
             }
         }
+        return toOutput(output);
+    }
+
+    private RunnableOutput streamSteps(Object input, RunnableConfig config, Consumer<Object> chunkConsumer) {
+        List<RunnableInterface> steps = getSteps();
+        if (steps == null || steps.isEmpty()) {
+            return null;
+        }
+        List<RunnableChunkStream<Object>> streams = new ArrayList<>();
+        List<CompletableFuture<Object>> stages = new ArrayList<>();
+        RunnableChunkStream<Object> upstream = RunnableChunkStream.of(input);
+        try {
+            // 除最后一步外每一步在单独的线程上运行，通过 RunnableChunkStream 把增量块传给下一步
+            for (int i = 0; i < steps.size() - 1; i++) {
+                RunnableInterface step = steps.get(i);
+                RunnableChunkStream<Object> stepInput = upstream;
+                RunnableChunkStream<Object> stepOutput = new RunnableChunkStream<>();
+                streams.add(stepOutput);
+                stages.add(RunnableExecutors.fork(() -> {
+                    try {
+                        Object output = step.transform(stepInput, config, stepOutput::emit);
+                        Object previousInput = stepInput.awaitFinal();
+                        stepOutput.complete(output instanceof RunnableInput ? output : previousInput);
+                    } catch (Throwable e) {
+                        stepInput.cancel();
+                        stepOutput.fail(e);
+                    }
+                    return null;
+                }, config));
+                upstream = stepOutput;
+            }
+            Object output = steps.get(steps.size() - 1).transform(upstream, config, chunkConsumer);
+            return toOutput(output);
+        } catch (RuntimeException e) {
+            for (RunnableChunkStream<Object> stream : streams) {
+                stream.cancel();
+            }
+            for (CompletableFuture<Object> stage : stages) {
+                stage.cancel(true);
+            }
+            throw e;
+        }
+    }
+
+    private RunnableOutput toOutput(Object output) {
         if(output != null) {
             if(output instanceof String) {
                 RunnableStringVar stringVar = new RunnableStringVar();
@@ -76,7 +125,10 @@ public class RunnableSequence extends Runnable<Object, RunnableOutput> {
 
     @Override
     public RunnableOutput stream(Object input, RunnableConfig config, Consumer<Object> chunkConsumer) {
-        return invoke(input, config, chunkConsumer);
+        if(chunkConsumer == null || (config != null && config.isStreamLog())) {
+            return invoke(input, config, chunkConsumer);
+        }
+        return streamSteps(input, config, chunkConsumer);
     }
 
     @Override
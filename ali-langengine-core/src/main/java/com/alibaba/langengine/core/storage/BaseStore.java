@@ -15,6 +15,10 @@
  */
 package com.alibaba.langengine.core.storage;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 /**
  * 基础存储基类
  *
@@ -47,4 +51,40 @@ public abstract class BaseStore<T, O> {
      * @param key
      */
     public abstract void delete(T key);
+
+    /**
+     * 批量获取，结果与 keys 顺序一致，不存在的为 null
+     *
+     * @param keys
+     * @return
+     */
+    public List<O> mget(List<T> keys) {
+        List<O> values = new ArrayList<>(keys.size());
+        for (T key : keys) {
+            values.add(get(key));
+        }
+        return values;
+    }
+
+    /**
+     * 批量设置
+     *
+     * @param entries
+     */
+    public void mset(Map<T, O> entries) {
+        for (Map.Entry<T, O> entry : entries.entrySet()) {
+            set(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * 批量删除
+     *
+     * @param keys
+     */
+    public void mdelete(List<T> keys) {
+        for (T key : keys) {
+            delete(key);
+        }
+    }
 }
@@ -0,0 +1,363 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.langengine.core.storage;
+
+import com.alibaba.langengine.core.embeddings.EmbeddingVector;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * 持久化到本地文件的向量存储，重启后无需重新调用嵌入模型
+ * <p>
+ * 采用追加写日志：每条记录为 [key 长度][value 长度][CRC32][key][value]，value 长度为 -1 表示删除；
+ * 内存中只保留 key 到文件位置的索引，读取按位置随机读。
+ * 打开时顺序扫描重建索引，遇到不完整或校验失败的尾部记录（如写入时进程退出）会截断丢弃。
+ * 被覆盖或删除的记录占用的空间可通过 {@link #compact()} 回收。
+ * </p>
+ */
+@Slf4j
+public class FileEmbeddingsStore extends BaseStore<String, List<Double>> implements Closeable {
+
+    private static final int HEADER_BYTES = 12;
+
+    private static final int TOMBSTONE = -1;
+
+    private final Path path;
+
+    private final EmbeddingVector.Quantization quantization;
+
+    /**
+     * 每次写入后是否强制刷盘，关闭时依赖操作系统刷盘，进程崩溃不丢数据但断电可能丢失最近写入
+     */
+    private final boolean syncOnWrite;
+
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+
+    /**
+     * 读共享；追加、压缩与关闭独占
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private FileChannel channel;
+
+    private long writePosition;
+
+    private long liveBytes;
+
+    public FileEmbeddingsStore(Path path) {
+        this(path, EmbeddingVector.Quantization.FLOAT32, false);
+    }
+
+    public FileEmbeddingsStore(Path path, EmbeddingVector.Quantization quantization, boolean syncOnWrite) {
+        this.path = path;
+        this.quantization = quantization;
+        this.syncOnWrite = syncOnWrite;
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            load();
+        } catch (IOException e) {
+            throw new UncheckedIOException("open embeddings store failed: " + path, e);
+        }
+    }
+
+    @Override
+    public List<Double> get(String key) {
+        lock.readLock().lock();
+        try {
+            Location location = index.get(key);
+            if (location == null) {
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(location.length);
+            readFully(channel, buffer, location.position);
+            return EmbeddingVector.fromBytes(buffer.array());
+        } catch (IOException e) {
+            throw new UncheckedIOException("read embeddings store failed: " + path, e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void set(String key, List<Double> value) {
+        mset(Collections.singletonMap(key, value));
+    }
+
+    @Override
+    public void delete(String key) {
+        mdelete(Collections.singletonList(key));
+    }
+
+    /**
+     * 所有记录编码后一次追加写入
+     */
+    @Override
+    public void mset(Map<String, List<Double>> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        List<byte[]> keys = new ArrayList<>(entries.size());
+        List<byte[]> values = new ArrayList<>(entries.size());
+        List<String> names = new ArrayList<>(entries.size());
+        int total = 0;
+        for (Map.Entry<String, List<Double>> entry : entries.entrySet()) {
+            byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            byte[] value = entry.getValue() != null ? EmbeddingVector.from(entry.getValue()).toBytes(quantization) : null;
+            names.add(entry.getKey());
+            keys.add(key);
+            values.add(value);
+            total += HEADER_BYTES + key.length + (value != null ? value.length : 0);
+        }
+        append(names, keys, values, total);
+    }
+
+    @Override
+    public void mdelete(List<String> keys) {
+        List<byte[]> encodedKeys = new ArrayList<>(keys.size());
+        List<byte[]> values = new ArrayList<>(keys.size());
+        List<String> names = new ArrayList<>(keys.size());
+        int total = 0;
+        for (String key : keys) {
+            if (!index.containsKey(key)) {
+                continue;
+            }
+            byte[] encoded = key.getBytes(StandardCharsets.UTF_8);
+            names.add(key);
+            encodedKeys.add(encoded);
+            values.add(null);
+            total += HEADER_BYTES + encoded.length;
+        }
+        if (!names.isEmpty()) {
+            append(names, encodedKeys, values, total);
+        }
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * 只保留有效记录重写文件，写入临时文件后原子替换
+     */
+    public void compact() {
+        lock.writeLock().lock();
+        Path temp = path.resolveSibling(path.getFileName() + ".compact");
+        try (FileChannel target = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Map<String, Location> compacted = new ConcurrentHashMap<>();
+            long position = 0;
+            for (Map.Entry<String, Location> entry : index.entrySet()) {
+                ByteBuffer value = ByteBuffer.allocate(entry.getValue().length);
+                readFully(channel, value, entry.getValue().position);
+                byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + key.length + value.capacity()).order(ByteOrder.LITTLE_ENDIAN);
+                putRecord(record, key, value.array());
+                // 按 Buffer 调用：JDK 9+ 编译出的 ByteBuffer.flip()/clear() 在 Java 8 上会 NoSuchMethodError
+                ((Buffer) record).flip();
+                while (record.hasRemaining()) {
+                    target.write(record);
+                }
+                compacted.put(entry.getKey(), new Location(position + HEADER_BYTES + key.length, value.capacity()));
+                position += record.capacity();
+            }
+            target.force(true);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            FileChannel previous = channel;
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            previous.close();
+            index.clear();
+            index.putAll(compacted);
+            writePosition = position;
+            liveBytes = position;
+        } catch (IOException e) {
+            throw new UncheckedIOException("compact embeddings store failed: " + path, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 已失效记录占文件的比例
+     */
+    public double garbageRatio() {
+        lock.readLock().lock();
+        try {
+            return writePosition == 0 ? 0 : 1 - (double) liveBytes / writePosition;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (channel.isOpen()) {
+                channel.force(true);
+                channel.close();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void append(List<String> names, List<byte[]> keys, List<byte[]> values, int total) {
+        ByteBuffer buffer = ByteBuffer.allocate(total).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < keys.size(); i++) {
+            putRecord(buffer, keys.get(i), values.get(i));
+        }
+        ((Buffer) buffer).flip();
+        lock.writeLock().lock();
+        try {
+            long position = writePosition;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            if (syncOnWrite) {
+                channel.force(false);
+            }
+            position = writePosition;
+            for (int i = 0; i < keys.size(); i++) {
+                int keyLength = keys.get(i).length;
+                byte[] value = values.get(i);
+                int recordBytes = HEADER_BYTES + keyLength + (value != null ? value.length : 0);
+                Location previous = value != null
+                        ? index.put(names.get(i), new Location(position + HEADER_BYTES + keyLength, value.length))
+                        : index.remove(names.get(i));
+                if (previous != null) {
+                    liveBytes -= HEADER_BYTES + keyLength + previous.length;
+                }
+                if (value != null) {
+                    liveBytes += recordBytes;
+                }
+                position += recordBytes;
+            }
+            writePosition = position;
+        } catch (IOException e) {
+            throw new UncheckedIOException("write embeddings store failed: " + path, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void load() throws IOException {
+        long size = channel.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        while (position + HEADER_BYTES <= size) {
+            ((Buffer) header).clear();
+            readFully(channel, header, position);
+            ((Buffer) header).flip();
+            int keyLength = header.getInt();
+            int valueLength = header.getInt();
+            int crc = header.getInt();
+            long recordBytes = HEADER_BYTES + (long) keyLength + Math.max(valueLength, 0);
+            if (keyLength < 0 || valueLength < TOMBSTONE || position + recordBytes > size) {
+                break;
+            }
+            ByteBuffer body = ByteBuffer.allocate((int) (recordBytes - HEADER_BYTES));
+            readFully(channel, body, position + HEADER_BYTES);
+            CRC32 crc32 = checksum(keyLength, valueLength);
+            crc32.update(body.array());
+            if ((int) crc32.getValue() != crc) {
+                break;
+            }
+            String key = new String(body.array(), 0, keyLength, StandardCharsets.UTF_8);
+            Location previous = valueLength == TOMBSTONE
+                    ? index.remove(key)
+                    : index.put(key, new Location(position + HEADER_BYTES + keyLength, valueLength));
+            if (previous != null) {
+                liveBytes -= HEADER_BYTES + keyLength + previous.length;
+            }
+            if (valueLength != TOMBSTONE) {
+                liveBytes += recordBytes;
+            }
+            position += recordBytes;
+        }
+        if (position < size) {
+            log.warn("embeddings store {} has {} trailing bytes that are incomplete or corrupted, truncated", path, size - position);
+            channel.truncate(position);
+        }
+        writePosition = position;
+    }
+
+    private static void putRecord(ByteBuffer buffer, byte[] key, byte[] value) {
+        int valueLength = value != null ? value.length : TOMBSTONE;
+        CRC32 crc32 = checksum(key.length, valueLength);
+        crc32.update(key);
+        if (value != null) {
+            crc32.update(value);
+        }
+        buffer.putInt(key.length).putInt(valueLength).putInt((int) crc32.getValue());
+        buffer.put(key);
+        if (value != null) {
+            buffer.put(value);
+        }
+    }
+
+    /**
+     * 校验和覆盖两个长度字段的全部字节，CRC32.update(int) 只取最低字节
+     */
+    private static CRC32 checksum(int keyLength, int valueLength) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putInt(keyLength).putInt(valueLength).array());
+        return crc32;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("unexpected end of file");
+            }
+        }
+    }
+
+    private static final class Location {
+
+        private final long position;
+
+        private final int length;
+
+        private Location(long position, int length) {
+            this.position = position;
+            this.length = length;
+        }
+    }
+}
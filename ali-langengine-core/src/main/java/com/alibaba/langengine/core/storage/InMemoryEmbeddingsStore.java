@@ -15,6 +15,7 @@
  */
 package com.alibaba.langengine.core.storage;
 
+import com.alibaba.langengine.core.embeddings.EmbeddingVector;
 import lombok.Data;
 
 import java.util.List;
@@ -23,22 +24,33 @@ import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * In-memory implementation of the BaseStore using a dictionary.
+ * 向量以二进制编码存放，可通过 quantization 选择 fp16 / int8 量化进一步压缩。
  *
  * @author xiaoxuan.lp
  */
 @Data
 public class InMemoryEmbeddingsStore extends BaseStore<String, List<Double>> {
 
-    private Map<String, List<Double>> store = new ConcurrentHashMap<>();
+    private Map<String, byte[]> store = new ConcurrentHashMap<>();
+
+    /**
+     * 存放时的量化方式，默认 FLOAT32 无损
+     */
+    private EmbeddingVector.Quantization quantization = EmbeddingVector.Quantization.FLOAT32;
 
     @Override
     public List<Double> get(String key) {
-        return store.get(key);
+        byte[] bytes = store.get(key);
+        return bytes != null ? EmbeddingVector.fromBytes(bytes) : null;
     }
 
     @Override
     public void set(String key, List<Double> value) {
-        store.put(key, value);
+        if (value == null) {
+            store.remove(key);
+            return;
+        }
+        store.put(key, EmbeddingVector.from(value).toBytes(quantization));
     }
 
     @Override
@@ -28,23 +28,23 @@ import java.util.*;
  */
 public class TikTokensUtil {
     /**
-     * Model name corresponds to Encoding
+     * Model name corresponds to ModelType; the Encoding itself is only loaded on first use
      */
-    private static final Map<String, Encoding> modelMap = new HashMap<>();
+    private static final Map<String, ModelType> modelMap = new HashMap<>();
     /**
-     * Registry instance
+     * Registry instance, loads each encoding's rank file lazily on first request
      */
-    private static final EncodingRegistry registry = Encodings.newDefaultEncodingRegistry();
+    private static final EncodingRegistry registry = Encodings.newLazyEncodingRegistry();
 
     static {
         for (ModelType modelType : ModelType.values()) {
-            modelMap.put(modelType.getName(), registry.getEncodingForModel(modelType));
+            modelMap.put(modelType.getName(), modelType);
         }
-        modelMap.put(ModelEnum.GPT_3_5_TURBO_0301.getName(), registry.getEncodingForModel(ModelType.GPT_3_5_TURBO));
-        modelMap.put(ModelEnum.GPT_4_32K.getName(), registry.getEncodingForModel(ModelType.GPT_4));
-        modelMap.put(ModelEnum.GPT_4_32K_0314.getName(), registry.getEncodingForModel(ModelType.GPT_4));
-        modelMap.put(ModelEnum.GPT_4_0314.getName(), registry.getEncodingForModel(ModelType.GPT_4));
-        modelMap.put(ModelEnum.GPT_4_1106_preview.getName(), registry.getEncodingForModel(ModelType.GPT_4));
+        modelMap.put(ModelEnum.GPT_3_5_TURBO_0301.getName(), ModelType.GPT_3_5_TURBO);
+        modelMap.put(ModelEnum.GPT_4_32K.getName(), ModelType.GPT_4);
+        modelMap.put(ModelEnum.GPT_4_32K_0314.getName(), ModelType.GPT_4);
+        modelMap.put(ModelEnum.GPT_4_0314.getName(), ModelType.GPT_4);
+        modelMap.put(ModelEnum.GPT_4_1106_preview.getName(), ModelType.GPT_4);
     }
 
     /**
@@ -66,7 +66,7 @@ public class TikTokensUtil {
      * @return Number of tokens
      */
     public static int tokens(Encoding enc, String text) {
-        return encode(enc, text).size();
+        return isBlank(text) ? 0 : enc.countTokens(text);
     }
 
 
@@ -117,7 +117,7 @@ public class TikTokensUtil {
      * @return Number of tokens
      */
     public static int tokens(EncodingType encodingType, String text) {
-        return encode(encodingType, text).size();
+        return isBlank(text) ? 0 : getEncoding(encodingType).countTokens(text);
     }
 
 
@@ -143,7 +143,8 @@ public class TikTokensUtil {
      * @return Encoding
      */
     public static Encoding getEncoding(String modelName) {
-        return modelMap.get(modelName);
+        ModelType modelType = modelMap.get(modelName);
+        return modelType == null ? null : registry.getEncodingForModel(modelType);
     }
 
     /**
@@ -172,7 +173,11 @@ public class TikTokensUtil {
      * @return Number of tokens
      */
     public static int tokens(String modelName, String text) {
-        return encode(modelName, text).size();
+        if (isBlank(text)) {
+            return 0;
+        }
+        Encoding enc = getEncoding(modelName);
+        return Objects.isNull(enc) ? 0 : enc.countTokens(text);
     }
 
 
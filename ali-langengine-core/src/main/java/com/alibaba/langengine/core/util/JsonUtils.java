@@ -15,7 +15,11 @@
  */
 package com.alibaba.langengine.core.util;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import com.alibaba.fastjson.JSON;
@@ -33,6 +37,11 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class JsonUtils {
 
+    /**
+     * 补全失败时最多回退的截断次数
+     */
+    private static final int MAX_PARTIAL_JSON_CUTS = 4;
+
     /**
      * 从结果中过滤掉好的 JSON，以防存在其他文本
      *
@@ -54,6 +63,110 @@ public class JsonUtils {
         return null;
     }
 
+    /**
+     * 将流式输出中尚未结束的 JSON 补全为可解析的文本：补齐未闭合的字符串与括号，
+     * 仍无法解析时依次回退到最近的逗号或左括号处截断。输入中没有 JSON 或无法补全时返回 null
+     *
+     * @param input
+     * @return
+     */
+    public static String completePartialJson(String input) {
+        if (input == null) {
+            return null;
+        }
+        int start = -1;
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c == '{' || c == '[') {
+                start = i;
+                break;
+            }
+        }
+        if (start < 0) {
+            return null;
+        }
+        String json = input.substring(start);
+        List<Integer> cuts = new ArrayList<>();
+        String candidate = closePartialJson(json, cuts);
+        for (int i = cuts.size() - 1, tries = 0; ; i--, tries++) {
+            if (parseQuietly(candidate) != null) {
+                return candidate;
+            }
+            if (i < 0 || tries >= MAX_PARTIAL_JSON_CUTS) {
+                return null;
+            }
+            candidate = closePartialJson(json.substring(0, cuts.get(i)), null);
+        }
+    }
+
+    /**
+     * 解析未结束的 JSON，返回 JSONObject 或 JSONArray，无法解析时返回 null
+     *
+     * @param input
+     * @return
+     */
+    public static Object parsePartialJson(String input) {
+        String json = completePartialJson(input);
+        return json == null ? null : parseQuietly(json);
+    }
+
+    /**
+     * 补齐未闭合的字符串与括号。cuts 不为空时记录可截断的位置：左括号之后与逗号之前
+     */
+    private static String closePartialJson(String json, List<Integer> cuts) {
+        Deque<Character> closers = new ArrayDeque<>();
+        boolean inString = false;
+        boolean escaped = false;
+        for (int i = 0; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+            if (c == '"') {
+                inString = true;
+            } else if (c == '{' || c == '[') {
+                closers.push(c == '{' ? '}' : ']');
+                if (cuts != null) {
+                    cuts.add(i + 1);
+                }
+            } else if (c == '}' || c == ']') {
+                closers.poll();
+                if (closers.isEmpty()) {
+                    // JSON 已经完整，忽略其后的其他文本
+                    return json.substring(0, i + 1);
+                }
+            } else if (c == ',' && cuts != null) {
+                cuts.add(i);
+            }
+        }
+        StringBuilder builder = new StringBuilder(json);
+        if (inString) {
+            if (escaped) {
+                builder.setLength(builder.length() - 1);
+            }
+            builder.append('"');
+        }
+        for (Character closer : closers) {
+            builder.append(closer);
+        }
+        return builder.toString();
+    }
+
+    private static Object parseQuietly(String json) {
+        try {
+            return JSON.parse(json);
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
     public static Map<String, Object> obj2Map(Object obj) {
         if (obj == null) {
             return new HashMap<>(2);
@@ -0,0 +1,124 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.langengine.core.vectorstore.memory;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 连续存放的 float 向量
+ * <p>
+ * 向量按块分配，每块连续存放固定条数，扩容只新增块而不复制已有数据；
+ * 可选堆外存储，降低大规模向量对 GC 的压力。写入需由调用方加锁，读取可并发。
+ * </p>
+ */
+final class FloatVectorStorage {
+
+    /**
+     * 每块 1M 个 float，即 4MB
+     */
+    private static final int BLOCK_FLOATS = 1 << 20;
+
+    private final int dimension;
+
+    private final boolean offHeap;
+
+    private final int blockVectors;
+
+    private final List<float[]> heapBlocks = new ArrayList<>();
+
+    private final List<FloatBuffer> offHeapBlocks = new ArrayList<>();
+
+    private volatile int size;
+
+    FloatVectorStorage(int dimension, boolean offHeap) {
+        this.dimension = dimension;
+        this.offHeap = offHeap;
+        this.blockVectors = Math.max(1, BLOCK_FLOATS / dimension);
+    }
+
+    int dimension() {
+        return dimension;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * 追加一个向量，返回其序号
+     */
+    int add(float[] vector) {
+        int ordinal = size;
+        int block = ordinal / blockVectors;
+        int offset = (ordinal % blockVectors) * dimension;
+        if (offHeap) {
+            if (block == offHeapBlocks.size()) {
+                offHeapBlocks.add(ByteBuffer.allocateDirect(blockVectors * dimension * Float.BYTES)
+                        .order(ByteOrder.nativeOrder()).asFloatBuffer());
+            }
+            FloatBuffer buffer = offHeapBlocks.get(block);
+            for (int i = 0; i < dimension; i++) {
+                buffer.put(offset + i, vector[i]);
+            }
+        } else {
+            if (block == heapBlocks.size()) {
+                heapBlocks.add(new float[blockVectors * dimension]);
+            }
+            System.arraycopy(vector, 0, heapBlocks.get(block), offset, dimension);
+        }
+        size = ordinal + 1;
+        return ordinal;
+    }
+
+    float dot(int ordinal, float[] query) {
+        int block = ordinal / blockVectors;
+        int offset = (ordinal % blockVectors) * dimension;
+        if (offHeap) {
+            return VectorMath.dot(offHeapBlocks.get(block), offset, query, 0, dimension);
+        }
+        return VectorMath.dot(heapBlocks.get(block), offset, query, 0, dimension);
+    }
+
+    float dot(int first, int second) {
+        int firstBlock = first / blockVectors;
+        int firstOffset = (first % blockVectors) * dimension;
+        int secondBlock = second / blockVectors;
+        int secondOffset = (second % blockVectors) * dimension;
+        if (offHeap) {
+            return VectorMath.dot(offHeapBlocks.get(firstBlock), firstOffset, offHeapBlocks.get(secondBlock), secondOffset, dimension);
+        }
+        return VectorMath.dot(heapBlocks.get(firstBlock), firstOffset, heapBlocks.get(secondBlock), secondOffset, dimension);
+    }
+
+    float[] get(int ordinal) {
+        int block = ordinal / blockVectors;
+        int offset = (ordinal % blockVectors) * dimension;
+        float[] vector = new float[dimension];
+        if (offHeap) {
+            FloatBuffer buffer = offHeapBlocks.get(block);
+            for (int i = 0; i < dimension; i++) {
+                vector[i] = buffer.get(offset + i);
+            }
+        } else {
+            System.arraycopy(heapBlocks.get(block), offset, vector, 0, dimension);
+        }
+        return vector;
+    }
+}
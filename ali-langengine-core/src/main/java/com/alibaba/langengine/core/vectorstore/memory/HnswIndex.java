@@ -0,0 +1,264 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.langengine.core.vectorstore.memory;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.function.IntPredicate;
+
+/**
+ * HNSW 近似最近邻索引，相似度为归一化向量的点积
+ * <p>
+ * 插入需由调用方串行执行，查询可与其他查询并发。
+ * 带过滤条件查询时仍沿全图遍历，只有满足条件的节点进入结果集。
+ * </p>
+ */
+final class HnswIndex {
+
+    private static final Comparator<Candidate> NEAREST_FIRST = (a, b) -> Float.compare(b.score, a.score);
+
+    private static final Comparator<Candidate> FARTHEST_FIRST = (a, b) -> Float.compare(a.score, b.score);
+
+    private final FloatVectorStorage storage;
+
+    private final int m;
+
+    private final int maxLinks0;
+
+    private final int efConstruction;
+
+    private final double levelMultiplier;
+
+    private final Random random = new Random(42);
+
+    /**
+     * links.get(node)[level] 为该层的邻居数组，第 0 位存放邻居数量
+     */
+    private final List<int[][]> links = new ArrayList<>();
+
+    private volatile int entryPoint = -1;
+
+    private volatile int maxLevel = -1;
+
+    HnswIndex(FloatVectorStorage storage, int m, int efConstruction) {
+        this.storage = storage;
+        this.m = Math.max(2, m);
+        this.maxLinks0 = this.m * 2;
+        this.efConstruction = Math.max(this.m, efConstruction);
+        this.levelMultiplier = 1 / Math.log(this.m);
+    }
+
+    int size() {
+        return links.size();
+    }
+
+    void insert(int node) {
+        float[] vector = storage.get(node);
+        int level = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+        int[][] nodeLinks = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            nodeLinks[l] = new int[maxLinks(l) + 1];
+        }
+        links.add(nodeLinks);
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        Candidate nearest = new Candidate(entryPoint, storage.dot(entryPoint, vector));
+        for (int l = maxLevel; l > level; l--) {
+            nearest = greedy(vector, nearest, l);
+        }
+        List<Candidate> entryPoints = new ArrayList<>();
+        entryPoints.add(nearest);
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            PriorityQueue<Candidate> found = searchLayer(vector, entryPoints, efConstruction, l, null);
+            List<Candidate> candidates = new ArrayList<>(found);
+            candidates.sort(NEAREST_FIRST);
+            List<Candidate> neighbors = selectNeighbors(candidates, m);
+            for (Candidate neighbor : neighbors) {
+                addLink(node, neighbor.node, l);
+                connect(neighbor.node, node, l);
+            }
+            entryPoints = candidates;
+        }
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+    }
+
+    /**
+     * 返回与 query 最相似的至多 ef 个满足 filter 的节点，按相似度从高到低排列。
+     * 不满足 filter 的节点仍用于扩展搜索但不计入结果，结果不足 ef 个时会继续遍历，
+     * 因此只有满足条件的节点总数少于 ef 时才会返回更少的结果
+     */
+    List<Candidate> search(float[] query, int ef, IntPredicate filter) {
+        int entry = entryPoint;
+        if (entry < 0) {
+            return new ArrayList<>();
+        }
+        Candidate nearest = new Candidate(entry, storage.dot(entry, query));
+        for (int l = maxLevel; l > 0; l--) {
+            nearest = greedy(query, nearest, l);
+        }
+        List<Candidate> entryPoints = new ArrayList<>();
+        entryPoints.add(nearest);
+        List<Candidate> result = new ArrayList<>(searchLayer(query, entryPoints, ef, 0, filter));
+        result.sort(NEAREST_FIRST);
+        return result;
+    }
+
+    private Candidate greedy(float[] query, Candidate start, int level) {
+        Candidate current = start;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            int[] neighbors = links.get(current.node)[level];
+            for (int i = 1; i <= neighbors[0]; i++) {
+                float score = storage.dot(neighbors[i], query);
+                if (score > current.score) {
+                    current = new Candidate(neighbors[i], score);
+                    changed = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    private PriorityQueue<Candidate> searchLayer(float[] query, List<Candidate> entryPoints, int ef, int level, IntPredicate filter) {
+        BitSet visited = new BitSet(links.size());
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(NEAREST_FIRST);
+        PriorityQueue<Candidate> result = new PriorityQueue<>(FARTHEST_FIRST);
+        for (Candidate entry : entryPoints) {
+            if (visited.get(entry.node)) {
+                continue;
+            }
+            visited.set(entry.node);
+            candidates.add(entry);
+            offer(result, entry, ef, filter);
+        }
+        while (!candidates.isEmpty()) {
+            Candidate current = candidates.poll();
+            if (result.size() >= ef && current.score < result.peek().score) {
+                break;
+            }
+            int[] neighbors = level < links.get(current.node).length ? links.get(current.node)[level] : null;
+            if (neighbors == null) {
+                continue;
+            }
+            for (int i = 1; i <= neighbors[0]; i++) {
+                int neighbor = neighbors[i];
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+                float score = storage.dot(neighbor, query);
+                if (result.size() < ef || score > result.peek().score) {
+                    Candidate candidate = new Candidate(neighbor, score);
+                    candidates.add(candidate);
+                    offer(result, candidate, ef, filter);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void offer(PriorityQueue<Candidate> result, Candidate candidate, int ef, IntPredicate filter) {
+        if (filter != null && !filter.test(candidate.node)) {
+            return;
+        }
+        result.add(candidate);
+        if (result.size() > ef) {
+            result.poll();
+        }
+    }
+
+    /**
+     * 启发式选邻：优先保留与已选邻居不相近的候选，使图在不同方向上都有连边，不足时再用剩余候选补齐
+     */
+    private List<Candidate> selectNeighbors(List<Candidate> sortedCandidates, int max) {
+        List<Candidate> selected = new ArrayList<>(max);
+        List<Candidate> pruned = new ArrayList<>();
+        for (Candidate candidate : sortedCandidates) {
+            if (selected.size() >= max) {
+                break;
+            }
+            boolean diverse = true;
+            for (Candidate chosen : selected) {
+                if (storage.dot(chosen.node, candidate.node) > candidate.score) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected.add(candidate);
+            } else {
+                pruned.add(candidate);
+            }
+        }
+        for (int i = 0; i < pruned.size() && selected.size() < max; i++) {
+            selected.add(pruned.get(i));
+        }
+        return selected;
+    }
+
+    private void addLink(int from, int to, int level) {
+        int[] neighbors = links.get(from)[level];
+        neighbors[++neighbors[0]] = to;
+    }
+
+    private void connect(int from, int to, int level) {
+        int[] neighbors = links.get(from)[level];
+        if (neighbors[0] < neighbors.length - 1) {
+            neighbors[++neighbors[0]] = to;
+            return;
+        }
+        // 邻居已满时连同新节点重新选邻
+        List<Candidate> candidates = new ArrayList<>(neighbors[0] + 1);
+        for (int i = 1; i <= neighbors[0]; i++) {
+            candidates.add(new Candidate(neighbors[i], storage.dot(neighbors[i], from)));
+        }
+        candidates.add(new Candidate(to, storage.dot(to, from)));
+        candidates.sort(NEAREST_FIRST);
+        List<Candidate> selected = selectNeighbors(candidates, neighbors.length - 1);
+        neighbors[0] = selected.size();
+        for (int i = 0; i < selected.size(); i++) {
+            neighbors[i + 1] = selected.get(i).node;
+        }
+    }
+
+    private int maxLinks(int level) {
+        return level == 0 ? maxLinks0 : m;
+    }
+
+    static final class Candidate {
+
+        final int node;
+
+        final float score;
+
+        Candidate(int node, float score) {
+            this.node = node;
+            this.score = score;
+        }
+    }
+}
@@ -15,21 +15,32 @@
  */
 package com.alibaba.langengine.core.vectorstore.memory;
 
-import com.alibaba.fastjson.JSON;
+import com.alibaba.langengine.core.embeddings.EmbeddingVector;
 import com.alibaba.langengine.core.embeddings.Embeddings;
 import com.alibaba.langengine.core.indexes.Document;
 import com.alibaba.langengine.core.vectorstore.VectorStore;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.*;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.stream.Collectors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
 
 import static java.util.Comparator.comparingDouble;
 
 /**
  * 内存向量库
+ * <p>
+ * 向量归一化后以 float 连续存放（可选堆外），打分即点积；
+ * 默认精确的暴力检索，开启 hnswEnabled 后使用 HNSW 近似检索，并支持按 metadata 过滤。
+ * </p>
  *
  * @author xiaoxuan.lp
  */
@@ -39,7 +50,67 @@ public class InMemoryDB extends VectorStore {
 
     private Embeddings embedding;
 
-    private final CopyOnWriteArrayList<EmbeddingEntity> entities = new CopyOnWriteArrayList<>();
+    /**
+     * 向量是否存放在堆外，需在添加文档前设置
+     */
+    private boolean offHeap = false;
+
+    /**
+     * 是否使用 HNSW 近似检索，关闭时为精确的暴力检索
+     */
+    private boolean hnswEnabled = false;
+
+    /**
+     * HNSW 每个节点的邻居数，越大召回越高、内存与建索引耗时越多
+     */
+    private int hnswM = 16;
+
+    /**
+     * HNSW 建索引时的候选集大小
+     */
+    private int hnswEfConstruction = 200;
+
+    /**
+     * HNSW 查询时的候选集大小，越大召回越高、查询越慢，实际取值不小于 k；
+     * 带过滤条件时只有满足条件的节点计入候选集，条件越严遍历的节点越多，满足条件的文档少于 k 个时退化为遍历整个索引
+     */
+    private int hnswEfSearch = 64;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private FloatVectorStorage vectors;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private HnswIndex hnswIndex;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final List<String> ids = new ArrayList<>();
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final List<String> contents = new ArrayList<>();
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final List<Map<String, Object>> metadatas = new ArrayList<>();
 
     @Override
     public void addDocuments(List<Document> documents) {
@@ -47,49 +118,153 @@ public class InMemoryDB extends VectorStore {
             return;
         }
         documents = embedding.embedDocument(documents);
-        for (Document document : documents) {
-            EmbeddingValueEntity embeddingValue = new EmbeddingValueEntity(document.getEmbedding().toArray(new Double[0]));
-            // 阮萤发现NPE的bug
-            entities.add(new EmbeddingEntity(document.getUniqueId(), embeddingValue, document.getPageContent(),
-                    document.getMetadata() != null && document.getMetadata().get("name") != null ? document.getMetadata().get("name").toString() : null));
+        lock.writeLock().lock();
+        try {
+            for (Document document : documents) {
+                if (document.getEmbedding() == null || document.getEmbedding().isEmpty()) {
+                    log.warn("document {} has no embedding, skipped", document.getUniqueId());
+                    continue;
+                }
+                float[] vector = document.getEmbeddingVector().values().clone();
+                if (vectors == null) {
+                    vectors = new FloatVectorStorage(vector.length, offHeap);
+                } else if (vector.length != vectors.dimension()) {
+                    throw new IllegalArgumentException("document " + document.getUniqueId() + " embedding dimension "
+                            + vector.length + " does not match store dimension " + vectors.dimension());
+                }
+                vectors.add(VectorMath.normalize(vector));
+                ids.add(document.getUniqueId());
+                contents.add(document.getPageContent());
+                metadatas.add(document.getMetadata() != null ? new HashMap<>(document.getMetadata()) : new HashMap<>());
+            }
+            if (hnswEnabled) {
+                catchUpIndex();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 当前存放的向量条数
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ids.size();
+        } finally {
+            lock.readLock().unlock();
         }
     }
 
     @Override
     public List<Document> similaritySearch(String query, int k, Double maxDistanceValue, Integer type) {
-        List<String> embeddingStrings = embedding.embedQuery(query, k);
-        if (embeddingStrings.size() == 0 || !embeddingStrings.get(0).startsWith("[")) {
-            return new ArrayList<>();
-        }
-        String embeddingString = embeddingStrings.get(0);
-        List<String> embeddings = JSON.parseArray(embeddingString, String.class);
+        return similaritySearchWithFilter(query, k, maxDistanceValue, null);
+    }
 
-        EmbeddingValueEntity referenceEmbedding = EmbeddingValueEntity.from(embeddings.stream()
-                .map(embedding -> Double.parseDouble(embedding))
-                .collect(Collectors.toList()));
+    /**
+     * 返回与查询最相似、且 metadata 包含 metadataFilter 全部键值的文档
+     *
+     * @param query
+     * @param k
+     * @param metadataFilter
+     * @return
+     */
+    public List<Document> similaritySearchWithFilter(String query, int k, Map<String, Object> metadataFilter) {
+        Predicate<Map<String, Object>> filter = null;
+        if (metadataFilter != null && !metadataFilter.isEmpty()) {
+            filter = metadata -> {
+                for (Map.Entry<String, Object> entry : metadataFilter.entrySet()) {
+                    if (!Objects.equals(metadata.get(entry.getKey()), entry.getValue())) {
+                        return false;
+                    }
+                }
+                return true;
+            };
+        }
+        return similaritySearchWithFilter(query, k, null, filter);
+    }
 
-        Comparator<EmbeddingMatch> comparator = comparingDouble(EmbeddingMatch::score);
-        PriorityQueue<EmbeddingMatch> matches = new PriorityQueue<>(comparator);
+    /**
+     * 返回与查询最相似、且 metadata 满足 filter 的文档
+     *
+     * @param query
+     * @param k
+     * @param maxDistanceValue 最低相似度，为空表示不限制
+     * @param filter metadata 过滤条件，为空表示不过滤
+     * @return
+     */
+    public List<Document> similaritySearchWithFilter(String query, int k, Double maxDistanceValue, Predicate<Map<String, Object>> filter) {
+        EmbeddingVector queryVector = embedding.embedQueryVector(query, k);
+        if (queryVector == null) {
+            return new ArrayList<>();
+        }
+        float[] referenceVector = queryVector.values().clone();
+        VectorMath.normalize(referenceVector);
 
         double minSimilarity = -1;
         if(maxDistanceValue != null) {
             minSimilarity = maxDistanceValue;
         }
-        for (EmbeddingEntity entity : entities) {
-            double similarity = cosineSimilarity(entity.embeddingValue, referenceEmbedding);
-            if (similarity >= minSimilarity) {
-                matches.add(new EmbeddingMatch(entity.id, entity.embeddingValue, similarity, entity.content, entity.name));
+
+        if (hnswEnabled) {
+            ensureIndex();
+        }
+        lock.readLock().lock();
+        try {
+            if (vectors == null || k <= 0) {
+                return new ArrayList<>();
+            }
+            if (referenceVector.length != vectors.dimension()) {
+                throw new IllegalArgumentException("query embedding dimension " + referenceVector.length
+                        + " does not match store dimension " + vectors.dimension());
+            }
+            IntPredicate accept = filter == null ? null : ordinal -> filter.test(metadatas.get(ordinal));
+
+            List<EmbeddingMatch> result = new ArrayList<>(k);
+            if (hnswEnabled && hnswIndex != null) {
+                for (HnswIndex.Candidate candidate : hnswIndex.search(referenceVector, Math.max(hnswEfSearch, k), accept)) {
+                    if (result.size() >= k || candidate.score < minSimilarity) {
+                        break;
+                    }
+                    result.add(toMatch(candidate.node, candidate.score));
+                }
+                return toDocuments(result);
+            }
+
+            PriorityQueue<EmbeddingMatch> matches = new PriorityQueue<>(comparingDouble(EmbeddingMatch::score));
+            int size = vectors.size();
+            for (int ordinal = 0; ordinal < size; ordinal++) {
+                float similarity = vectors.dot(ordinal, referenceVector);
+                if (similarity < minSimilarity
+                        || (matches.size() >= k && similarity <= matches.peek().score())
+                        || (accept != null && !accept.test(ordinal))) {
+                    continue;
+                }
+                matches.add(toMatch(ordinal, similarity));
                 if (matches.size() > k) {
                     matches.poll();
                 }
             }
+            result.addAll(matches);
+            result.sort(comparingDouble(EmbeddingMatch::score));
+            Collections.reverse(result);
+            return toDocuments(result);
+        } finally {
+            lock.readLock().unlock();
         }
+    }
 
-        List<EmbeddingMatch> result = new ArrayList<>(matches);
-        result.sort(comparingDouble(EmbeddingMatch::score));
-        Collections.reverse(result);
+    private EmbeddingMatch toMatch(int ordinal, float score) {
+        Map<String, Object> metadata = metadatas.get(ordinal);
+        Object name = metadata.get("name");
+        return new EmbeddingMatch(ids.get(ordinal), null, (double) score, contents.get(ordinal),
+                name != null ? name.toString() : null);
+    }
 
-        return result.stream().map(e -> {
+    private List<Document> toDocuments(List<EmbeddingMatch> matches) {
+        List<Document> documents = new ArrayList<>(matches.size());
+        for (EmbeddingMatch e : matches) {
             Document document = new Document();
             document.setUniqueId(e.embeddingId());
             document.setPageContent(e.content());
@@ -97,21 +272,40 @@ public class InMemoryDB extends VectorStore {
             Map<String, Object> metadata = new HashMap<>();
             metadata.put("name", e.name());
             document.setMetadata(metadata);
-            return document;
-        }).collect(Collectors.toList());
+            documents.add(document);
+        }
+        return documents;
     }
 
-    private float cosineSimilarity(EmbeddingValueEntity first, EmbeddingValueEntity second) {
-        float dot = 0.0F;
-        float nru = 0.0F;
-        float nrv = 0.0F;
-
-        for (int i = 0; i < first.vector().length; ++i) {
-            dot += first.vector()[i] * second.vector()[i];
-            nru += first.vector()[i] * first.vector()[i];
-            nrv += second.vector()[i] * second.vector()[i];
+    /**
+     * 在添加文档后才开启 HNSW 时，首次查询前补建索引
+     */
+    private void ensureIndex() {
+        lock.readLock().lock();
+        try {
+            if (vectors == null || (hnswIndex != null && hnswIndex.size() == vectors.size())) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            catchUpIndex();
+        } finally {
+            lock.writeLock().unlock();
         }
+    }
 
-        return dot / (float) (Math.sqrt(nru) * Math.sqrt(nrv));
+    private void catchUpIndex() {
+        if (vectors == null) {
+            return;
+        }
+        if (hnswIndex == null) {
+            hnswIndex = new HnswIndex(vectors, hnswM, hnswEfConstruction);
+        }
+        for (int ordinal = hnswIndex.size(); ordinal < vectors.size(); ordinal++) {
+            hnswIndex.insert(ordinal);
+        }
     }
 }
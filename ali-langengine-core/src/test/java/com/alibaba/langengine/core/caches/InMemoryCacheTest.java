@@ -16,8 +16,24 @@
 package com.alibaba.langengine.core.caches;
 
 import com.alibaba.langengine.core.config.LangEngineConfiguration;
+import com.alibaba.langengine.core.messages.AIMessage;
+import com.alibaba.langengine.core.messages.ChatMessage;
 import com.alibaba.langengine.core.model.FakeAI;
+import com.alibaba.langengine.core.outputs.Generation;
+import com.alibaba.langengine.core.outputs.LLMResult;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 public class InMemoryCacheTest {
 
@@ -39,4 +55,132 @@ public class InMemoryCacheTest {
         System.out.println(result);
         System.out.println((System.currentTimeMillis() - start) + "ms");
     }
+
+    @Test
+    public void testEvictByEntriesAndBytes() {
+        InMemoryCache cache = new InMemoryCache(2, Long.MAX_VALUE, 0);
+        cache.update("a", "llm", generations("1"));
+        cache.update("b", "llm", generations("2"));
+        Assertions.assertNotNull(cache.get("a", "llm"));
+        cache.update("c", "llm", generations("3"));
+        // b 最久未访问，被淘汰
+        Assertions.assertNull(cache.get("b", "llm"));
+        Assertions.assertNotNull(cache.get("a", "llm"));
+        Assertions.assertNotNull(cache.get("c", "llm"));
+        Assertions.assertEquals(1, cache.getStats().getEvictions());
+
+        InMemoryCache small = new InMemoryCache(100, 1024, 0);
+        char[] chars = new char[300];
+        Arrays.fill(chars, 'x');
+        small.update("a", "llm", generations(new String(chars)));
+        small.update("b", "llm", generations(new String(chars)));
+        Assertions.assertNull(small.get("a", "llm"));
+        Assertions.assertTrue(small.getStats().getEstimatedBytes() <= 1024);
+    }
+
+    @Test
+    public void testEntryTtl() throws InterruptedException {
+        InMemoryCache cache = new InMemoryCache();
+        cache.update("a", "llm", generations("1"), 20);
+        cache.update("b", "llm", generations("2"));
+        Assertions.assertNotNull(cache.get("a", "llm"));
+        Thread.sleep(40);
+        Assertions.assertNull(cache.get("a", "llm"));
+        Assertions.assertNotNull(cache.get("b", "llm"));
+        CacheStats stats = cache.getStats();
+        Assertions.assertEquals(1, stats.getExpirations());
+        Assertions.assertEquals(2, stats.getHits());
+        Assertions.assertEquals(1, stats.getMisses());
+        Assertions.assertEquals(1, stats.getEntries());
+    }
+
+    @Test
+    public void testSpillLargeGenerations(@TempDir Path dir) throws Exception {
+        InMemoryCache cache = new InMemoryCache(100, 1024 * 1024, 0, new DiskGenerationSpillStore(dir), 256);
+        char[] chars = new char[1000];
+        Arrays.fill(chars, 'y');
+        List<Generation> large = generations(new String(chars));
+        AIMessage message = new AIMessage();
+        message.setContent("hello");
+        large.get(0).setMessage(message);
+        cache.update("big", "llm", large);
+        cache.update("small", "llm", generations("s"));
+
+        Assertions.assertEquals(1, cache.getStats().getSpills());
+        Assertions.assertEquals(1, Files.list(dir).count());
+        List<Generation> loaded = cache.get("big", "llm");
+        Assertions.assertEquals(new String(chars), loaded.get(0).getText());
+        Assertions.assertEquals("hello", loaded.get(0).getMessage().getContent());
+        Assertions.assertTrue(loaded.get(0).getMessage() instanceof AIMessage);
+
+        cache.clear();
+        Assertions.assertEquals(0, Files.list(dir).count());
+    }
+
+    @Test
+    public void testKeyCoversModelParameters() {
+        FakeAI first = new FakeAI();
+        first.setModel("model-a");
+        FakeAI second = new FakeAI();
+        second.setModel("model-b");
+        Assertions.assertNotEquals(LlmCacheKeys.llmString(first, null, null, null),
+                LlmCacheKeys.llmString(second, null, null, null));
+        second.setModel("model-a");
+        Assertions.assertEquals(LlmCacheKeys.llmString(first, null, null, null),
+                LlmCacheKeys.llmString(second, null, null, null));
+        second.setTemperature(0.1);
+        Assertions.assertNotEquals(LlmCacheKeys.llmString(first, null, null, null),
+                LlmCacheKeys.llmString(second, null, null, null));
+        Assertions.assertNotEquals(LlmCacheKeys.llmString(first, null, null, Collections.singletonMap("k", (Object) 1)),
+                LlmCacheKeys.llmString(first, null, null, null));
+    }
+
+    @Test
+    public void testMessagesDigestCoversRoleAndName() {
+        Assertions.assertNotEquals(LlmCacheKeys.messagesDigest(Collections.singletonList(chatMessage("user", "alice", "hi"))),
+                LlmCacheKeys.messagesDigest(Collections.singletonList(chatMessage("assistant", "alice", "hi"))));
+        Assertions.assertNotEquals(LlmCacheKeys.messagesDigest(Collections.singletonList(chatMessage("user", "alice", "hi"))),
+                LlmCacheKeys.messagesDigest(Collections.singletonList(chatMessage("user", "bob", "hi"))));
+        Assertions.assertEquals(LlmCacheKeys.messagesDigest(Collections.singletonList(chatMessage("user", "alice", "hi"))),
+                LlmCacheKeys.messagesDigest(Collections.singletonList(chatMessage("user", "alice", "hi"))));
+    }
+
+    @Test
+    public void testPartialHitOnlyCallsMissingPrompts() {
+        BaseCache previous = LangEngineConfiguration.CurrentCache;
+        LangEngineConfiguration.CurrentCache = new InMemoryCache();
+        try {
+            AtomicInteger calls = new AtomicInteger();
+            FakeAI llm = new FakeAI() {
+                @Override
+                public String run(String prompt, List<String> stops, Consumer<String> consumer, Map<String, Object> extraAttributes) {
+                    calls.incrementAndGet();
+                    return "answer:" + prompt;
+                }
+            };
+            llm.generate(Collections.singletonList("p1"), null, null, null, null);
+            LLMResult result = llm.generate(Arrays.asList("p1", "p2"), null, null, null, null);
+
+            Assertions.assertEquals(2, calls.get());
+            Assertions.assertEquals(2, result.getGenerations().size());
+            Assertions.assertEquals("answer:p1", result.getGenerations().get(0).get(0).getText());
+            Assertions.assertEquals("answer:p2", result.getGenerations().get(1).get(0).getText());
+        } finally {
+            LangEngineConfiguration.CurrentCache = previous;
+        }
+    }
+
+    private static ChatMessage chatMessage(String role, String name, String content) {
+        ChatMessage message = new ChatMessage();
+        message.setRole(role);
+        message.setName(name);
+        message.setContent(content);
+        return message;
+    }
+
+    private static List<Generation> generations(String text) {
+        Generation generation = new Generation();
+        generation.setText(text);
+        return new ArrayList<>(Collections.singletonList(generation));
+    }
 }
@@ -21,9 +21,13 @@ import com.alibaba.langengine.core.storage.InMemoryEmbeddingsStore;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
 public class CacheBackedEmbeddingsTest {
 
     @Test
@@ -52,4 +56,53 @@ public class CacheBackedEmbeddingsTest {
         System.out.println(JSON.toJSONString(embededDocuments));
         System.out.println((System.currentTimeMillis() - start) + "ms");
     }
+
+    @Test
+    public void test_embedDocumentBatchedAndDeduplicated() {
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        Embeddings counting = new Embeddings() {
+            @Override
+            public String getModelType() {
+                return null;
+            }
+
+            @Override
+            public List<Document> embedDocument(List<Document> documents) {
+                batchSizes.add(documents.size());
+                for (Document document : documents) {
+                    List<Double> embedding = new ArrayList<>();
+                    embedding.add((double) document.getPageContent().length());
+                    document.setEmbedding(embedding);
+                }
+                return documents;
+            }
+
+            @Override
+            public List<String> embedQuery(String text, int recommend) {
+                return Collections.emptyList();
+            }
+        };
+        CacheBackedEmbeddings embeddings = new CacheBackedEmbeddings(counting, new InMemoryEmbeddingsStore());
+        embeddings.setBatchSize(4);
+
+        List<Document> documents = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Document document = new Document();
+            // 10 个不同内容，每个出现两次
+            document.setPageContent("text-" + (i % 10));
+            documents.add(document);
+        }
+        embeddings.embedDocument(documents);
+
+        assertEquals(10, batchSizes.stream().mapToInt(Integer::intValue).sum());
+        assertEquals(3, batchSizes.size());
+        for (Document document : documents) {
+            assertEquals((double) document.getPageContent().length(), document.getEmbedding().get(0), 0);
+        }
+
+        documents.forEach(document -> document.setEmbedding(null));
+        embeddings.embedDocument(documents);
+        assertEquals(3, batchSizes.size());
+        assertEquals(6.0, documents.get(0).getEmbedding().get(0), 0);
+    }
 }
@@ -0,0 +1,109 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.langengine.core.embeddings;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.langengine.core.indexes.Document;
+import com.alibaba.langengine.core.storage.InMemoryEmbeddingsStore;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EmbeddingVectorTest {
+
+    @Test
+    public void test_parseAndToJson() {
+        EmbeddingVector vector = EmbeddingVector.parse("[0.5, -1.25,\"3e-2\" ,4]");
+        assertArrayEquals(new float[]{0.5F, -1.25F, 0.03F, 4F}, vector.values());
+        assertEquals(Arrays.asList(0.5, -1.25, (double) 0.03F, 4.0), vector);
+        assertEquals(0, EmbeddingVector.parse("[]").dimension());
+
+        EmbeddingVector parsed = EmbeddingVector.parse(vector.toJson());
+        assertArrayEquals(vector.values(), parsed.values());
+        assertEquals(JSON.toJSONString(vector), JSON.toJSONString(Arrays.asList(0.5, -1.25, (double) 0.03F, 4.0)));
+    }
+
+    @Test
+    public void test_binaryRoundTrip() {
+        Random random = new Random(3);
+        float[] values = new float[1536];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (float) random.nextGaussian() * 0.05F;
+        }
+        EmbeddingVector vector = EmbeddingVector.of(values);
+
+        byte[] bytes = vector.toBytes(EmbeddingVector.Quantization.FLOAT32);
+        assertEquals(6 + 1536 * 4, bytes.length);
+        assertArrayEquals(values, EmbeddingVector.fromBytes(bytes).values());
+
+        bytes = vector.toBytes(EmbeddingVector.Quantization.FLOAT16);
+        assertEquals(6 + 1536 * 2, bytes.length);
+        float[] decoded = EmbeddingVector.fromBytes(bytes).values();
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(values[i], decoded[i], Math.abs(values[i]) / 1000 + 1e-7);
+        }
+
+        bytes = vector.toBytes(EmbeddingVector.Quantization.INT8);
+        assertEquals(6 + 4 + 1536, bytes.length);
+        decoded = EmbeddingVector.fromBytes(bytes).values();
+        float max = 0F;
+        for (float value : values) {
+            max = Math.max(max, Math.abs(value));
+        }
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(values[i], decoded[i], max / 127 / 2 + 1e-7);
+        }
+    }
+
+    @Test
+    public void test_fromBytesRejectsUnknownQuantization() {
+        byte[] bytes = EmbeddingVector.of(new float[]{1f, 2f}).toBytes(EmbeddingVector.Quantization.FLOAT32);
+        bytes[1] = 9;
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> EmbeddingVector.fromBytes(bytes));
+        assertTrue(e.getMessage().contains("quantization"), e.getMessage());
+
+        byte[] truncated = Arrays.copyOf(EmbeddingVector.of(new float[]{1f, 2f}).toBytes(EmbeddingVector.Quantization.FLOAT16), 8);
+        assertThrows(IllegalArgumentException.class, () -> EmbeddingVector.fromBytes(truncated));
+    }
+
+    @Test
+    public void test_documentAndStoreAdapters() {
+        Document document = new Document();
+        document.setEmbedding(Arrays.asList(1.0, 2.0, 3.0));
+        assertTrue(document.getEmbedding() instanceof EmbeddingVector);
+        assertArrayEquals(new float[]{1F, 2F, 3F}, document.getEmbeddingVector().values());
+        assertEquals(Arrays.asList(1.0, 2.0, 3.0), document.getEmbedding());
+        assertTrue(!JSON.toJSONString(document).contains("embeddingVector"));
+
+        EmbeddingVector vector = EmbeddingVector.of(new float[]{0.25F, -0.5F});
+        document.setEmbedding(vector);
+        assertSame(vector, document.getEmbedding());
+
+        InMemoryEmbeddingsStore store = new InMemoryEmbeddingsStore();
+        store.setQuantization(EmbeddingVector.Quantization.FLOAT16);
+        store.set("k", vector);
+        List<Double> cached = store.get("k");
+        assertEquals(vector, cached);
+    }
+}
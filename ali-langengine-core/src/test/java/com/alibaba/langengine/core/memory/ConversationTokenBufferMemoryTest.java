@@ -0,0 +1,120 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.langengine.core.memory;
+
+import com.alibaba.langengine.core.memory.impl.ConversationTokenBufferMemory;
+import com.alibaba.langengine.core.messages.BaseMessage;
+import com.alibaba.langengine.core.model.FakeAI;
+import com.alibaba.langengine.core.tokenizers.GPT3Tokenizer;
+import com.alibaba.langengine.core.tokenizers.QwenTokenizer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConversationTokenBufferMemoryTest {
+
+    private static final int PINNED_BUFFER_TOKENS = 28;
+
+    @Test
+    public void test_saveContextTokenizesOnlyNewMessages() {
+        List<String> tokenized = new ArrayList<>();
+        ConversationTokenBufferMemory memory = new ConversationTokenBufferMemory();
+        memory.setTokenizer(new GPT3Tokenizer() {
+            @Override
+            public int getTokenCount(String text) {
+                tokenized.add(text);
+                return super.getTokenCount(text);
+            }
+        });
+        memory.setMaxTokenLimit(60);
+
+        for (int i = 0; i < 20; i++) {
+            memory.saveContext(input("question number " + i), output("answer number " + i));
+            // 每轮只对新增的一问一答分词
+            assertEquals(2 * (i + 1), tokenized.size());
+            assertTrue(memory.getBufferTokens() <= 60);
+        }
+
+        List<BaseMessage> messages = memory.getChatMemory().getMessages();
+        assertTrue(messages.size() < 40);
+        assertEquals("answer number 19", messages.get(messages.size() - 1).getContent());
+        // 累加口径与整体分词只差消息之间的换行符
+        int expected = new GPT3Tokenizer().getTokenCount(memory.getBufferAsString());
+        assertEquals(expected - (messages.size() - 1), memory.getBufferTokens());
+    }
+
+    @Test
+    public void test_bufferTokensPinned() {
+        ConversationTokenBufferMemory memory = new ConversationTokenBufferMemory();
+        memory.saveContext(input("What is the capital of France?"), output("The capital of France is Paris."));
+        memory.saveContext(input("And of Italy?"), output("Rome."));
+
+        assertEquals(PINNED_BUFFER_TOKENS, memory.getBufferTokens());
+        assertEquals(PINNED_BUFFER_TOKENS + 3, new GPT3Tokenizer().getTokenCount(memory.getBufferAsString()));
+    }
+
+    @Test
+    public void test_rebuildWhenHistoryReplaced() {
+        ConversationTokenBufferMemory memory = new ConversationTokenBufferMemory();
+        memory.saveContext(input("hello"), output("hi"));
+        int tokens = memory.getBufferTokens();
+
+        memory.getChatMemory().clear();
+        assertEquals(0, memory.getBufferTokens());
+        memory.saveContext(input("hello"), output("hi"));
+        assertEquals(tokens, memory.getBufferTokens());
+    }
+
+    @Test
+    public void test_tokenizerDefaultsToGpt3() {
+        FakeAI llm = new FakeAI();
+        QwenTokenizer tokenizer = new QwenTokenizer();
+        llm.setTokenizer(tokenizer);
+        assertSame(tokenizer, llm.getTokenizer());
+        assertEquals(tokenizer.getTokenCount("通义千问"), llm.getNumTokens("通义千问"));
+
+        // 设置 llm 不改变记忆的分词器
+        ConversationTokenBufferMemory memory = new ConversationTokenBufferMemory();
+        memory.setLlm(llm);
+        memory.saveContext(input("你好"), output("你好，有什么可以帮你？"));
+        GPT3Tokenizer gpt3 = new GPT3Tokenizer();
+        assertEquals(gpt3.getTokenCount("Human: 你好") + gpt3.getTokenCount("AI: 你好，有什么可以帮你？"),
+                memory.getBufferTokens());
+
+        memory.setTokenizer(tokenizer);
+        assertEquals(tokenizer.getTokenCount("Human: 你好") + tokenizer.getTokenCount("AI: 你好，有什么可以帮你？"),
+                memory.getBufferTokens());
+    }
+
+    private static Map<String, Object> input(String text) {
+        Map<String, Object> inputs = new HashMap<>();
+        inputs.put("input", text);
+        return inputs;
+    }
+
+    private static Map<String, Object> output(String text) {
+        Map<String, Object> outputs = new HashMap<>();
+        outputs.put("output", text);
+        return outputs;
+    }
+}
@@ -15,8 +15,21 @@
  */
 package com.alibaba.langengine.core.model;
 
+import com.alibaba.langengine.core.outputs.LLMResult;
+import com.alibaba.langengine.core.outputs.context.LlmResultHolder;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
 public class FakeAITest {
 
     @Test
@@ -25,4 +38,108 @@ public class FakeAITest {
         FakeAI llm = new FakeAI();
         System.out.println(llm.predict("你是谁？"));
     }
+
+    @Test
+    public void test_generateConcurrently() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        FakeAI llm = new FakeAI() {
+            @Override
+            public String run(String prompt, List<String> stops, Consumer<String> consumer, Map<String, Object> extraAttributes) {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    running.decrementAndGet();
+                }
+                Map<String, Object> usage = new HashMap<>();
+                usage.put("total_tokens", prompt.length());
+                Map<String, Object> result = new HashMap<>();
+                result.put("prompt", prompt);
+                result.put("usage", usage);
+                LlmResultHolder.setResult(result);
+                return "answer:" + prompt;
+            }
+        };
+        llm.setBatchConcurrency(4);
+
+        List<String> prompts = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            prompts.add("p" + i);
+        }
+        LLMResult result = llm.generate(prompts, null, null, null, null);
+
+        assertEquals(4, maxRunning.get());
+        for (int i = 0; i < prompts.size(); i++) {
+            assertEquals("answer:p" + i, result.getGenerations().get(i).get(0).getText());
+            assertEquals("p" + i, result.getGenerations().get(i).get(0).getGenerationInfo().get("prompt"));
+        }
+        assertEquals(8, result.getLlmOutput().get("batch_size"));
+        assertEquals(16L, ((Map<?, ?>) result.getLlmOutput().get("token_usage")).get("total_tokens"));
+        assertNull(LlmResultHolder.getResult());
+    }
+
+    @Test
+    public void test_generateSequentiallyByDefault() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger permits = new AtomicInteger();
+        FakeAI llm = new FakeAI() {
+            @Override
+            public String run(String prompt, List<String> stops, Consumer<String> consumer, Map<String, Object> extraAttributes) {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                running.decrementAndGet();
+                return "answer:" + prompt;
+            }
+
+            @Override
+            protected void acquireBatchPermit() {
+                permits.incrementAndGet();
+                super.acquireBatchPermit();
+            }
+        };
+        llm.setBatchRequestsPerSecond(50D);
+
+        List<String> prompts = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            prompts.add("p" + i);
+        }
+        LLMResult result = llm.generate(prompts, null, null, null, null);
+
+        assertEquals(1, maxRunning.get());
+        assertEquals(prompts.size(), permits.get());
+        for (int i = 0; i < prompts.size(); i++) {
+            assertEquals("answer:p" + i, result.getGenerations().get(i).get(0).getText());
+        }
+    }
+
+    @Test
+    public void test_streamingGenerateIsRateLimited() {
+        AtomicInteger permits = new AtomicInteger();
+        List<String> chunks = new ArrayList<>();
+        FakeAI llm = new FakeAI() {
+            @Override
+            public String run(String prompt, List<String> stops, Consumer<String> consumer, Map<String, Object> extraAttributes) {
+                consumer.accept(prompt);
+                return "answer:" + prompt;
+            }
+
+            @Override
+            protected void acquireBatchPermit() {
+                permits.incrementAndGet();
+                super.acquireBatchPermit();
+            }
+        };
+        llm.setBatchConcurrency(4);
+        llm.setBatchRequestsPerSecond(50D);
+
+        List<String> prompts = Arrays.asList("p0", "p1", "p2");
+        llm.generate(prompts, null, null, chunks::add, null);
+
+        // 流式调用逐个执行，每次调用同样获取一个限速许可
+        assertEquals(prompts.size(), permits.get());
+        assertEquals(prompts, chunks);
+    }
 }
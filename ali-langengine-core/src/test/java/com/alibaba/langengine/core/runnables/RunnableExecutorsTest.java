@@ -0,0 +1,193 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.langengine.core.runnables;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RunnableExecutorsTest {
+
+    @Test
+    public void testBatchHonoursMaxConcurrency() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        FunctionRunnable runnable = new FunctionRunnable((input, config) -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep(20);
+            running.decrementAndGet();
+            return input * 2;
+        });
+        RunnableConfig config = new RunnableConfig();
+        config.setMaxConcurrency(3);
+
+        List<Integer> inputs = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            inputs.add(i);
+        }
+        List<Integer> outputs = runnable.batch(inputs, config);
+
+        assertEquals(20, outputs.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i * 2, outputs.get(i));
+        }
+        assertTrue(maxRunning.get() <= 3, "max running: " + maxRunning.get());
+    }
+
+    @Test
+    public void testNestedBatchSharesLimitWithoutDeadlock() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        FunctionRunnable inner = new FunctionRunnable((input, config) -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep(5);
+            running.decrementAndGet();
+            return input + 1;
+        });
+        FunctionRunnable outer = new FunctionRunnable((input, config) -> {
+            List<Integer> outputs = inner.batch(Arrays.asList(input, input, input), config);
+            return outputs.stream().mapToInt(Integer::intValue).sum();
+        });
+        RunnableConfig config = new RunnableConfig();
+        config.setMaxConcurrency(2);
+        config.setParallelSecondTimeout(10);
+
+        List<Integer> outputs = outer.batch(Arrays.asList(1, 2, 3, 4), config);
+
+        assertEquals(Arrays.asList(6, 9, 12, 15), outputs);
+        // 外层任务占用名额时由其自身代为执行子任务，总并发不超过上限
+        assertTrue(maxRunning.get() <= 2, "max running: " + maxRunning.get());
+    }
+
+    @Test
+    public void testFailureCancelsSiblings() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch interrupted = new CountDownLatch(2);
+        FunctionRunnable runnable = new FunctionRunnable((input, config) -> {
+            if (input == 0) {
+                await(started);
+                throw new IllegalStateException("boom");
+            }
+            started.countDown();
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return input;
+        });
+
+        long start = System.currentTimeMillis();
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> runnable.batch(Arrays.asList(0, 1, 2), new RunnableConfig()));
+
+        assertTrue(exception.getMessage().contains("boom"), exception.getMessage());
+        assertTrue(System.currentTimeMillis() - start < 5000);
+        assertTrue(interrupted.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testParallelTimeoutCancelsSteps() throws InterruptedException {
+        CountDownLatch interrupted = new CountDownLatch(2);
+        Function<RunnableHashMap, Object> slow = input -> {
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return "late";
+        };
+        RunnableLambda first = new RunnableLambda(slow);
+        first.setName("first");
+        RunnableLambda second = new RunnableLambda(slow);
+        second.setName("second");
+        RunnableParallel parallel = Runnable.parallel(first, second);
+        RunnableConfig config = new RunnableConfig();
+        config.setParallelSecondTimeout(1);
+
+        long start = System.currentTimeMillis();
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> parallel.invoke(new RunnableHashMap(), config));
+
+        assertTrue(exception.getMessage().contains("TimeoutException"), exception.getMessage());
+        assertTrue(System.currentTimeMillis() - start < 5000);
+        assertTrue(interrupted.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCustomExecutor() {
+        AtomicInteger executed = new AtomicInteger();
+        RunnableConfig config = new RunnableConfig();
+        config.setExecutor(command -> {
+            executed.incrementAndGet();
+            new Thread(command).start();
+        });
+        FunctionRunnable runnable = new FunctionRunnable((input, c) -> input);
+
+        assertEquals(Arrays.asList(1, 2, 3), runnable.batch(Arrays.asList(1, 2, 3), config));
+        assertEquals(3, executed.get());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private interface Body {
+        Integer apply(Integer input, RunnableConfig config);
+    }
+
+    private static class FunctionRunnable extends Runnable<Integer, Integer> {
+
+        private final Body body;
+
+        FunctionRunnable(Body body) {
+            this.body = body;
+        }
+
+        @Override
+        public Integer invoke(Integer input, RunnableConfig config) {
+            return body.apply(input, config);
+        }
+
+        @Override
+        public Integer stream(Integer input, RunnableConfig config, Consumer<Object> chunkConsumer) {
+            return invoke(input, config);
+        }
+    }
+}
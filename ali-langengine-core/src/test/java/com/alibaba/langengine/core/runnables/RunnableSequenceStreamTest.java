@@ -0,0 +1,149 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.langengine.core.runnables;
+
+import com.alibaba.langengine.core.outputparser.JsonParser;
+import com.alibaba.langengine.core.outputparser.StrOutputParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RunnableSequenceStreamTest {
+
+    @Test
+    public void testParserEmitsChunksWhileModelStreams() {
+        FakeStreamingModel model = new FakeStreamingModel(Arrays.asList("Hel", "Hello", "Hello world"), 100);
+        RunnableSequence sequence = Runnable.sequence(model, new StrOutputParser());
+        List<Object> chunks = new CopyOnWriteArrayList<>();
+        long[] firstChunkMillis = new long[1];
+
+        long start = System.currentTimeMillis();
+        RunnableOutput output = sequence.stream(new RunnableStringVar(), chunk -> {
+            if (chunks.isEmpty()) {
+                firstChunkMillis[0] = System.currentTimeMillis() - start;
+            }
+            chunks.add(chunk);
+        });
+        long total = System.currentTimeMillis() - start;
+
+        assertEquals(Arrays.asList("Hel", "Hello", "Hello world"), chunks);
+        assertEquals("Hello world", ((RunnableStringVar) output).getValue());
+        // 首个块不必等模型输出完毕
+        assertTrue(firstChunkMillis[0] < total - 150, "first: " + firstChunkMillis[0] + ", total: " + total);
+    }
+
+    @Test
+    public void testJsonParserEmitsPartialObjects() {
+        FakeStreamingModel model = new FakeStreamingModel(Arrays.asList(
+                "{\"name\": \"Al",
+                "{\"name\": \"Alice\", \"ag",
+                "{\"name\": \"Alice\", \"age\": 30",
+                "{\"name\": \"Alice\", \"age\": 30}"), 0);
+        JsonParser parser = new JsonParser();
+        parser.setOutputKeys(Arrays.asList("name", "age"));
+        RunnableSequence sequence = Runnable.sequence(model, parser);
+        List<Object> chunks = new CopyOnWriteArrayList<>();
+
+        sequence.stream(new RunnableStringVar(), chunks::add);
+
+        assertEquals(3, chunks.size());
+        assertEquals(map("name", "Al"), chunks.get(0));
+        assertEquals(map("name", "Alice"), chunks.get(1));
+        Map<String, Object> last = map("name", "Alice");
+        last.put("age", 30);
+        assertEquals(last, chunks.get(2));
+    }
+
+    @Test
+    public void testUpstreamFailurePropagates() {
+        FakeStreamingModel model = new FakeStreamingModel(Arrays.asList("a", "ab"), 0);
+        model.failAfterChunks = true;
+        RunnableSequence sequence = Runnable.sequence(model, new StrOutputParser());
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> sequence.stream(new RunnableStringVar(), chunk -> { }));
+        assertEquals("model failed", exception.getMessage());
+    }
+
+    @Test
+    public void testNonStreamingStepForwardsChunks() {
+        FakeStreamingModel model = new FakeStreamingModel(Arrays.asList("x", "xy"), 0);
+        RunnablePassthrough passthrough = Runnable.passthrough();
+        RunnableSequence sequence = Runnable.sequence(model, passthrough);
+        List<Object> chunks = new CopyOnWriteArrayList<>();
+
+        sequence.stream(new RunnableStringVar(), chunks::add);
+
+        assertEquals(Arrays.asList("x", "xy"), chunks);
+    }
+
+    private static Map<String, Object> map(String key, Object value) {
+        Map<String, Object> map = new HashMap<>();
+        map.put(key, value);
+        return map;
+    }
+
+    /**
+     * 与模型一致，流式回调给出截至当前的完整内容
+     */
+    private static class FakeStreamingModel extends Runnable<Object, RunnableOutput> {
+
+        private final List<String> snapshots;
+
+        private final long intervalMillis;
+
+        private boolean failAfterChunks;
+
+        FakeStreamingModel(List<String> snapshots, long intervalMillis) {
+            this.snapshots = snapshots;
+            this.intervalMillis = intervalMillis;
+        }
+
+        @Override
+        public RunnableOutput invoke(Object input, RunnableConfig config) {
+            return stream(input, config, null);
+        }
+
+        @Override
+        public RunnableOutput stream(Object input, RunnableConfig config, Consumer<Object> chunkConsumer) {
+            for (String snapshot : snapshots) {
+                if (chunkConsumer != null) {
+                    chunkConsumer.accept(snapshot);
+                }
+                try {
+                    Thread.sleep(intervalMillis);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            if (failAfterChunks) {
+                throw new IllegalStateException("model failed");
+            }
+            RunnableStringVar output = new RunnableStringVar();
+            output.setValue(snapshots.get(snapshots.size() - 1));
+            return output;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.langengine.core.storage;
+
+import com.alibaba.langengine.core.embeddings.EmbeddingVector;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FileEmbeddingsStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void test_survivesReopen() throws IOException {
+        Path file = tempDir.resolve("embeddings.log");
+        try (FileEmbeddingsStore store = new FileEmbeddingsStore(file)) {
+            Map<String, List<Double>> entries = new HashMap<>();
+            entries.put("阿里巴巴", Arrays.asList(1.0, 2.0));
+            entries.put("b", Arrays.asList(3.0, 4.0));
+            entries.put("c", Arrays.asList(5.0, 6.0));
+            store.mset(entries);
+            store.set("b", Arrays.asList(7.0, 8.0));
+            store.delete("c");
+        }
+        try (FileEmbeddingsStore store = new FileEmbeddingsStore(file)) {
+            assertEquals(2, store.size());
+            assertEquals(Arrays.asList(1.0, 2.0), store.get("阿里巴巴"));
+            assertEquals(Arrays.asList(7.0, 8.0), store.get("b"));
+            assertNull(store.get("c"));
+            assertEquals(Arrays.asList(Arrays.asList(1.0, 2.0), null), store.mget(Arrays.asList("阿里巴巴", "c")));
+        }
+    }
+
+    @Test
+    public void test_truncatesTornWrite() throws IOException {
+        Path file = tempDir.resolve("embeddings.log");
+        try (FileEmbeddingsStore store = new FileEmbeddingsStore(file)) {
+            store.set("a", Arrays.asList(1.0, 2.0));
+            store.set("b", Arrays.asList(3.0, 4.0));
+        }
+        long size = Files.size(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+        try (FileEmbeddingsStore store = new FileEmbeddingsStore(file)) {
+            assertEquals(1, store.size());
+            assertNull(store.get("b"));
+            store.set("c", Arrays.asList(5.0, 6.0));
+        }
+        try (FileEmbeddingsStore store = new FileEmbeddingsStore(file)) {
+            assertEquals(Arrays.asList(1.0, 2.0), store.get("a"));
+            assertEquals(Arrays.asList(5.0, 6.0), store.get("c"));
+        }
+    }
+
+    @Test
+    public void test_compact() throws IOException {
+        Path file = tempDir.resolve("embeddings.log");
+        try (FileEmbeddingsStore store = new FileEmbeddingsStore(file, EmbeddingVector.Quantization.FLOAT16, true)) {
+            for (int i = 0; i < 10; i++) {
+                store.set("a", Arrays.asList((double) i, 0.5));
+            }
+            store.set("b", Arrays.asList(1.0, 2.0));
+            assertTrue(store.garbageRatio() > 0.5);
+            long before = Files.size(file);
+            store.compact();
+            assertTrue(Files.size(file) < before);
+            assertEquals(0.0, store.garbageRatio(), 1e-9);
+            assertEquals(Arrays.asList(9.0, 0.5), store.get("a"));
+            store.set("c", Arrays.asList(3.0, 4.0));
+        }
+        try (FileEmbeddingsStore store = new FileEmbeddingsStore(file)) {
+            assertEquals(3, store.size());
+            assertEquals(Arrays.asList(1.0, 2.0), store.get("b"));
+            assertEquals(Arrays.asList(3.0, 4.0), store.get("c"));
+        }
+    }
+}
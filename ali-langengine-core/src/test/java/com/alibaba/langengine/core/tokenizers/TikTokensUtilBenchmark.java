@@ -0,0 +1,121 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.langengine.core.tokenizers;
+
+import com.alibaba.langengine.core.jtokkit.Encodings;
+import com.alibaba.langengine.core.jtokkit.api.Encoding;
+import com.alibaba.langengine.core.jtokkit.api.EncodingRegistry;
+import com.alibaba.langengine.core.jtokkit.api.EncodingType;
+import com.alibaba.langengine.core.jtokkit.api.ModelType;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * TikTokensUtil 加载与计数耗时对比，main 方法运行
+ * <p>
+ * 加载：lazy 为 newLazyEncodingRegistry 后取 gpt-4 的编码，只解析 cl100k_base；
+ * eager 为此前的 newDefaultEncodingRegistry，一次解析全部编码。先测 lazy，共用类的加载开销算在 lazy 上。
+ * 计数：encode 为此前 tokens 的做法 encode(text).boxed().size()，countTokens 为当前做法，
+ * 在 3000 条中英文、代码混合文本上分别测量 cl100k_base 与 p50k_base，输出每条文本的耗时与分配字节数。
+ * </p>
+ */
+public class TikTokensUtilBenchmark {
+
+    private static final int TEXT_COUNT = 3000;
+
+    private static final int ROUNDS = 5;
+
+    private static volatile Object sink;
+
+    public static void main(String[] args) {
+        System.out.println("registry\tms\tallocatedMB");
+        load("lazy", () -> Encodings.newLazyEncodingRegistry().getEncodingForModel(ModelType.GPT_4));
+        load("eager", () -> Encodings.newDefaultEncodingRegistry().getEncodingForModel(ModelType.GPT_4));
+
+        List<String> texts = texts();
+        System.out.println("encoding\tcount\tnsPerText\tbytesPerText");
+        for (EncodingType encodingType : new EncodingType[]{EncodingType.CL100K_BASE, EncodingType.P50K_BASE}) {
+            Encoding encoding = TikTokensUtil.getEncoding(encodingType);
+            for (String text : texts) {
+                if (encoding.encode(text).boxed().size() != encoding.countTokens(text)) {
+                    throw new IllegalStateException("counts disagree for " + encodingType + ": " + text);
+                }
+            }
+            for (int round = 0; round < ROUNDS; round++) {
+                boolean report = round == ROUNDS - 1;
+                count(encodingType, "encode", report, texts, text -> encoding.encode(text).boxed().size());
+                count(encodingType, "countTokens", report, texts, encoding::countTokens);
+            }
+        }
+    }
+
+    private static void load(String name, Supplier<Encoding> load) {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocated = threadMXBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        sink = load.get();
+        long elapsed = System.nanoTime() - start;
+        allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocated;
+        System.out.printf("%s\t%d\t%.1f%n", name, elapsed / 1_000_000, allocated / 1024.0 / 1024.0);
+    }
+
+    private static void count(EncodingType encodingType, String name, boolean report, List<String> texts,
+                              ToIntFunction<String> count) {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocated = threadMXBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        int tokens = 0;
+        for (String text : texts) {
+            tokens += count.applyAsInt(text);
+        }
+        long elapsed = System.nanoTime() - start;
+        allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocated;
+        sink = tokens;
+        if (report) {
+            System.out.printf("%s\t%s\t%d\t%d%n", encodingType.getName(), name, elapsed / texts.size(),
+                    allocated / texts.size());
+        }
+    }
+
+    private static List<String> texts() {
+        String[] fragments = {
+                "The quick brown fox jumps over the lazy dog. ",
+                "今天天气怎么样？请帮我查询杭州未来七天的天气。",
+                "public static void main(String[] args) { System.out.println(\"hello\"); }\n",
+                "I'm sure they'll say 12345678 is bigger than 3.1415926; ",
+                "emoji 😀👍🏽\tand tabs\r\n",
+                "模型返回的结果需要按 token 数截断，避免超出上下文窗口。"
+        };
+        Random random = new Random(1);
+        List<String> texts = new ArrayList<>(TEXT_COUNT);
+        for (int i = 0; i < TEXT_COUNT; i++) {
+            StringBuilder text = new StringBuilder();
+            int pieces = 1 + random.nextInt(40);
+            for (int j = 0; j < pieces; j++) {
+                text.append(fragments[random.nextInt(fragments.length)]);
+            }
+            texts.add(text.toString());
+        }
+        return texts;
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.langengine.core.tokenizers;
+
+import com.alibaba.langengine.core.jtokkit.api.Encoding;
+import com.alibaba.langengine.core.jtokkit.api.EncodingType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TikTokensUtilTest {
+
+    private static final List<String> TEXTS = Arrays.asList(
+            "AI token is great!",
+            "Hello，你是谁？今天天气怎么样",
+            "emoji 😀👍🏽 and tabs\t\tand\nnewlines\r\n",
+            "I'm won't they'll 12345678 3.1415926",
+            repeat("abcdefghij", 120),
+            repeat("中文长文本", 200));
+
+    @Test
+    public void test_countTokensMatchesEncode() {
+        for (EncodingType encodingType : EncodingType.values()) {
+            Encoding encoding = TikTokensUtil.getEncoding(encodingType);
+            for (String text : TEXTS) {
+                int expected = encoding.encode(text).size();
+                assertEquals(expected, encoding.countTokens(text), encodingType + ": " + text);
+                assertEquals(expected, TikTokensUtil.tokens(encodingType, text));
+            }
+        }
+    }
+
+    @Test
+    public void test_countTokensUnpairedSurrogate() {
+        // same bytes as String.getBytes(UTF_8), which replaces unpaired surrogates with '?'
+        String text = "unpaired \uD83D surrogate and \uDE00 low";
+        for (EncodingType encodingType : Arrays.asList(EncodingType.R50K_BASE, EncodingType.P50K_BASE)) {
+            Encoding encoding = TikTokensUtil.getEncoding(encodingType);
+            assertEquals(encoding.encode(text).size(), encoding.countTokens(text));
+            assertEquals("unpaired ? surrogate and ? low", encoding.decode(encoding.encode(text)));
+        }
+    }
+
+    @Test
+    public void test_countTokensRandomText() {
+        Random random = new Random(7);
+        Encoding encoding = TikTokensUtil.getEncoding(EncodingType.CL100K_BASE);
+        for (int i = 0; i < 200; i++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(300);
+            for (int j = 0; j < length; j++) {
+                int kind = random.nextInt(4);
+                if (kind == 0) {
+                    sb.append((char) (' ' + random.nextInt(95)));
+                } else if (kind == 1) {
+                    sb.append((char) (0x4e00 + random.nextInt(0x5000)));
+                } else if (kind == 2) {
+                    sb.appendCodePoint(0x1f600 + random.nextInt(64));
+                } else {
+                    sb.append(random.nextBoolean() ? ' ' : '\n');
+                }
+            }
+            String text = sb.toString();
+            assertEquals(encoding.encode(text).size(), encoding.countTokens(text));
+            assertEquals(text, encoding.decode(encoding.encode(text)));
+        }
+    }
+
+    @Test
+    public void test_modelNameResolution() {
+        Encoding gpt4 = TikTokensUtil.getEncoding("gpt-4");
+        assertNotNull(gpt4);
+        assertSame(gpt4, TikTokensUtil.getEncoding(TikTokensUtil.ModelEnum.GPT_4_32K_0314.getName()));
+        assertNull(TikTokensUtil.getEncoding("unknown-model"));
+        assertEquals(0, TikTokensUtil.tokens("unknown-model", "hello"));
+        assertEquals(0, TikTokensUtil.tokens("gpt-4", " "));
+        assertEquals(gpt4.encode("hello world").size(), TikTokensUtil.tokens("gpt-4", "hello world"));
+    }
+
+    private static String repeat(String s, int times) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+}
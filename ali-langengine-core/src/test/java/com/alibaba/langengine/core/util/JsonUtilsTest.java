@@ -0,0 +1,33 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.langengine.core.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class JsonUtilsTest {
+
+    @Test
+    public void testCompletePartialJson() {
+        Assertions.assertEquals("{\"a\":\"hel\"}", JsonUtils.completePartialJson("```json\n{\"a\":\"hel"));
+        Assertions.assertEquals("{\"a\":[1,2]}", JsonUtils.completePartialJson("{\"a\":[1,2"));
+        Assertions.assertEquals("{\"a\":1}", JsonUtils.completePartialJson("{\"a\":1,\"b\""));
+        Assertions.assertEquals("{\"a\":{\"b\":1}}", JsonUtils.completePartialJson("{\"a\":{\"b\":1},\"c\":"));
+        Assertions.assertEquals("{\"a\":\"x\\\"\"}", JsonUtils.completePartialJson("{\"a\":\"x\\\"\\"));
+        Assertions.assertEquals("{\"a\":1}", JsonUtils.completePartialJson("{\"a\":1}\n```"));
+        Assertions.assertNull(JsonUtils.completePartialJson("no json yet"));
+    }
+}
@@ -0,0 +1,190 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.langengine.core.vectorstore;
+
+import com.alibaba.langengine.core.embeddings.EmbeddingVector;
+import com.alibaba.langengine.core.embeddings.Embeddings;
+import com.alibaba.langengine.core.indexes.Document;
+import com.alibaba.langengine.core.vectorstore.memory.InMemoryDB;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * InMemoryDB 暴力检索与 HNSW 检索对比，main 方法运行
+ * <p>
+ * 参数为向量条数，默认 10000 100000 1000000；系统属性 dimension 指定维度，默认 128，hnswEfSearch 指定查询候选集大小。
+ * 同一个库先以暴力检索跑完查询，再开启 hnswEnabled，首次查询时补建索引，建索引耗时单独统计。
+ * 真实 embedding 分布在低维流形上，向量由 16 维高斯隐变量经固定随机投影再加少量噪声生成；
+ * 纯高斯随机的高维向量近邻几乎等距，HNSW 召回率会明显偏低，不代表实际效果。
+ * 输出写入耗时、建索引耗时、每次查询的 p50/p99 耗时，以及 HNSW 相对暴力检索的 recall@k。
+ * </p>
+ */
+public class InMemoryDBBenchmark {
+
+    private static final int K = 10;
+
+    private static final int QUERIES = 200;
+
+    private static final int BATCH = 10_000;
+
+    public static void main(String[] args) {
+        int dimension = Integer.getInteger("dimension", 128);
+        int[] sizes = args.length == 0 ? new int[]{10_000, 100_000, 1_000_000}
+                : Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+        System.out.println("vectors\tdimension\taddMs\thnswBuildMs\tbrute p50/p99 us\thnsw p50/p99 us\trecall@" + K);
+        for (int size : sizes) {
+            run(size, dimension);
+        }
+    }
+
+    private static void run(int size, int dimension) {
+        RandomEmbeddings embeddings = new RandomEmbeddings(dimension);
+        InMemoryDB db = new InMemoryDB();
+        db.setEmbedding(embeddings);
+        db.setHnswEfSearch(Integer.getInteger("hnswEfSearch", db.getHnswEfSearch()));
+        long begin = System.nanoTime();
+        for (int offset = 0; offset < size; offset += BATCH) {
+            List<Document> documents = new ArrayList<>(BATCH);
+            for (int i = offset; i < Math.min(size, offset + BATCH); i++) {
+                Document document = new Document();
+                document.setUniqueId(String.valueOf(i));
+                document.setPageContent(String.valueOf(i));
+                documents.add(document);
+            }
+            db.addDocuments(documents);
+        }
+        long addMs = (System.nanoTime() - begin) / 1_000_000;
+
+        // 预热
+        for (int q = 0; q < QUERIES; q++) {
+            db.similaritySearch("query" + q, K);
+        }
+        long[] bruteLatencies = new long[QUERIES];
+        List<Set<String>> expected = new ArrayList<>(QUERIES);
+        for (int q = 0; q < QUERIES; q++) {
+            long start = System.nanoTime();
+            List<Document> result = db.similaritySearch("query" + q, K);
+            bruteLatencies[q] = System.nanoTime() - start;
+            expected.add(ids(result));
+        }
+
+        db.setHnswEnabled(true);
+        begin = System.nanoTime();
+        db.similaritySearch("build", K);
+        long buildMs = (System.nanoTime() - begin) / 1_000_000;
+        for (int q = 0; q < QUERIES; q++) {
+            db.similaritySearch("query" + q, K);
+        }
+        long[] hnswLatencies = new long[QUERIES];
+        int hits = 0;
+        for (int q = 0; q < QUERIES; q++) {
+            long start = System.nanoTime();
+            List<Document> result = db.similaritySearch("query" + q, K);
+            hnswLatencies[q] = System.nanoTime() - start;
+            for (String id : ids(result)) {
+                if (expected.get(q).contains(id)) {
+                    hits++;
+                }
+            }
+        }
+        System.out.printf("%d\t%d\t%d\t%d\t%s\t%s\t%.3f%n", size, dimension, addMs, buildMs,
+                percentiles(bruteLatencies), percentiles(hnswLatencies), (double) hits / (QUERIES * K));
+    }
+
+    private static Set<String> ids(List<Document> documents) {
+        Set<String> ids = new HashSet<>();
+        for (Document document : documents) {
+            ids.add(document.getUniqueId());
+        }
+        return ids;
+    }
+
+    private static String percentiles(long[] latencies) {
+        Arrays.sort(latencies);
+        return latencies[latencies.length / 2] / 1000 + "/" + latencies[latencies.length * 99 / 100] / 1000;
+    }
+
+    /**
+     * 以文本的 hashCode 为种子生成固定向量：隐变量经随机投影后加噪声
+     */
+    private static class RandomEmbeddings extends Embeddings {
+
+        private static final int LATENT_DIMENSION = 16;
+
+        private static final double NOISE = 0.05;
+
+        private final int dimension;
+
+        private final float[][] projection;
+
+        RandomEmbeddings(int dimension) {
+            this.dimension = dimension;
+            Random random = new Random(42);
+            projection = new float[dimension][LATENT_DIMENSION];
+            for (float[] row : projection) {
+                for (int j = 0; j < LATENT_DIMENSION; j++) {
+                    row[j] = (float) random.nextGaussian();
+                }
+            }
+        }
+
+        private float[] vector(String text) {
+            Random random = new Random(text.hashCode());
+            double[] latent = new double[LATENT_DIMENSION];
+            for (int j = 0; j < LATENT_DIMENSION; j++) {
+                latent[j] = random.nextGaussian();
+            }
+            float[] vector = new float[dimension];
+            for (int i = 0; i < dimension; i++) {
+                double value = 0;
+                for (int j = 0; j < LATENT_DIMENSION; j++) {
+                    value += projection[i][j] * latent[j];
+                }
+                vector[i] = (float) (value + NOISE * Math.sqrt(LATENT_DIMENSION) * random.nextGaussian());
+            }
+            return vector;
+        }
+
+        @Override
+        public String getModelType() {
+            return null;
+        }
+
+        @Override
+        public List<Document> embedDocument(List<Document> documents) {
+            for (Document document : documents) {
+                document.setEmbeddingVector(vector(document.getPageContent()));
+            }
+            return documents;
+        }
+
+        @Override
+        public List<String> embedQuery(String text, int recommend) {
+            return Collections.singletonList(embedQueryVector(text, recommend).toJson());
+        }
+
+        @Override
+        public EmbeddingVector embedQueryVector(String text, int recommend) {
+            return EmbeddingVector.of(vector(text));
+        }
+    }
+}
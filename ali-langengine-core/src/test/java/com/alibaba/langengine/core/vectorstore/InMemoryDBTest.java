@@ -16,13 +16,24 @@
 package com.alibaba.langengine.core.vectorstore;
 
 import com.alibaba.fastjson.JSON;
+import com.alibaba.langengine.core.embeddings.Embeddings;
 import com.alibaba.langengine.core.embeddings.FakeEmbeddings;
 import com.alibaba.langengine.core.indexes.Document;
 import com.alibaba.langengine.core.vectorstore.memory.InMemoryDB;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class InMemoryDBTest {
 
@@ -77,4 +88,154 @@ public class InMemoryDBTest {
         result =inMemoryDB.similaritySearch("alibaba.item.edit.schema.get", 1);
         System.out.println(JSON.toJSONString(result));
     }
+
+    @Test
+    public void test_similaritySearchScoresByCosine() {
+        VectorEmbeddings embeddings = new VectorEmbeddings();
+        InMemoryDB inMemoryDB = new InMemoryDB();
+        inMemoryDB.setEmbedding(embeddings);
+        inMemoryDB.addDocuments(Collections.singletonList(embeddings.document("x", "a", new double[]{2, 0})));
+        inMemoryDB.addDocuments(Collections.singletonList(embeddings.document("xy", "a", new double[]{1, 1})));
+        inMemoryDB.addDocuments(Collections.singletonList(embeddings.document("y", "b", new double[]{0, 3})));
+        embeddings.vectors.put("query", new double[]{1, 0});
+
+        List<Document> result = inMemoryDB.similaritySearch("query", 2);
+        assertEquals(2, result.size());
+        assertEquals("x", result.get(0).getUniqueId());
+        assertEquals(1.0, result.get(0).getScore(), 1e-6);
+        assertEquals("xy", result.get(1).getUniqueId());
+        assertEquals(Math.sqrt(0.5), result.get(1).getScore(), 1e-6);
+
+        result = inMemoryDB.similaritySearch("query", 3, 0.5);
+        assertEquals(2, result.size());
+
+        Map<String, Object> filter = new HashMap<>();
+        filter.put("group", "b");
+        result = inMemoryDB.similaritySearchWithFilter("query", 2, filter);
+        assertEquals(1, result.size());
+        assertEquals("y", result.get(0).getUniqueId());
+    }
+
+    @Test
+    public void test_hnswRecall() {
+        int dimension = 32;
+        int count = 3000;
+        Random random = new Random(7);
+        VectorEmbeddings embeddings = new VectorEmbeddings();
+        List<Document> documents = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            documents.add(embeddings.document(String.valueOf(i), i % 2 == 0 ? "even" : "odd", randomVector(random, dimension)));
+        }
+
+        InMemoryDB bruteForce = new InMemoryDB();
+        bruteForce.setEmbedding(embeddings);
+        bruteForce.addDocuments(documents);
+        InMemoryDB hnsw = new InMemoryDB();
+        hnsw.setEmbedding(embeddings);
+        hnsw.setOffHeap(true);
+        hnsw.setHnswEnabled(true);
+        hnsw.addDocuments(documents);
+        assertEquals(count, hnsw.size());
+
+        int k = 10;
+        int hits = 0;
+        int filteredHits = 0;
+        Map<String, Object> filter = new HashMap<>();
+        filter.put("group", "odd");
+        for (int q = 0; q < 50; q++) {
+            String query = "query" + q;
+            embeddings.vectors.put(query, randomVector(random, dimension));
+            hits += overlap(bruteForce.similaritySearch(query, k), hnsw.similaritySearch(query, k));
+
+            List<Document> filtered = hnsw.similaritySearchWithFilter(query, k, filter);
+            assertEquals(k, filtered.size());
+            for (Document document : filtered) {
+                assertEquals(1, Integer.parseInt(document.getUniqueId()) % 2);
+            }
+            filteredHits += overlap(bruteForce.similaritySearchWithFilter(query, k, filter), filtered);
+        }
+        assertTrue(hits >= 50 * k * 0.9, "recall: " + hits);
+        assertTrue(filteredHits >= 50 * k * 0.9, "filtered recall: " + filteredHits);
+    }
+
+    @Test
+    public void test_hnswSelectiveFilterReturnsK() {
+        int dimension = 16;
+        Random random = new Random(11);
+        VectorEmbeddings embeddings = new VectorEmbeddings();
+        List<Document> documents = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            documents.add(embeddings.document(String.valueOf(i), i % 100 == 0 ? "rare" : "common", randomVector(random, dimension)));
+        }
+        InMemoryDB bruteForce = new InMemoryDB();
+        bruteForce.setEmbedding(embeddings);
+        bruteForce.addDocuments(documents);
+        InMemoryDB hnsw = new InMemoryDB();
+        hnsw.setEmbedding(embeddings);
+        hnsw.setHnswEnabled(true);
+        hnsw.addDocuments(documents);
+
+        Map<String, Object> filter = new HashMap<>();
+        filter.put("group", "rare");
+        embeddings.vectors.put("query", randomVector(random, dimension));
+        // 满足条件的文档只有 20 个，远少于 hnswEfSearch，检索会继续遍历直到取满 k 个
+        List<Document> expected = bruteForce.similaritySearchWithFilter("query", 10, filter);
+        List<Document> actual = hnsw.similaritySearchWithFilter("query", 10, filter);
+        assertEquals(10, actual.size());
+        assertEquals(10, overlap(expected, actual));
+    }
+
+    private static int overlap(List<Document> expected, List<Document> actual) {
+        Set<String> ids = expected.stream().map(Document::getUniqueId).collect(Collectors.toCollection(HashSet::new));
+        return (int) actual.stream().filter(document -> ids.contains(document.getUniqueId())).count();
+    }
+
+    private static double[] randomVector(Random random, int dimension) {
+        double[] vector = new double[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = random.nextGaussian();
+        }
+        return vector;
+    }
+
+    /**
+     * 按 pageContent 查表返回固定向量
+     */
+    private static class VectorEmbeddings extends Embeddings {
+
+        private final Map<String, double[]> vectors = new HashMap<>();
+
+        Document document(String id, String group, double[] vector) {
+            vectors.put(id, vector);
+            Document document = new Document();
+            document.setUniqueId(id);
+            document.setPageContent(id);
+            Map<String, Object> metadata = new HashMap<>();
+            metadata.put("group", group);
+            document.setMetadata(metadata);
+            return document;
+        }
+
+        @Override
+        public String getModelType() {
+            return null;
+        }
+
+        @Override
+        public List<Document> embedDocument(List<Document> documents) {
+            for (Document document : documents) {
+                List<Double> embedding = new ArrayList<>();
+                for (double value : vectors.get(document.getPageContent())) {
+                    embedding.add(value);
+                }
+                document.setEmbedding(embedding);
+            }
+            return documents;
+        }
+
+        @Override
+        public List<String> embedQuery(String text, int recommend) {
+            return Collections.singletonList(JSON.toJSONString(vectors.get(text)));
+        }
+    }
 }
@@ -0,0 +1,582 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+
+package com.alibaba.langengine.modelcontextprotocol.client;
+
+import com.alibaba.langengine.modelcontextprotocol.spec.McpError;
+import com.alibaba.langengine.modelcontextprotocol.util.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A pool of long-lived, initialized {@link McpSyncClient} sessions, keyed by server (for
+ * example url, endpoint, auth and client settings).
+ *
+ * <p>
+ * A session multiplexes requests by JSON-RPC id, so concurrent callers of
+ * {@link #execute(String, Supplier, Function)} share a healthy session instead of taking
+ * it exclusively, and the {@code initialize} handshake is paid once per session instead
+ * of once per call. Each call goes to the least loaded session; another session is opened
+ * only when every session already serves {@code maxConcurrentPerSession} calls, up to
+ * {@code maxSize} sessions per server. When even that is exhausted the call falls back to
+ * a one-off client that is closed afterwards, so callers never wait for a session. A
+ * background maintainer:
+ * <ul>
+ * <li>closes sessions idle for longer than {@code maxIdleTime}, down to {@code minIdle}
+ * <li>pings the remaining sessions and retires those that do not answer within
+ * {@code pingTimeout}
+ * <li>opens new sessions to keep {@code minIdle} warm sessions per server
+ * </ul>
+ * A session on which a call fails for any reason other than an error response from the
+ * server ({@link McpError}) is retired: new calls no longer use it, and it is closed once
+ * the calls still running on it have finished. {@link McpSyncClient#getAsyncClient()}
+ * gives access to the asynchronous API of a pooled session.
+ */
+public class McpClientPool implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(McpClientPool.class);
+
+    private final int minIdle;
+
+    private final int maxSize;
+
+    private final int maxConcurrentPerSession;
+
+    private final Duration maxIdleTime;
+
+    private final Duration pingTimeout;
+
+    private final ConcurrentHashMap<String, ServerPool> pools = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService maintainer;
+
+    private volatile boolean closed;
+
+    private McpClientPool(Builder builder) {
+        this.minIdle = builder.minIdle;
+        this.maxSize = builder.maxSize;
+        this.maxConcurrentPerSession = builder.maxConcurrentPerSession;
+        this.maxIdleTime = builder.maxIdleTime;
+        this.pingTimeout = builder.pingTimeout;
+        this.maintainer = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "McpClientPool-maintainer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = builder.healthCheckInterval.toMillis();
+        this.maintainer.scheduleWithFixedDelay(this::maintain, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Run an operation on a pooled session of the given server, opening and initializing
+     * a new session with {@code factory} if every session is saturated, or a one-off
+     * client if the server already has {@code maxSize} saturated sessions.
+     * @param key identifies the server; sessions are only shared between equal keys
+     * @param factory creates a new, not yet initialized client for the server
+     * @param action the operation to run on the session
+     * @return the result of the action
+     */
+    public <T> T execute(String key, Supplier<McpSyncClient> factory, Function<McpSyncClient, T> action) {
+        Assert.notNull(key, "The key can not be null");
+        if (closed) {
+            throw new IllegalStateException("McpClientPool is closed");
+        }
+        ServerPool pool = pools.computeIfAbsent(key, k -> new ServerPool(k, factory));
+        PooledClient client = pool.acquire();
+        if (client == null) {
+            pool.stats.overflows.incrementAndGet();
+            return executeOnce(pool, action);
+        }
+        long start = System.nanoTime();
+        boolean broken = true;
+        try {
+            T result = action.apply(client.client);
+            broken = false;
+            return result;
+        }
+        catch (RuntimeException e) {
+            // an error response from the server leaves the session usable
+            broken = !isServerError(e);
+            pool.stats.errors.incrementAndGet();
+            throw e;
+        }
+        finally {
+            pool.stats.record(System.nanoTime() - start);
+            pool.release(client, broken);
+        }
+    }
+
+    private <T> T executeOnce(ServerPool pool, Function<McpSyncClient, T> action) {
+        PooledClient client = pool.connect();
+        long start = System.nanoTime();
+        try {
+            return action.apply(client.client);
+        }
+        catch (RuntimeException e) {
+            pool.stats.errors.incrementAndGet();
+            throw e;
+        }
+        finally {
+            pool.stats.record(System.nanoTime() - start);
+            closeQuietly(client);
+        }
+    }
+
+    /**
+     * @return a snapshot of the metrics of every server this pool has connected to
+     */
+    public Map<String, ServerStats> getStats() {
+        Map<String, ServerStats> stats = new LinkedHashMap<>();
+        pools.forEach((key, pool) -> stats.put(key, pool.stats));
+        return stats;
+    }
+
+    /**
+     * Close and forget all sessions of one server. Sessions still serving calls are
+     * closed when those calls finish.
+     */
+    public void evict(String key) {
+        ServerPool pool = pools.remove(key);
+        if (pool != null) {
+            pool.retireAll();
+        }
+    }
+
+    /**
+     * Close and forget the sessions of every server. The pool stays usable.
+     */
+    public void evictAll() {
+        pools.keySet().forEach(this::evict);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        maintainer.shutdownNow();
+        pools.values().forEach(ServerPool::retireAll);
+        pools.clear();
+    }
+
+    /**
+     * Run one maintenance pass over every server now, in addition to the scheduled ones.
+     */
+    void maintain() {
+        for (ServerPool pool : pools.values()) {
+            try {
+                pool.maintain();
+            }
+            catch (Throwable t) {
+                logger.warn("McpClientPool maintenance failed for {}", pool.key, t);
+            }
+        }
+    }
+
+    private static boolean isServerError(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof McpError) {
+                return true;
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    private static void closeQuietly(PooledClient client) {
+        try {
+            client.client.close();
+        }
+        catch (Exception e) {
+            logger.debug("Failed to close MCP client", e);
+        }
+    }
+
+    private static final class PooledClient {
+
+        private final McpSyncClient client;
+
+        /**
+         * Calls currently running on this session, guarded by the owning ServerPool.
+         */
+        private int inFlight;
+
+        /**
+         * No longer handed out, closed when {@code inFlight} drops to zero. Guarded by the
+         * owning ServerPool.
+         */
+        private boolean retired;
+
+        private volatile long lastUsedNanos = System.nanoTime();
+
+        private PooledClient(McpSyncClient client) {
+            this.client = client;
+        }
+
+    }
+
+    private final class ServerPool {
+
+        private final String key;
+
+        private final Supplier<McpSyncClient> factory;
+
+        /**
+         * Open sessions that may be handed out, guarded by this.
+         */
+        private final List<PooledClient> sessions = new ArrayList<>();
+
+        /**
+         * Sessions being connected and not yet in {@code sessions}, guarded by this.
+         */
+        private int connecting;
+
+        private final ServerStats stats = new ServerStats();
+
+        private ServerPool(String key, Supplier<McpSyncClient> factory) {
+            this.key = key;
+            this.factory = factory;
+        }
+
+        /**
+         * @return the least loaded session with room for one more call, a newly connected
+         * session, or null if the server has no room for another session
+         */
+        private PooledClient acquire() {
+            synchronized (this) {
+                PooledClient least = null;
+                for (PooledClient client : sessions) {
+                    if (least == null || client.inFlight < least.inFlight) {
+                        least = client;
+                    }
+                }
+                if (least != null && least.inFlight < maxConcurrentPerSession) {
+                    least.inFlight++;
+                    return least;
+                }
+                if (sessions.size() + connecting >= maxSize) {
+                    return null;
+                }
+                connecting++;
+            }
+            PooledClient client = null;
+            try {
+                client = connect();
+            }
+            finally {
+                synchronized (this) {
+                    connecting--;
+                    if (client != null) {
+                        client.inFlight++;
+                        if (closed || pools.get(key) != this) {
+                            client.retired = true;
+                        }
+                        else {
+                            sessions.add(client);
+                        }
+                    }
+                }
+            }
+            return client;
+        }
+
+        private PooledClient connect() {
+            long start = System.nanoTime();
+            McpSyncClient client = factory.get();
+            try {
+                client.initialize();
+            }
+            catch (RuntimeException e) {
+                stats.connectErrors.incrementAndGet();
+                try {
+                    client.close();
+                }
+                catch (Exception ignored) {
+                }
+                throw e;
+            }
+            stats.connects.incrementAndGet();
+            stats.connectNanos.addAndGet(System.nanoTime() - start);
+            return new PooledClient(client);
+        }
+
+        private void release(PooledClient client, boolean broken) {
+            boolean close;
+            synchronized (this) {
+                client.inFlight--;
+                client.lastUsedNanos = System.nanoTime();
+                if (broken || closed || pools.get(key) != this) {
+                    retire(client);
+                }
+                close = client.retired && client.inFlight == 0;
+            }
+            if (close) {
+                closeQuietly(client);
+            }
+        }
+
+        /**
+         * Stop handing out a session. Must hold the lock of this pool.
+         * @return true if the session is idle and should be closed by the caller now
+         */
+        private boolean retire(PooledClient client) {
+            if (!client.retired) {
+                client.retired = true;
+                sessions.remove(client);
+            }
+            return client.inFlight == 0;
+        }
+
+        private void maintain() {
+            List<PooledClient> toClose = new ArrayList<>();
+            List<PooledClient> toPing = new ArrayList<>();
+            synchronized (this) {
+                long now = System.nanoTime();
+                for (PooledClient client : new ArrayList<>(sessions)) {
+                    if (client.inFlight == 0 && now - client.lastUsedNanos > maxIdleTime.toNanos()
+                            && sessions.size() > minIdle) {
+                        stats.idleEvictions.incrementAndGet();
+                        retire(client);
+                        toClose.add(client);
+                    }
+                    else {
+                        toPing.add(client);
+                    }
+                }
+            }
+            toClose.forEach(McpClientPool::closeQuietly);
+            for (PooledClient client : toPing) {
+                if (!ping(client)) {
+                    boolean close;
+                    synchronized (this) {
+                        close = !client.retired && retire(client);
+                    }
+                    if (close) {
+                        closeQuietly(client);
+                    }
+                }
+            }
+            while (!closed) {
+                synchronized (this) {
+                    if (sessions.size() + connecting >= minIdle) {
+                        return;
+                    }
+                    connecting++;
+                }
+                PooledClient client = null;
+                try {
+                    client = connect();
+                }
+                catch (RuntimeException e) {
+                    logger.warn("Failed to open warm MCP session for {}: {}", key, e.getMessage());
+                    return;
+                }
+                finally {
+                    synchronized (this) {
+                        connecting--;
+                        if (client != null) {
+                            sessions.add(client);
+                        }
+                    }
+                }
+            }
+        }
+
+        private boolean ping(PooledClient client) {
+            try {
+                client.client.getAsyncClient().ping().get(pingTimeout.toMillis(), TimeUnit.MILLISECONDS);
+                return true;
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return true;
+            }
+            catch (Exception e) {
+                stats.pingFailures.incrementAndGet();
+                logger.warn("MCP session of {} failed liveness ping, reconnecting: {}", key, e.getMessage());
+                return false;
+            }
+        }
+
+        private void retireAll() {
+            List<PooledClient> toClose = new ArrayList<>();
+            synchronized (this) {
+                for (PooledClient client : new ArrayList<>(sessions)) {
+                    if (retire(client)) {
+                        toClose.add(client);
+                    }
+                }
+            }
+            toClose.forEach(McpClientPool::closeQuietly);
+        }
+
+    }
+
+    /**
+     * Per-server counters. Latency covers the pooled operation only; handshakes are
+     * reported separately.
+     */
+    public static final class ServerStats {
+
+        private final AtomicLong requests = new AtomicLong();
+
+        private final AtomicLong errors = new AtomicLong();
+
+        private final AtomicLong totalNanos = new AtomicLong();
+
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private final AtomicLong connects = new AtomicLong();
+
+        private final AtomicLong connectErrors = new AtomicLong();
+
+        private final AtomicLong connectNanos = new AtomicLong();
+
+        private final AtomicLong pingFailures = new AtomicLong();
+
+        private final AtomicLong idleEvictions = new AtomicLong();
+
+        private final AtomicLong overflows = new AtomicLong();
+
+        private void record(long nanos) {
+            requests.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            long max;
+            while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos)) {
+                // retry
+            }
+        }
+
+        public long getRequests() {
+            return requests.get();
+        }
+
+        public long getErrors() {
+            return errors.get();
+        }
+
+        public double getAverageLatencyMillis() {
+            long n = requests.get();
+            return n == 0 ? 0 : totalNanos.get() / 1e6 / n;
+        }
+
+        public double getMaxLatencyMillis() {
+            return maxNanos.get() / 1e6;
+        }
+
+        public long getConnects() {
+            return connects.get();
+        }
+
+        public long getConnectErrors() {
+            return connectErrors.get();
+        }
+
+        public double getAverageConnectMillis() {
+            long n = connects.get();
+            return n == 0 ? 0 : connectNanos.get() / 1e6 / n;
+        }
+
+        public long getPingFailures() {
+            return pingFailures.get();
+        }
+
+        public long getIdleEvictions() {
+            return idleEvictions.get();
+        }
+
+        /**
+         * @return calls served by a one-off client because every session was saturated
+         */
+        public long getOverflows() {
+            return overflows.get();
+        }
+
+        @Override
+        public String toString() {
+            return "ServerStats{requests=" + getRequests() + ", errors=" + getErrors() + ", avgLatencyMs="
+                    + getAverageLatencyMillis() + ", maxLatencyMs=" + getMaxLatencyMillis() + ", connects="
+                    + getConnects() + ", connectErrors=" + getConnectErrors() + ", avgConnectMs="
+                    + getAverageConnectMillis() + ", pingFailures=" + getPingFailures() + ", idleEvictions="
+                    + getIdleEvictions() + ", overflows=" + getOverflows() + "}";
+        }
+
+    }
+
+    public static class Builder {
+
+        private int minIdle = 0;
+
+        private int maxSize = 8;
+
+        private int maxConcurrentPerSession = 4;
+
+        private Duration maxIdleTime = Duration.ofMinutes(5);
+
+        private Duration healthCheckInterval = Duration.ofSeconds(30);
+
+        private Duration pingTimeout = Duration.ofSeconds(3);
+
+
+        public Builder minIdle(int minIdle) {
+            Assert.isTrue(minIdle >= 0, "minIdle must not be negative");
+            this.minIdle = minIdle;
+            return this;
+        }
+
+        public Builder maxSize(int maxSize) {
+            Assert.isTrue(maxSize > 0, "maxSize must be positive");
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        public Builder maxConcurrentPerSession(int maxConcurrentPerSession) {
+            Assert.isTrue(maxConcurrentPerSession > 0, "maxConcurrentPerSession must be positive");
+            this.maxConcurrentPerSession = maxConcurrentPerSession;
+            return this;
+        }
+
+        public Builder maxIdleTime(Duration maxIdleTime) {
+            Assert.notNull(maxIdleTime, "maxIdleTime can not be null");
+            this.maxIdleTime = maxIdleTime;
+            return this;
+        }
+
+        public Builder healthCheckInterval(Duration healthCheckInterval) {
+            Assert.notNull(healthCheckInterval, "healthCheckInterval can not be null");
+            this.healthCheckInterval = healthCheckInterval;
+            return this;
+        }
+
+        public Builder pingTimeout(Duration pingTimeout) {
+            Assert.notNull(pingTimeout, "pingTimeout can not be null");
+            this.pingTimeout = pingTimeout;
+            return this;
+        }
+
+        public McpClientPool build() {
+            Assert.isTrue(minIdle <= maxSize, "minIdle must not exceed maxSize");
+            return new McpClientPool(this);
+        }
+
+    }
+
+}
@@ -156,6 +156,15 @@ public class McpSyncClient implements AutoCloseable {
         return this.delegate.getClientInfo();
     }
 
+    /**
+     * Get the asynchronous client this client delegates to. Both share the same session,
+     * so requests may be issued through either of them.
+     * @return the underlying asynchronous client
+     */
+    public McpAsyncClient getAsyncClient() {
+        return this.delegate;
+    }
+
     @Override
     public void close() {
         this.delegate.close();
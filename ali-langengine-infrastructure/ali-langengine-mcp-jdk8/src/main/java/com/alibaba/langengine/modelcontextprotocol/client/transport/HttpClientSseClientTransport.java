@@ -11,19 +11,22 @@ import com.alibaba.langengine.modelcontextprotocol.spec.McpClientTransport;
 import com.alibaba.langengine.modelcontextprotocol.spec.McpError;
 import com.alibaba.langengine.modelcontextprotocol.spec.McpSchema;
 import com.alibaba.langengine.modelcontextprotocol.util.Assert;
-import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 
@@ -56,11 +59,20 @@ import java.util.function.Function;
  * authentication and authorization requirements. These headers will be sent with
  * both the SSE connection and individual POST requests.
  *
+ * <p>
+ * Outgoing messages are queued per transport and posted by at most {@code maxInFlight}
+ * concurrent requests on a bounded sender pool shared by all transports, so
+ * {@link #sendMessage} never blocks the calling thread. Response bodies are fully consumed
+ * so the JDK keep-alive cache reuses the underlying connections. That cache keeps at most
+ * {@code http.maxConnections} idle connections per destination (5 by default), which is
+ * why {@code maxInFlight} defaults to 5; raise both together. With batching enabled,
+ * messages queued while all senders are busy are posted together as one JSON-RPC batch
+ * array; only enable it for servers that accept batches.
+ *
  * @author Christian Tzolov
  * @see com.alibaba.langengine.modelcontextprotocol.spec.McpTransport
  * @see McpClientTransport
  */
-@Slf4j
 public class HttpClientSseClientTransport implements McpClientTransport {
 
     private static final Logger logger = LoggerFactory.getLogger(HttpClientSseClientTransport.class);
@@ -85,6 +97,37 @@ public class HttpClientSseClientTransport implements McpClientTransport {
      */
     private static final String DEFAULT_SSE_ENDPOINT = "/sse";
 
+    /**
+     * Default read timeout for message POST requests in milliseconds. The server answers a
+     * POST as soon as the message is accepted; results arrive over the SSE stream.
+     */
+    private static final int DEFAULT_READ_TIMEOUT_MS = 60000;
+
+    /**
+     * Default number of concurrent message POST requests per transport. It matches the
+     * default of {@code http.maxConnections}: the JDK keeps at most that many idle
+     * connections per destination, so further concurrent POSTs would open connections
+     * that are closed instead of reused.
+     */
+    private static final int DEFAULT_MAX_IN_FLIGHT = 5;
+
+    /**
+     * Threads of the sender pool shared by all transport instances
+     */
+    private static final int SENDER_THREADS = 64;
+
+    /**
+     * Sender tasks waiting for a thread of the sender pool. Each transport has at most
+     * {@code maxInFlight} sender tasks, so this only fills up with thousands of busy
+     * transports.
+     */
+    private static final int SENDER_QUEUE_CAPACITY = 4096;
+
+    /**
+     * Maximum number of messages in one JSON-RPC batch
+     */
+    private static final int MAX_BATCH_SIZE = 64;
+
     /**
      * Shared thread pool for all transport instances
      */
@@ -116,6 +159,35 @@ public class HttpClientSseClientTransport implements McpClientTransport {
         SHARED_EXECUTOR_SERVICE = executor;
     }
 
+    /**
+     * Shared pool for blocking message POST requests, bounded in threads and queued tasks.
+     * It has no caller-runs fallback, so a POST never runs on the SSE reader or the caller;
+     * a rejected sender task leaves its messages to the transport's other senders, or fails
+     * them if it has none.
+     */
+    private static final ExecutorService SENDER_EXECUTOR_SERVICE;
+
+    static {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            SENDER_THREADS,
+            SENDER_THREADS,
+            60L,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(SENDER_QUEUE_CAPACITY),
+            new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "mcp-transport-sender-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            }
+        );
+        executor.allowCoreThreadTimeOut(true);
+        SENDER_EXECUTOR_SERVICE = executor;
+    }
+
     /**
      * Base URI for the MCP server
      */
@@ -171,6 +243,31 @@ public class HttpClientSseClientTransport implements McpClientTransport {
      */
     private final long endpointDiscoveryTimeoutSeconds;
 
+    /**
+     * Read timeout for message POST requests in milliseconds
+     */
+    private final int readTimeoutMs;
+
+    /**
+     * Maximum number of concurrent message POST requests
+     */
+    private final int maxInFlight;
+
+    /**
+     * Whether queued messages may be posted together as a JSON-RPC batch
+     */
+    private final boolean batching;
+
+    /**
+     * Messages waiting to be posted
+     */
+    private final ConcurrentLinkedQueue<PendingMessage> outbox = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Number of sender tasks currently draining the outbox
+     */
+    private final AtomicInteger activeSenders = new AtomicInteger();
+
     /**
      * Creates a new transport instance with default settings.
      *
@@ -204,10 +301,33 @@ public class HttpClientSseClientTransport implements McpClientTransport {
     public HttpClientSseClientTransport(ExecutorService executorService, String baseUri, String sseEndpoint,
                                       ObjectMapper objectMapper, int connectTimeoutMs, Map<String, String> headers,
                                       long endpointDiscoveryTimeoutSeconds) {
+        this(executorService, baseUri, sseEndpoint, objectMapper, connectTimeoutMs, headers,
+            endpointDiscoveryTimeoutSeconds, DEFAULT_READ_TIMEOUT_MS, DEFAULT_MAX_IN_FLIGHT, false);
+    }
+
+    /**
+     * Creates a new transport instance with custom settings.
+     *
+     * @param executorService  the executor service to use
+     * @param baseUri         the base URI of the MCP server
+     * @param sseEndpoint     the SSE endpoint path
+     * @param objectMapper    the object mapper for JSON serialization/deserialization
+     * @param connectTimeoutMs connection timeout in milliseconds
+     * @param headers         custom HTTP headers for authentication and authorization
+     * @param endpointDiscoveryTimeoutSeconds timeout for endpoint discovery in seconds
+     * @param readTimeoutMs   read timeout for message POST requests in milliseconds
+     * @param maxInFlight     maximum number of concurrent message POST requests
+     * @param batching        whether queued messages may be posted as a JSON-RPC batch
+     */
+    public HttpClientSseClientTransport(ExecutorService executorService, String baseUri, String sseEndpoint,
+                                      ObjectMapper objectMapper, int connectTimeoutMs, Map<String, String> headers,
+                                      long endpointDiscoveryTimeoutSeconds, int readTimeoutMs, int maxInFlight,
+                                      boolean batching) {
         Assert.notNull(objectMapper, "ObjectMapper must not be null");
         Assert.hasText(baseUri, "baseUri must not be empty");
         Assert.notNull(executorService, "executorService must not be null");
         Assert.isTrue(endpointDiscoveryTimeoutSeconds > 0, "endpointDiscoveryTimeoutSeconds must be positive");
+        Assert.isTrue(maxInFlight > 0, "maxInFlight must be positive");
         
         this.baseUri = baseUri;
         this.sseEndpoint = sseEndpoint;
@@ -215,6 +335,9 @@ public class HttpClientSseClientTransport implements McpClientTransport {
         this.connectTimeoutMs = connectTimeoutMs;
         this.headers = new HashMap<>(headers != null ? headers : Collections.emptyMap());
         this.endpointDiscoveryTimeoutSeconds = endpointDiscoveryTimeoutSeconds;
+        this.readTimeoutMs = readTimeoutMs;
+        this.maxInFlight = maxInFlight;
+        this.batching = batching;
         this.sseClient = new FlowSseClient(executorService);
     }
 
@@ -238,6 +361,9 @@ public class HttpClientSseClientTransport implements McpClientTransport {
         private int connectTimeoutMs = 10000;
         private Map<String, String> headers = new HashMap<>();
         private long endpointDiscoveryTimeoutSeconds = DEFAULT_ENDPOINT_DISCOVERY_TIMEOUT_SECONDS;
+        private int readTimeoutMs = DEFAULT_READ_TIMEOUT_MS;
+        private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+        private boolean batching = false;
 
         public Builder(String baseUri) {
             Assert.hasText(baseUri, "baseUri must not be empty");
@@ -281,6 +407,27 @@ public class HttpClientSseClientTransport implements McpClientTransport {
             return this;
         }
 
+        public Builder readTimeout(int readTimeoutMs) {
+            Assert.isTrue(readTimeoutMs >= 0, "readTimeoutMs must not be negative");
+            this.readTimeoutMs = readTimeoutMs;
+            return this;
+        }
+
+        public Builder maxInFlight(int maxInFlight) {
+            Assert.isTrue(maxInFlight > 0, "maxInFlight must be positive");
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * Allows messages queued behind busy senders to be posted as one JSON-RPC batch
+         * array. Only enable this for servers that accept batches.
+         */
+        public Builder batching(boolean batching) {
+            this.batching = batching;
+            return this;
+        }
+
         public HttpClientSseClientTransport build() {
             return new HttpClientSseClientTransport(
                 SHARED_EXECUTOR_SERVICE,
@@ -289,7 +436,10 @@ public class HttpClientSseClientTransport implements McpClientTransport {
                 objectMapper,
                 connectTimeoutMs,
                 headers,
-                endpointDiscoveryTimeoutSeconds
+                endpointDiscoveryTimeoutSeconds,
+                readTimeoutMs,
+                maxInFlight,
+                batching
             );
         }
     }
@@ -327,13 +477,15 @@ public class HttpClientSseClientTransport implements McpClientTransport {
                         endpointDiscoveryFuture.complete(endpoint);
                         future.complete(null);
                     } else if (MESSAGE_EVENT_TYPE.equals(event.getType())) {
-                        JSONRPCMessage message = McpSchema.deserializeJsonRpcMessage(objectMapper, event.getData());
-                        CompletableFuture<JSONRPCMessage> messageFuture = CompletableFuture.completedFuture(message);
-                        handler.apply(messageFuture);
+                        byte[] data = event.getData().getBytes(StandardCharsets.UTF_8);
+                        // a batched request is answered with an array, each reply is handled on its own
+                        for (JSONRPCMessage message : McpSchema.deserializeJsonRpcMessages(objectMapper, data, 0, data.length)) {
+                            handler.apply(CompletableFuture.completedFuture(message));
+                        }
                     } else {
                         logger.error("Received unrecognized SSE event type: {}", event.getType());
                     }
-                } catch (IOException e) {
+                } catch (IOException | IllegalArgumentException e) {
                     logger.error("Error processing SSE event", e);
                     future.completeExceptionally(e);
                     endpointDiscoveryFuture.completeExceptionally(e);
@@ -371,8 +523,8 @@ public class HttpClientSseClientTransport implements McpClientTransport {
      * Sends a JSON-RPC message to the server.
      *
      * <p>
-     * This method waits for the message endpoint to be discovered before sending the
-     * message. The message is serialized to JSON and sent as an HTTP POST request.
+     * The message is queued and posted by a sender thread once the message endpoint has
+     * been discovered; the calling thread never blocks.
      *
      * @param message the JSON-RPC message to send
      * @return a CompletableFuture that completes when the message is sent
@@ -391,60 +543,165 @@ public class HttpClientSseClientTransport implements McpClientTransport {
                 return errorFuture;
             }
 
-            final CompletableFuture<Void> future = new CompletableFuture<>();
+            PendingMessage pending = new PendingMessage(message);
+            outbox.add(pending);
+            scheduleSenders(baseUri + endpoint);
+            return pending.future;
+        });
+    }
 
-            SHARED_EXECUTOR_SERVICE.submit(() -> {
-                HttpURLConnection connection = null;
+    /**
+     * Starts sender tasks while there are queued messages and fewer than maxInFlight senders.
+     */
+    private void scheduleSenders(String url) {
+        while (!outbox.isEmpty()) {
+            int active = activeSenders.get();
+            if (active >= maxInFlight) {
+                return;
+            }
+            if (activeSenders.compareAndSet(active, active + 1)) {
                 try {
-                    logger.debug("Sending message to endpoint {}: {}", endpoint, message);
-                    String jsonText = objectMapper.writeValueAsString(message);
-                    URL url = new URL(baseUri + endpoint);
-                    connection = (HttpURLConnection) url.openConnection();
-                    connection.setRequestMethod("POST");
-                    connection.setRequestProperty("Content-Type", "application/json");
-                    connection.setConnectTimeout(1200000);
-                    connection.setDoOutput(true);
-                    connection.setReadTimeout(1200000);
-
-                    log.info("connection readTimeout is 1200000");
-
-                    // Apply custom headers
-                    for (Map.Entry<String, String> entry : headers.entrySet()) {
-                        connection.setRequestProperty(entry.getKey(), entry.getValue());
+                    SENDER_EXECUTOR_SERVICE.execute(() -> drainOutbox(url));
+                } catch (RejectedExecutionException e) {
+                    // the running senders keep draining the outbox
+                    if (activeSenders.decrementAndGet() == 0) {
+                        failQueued(new McpError("Failed to send message: sender pool is full"));
                     }
+                    return;
+                }
+            }
+        }
+    }
 
-                    try (DataOutputStream outputStream = new DataOutputStream(connection.getOutputStream())) {
-                        outputStream.write(jsonText.getBytes(StandardCharsets.UTF_8));
-                        outputStream.flush();
-                    }
+    /**
+     * Posts queued messages until the outbox is empty.
+     */
+    private void drainOutbox(String url) {
+        List<PendingMessage> batch = new ArrayList<>();
+        while (true) {
+            PendingMessage next = outbox.poll();
+            if (next == null) {
+                activeSenders.decrementAndGet();
+                // a message may have been queued after the poll but before the decrement
+                if (!outbox.isEmpty()) {
+                    scheduleSenders(url);
+                }
+                return;
+            }
+            batch.add(next);
+            while (batching && batch.size() < MAX_BATCH_SIZE && (next = outbox.poll()) != null) {
+                batch.add(next);
+            }
+            post(url, batch);
+            batch.clear();
+        }
+    }
 
-                    int statusCode = connection.getResponseCode();
+    private void post(String url, List<PendingMessage> batch) {
+        HttpURLConnection connection = null;
+        try {
+            byte[] body;
+            if (batch.size() == 1) {
+                logger.debug("Sending message to endpoint {}: {}", url, batch.get(0).message);
+                body = objectMapper.writeValueAsBytes(batch.get(0).message);
+            } else {
+                logger.debug("Sending batch of {} messages to endpoint {}", batch.size(), url);
+                List<JSONRPCMessage> messages = new ArrayList<>(batch.size());
+                for (PendingMessage pending : batch) {
+                    messages.add(pending.message);
+                }
+                body = objectMapper.writeValueAsBytes(messages);
+            }
+            connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setRequestMethod("POST");
+            connection.setRequestProperty("Content-Type", "application/json");
+            connection.setConnectTimeout(connectTimeoutMs);
+            connection.setReadTimeout(readTimeoutMs);
+            connection.setDoOutput(true);
+
+            // Apply custom headers
+            for (Map.Entry<String, String> entry : headers.entrySet()) {
+                connection.setRequestProperty(entry.getKey(), entry.getValue());
+            }
 
-                    // 这些都认为是失败的
-                    if (!(statusCode >= 200 && statusCode < 300)) {
-                        String errorMsg = String.format("Failed to send message, status code: %d", statusCode);
-                        logger.error(errorMsg);
-                        future.completeExceptionally(new McpError(errorMsg));
-                        return;
-                    }
+            try (OutputStream outputStream = connection.getOutputStream()) {
+                outputStream.write(body);
+            }
 
-                    future.complete(null);
-                } catch (Exception e) {
-                    if (!isClosing) {
-                        logger.error("Failed to send message", e);
-                        future.completeExceptionally(new McpError("Failed to send message: " + e.getMessage()));
-                    } else {
-                        future.complete(null);
-                    }
-                } finally {
-                    if (connection != null) {
-                        connection.disconnect();
-                    }
+            int statusCode = connection.getResponseCode();
+            consume(connection, statusCode);
+
+            // 这些都认为是失败的
+            if (!(statusCode >= 200 && statusCode < 300)) {
+                String errorMsg = String.format("Failed to send message, status code: %d", statusCode);
+                logger.error(errorMsg);
+                fail(batch, new McpError(errorMsg));
+                return;
+            }
+
+            for (PendingMessage pending : batch) {
+                pending.future.complete(null);
+            }
+        } catch (Exception e) {
+            if (connection != null) {
+                // an unread response would keep the connection out of the keep-alive cache
+                connection.disconnect();
+            }
+            if (!isClosing) {
+                logger.error("Failed to send message", e);
+                fail(batch, new McpError("Failed to send message: " + e.getMessage()));
+            } else {
+                for (PendingMessage pending : batch) {
+                    pending.future.complete(null);
                 }
-            });
+            }
+        }
+    }
+
+    /**
+     * Reads the response body to the end so the connection returns to the keep-alive cache.
+     */
+    private static void consume(HttpURLConnection connection, int statusCode) throws IOException {
+        InputStream in = statusCode >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        if (in == null) {
+            return;
+        }
+        try {
+            byte[] buffer = new byte[512];
+            while (in.read(buffer) != -1) {
+                // discard
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void fail(List<PendingMessage> batch, Throwable error) {
+        for (PendingMessage pending : batch) {
+            pending.future.completeExceptionally(error);
+        }
+    }
+
+    private void failQueued(Throwable error) {
+        PendingMessage pending;
+        while ((pending = outbox.poll()) != null) {
+            pending.future.completeExceptionally(error);
+        }
+    }
+
+    /**
+     * A queued outgoing message and the future completed once it has been posted.
+     */
+    private static final class PendingMessage {
+
+        private final JSONRPCMessage message;
+
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private PendingMessage(JSONRPCMessage message) {
+            this.message = message;
+        }
 
-            return future;
-        });
     }
 
     /**
@@ -452,7 +709,8 @@ public class HttpClientSseClientTransport implements McpClientTransport {
      *
      * <p>
      * Sets the closing flag and cancels any pending connection future. This prevents new
-     * messages from being sent and allows ongoing operations to complete.
+     * messages from being sent and allows ongoing POSTs to complete; queued messages that
+     * were not posted yet fail with an {@link McpError}.
      *
      * @return a CompletableFuture that completes when the closing process is initiated
      */
@@ -472,6 +730,8 @@ public class HttpClientSseClientTransport implements McpClientTransport {
             if (sseClient != null) {
                 sseClient.close();
             }
+
+            failQueued(new McpError("Transport closed before the message was sent"));
         }, SHARED_EXECUTOR_SERVICE);
     }
 
@@ -485,7 +745,7 @@ public class HttpClientSseClientTransport implements McpClientTransport {
      */
     @Override
     public <T> T unmarshalFrom(Object data, TypeReference<T> typeRef) {
-        return this.objectMapper.convertValue(data, typeRef);
+        return McpSchema.unmarshalFrom(this.objectMapper, data, typeRef);
     }
     
     /**
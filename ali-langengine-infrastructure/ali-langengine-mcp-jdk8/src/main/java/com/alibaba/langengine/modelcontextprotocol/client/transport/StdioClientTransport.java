@@ -10,6 +10,7 @@ import com.alibaba.langengine.modelcontextprotocol.spec.JSONRPCMessage;
 import com.alibaba.langengine.modelcontextprotocol.spec.McpClientTransport;
 import com.alibaba.langengine.modelcontextprotocol.spec.McpSchema;
 import com.alibaba.langengine.modelcontextprotocol.util.Assert;
+import com.alibaba.langengine.modelcontextprotocol.util.JsonLineReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
@@ -305,14 +306,17 @@ public class StdioClientTransport implements McpClientTransport {
         this.inboundScheduler.schedule(new Runnable() {
             @Override
             public void run() {
-                BufferedReader processReader = null;
+                JsonLineReader processReader = null;
                 try {
-                    processReader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-                    String line;
+                    processReader = new JsonLineReader(process.getInputStream());
+                    byte[] line;
                     while (!isClosing && (line = processReader.readLine()) != null) {
-                        final String currentLine = line;
+                        if (line.length == 0) {
+                            continue;
+                        }
                         try {
-                            JSONRPCMessage message = McpSchema.deserializeJsonRpcMessage(objectMapper, currentLine);
+                            JSONRPCMessage message = McpSchema.deserializeJsonRpcMessage(objectMapper, line, 0,
+                                    line.length);
                             if (!inboundSink.tryEmitNext(message).isSuccess()) {
                                 if (!isClosing) {
                                     logger.error("Failed to enqueue inbound message: {}", message);
@@ -321,7 +325,8 @@ public class StdioClientTransport implements McpClientTransport {
                             }
                         } catch (Exception e) {
                             if (!isClosing) {
-                                logger.error("Error processing inbound message for line: " + currentLine, e);
+                                logger.error("Error processing inbound message for line: "
+                                        + new String(line, StandardCharsets.UTF_8), e);
                             }
                             break;
                         }
@@ -481,7 +486,7 @@ public class StdioClientTransport implements McpClientTransport {
 
     @Override
     public <T> T unmarshalFrom(Object data, TypeReference<T> typeRef) {
-        return this.objectMapper.convertValue(data, typeRef);
+        return McpSchema.unmarshalFrom(this.objectMapper, data, typeRef);
     }
     
     /**
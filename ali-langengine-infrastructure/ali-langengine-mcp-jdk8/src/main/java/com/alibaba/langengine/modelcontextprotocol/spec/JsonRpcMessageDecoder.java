@@ -0,0 +1,189 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+package com.alibaba.langengine.modelcontextprotocol.spec;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Decodes a JSON-RPC message in a single streaming pass.
+ *
+ * <p>
+ * The message type is decided from the fields seen while parsing, and the fields are bound
+ * straight into {@link JSONRPCRequest}, {@link JSONRPCNotification} or
+ * {@link JSONRPCResponse} without building an intermediate map. When decoding from bytes
+ * with {@code lazy} set, object and array {@code params}/{@code result} values are only
+ * skipped over and kept as {@link RawJson} slices of the input. They are parsed once, by
+ * the transport's {@code unmarshalFrom}, into the type the handler needs. Notification
+ * params are always parsed because {@link JSONRPCNotification} declares them as a map.
+ *
+ * <p>
+ * {@link #decodeAll} also accepts a JSON-RPC batch, a JSON array of messages, which is
+ * how a server answers a batched request.
+ */
+public final class JsonRpcMessageDecoder {
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE_REF = new TypeReference<Map<String, Object>>() {
+    };
+
+    private JsonRpcMessageDecoder() {
+    }
+
+    /**
+     * Decodes a message from UTF-8 bytes.
+     * @param objectMapper the object mapper to parse with
+     * @param bytes the buffer holding the message; with {@code lazy} set it must not be
+     * modified afterwards since the message keeps slices of it
+     * @param offset the offset of the message in the buffer
+     * @param length the length of the message in bytes
+     * @param lazy whether to keep params and result as {@link RawJson}
+     * @return the decoded message
+     * @throws IOException if the input is not valid JSON
+     * @throws IllegalArgumentException if the JSON is not a JSON-RPC message
+     */
+    public static JSONRPCMessage decode(ObjectMapper objectMapper, byte[] bytes, int offset, int length,
+            boolean lazy) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(bytes, offset, length)) {
+            return decode(objectMapper, parser, parser.nextToken(), lazy ? bytes : null, offset,
+                    () -> new String(bytes, offset, length, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Decodes a single message or a batch from UTF-8 bytes.
+     * @param objectMapper the object mapper to parse with
+     * @param bytes the buffer holding the message or batch; with {@code lazy} set it must
+     * not be modified afterwards since the messages keep slices of it
+     * @param offset the offset of the input in the buffer
+     * @param length the length of the input in bytes
+     * @param lazy whether to keep params and result as {@link RawJson}
+     * @return the decoded messages, in order; a single message yields a list of one
+     * @throws IOException if the input is not valid JSON
+     * @throws IllegalArgumentException if the JSON is not a JSON-RPC message or batch
+     */
+    public static List<JSONRPCMessage> decodeAll(ObjectMapper objectMapper, byte[] bytes, int offset, int length,
+            boolean lazy) throws IOException {
+        Supplier<String> text = () -> new String(bytes, offset, length, StandardCharsets.UTF_8);
+        try (JsonParser parser = objectMapper.getFactory().createParser(bytes, offset, length)) {
+            JsonToken token = parser.nextToken();
+            if (token != JsonToken.START_ARRAY) {
+                return Collections.singletonList(decode(objectMapper, parser, token, lazy ? bytes : null, offset, text));
+            }
+            List<JSONRPCMessage> messages = new ArrayList<>();
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new IllegalArgumentException("Cannot deserialize JSONRPCMessage batch: " + text.get());
+                }
+                messages.add(decode(objectMapper, parser, token, lazy ? bytes : null, offset, text));
+            }
+            return messages;
+        }
+    }
+
+    /**
+     * Decodes a message from a JSON string, parsing params and result eagerly.
+     */
+    public static JSONRPCMessage decode(ObjectMapper objectMapper, String jsonText) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(jsonText)) {
+            return decode(objectMapper, parser, parser.nextToken(), null, 0, () -> jsonText);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static JSONRPCMessage decode(ObjectMapper objectMapper, JsonParser parser, JsonToken first,
+            byte[] source, int offset, Supplier<String> text) throws IOException {
+        if (first != JsonToken.START_OBJECT) {
+            throw new IllegalArgumentException("Cannot deserialize JSONRPCMessage: " + text.get());
+        }
+        String jsonrpc = null;
+        String method = null;
+        boolean hasMethod = false;
+        Object id = null;
+        boolean hasId = false;
+        Object params = null;
+        Object result = null;
+        boolean hasResult = false;
+        JSONRPCResponse.JSONRPCError error = null;
+        boolean hasError = false;
+
+        JsonToken token;
+        while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            token = parser.nextToken();
+            switch (name) {
+                case "jsonrpc":
+                    jsonrpc = parser.getValueAsString();
+                    break;
+                case "method":
+                    hasMethod = true;
+                    method = parser.getValueAsString();
+                    break;
+                case "id":
+                    hasId = true;
+                    id = token == JsonToken.VALUE_STRING ? parser.getText()
+                            : token.isNumeric() ? parser.getNumberValue() : null;
+                    parser.skipChildren();
+                    break;
+                case "params":
+                    params = value(parser, token, source, offset);
+                    break;
+                case "result":
+                    hasResult = true;
+                    result = value(parser, token, source, offset);
+                    break;
+                case "error":
+                    hasError = true;
+                    error = token == JsonToken.VALUE_NULL ? null
+                            : parser.readValueAs(JSONRPCResponse.JSONRPCError.class);
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+        }
+        if (token != JsonToken.END_OBJECT) {
+            throw new IllegalArgumentException("Cannot deserialize JSONRPCMessage: " + text.get());
+        }
+
+        if (hasMethod && hasId) {
+            return new JSONRPCRequest(jsonrpc, method, id, params);
+        }
+        else if (hasMethod) {
+            if (params instanceof RawJson) {
+                params = ((RawJson) params).toJavaObject(objectMapper, MAP_TYPE_REF);
+            }
+            return new JSONRPCNotification(jsonrpc, method, (Map<String, Object>) params);
+        }
+        else if (hasResult || hasError) {
+            return new JSONRPCResponse(jsonrpc, id, result, error);
+        }
+        throw new IllegalArgumentException("Cannot deserialize JSONRPCMessage: " + text.get());
+    }
+
+    /**
+     * Reads the current value, keeping objects and arrays as a slice of the source when
+     * there is one.
+     */
+    private static Object value(JsonParser parser, JsonToken token, byte[] source, int offset) throws IOException {
+        if (source == null || (token != JsonToken.START_OBJECT && token != JsonToken.START_ARRAY)) {
+            return token == JsonToken.VALUE_NULL ? null : parser.readValueAs(Object.class);
+        }
+        // byte offsets are counted from the start of the parsed range
+        int start = offset + (int) parser.getTokenLocation().getByteOffset();
+        parser.skipChildren();
+        int end = offset + (int) parser.getCurrentLocation().getByteOffset();
+        return new RawJson(source, start, end - start);
+    }
+
+}
@@ -12,8 +12,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 /**
  * Based on the <a href="http://www.jsonrpc.org/specification">JSON-RPC 2.0
@@ -99,9 +99,6 @@ public final class McpSchema {
     public interface Request {
     }
 
-    private static final TypeReference<HashMap<String, Object>> MAP_TYPE_REF = new TypeReference<HashMap<String, Object>>() {
-    };
-
     /**
      * Deserializes a JSON string into a JSONRPCMessage object.
      * @param objectMapper The ObjectMapper instance to use for deserialization
@@ -117,20 +114,70 @@ public final class McpSchema {
 
         logger.debug("Received JSON message: {}", jsonText);
 
-        Map<String, Object> map = objectMapper.readValue(jsonText, MAP_TYPE_REF);
+        return JsonRpcMessageDecoder.decode(objectMapper, jsonText);
+    }
 
-        // Determine message type based on specific JSON structure
-        if (map.containsKey("method") && map.containsKey("id")) {
-            return objectMapper.convertValue(map, JSONRPCRequest.class);
-        }
-        else if (map.containsKey("method") && !map.containsKey("id")) {
-            return objectMapper.convertValue(map, JSONRPCNotification.class);
+    /**
+     * Deserializes UTF-8 JSON bytes into a JSONRPCMessage object in a single pass. The
+     * params of requests and the result of responses are kept as {@link RawJson} slices
+     * of {@code bytes} until they are unmarshalled with
+     * {@link #unmarshalFrom(ObjectMapper, Object, TypeReference)}.
+     * @param objectMapper The ObjectMapper instance to use for deserialization
+     * @param bytes The buffer holding the message, which must not be modified afterwards
+     * @param offset The offset of the message in the buffer
+     * @param length The length of the message in bytes
+     * @return A JSONRPCMessage instance using either the {@link JSONRPCRequest},
+     * {@link JSONRPCNotification}, or {@link JSONRPCResponse} classes.
+     * @throws IOException If there's an error during deserialization
+     * @throws IllegalArgumentException If the JSON structure doesn't match any known
+     * message type
+     */
+    public static JSONRPCMessage deserializeJsonRpcMessage(ObjectMapper objectMapper, byte[] bytes, int offset,
+            int length) throws IOException {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Received JSON message: {}", new String(bytes, offset, length, StandardCharsets.UTF_8));
         }
-        else if (map.containsKey("result") || map.containsKey("error")) {
-            return objectMapper.convertValue(map, JSONRPCResponse.class);
+        return JsonRpcMessageDecoder.decode(objectMapper, bytes, offset, length, true);
+    }
+
+    /**
+     * Deserializes UTF-8 JSON bytes holding either a single JSONRPCMessage or a JSON-RPC
+     * batch, a JSON array of messages, like
+     * {@link #deserializeJsonRpcMessage(ObjectMapper, byte[], int, int)}.
+     * @param objectMapper The ObjectMapper instance to use for deserialization
+     * @param bytes The buffer holding the input, which must not be modified afterwards
+     * @param offset The offset of the input in the buffer
+     * @param length The length of the input in bytes
+     * @return The messages in the order they appear; a single message yields a list of one
+     * @throws IOException If there's an error during deserialization
+     * @throws IllegalArgumentException If an element doesn't match any known message type
+     */
+    public static List<JSONRPCMessage> deserializeJsonRpcMessages(ObjectMapper objectMapper, byte[] bytes, int offset,
+            int length) throws IOException {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Received JSON message: {}", new String(bytes, offset, length, StandardCharsets.UTF_8));
         }
+        return JsonRpcMessageDecoder.decodeAll(objectMapper, bytes, offset, length, true);
+    }
 
-        throw new IllegalArgumentException("Cannot deserialize JSONRPCMessage: " + jsonText);
+    /**
+     * Converts the params or result of a deserialized message into the given type.
+     * {@link RawJson} values are parsed directly from their bytes.
+     * @param objectMapper The ObjectMapper instance to use for conversion
+     * @param data The value to convert
+     * @param typeRef The target type
+     * @return The converted value
+     */
+    public static <T> T unmarshalFrom(ObjectMapper objectMapper, Object data, TypeReference<T> typeRef) {
+        if (data instanceof RawJson) {
+            try {
+                return ((RawJson) data).toJavaObject(objectMapper, typeRef);
+            }
+            catch (IOException e) {
+                throw new IllegalArgumentException("Cannot unmarshal " + typeRef.getType() + ": " + e.getMessage(), e);
+            }
+        }
+        return objectMapper.convertValue(data, typeRef);
     }
 
     // Additional classes will be added in separate files to keep the implementation modular
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+package com.alibaba.langengine.modelcontextprotocol.spec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An unparsed JSON value, kept as a slice of the UTF-8 bytes of the message it was read
+ * from. {@link JsonRpcMessageDecoder} leaves the {@code params} and {@code result} of
+ * requests and responses in this form so that they are parsed only once, directly into
+ * the type the handler asks for through
+ * {@link McpTransport#unmarshalFrom(Object, TypeReference)}.
+ *
+ * <p>
+ * Serializing a RawJson with Jackson writes the original JSON unchanged.
+ */
+public final class RawJson implements JsonSerializable {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final byte[] bytes;
+
+    private final int offset;
+
+    private final int length;
+
+    public RawJson(byte[] bytes, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > bytes.length) {
+            throw new IndexOutOfBoundsException("offset " + offset + ", length " + length + ", size " + bytes.length);
+        }
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Parses the slice into the given type.
+     * @param objectMapper the object mapper to bind with
+     * @param typeRef the target type
+     * @return the parsed value
+     * @throws IOException if the slice is not valid JSON for the target type
+     */
+    public <T> T toJavaObject(ObjectMapper objectMapper, TypeReference<T> typeRef) throws IOException {
+        return objectMapper.readValue(bytes, offset, length, typeRef);
+    }
+
+    /**
+     * @return the length of the JSON text in bytes
+     */
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        if (gen instanceof TokenBuffer) {
+            // convertValue buffers tokens, a raw value could not be bound afterwards
+            try (JsonParser parser = JSON_FACTORY.createParser(bytes, offset, length)) {
+                parser.nextToken();
+                gen.copyCurrentStructure(parser);
+            }
+        }
+        else {
+            gen.writeRawValue(toString());
+        }
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+            throws IOException {
+        serialize(gen, serializers);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RawJson)) {
+            return false;
+        }
+        RawJson that = (RawJson) o;
+        if (length != that.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (bytes[offset + i] != that.bytes[that.offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = 1;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            h = 31 * h + bytes[i];
+        }
+        return h;
+    }
+
+    /**
+     * @return the JSON text
+     */
+    @Override
+    public String toString() {
+        return new String(bytes, offset, length, StandardCharsets.UTF_8);
+    }
+
+}
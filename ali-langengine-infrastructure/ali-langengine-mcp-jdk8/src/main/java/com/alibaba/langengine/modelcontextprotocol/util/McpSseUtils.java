@@ -3,6 +3,7 @@ package com.alibaba.langengine.modelcontextprotocol.util;
 
 import com.alibaba.fastjson.JSON;
 import com.alibaba.langengine.modelcontextprotocol.client.McpClient;
+import com.alibaba.langengine.modelcontextprotocol.client.McpClientPool;
 import com.alibaba.langengine.modelcontextprotocol.client.McpSyncClient;
 import com.alibaba.langengine.modelcontextprotocol.client.transport.HttpClientSseClientTransport;
 import com.alibaba.langengine.modelcontextprotocol.spec.*;
@@ -16,6 +17,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -59,6 +61,17 @@ public class McpSseUtils {
         return thread;
     });
 
+    /**
+     * 长连接客户端池，key同clientCache，每个服务保持已完成initialize握手的会话，并发调用共享同一会话，后台定时ping和回收空闲会话
+     */
+    private static final McpClientPool CLIENT_POOL = McpClientPool.builder()
+            .minIdle(0)
+            .maxSize(8)
+            .maxIdleTime(Duration.ofMinutes(5))
+            .healthCheckInterval(Duration.ofSeconds(30))
+            .pingTimeout(Duration.ofSeconds(DEFAULT_PING_TIMEOUT_SECONDS))
+            .build();
+
     private static class AgentMagicCoreSwitch {
         public static boolean ALWAYS_CREATE_NEW_MCP_CLIENT = true;
         public static List<String> notProcessMcpUrls = new ArrayList<>();
@@ -229,7 +242,7 @@ public class McpSseUtils {
         }
 
         // 开关关闭，使用缓存逻辑
-        String cacheKey = generateCacheKey(baseUrl, authParams, sseEndpoint);
+        String cacheKey = generateCacheKey(baseUrl, clientName, version, requestTimeoutSeconds, authParams, sseEndpoint);
 
         // 检查缓存中是否存在客户端
         McpSyncClient cachedClient = clientCache.get(cacheKey);
@@ -285,14 +298,73 @@ public class McpSseUtils {
     }
 
     /**
-     * 生成缓存键
+     * 在MCP会话上执行操作
+     * 开关打开(默认)时为本次调用新建客户端，用完即关闭
+     * 开关关闭时使用客户端池中已初始化的长连接会话，并发调用共享会话，会话全部饱和时临时新建客户端；
+     * 操作失败(非服务端错误响应)的会话不再分配，其上的调用结束后关闭，下次调用自动重连
+     *
+     * @param baseUrl               服务地址
+     * @param clientName            客户端名称
+     * @param version               客户端版本
+     * @param requestTimeoutSeconds 请求超时时间（秒）
+     * @param authParams            授权参数
+     * @param sseEndpoint           SSE端点路径
+     * @param action                要执行的操作
+     * @return 操作结果
+     */
+    public static <T> T execute(String baseUrl, String clientName, String version,
+                                Integer requestTimeoutSeconds, Map<String, Object> authParams,
+                                String sseEndpoint, Function<McpSyncClient, T> action) {
+        if (AgentMagicCoreSwitch.ALWAYS_CREATE_NEW_MCP_CLIENT) {
+            McpSyncClient client = getClient(baseUrl, clientName, version, requestTimeoutSeconds, authParams, sseEndpoint);
+            try {
+                return action.apply(client);
+            } finally {
+                try {
+                    client.close();
+                } catch (Exception e) {
+                    log.warn("关闭MCP客户端异常，服务地址: {}, 异常: {}", baseUrl, e.getMessage());
+                }
+            }
+        }
+        String cacheKey = generateCacheKey(baseUrl, clientName, version, requestTimeoutSeconds, authParams, sseEndpoint);
+        return CLIENT_POOL.execute(cacheKey,
+                () -> initializeClient(baseUrl, clientName, version, requestTimeoutSeconds, authParams, sseEndpoint),
+                action);
+    }
+
+    /**
+     * 获取客户端池各服务的统计信息：请求数、错误数、平均/最大延迟、握手次数、ping失败次数等
      *
-     * @param baseUrl     服务地址
-     * @param authParams  授权参数
-     * @param sseEndpoint SSE端点路径
+     * @return key为服务缓存键
+     */
+    public static Map<String, McpClientPool.ServerStats> getClientPoolStats() {
+        return CLIENT_POOL.getStats();
+    }
+
+    /**
+     * 是否每次调用都新建MCP客户端，默认开启；关闭后listTools/callTool使用长连接客户端池
+     *
+     * @param alwaysCreateNewClient 是否每次新建客户端
+     */
+    public static void setAlwaysCreateNewClient(boolean alwaysCreateNewClient) {
+        AgentMagicCoreSwitch.ALWAYS_CREATE_NEW_MCP_CLIENT = alwaysCreateNewClient;
+    }
+
+    /**
+     * 生成缓存键，客户端名称、版本和请求超时不同的调用不共享客户端
+     *
+     * @param baseUrl               服务地址
+     * @param clientName            客户端名称
+     * @param version               客户端版本
+     * @param requestTimeoutSeconds 请求超时时间（秒）
+     * @param authParams            授权参数
+     * @param sseEndpoint           SSE端点路径
      * @return 缓存键
      */
-    private static String generateCacheKey(String baseUrl, Map<String, Object> authParams, String sseEndpoint) {
+    static String generateCacheKey(String baseUrl, String clientName, String version,
+                                   Integer requestTimeoutSeconds, Map<String, Object> authParams,
+                                   String sseEndpoint) {
         StringBuilder cacheKey = new StringBuilder(baseUrl);
 
         // 加入端点信息
@@ -302,6 +374,11 @@ public class McpSseUtils {
             cacheKey.append("_").append(DEFAULT_SSE_ENDPOINT);
         }
 
+        // 加入客户端信息
+        cacheKey.append("_").append(clientName)
+                .append("_").append(version)
+                .append("_").append(requestTimeoutSeconds != null ? requestTimeoutSeconds : DEFAULT_REQUEST_TIMEOUT);
+
         // 加入授权参数信息
         if (authParams != null && !authParams.isEmpty()) {
             cacheKey.append("_").append(authParams.toString());
@@ -324,10 +401,9 @@ public class McpSseUtils {
     public static List<Tool> listTools(String baseUrl, String clientName, String version,
                                        Integer requestTimeoutSeconds, Map<String, Object> authParams,
                                        String sseEndpoint) {
-        McpSyncClient client = getClient(baseUrl, clientName, version, requestTimeoutSeconds, authParams, sseEndpoint);
-
         try {
-            ListToolsResult toolsResult = client.listTools();
+            ListToolsResult toolsResult = execute(baseUrl, clientName, version, requestTimeoutSeconds,
+                    authParams, sseEndpoint, McpSyncClient::listTools);
             List<Tool> tools = toolsResult.tools();
             log.info("获取到{}个可用工具，服务地址: {}, SSE端点: {}", tools.size(), baseUrl, sseEndpoint);
 
@@ -404,11 +480,10 @@ public class McpSseUtils {
                                           String toolName, Map<String, Object> params,
                                           Integer requestTimeoutSeconds, Map<String, Object> authParams,
                                           String sseEndpoint) {
-        McpSyncClient client = getClient(baseUrl, clientName, version, requestTimeoutSeconds, authParams, sseEndpoint);
-
         try {
             log.info("调用工具: {}, 参数: {}, 服务地址: {}, SSE端点: {}", toolName, params, baseUrl, sseEndpoint);
-            CallToolResult result = client.callTool(new CallToolRequest(toolName, params));
+            CallToolResult result = execute(baseUrl, clientName, version, requestTimeoutSeconds,
+                    authParams, sseEndpoint, client -> client.callTool(new CallToolRequest(toolName, params)));
             return result;
         } catch (Exception e) {
             log.error("调用工具失败，工具: {}, 服务地址: {}, SSE端点: {}, 异常: {}",
@@ -460,6 +535,10 @@ public class McpSseUtils {
      * @param baseUrl 服务地址
      */
     public static void closeClient(String baseUrl) {
+        // 池中的key带有端点和授权参数后缀
+        CLIENT_POOL.getStats().keySet().stream()
+                .filter(key -> key.equals(baseUrl) || key.startsWith(baseUrl + "_"))
+                .forEach(CLIENT_POOL::evict);
         McpSyncClient client = clientCache.remove(baseUrl);
         if (client != null) {
             try {
@@ -484,6 +563,7 @@ public class McpSseUtils {
             }
         });
         clientCache.clear();
+        CLIENT_POOL.evictAll();
     }
 
     /**
@@ -0,0 +1,202 @@
+package com.alibaba.langengine.modelcontextprotocol.client;
+
+import com.alibaba.langengine.modelcontextprotocol.spec.JSONRPCMessage;
+import com.alibaba.langengine.modelcontextprotocol.spec.JSONRPCRequest;
+import com.alibaba.langengine.modelcontextprotocol.spec.JSONRPCResponse;
+import com.alibaba.langengine.modelcontextprotocol.spec.McpClientTransport;
+import com.alibaba.langengine.modelcontextprotocol.spec.McpSchema;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class McpClientPoolTest {
+
+    private static final String KEY = "http://localhost_/sse";
+
+    private final List<FakeTransport> transports = new CopyOnWriteArrayList<>();
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private McpClientPool pool;
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void testSessionIsReusedAndShared() throws Exception {
+        pool = McpClientPool.builder().maxSize(2).maxConcurrentPerSession(2).build();
+        McpSyncClient first = pool.execute(KEY, this::newClient, Function.identity());
+        McpSyncClient second = pool.execute(KEY, this::newClient, Function.identity());
+        assertSame(first, second);
+
+        // 两个并发调用共享同一个会话
+        CountDownLatch running = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<McpSyncClient> a = executor.submit(() -> pool.execute(KEY, this::newClient, blockUntil(running, release)));
+        Future<McpSyncClient> b = executor.submit(() -> pool.execute(KEY, this::newClient, blockUntil(running, release)));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        release.countDown();
+        assertSame(first, a.get(5, TimeUnit.SECONDS));
+        assertSame(first, b.get(5, TimeUnit.SECONDS));
+
+        McpClientPool.ServerStats stats = pool.getStats().get(KEY);
+        assertEquals(1, stats.getConnects());
+        assertEquals(4, stats.getRequests());
+        assertEquals(0, stats.getOverflows());
+        assertEquals(1, transports.size());
+        assertFalse(transports.get(0).closed);
+    }
+
+    @Test
+    public void testBrokenSessionIsReplaced() {
+        pool = McpClientPool.builder().build();
+        McpSyncClient first = pool.execute(KEY, this::newClient, Function.identity());
+        try {
+            pool.execute(KEY, this::newClient, client -> {
+                throw new IllegalStateException("connection reset");
+            });
+        }
+        catch (IllegalStateException expected) {
+        }
+        assertTrue(transports.get(0).closed);
+        McpSyncClient second = pool.execute(KEY, this::newClient, Function.identity());
+        assertNotSame(first, second);
+        assertEquals(1, pool.getStats().get(KEY).getErrors());
+    }
+
+    @Test
+    public void testFailedPingEvictsSession() {
+        pool = McpClientPool.builder().pingTimeout(Duration.ofMillis(200)).build();
+        McpSyncClient first = pool.execute(KEY, this::newClient, Function.identity());
+        pool.maintain();
+        assertSame(first, pool.execute(KEY, this::newClient, Function.identity()));
+
+        transports.get(0).answerPing = false;
+        pool.maintain();
+        assertTrue(transports.get(0).closed);
+        assertEquals(1, pool.getStats().get(KEY).getPingFailures());
+        assertNotSame(first, pool.execute(KEY, this::newClient, Function.identity()));
+        assertEquals(2, pool.getStats().get(KEY).getConnects());
+    }
+
+    @Test
+    public void testSaturatedPoolFallsBackToOneOffClient() throws Exception {
+        pool = McpClientPool.builder().maxSize(1).maxConcurrentPerSession(1).build();
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<McpSyncClient> busy = executor.submit(() -> pool.execute(KEY, this::newClient, blockUntil(running, release)));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+
+        // 唯一的会话已饱和，不等待也不抛异常，而是临时新建客户端并在用完后关闭
+        McpSyncClient overflow = pool.execute(KEY, this::newClient, Function.identity());
+        release.countDown();
+        McpSyncClient pooled = busy.get(5, TimeUnit.SECONDS);
+        assertNotSame(pooled, overflow);
+        assertEquals(2, transports.size());
+        assertFalse(transports.get(0).closed);
+        assertTrue(transports.get(1).closed);
+
+        McpClientPool.ServerStats stats = pool.getStats().get(KEY);
+        assertEquals(1, stats.getOverflows());
+        assertEquals(2, stats.getRequests());
+        assertSame(pooled, pool.execute(KEY, this::newClient, Function.identity()));
+    }
+
+    private McpSyncClient newClient() {
+        FakeTransport transport = new FakeTransport();
+        transports.add(transport);
+        return McpClient.sync(transport).requestTimeout(Duration.ofSeconds(5)).build();
+    }
+
+    private static Function<McpSyncClient, McpSyncClient> blockUntil(CountDownLatch running, CountDownLatch release) {
+        return client -> {
+            running.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return client;
+        };
+    }
+
+    /**
+     * 应答 initialize 和 ping 请求的内存传输，answerPing 为 false 时 ping 不再应答
+     */
+    private static class FakeTransport implements McpClientTransport {
+
+        private final ObjectMapper objectMapper = new ObjectMapper();
+
+        private volatile Function<CompletableFuture<JSONRPCMessage>, CompletableFuture<JSONRPCMessage>> handler;
+
+        private volatile boolean answerPing = true;
+
+        private volatile boolean closed;
+
+        @Override
+        public CompletableFuture<Void> connect(
+                Function<CompletableFuture<JSONRPCMessage>, CompletableFuture<JSONRPCMessage>> handler) {
+            this.handler = handler;
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<Void> sendMessage(JSONRPCMessage message) {
+            if (message instanceof JSONRPCRequest) {
+                JSONRPCRequest request = (JSONRPCRequest) message;
+                Map<String, Object> result = new HashMap<>();
+                if (McpSchema.METHOD_INITIALIZE.equals(request.method())) {
+                    Map<String, Object> serverInfo = new HashMap<>();
+                    serverInfo.put("name", "fake");
+                    serverInfo.put("version", "1.0.0");
+                    result.put("protocolVersion", McpSchema.LATEST_PROTOCOL_VERSION);
+                    result.put("capabilities", new HashMap<>());
+                    result.put("serverInfo", serverInfo);
+                }
+                else if (McpSchema.METHOD_PING.equals(request.method()) && !answerPing) {
+                    return CompletableFuture.completedFuture(null);
+                }
+                handler.apply(CompletableFuture.completedFuture(
+                        new JSONRPCResponse(McpSchema.JSONRPC_VERSION, request.id(), result, null)));
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<Void> closeGracefully() {
+            closed = true;
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public <T> T unmarshalFrom(Object data, TypeReference<T> typeRef) {
+            return McpSchema.unmarshalFrom(objectMapper, data, typeRef);
+        }
+    }
+}
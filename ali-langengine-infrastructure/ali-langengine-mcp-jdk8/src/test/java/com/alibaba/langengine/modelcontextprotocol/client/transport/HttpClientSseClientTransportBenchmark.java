@@ -0,0 +1,200 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+package com.alibaba.langengine.modelcontextprotocol.client.transport;
+
+import com.alibaba.langengine.modelcontextprotocol.client.McpClient;
+import com.alibaba.langengine.modelcontextprotocol.client.McpSyncClient;
+import com.alibaba.langengine.modelcontextprotocol.spec.CallToolRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures {@code tools/call} latency through {@link HttpClientSseClientTransport} against
+ * a local stub MCP server ({@code com.sun.net.httpserver}) that accepts each POST with
+ * 202 and answers over the SSE stream, a batch with one array event. {@value #CALLERS} concurrent callers share one
+ * session; each round prints wall time, p50/p99/max latency, the number of POSTs and the
+ * number of distinct client sockets the server saw.
+ * <p>
+ * Run with {@code main}. Arguments: {@code batch} enables JSON-RPC batching; the system
+ * property {@code maxInFlight} overrides the number of concurrent POSTs.
+ */
+public class HttpClientSseClientTransportBenchmark {
+
+    private static final int CALLERS = 1000;
+
+    private static final int ROUNDS = 3;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final AtomicLong posts = new AtomicLong();
+
+    private static final Set<String> sockets = ConcurrentHashMap.newKeySet();
+
+    private static volatile OutputStream sse;
+
+    public static void main(String[] args) throws Exception {
+        ExecutorService handlers = Executors.newCachedThreadPool();
+        HttpServer server = startStubServer(handlers);
+        try {
+            HttpClientSseClientTransport.Builder builder =
+                    HttpClientSseClientTransport.builder("http://127.0.0.1:" + server.getAddress().getPort())
+                            .batching(Arrays.asList(args).contains("batch"));
+            Integer maxInFlight = Integer.getInteger("maxInFlight");
+            if (maxInFlight != null) {
+                builder.maxInFlight(maxInFlight);
+            }
+            McpSyncClient client = McpClient.sync(builder.build()).requestTimeout(Duration.ofSeconds(60)).build();
+            client.initialize();
+            ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+            try {
+                for (int round = 0; round < ROUNDS; round++) {
+                    run(round, client, callers);
+                }
+            } finally {
+                callers.shutdownNow();
+                client.close();
+            }
+        } finally {
+            server.stop(0);
+            // also interrupts the handler holding the SSE stream open
+            handlers.shutdownNow();
+        }
+    }
+
+    private static void run(int round, McpSyncClient client, ExecutorService callers) throws InterruptedException {
+        posts.set(0);
+        sockets.clear();
+        long[] latencies = new long[CALLERS];
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(CALLERS);
+        AtomicInteger errors = new AtomicInteger();
+        for (int i = 0; i < CALLERS; i++) {
+            final int index = i;
+            callers.execute(() -> {
+                try {
+                    start.await();
+                    long begin = System.nanoTime();
+                    client.callTool(new CallToolRequest("echo", new HashMap<>()));
+                    latencies[index] = System.nanoTime() - begin;
+                } catch (Exception e) {
+                    errors.incrementAndGet();
+                    latencies[index] = Long.MAX_VALUE;
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long wall = System.nanoTime() - begin;
+        Arrays.sort(latencies);
+        System.out.printf("round %d: wall=%dms p50=%.1fms p99=%.1fms max=%.1fms posts=%d sockets=%d errors=%d%n",
+                round, wall / 1_000_000, latencies[CALLERS / 2] / 1e6, latencies[CALLERS * 99 / 100] / 1e6,
+                latencies[CALLERS - 1] / 1e6, posts.get(), sockets.size(), errors.get());
+    }
+
+    private static HttpServer startStubServer(ExecutorService handlers) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.setExecutor(handlers);
+        server.createContext("/sse", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            sse = exchange.getResponseBody();
+            push("endpoint", "/message");
+            try {
+                Thread.sleep(Long.MAX_VALUE);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        server.createContext("/message", exchange -> {
+            posts.incrementAndGet();
+            sockets.add(exchange.getRemoteAddress().toString());
+            Object body = OBJECT_MAPPER.readValue(readAll(exchange.getRequestBody()), Object.class);
+            exchange.sendResponseHeaders(202, -1);
+            exchange.close();
+            if (body instanceof List) {
+                List<Object> replies = new ArrayList<>();
+                for (Object message : (List<?>) body) {
+                    Map<String, Object> reply = reply((Map<?, ?>) message);
+                    if (reply != null) {
+                        replies.add(reply);
+                    }
+                }
+                push("message", OBJECT_MAPPER.writeValueAsString(replies));
+            } else {
+                Map<String, Object> reply = reply((Map<?, ?>) body);
+                if (reply != null) {
+                    push("message", OBJECT_MAPPER.writeValueAsString(reply));
+                }
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    private static Map<String, Object> reply(Map<?, ?> request) {
+        if (!request.containsKey("id")) {
+            return null;
+        }
+        Map<String, Object> result = new HashMap<>();
+        Object method = request.get("method");
+        if ("initialize".equals(method)) {
+            Map<String, Object> serverInfo = new HashMap<>();
+            serverInfo.put("name", "stub");
+            serverInfo.put("version", "1.0.0");
+            result.put("protocolVersion", "2024-11-05");
+            result.put("capabilities", new HashMap<>());
+            result.put("serverInfo", serverInfo);
+        } else if ("tools/call".equals(method)) {
+            Map<String, Object> content = new HashMap<>();
+            content.put("type", "text");
+            content.put("text", "ok");
+            result.put("content", Collections.singletonList(content));
+            result.put("isError", false);
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("jsonrpc", "2.0");
+        response.put("id", request.get("id"));
+        response.put("result", result);
+        return response;
+    }
+
+    private static synchronized void push(String event, String data) throws IOException {
+        sse.write(("event: " + event + "\ndata: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+        sse.flush();
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,176 @@
+package com.alibaba.langengine.modelcontextprotocol.client.transport;
+
+import com.alibaba.langengine.modelcontextprotocol.client.McpClient;
+import com.alibaba.langengine.modelcontextprotocol.client.McpSyncClient;
+import com.alibaba.langengine.modelcontextprotocol.spec.CallToolRequest;
+import com.alibaba.langengine.modelcontextprotocol.spec.CallToolResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HttpClientSseClientTransportTest {
+
+    private static final int CALLERS = 20;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ExecutorService handlers = Executors.newCachedThreadPool();
+
+    private final ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+
+    private final AtomicInteger arrayReplies = new AtomicInteger();
+
+    private volatile OutputStream sse;
+
+    private HttpServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        server = startStubServer();
+    }
+
+    @After
+    public void tearDown() {
+        callers.shutdownNow();
+        server.stop(0);
+        handlers.shutdownNow();
+    }
+
+    @Test
+    public void testBatchAnsweredWithArray() throws Exception {
+        // 单个发送线程，排队的请求会合并成批量请求，服务端按规范以数组应答
+        HttpClientSseClientTransport transport = HttpClientSseClientTransport
+                .builder("http://127.0.0.1:" + server.getAddress().getPort())
+                .maxInFlight(1)
+                .batching(true)
+                .build();
+        McpSyncClient client = McpClient.sync(transport).requestTimeout(Duration.ofSeconds(10)).build();
+        try {
+            client.initialize();
+            List<Future<CallToolResult>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(callers.submit(() -> client.callTool(new CallToolRequest("echo", new HashMap<>()))));
+            }
+            for (Future<CallToolResult> result : results) {
+                assertEquals(Boolean.FALSE, result.get(10, TimeUnit.SECONDS).isError());
+            }
+            assertTrue(arrayReplies.get() > 0);
+        }
+        finally {
+            client.close();
+        }
+    }
+
+    private HttpServer startStubServer() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 64);
+        server.setExecutor(handlers);
+        server.createContext("/sse", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            sse = exchange.getResponseBody();
+            push("endpoint", "/message");
+            try {
+                Thread.sleep(Long.MAX_VALUE);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        server.createContext("/message", exchange -> {
+            Object body = objectMapper.readValue(readAll(exchange.getRequestBody()), Object.class);
+            try {
+                // 放慢应答，让后续请求在客户端排队
+                Thread.sleep(50);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(202, -1);
+            exchange.close();
+            if (body instanceof List) {
+                List<Object> replies = new ArrayList<>();
+                for (Object message : (List<?>) body) {
+                    Map<String, Object> reply = reply((Map<?, ?>) message);
+                    if (reply != null) {
+                        replies.add(reply);
+                    }
+                }
+                arrayReplies.incrementAndGet();
+                push("message", objectMapper.writeValueAsString(replies));
+            }
+            else {
+                Map<String, Object> reply = reply((Map<?, ?>) body);
+                if (reply != null) {
+                    push("message", objectMapper.writeValueAsString(reply));
+                }
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    private static Map<String, Object> reply(Map<?, ?> request) {
+        if (!request.containsKey("id")) {
+            return null;
+        }
+        Map<String, Object> result = new HashMap<>();
+        if ("initialize".equals(request.get("method"))) {
+            Map<String, Object> serverInfo = new HashMap<>();
+            serverInfo.put("name", "stub");
+            serverInfo.put("version", "1.0.0");
+            result.put("protocolVersion", "2024-11-05");
+            result.put("capabilities", new HashMap<>());
+            result.put("serverInfo", serverInfo);
+        }
+        else {
+            Map<String, Object> content = new HashMap<>();
+            content.put("type", "text");
+            content.put("text", "ok");
+            result.put("content", Collections.singletonList(content));
+            result.put("isError", false);
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("jsonrpc", "2.0");
+        response.put("id", request.get("id"));
+        response.put("result", result);
+        return response;
+    }
+
+    private synchronized void push(String event, String data) throws IOException {
+        sse.write(("event: " + event + "\ndata: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+        sse.flush();
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
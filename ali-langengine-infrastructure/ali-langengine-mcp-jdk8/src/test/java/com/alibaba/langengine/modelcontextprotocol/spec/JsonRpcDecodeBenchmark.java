@@ -0,0 +1,110 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ */
+package com.alibaba.langengine.modelcontextprotocol.spec;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compares decoding a tools/call response line and binding its result to
+ * {@link CallToolResult}:
+ * <ul>
+ * <li>tree: the previous path, String line to map, map to message, result map to
+ * CallToolResult with convertValue</li>
+ * <li>stream: UTF-8 line bytes through {@link JsonRpcMessageDecoder}, result bound from
+ * the {@link RawJson} slice</li>
+ * </ul>
+ * for a small (about 150 B) and a large (1 MB of text content) message. Run with
+ * {@code main}; it prints microseconds per message and MB/s.
+ */
+public class JsonRpcDecodeBenchmark {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final TypeReference<HashMap<String, Object>> MAP_TYPE_REF = new TypeReference<HashMap<String, Object>>() {
+    };
+
+    private static final TypeReference<CallToolResult> RESULT_TYPE_REF = new TypeReference<CallToolResult>() {
+    };
+
+    private static volatile Object sink;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("message\tdecoder\tbytes\tusPerMessage\tMBps");
+        run("small", message(64));
+        run("large", message(1024 * 1024));
+    }
+
+    private static void run(String name, String line) throws Exception {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        if (!tree(line).equals(stream(bytes))) {
+            throw new IllegalStateException("decoders disagree for " + name);
+        }
+        int iterations = Math.max(20, 200_000_000 / bytes.length);
+        for (int round = 0; round < 3; round++) {
+            boolean report = round == 2;
+            measure(name, "tree", bytes.length, iterations, report, () -> tree(line));
+            measure(name, "stream", bytes.length, iterations, report, () -> stream(bytes));
+        }
+    }
+
+    private static void measure(String name, String decoder, int size, int iterations, boolean report,
+            Decode decode) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink = decode.run();
+        }
+        long nanos = System.nanoTime() - start;
+        if (report) {
+            double perMessage = nanos / 1000.0 / iterations;
+            double mbps = (double) size * iterations / (1024 * 1024) / (nanos / 1e9);
+            System.out.printf("%s\t%s\t%d\t%.2f\t%.1f%n", name, decoder, size, perMessage, mbps);
+        }
+    }
+
+    private static String tree(String line) throws Exception {
+        Map<String, Object> map = OBJECT_MAPPER.readValue(line, MAP_TYPE_REF);
+        JSONRPCResponse response = OBJECT_MAPPER.convertValue(map, JSONRPCResponse.class);
+        CallToolResult result = OBJECT_MAPPER.convertValue(response.result(), RESULT_TYPE_REF);
+        return ((TextContent) result.content().get(0)).text();
+    }
+
+    private static String stream(byte[] bytes) throws Exception {
+        JSONRPCResponse response = (JSONRPCResponse) McpSchema.deserializeJsonRpcMessage(OBJECT_MAPPER, bytes, 0,
+                bytes.length);
+        CallToolResult result = McpSchema.unmarshalFrom(OBJECT_MAPPER, response.result(), RESULT_TYPE_REF);
+        return ((TextContent) result.content().get(0)).text();
+    }
+
+    private static String message(int textLength) throws Exception {
+        StringBuilder text = new StringBuilder(textLength);
+        for (int i = 0; text.length() < textLength; i++) {
+            text.append("line ").append(i).append(": progress \"ok\"\n");
+        }
+        text.setLength(textLength);
+        Map<String, Object> content = new HashMap<>();
+        content.put("type", "text");
+        content.put("text", text.toString());
+        Map<String, Object> result = new HashMap<>();
+        result.put("content", Collections.singletonList(content));
+        result.put("isError", false);
+        Map<String, Object> response = new HashMap<>();
+        response.put("jsonrpc", McpSchema.JSONRPC_VERSION);
+        response.put("id", "req-1");
+        response.put("result", result);
+        return OBJECT_MAPPER.writeValueAsString(response);
+    }
+
+    private interface Decode {
+
+        Object run() throws Exception;
+
+    }
+
+}
@@ -0,0 +1,182 @@
+package com.alibaba.langengine.modelcontextprotocol.spec;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JsonRpcMessageDecoderTest {
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE_REF = new TypeReference<Map<String, Object>>() {
+    };
+
+    private static final TypeReference<CallToolResult> RESULT_TYPE_REF = new TypeReference<CallToolResult>() {
+    };
+
+    private static final String TOOL_RESULT = "{\"content\":[{\"type\":\"text\",\"text\":\"line 1: \\\"ok\\\" 中文\\n\"}],"
+            + "\"isError\":false}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void testRequests() throws IOException {
+        assertDecodersAgree("{\"jsonrpc\":\"2.0\",\"method\":\"tools/call\",\"id\":\"req-1\","
+                + "\"params\":{\"name\":\"echo\",\"arguments\":{\"text\":\"a \\\"quoted\\\" \\u4e2d\\u6587\"}}}");
+        assertDecodersAgree("{\"jsonrpc\":\"2.0\",\"method\":\"tools/list\",\"id\":7}");
+        assertDecodersAgree("{ \"id\" : 8 , \"method\" : \"roots/list\" , \"jsonrpc\" : \"2.0\" , \"params\" : [1,\"two\"] }");
+        assertDecodersAgree("{\"jsonrpc\":\"2.0\",\"method\":\"ping\",\"id\":\"9\",\"params\":null,\"extra\":{\"ignored\":[]}}");
+    }
+
+    @Test
+    public void testNotifications() throws IOException {
+        assertDecodersAgree("{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"}");
+        assertDecodersAgree("{\"jsonrpc\":\"2.0\",\"method\":\"notifications/progress\","
+                + "\"params\":{\"progressToken\":\"t\",\"progress\":0.5}}");
+    }
+
+    @Test
+    public void testResponses() throws IOException {
+        assertDecodersAgree("{\"jsonrpc\":\"2.0\",\"id\":\"req-1\",\"result\":" + TOOL_RESULT + "}");
+        assertDecodersAgree("{\"jsonrpc\":\"2.0\",\"id\":2,\"result\":\"plain\"}");
+        assertDecodersAgree("{\"jsonrpc\":\"2.0\",\"id\":3,\"result\":[]}");
+        assertDecodersAgree("{\"jsonrpc\":\"2.0\",\"id\":4,\"error\":{\"code\":-32601,"
+                + "\"message\":\"Method not found\",\"data\":{\"method\":\"x\"}}}");
+        assertDecodersAgree("{\"jsonrpc\":\"2.0\",\"id\":\"5\",\"result\":{},\"error\":null}");
+    }
+
+    @Test
+    public void testErrorResponse() throws IOException {
+        JSONRPCResponse response = (JSONRPCResponse) lazy("{\"jsonrpc\":\"2.0\",\"id\":4,\"error\":{\"code\":-32601,"
+                + "\"message\":\"Method not found\"}}");
+        assertEquals(4, response.id());
+        assertNull(response.result());
+        assertEquals(-32601, response.error().code());
+        assertEquals("Method not found", response.error().message());
+
+        response = (JSONRPCResponse) lazy("{\"jsonrpc\":\"2.0\",\"id\":\"5\",\"result\":{},\"error\":null}");
+        assertEquals("5", response.id());
+        assertNull(response.error());
+    }
+
+    @Test
+    public void testIds() throws IOException {
+        // 数字 id 与字符串 id 必须保持原类型，否则响应对不上请求
+        assertEquals(7, ((JSONRPCRequest) lazy("{\"jsonrpc\":\"2.0\",\"method\":\"a\",\"id\":7}")).id());
+        assertEquals(1L << 40, ((JSONRPCRequest) lazy("{\"jsonrpc\":\"2.0\",\"method\":\"a\",\"id\":1099511627776}")).id());
+        assertEquals("7", ((JSONRPCRequest) lazy("{\"jsonrpc\":\"2.0\",\"method\":\"a\",\"id\":\"7\"}")).id());
+    }
+
+    @Test
+    public void testRawJsonUnmarshalFrom() throws IOException {
+        String json = "{\"jsonrpc\":\"2.0\",\"id\":\"req-1\",\"result\":" + TOOL_RESULT + "}";
+        JSONRPCResponse response = (JSONRPCResponse) lazy(json);
+        assertTrue(response.result() instanceof RawJson);
+        assertEquals(TOOL_RESULT, response.result().toString());
+
+        CallToolResult expected = McpSchema.unmarshalFrom(objectMapper,
+                ((JSONRPCResponse) tree(json)).result(), RESULT_TYPE_REF);
+        CallToolResult actual = McpSchema.unmarshalFrom(objectMapper, response.result(), RESULT_TYPE_REF);
+        assertEquals(expected, actual);
+        assertFalse(actual.isError());
+        assertEquals("line 1: \"ok\" 中文\n", ((TextContent) actual.content().get(0)).text());
+    }
+
+    @Test
+    public void testRawJsonConvertValue() throws IOException {
+        String json = "{\"jsonrpc\":\"2.0\",\"id\":\"req-1\",\"result\":" + TOOL_RESULT + "}";
+        JSONRPCResponse response = (JSONRPCResponse) lazy(json);
+        Map<String, Object> expected = objectMapper.readValue(TOOL_RESULT, MAP_TYPE_REF);
+
+        // convertValue 经 TokenBuffer 中转，RawJson 需要逐个复制 token
+        assertEquals(expected, objectMapper.convertValue(response.result(), MAP_TYPE_REF));
+        assertEquals(objectMapper.convertValue(expected, RESULT_TYPE_REF),
+                objectMapper.convertValue(response.result(), RESULT_TYPE_REF));
+
+        // 序列化原样写出，再次解析结果一致
+        String written = objectMapper.writeValueAsString(response);
+        assertEquals(objectMapper.readTree(json), objectMapper.readTree(written));
+    }
+
+    @Test
+    public void testBatch() throws IOException {
+        byte[] bytes = ("[{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":" + TOOL_RESULT + "},"
+                + "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"},"
+                + "{\"jsonrpc\":\"2.0\",\"id\":\"2\",\"error\":{\"code\":-32603,\"message\":\"failed\"}}]")
+                .getBytes(StandardCharsets.UTF_8);
+        List<JSONRPCMessage> messages = JsonRpcMessageDecoder.decodeAll(objectMapper, bytes, 0, bytes.length, true);
+        assertEquals(3, messages.size());
+        assertEquals(1, ((JSONRPCResponse) messages.get(0)).id());
+        assertEquals(objectMapper.readValue(TOOL_RESULT, RESULT_TYPE_REF),
+                McpSchema.unmarshalFrom(objectMapper, ((JSONRPCResponse) messages.get(0)).result(), RESULT_TYPE_REF));
+        assertEquals("notifications/initialized", ((JSONRPCNotification) messages.get(1)).method());
+        assertEquals(-32603, ((JSONRPCResponse) messages.get(2)).error().code());
+    }
+
+    @Test
+    public void testNotAMessage() throws IOException {
+        for (String json : new String[]{"{\"jsonrpc\":\"2.0\",\"id\":1}", "[]", "\"text\""}) {
+            byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+            try {
+                JsonRpcMessageDecoder.decode(objectMapper, bytes, 0, bytes.length, true);
+                fail(json);
+            }
+            catch (IllegalArgumentException expected) {
+                // 不是 JSON-RPC 消息
+            }
+        }
+    }
+
+    /**
+     * 延迟解析（bytes）、即时解析（String）与此前先转 map 的解析，结果必须一致
+     */
+    private void assertDecodersAgree(String json) throws IOException {
+        JSONRPCMessage expected = tree(json);
+        JSONRPCMessage eager = JsonRpcMessageDecoder.decode(objectMapper, json);
+        JSONRPCMessage lazy = lazy(json);
+        for (JSONRPCMessage actual : new JSONRPCMessage[]{eager, lazy}) {
+            assertEquals(json, expected.getClass(), actual.getClass());
+            assertEquals(json, id(expected), id(actual));
+            assertEquals(json, objectMapper.valueToTree(expected), objectMapper.valueToTree(actual));
+        }
+        assertEquals(json, expected, eager);
+    }
+
+    private JSONRPCMessage lazy(String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        return JsonRpcMessageDecoder.decode(objectMapper, bytes, 0, bytes.length, true);
+    }
+
+    /**
+     * 此前 McpSchema.deserializeJsonRpcMessage 的做法：先读成 map，按键判断类型后 convertValue
+     */
+    private JSONRPCMessage tree(String json) throws IOException {
+        Map<String, Object> map = objectMapper.readValue(json, MAP_TYPE_REF);
+        if (map.containsKey("method") && map.containsKey("id")) {
+            return objectMapper.convertValue(map, JSONRPCRequest.class);
+        }
+        else if (map.containsKey("method")) {
+            return objectMapper.convertValue(map, JSONRPCNotification.class);
+        }
+        else if (map.containsKey("result") || map.containsKey("error")) {
+            return objectMapper.convertValue(map, JSONRPCResponse.class);
+        }
+        throw new IllegalArgumentException("Cannot deserialize JSONRPCMessage: " + json);
+    }
+
+    private static Object id(JSONRPCMessage message) {
+        if (message instanceof JSONRPCRequest) {
+            return ((JSONRPCRequest) message).id();
+        }
+        return message instanceof JSONRPCResponse ? ((JSONRPCResponse) message).id() : null;
+    }
+}
@@ -33,6 +33,7 @@ import com.alibaba.langengine.mcp.spec.ClientMcpTransport;
 import com.alibaba.langengine.mcp.spec.JSONRPCMessage;
 import com.alibaba.langengine.mcp.spec.McpJsonUtil;
 import com.alibaba.langengine.mcp.util.Assert;
+import com.alibaba.langengine.mcp.util.JsonLineReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
@@ -256,11 +257,14 @@ public class StdioClientTransport implements ClientMcpTransport {
      */
     private void startInboundProcessing() {
         this.inboundScheduler.schedule(() -> {
-            try (BufferedReader processReader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                String line;
+            try (JsonLineReader processReader = new JsonLineReader(process.getInputStream())) {
+                byte[] line;
                 while (!isClosing && (line = processReader.readLine()) != null) {
+                    if (line.length == 0) {
+                        continue;
+                    }
                     try {
-                        JSONRPCMessage message = McpJsonUtil.deserializeJsonRpcMessage(line);
+                        JSONRPCMessage message = McpJsonUtil.deserializeJsonRpcMessage(line, 0, line.length);
                         if (!this.inboundSink.tryEmitNext(message).isSuccess()) {
                             if (!isClosing) {
                                 logger.error("Failed to enqueue inbound message: {}", message);
@@ -270,7 +274,8 @@ public class StdioClientTransport implements ClientMcpTransport {
                     }
                     catch (Exception e) {
                         if (!isClosing) {
-                            logger.error("Error processing inbound message for line: " + line, e);
+                            logger.error("Error processing inbound message for line: "
+                                    + new String(line, StandardCharsets.UTF_8), e);
                         }
                         break;
                     }
@@ -395,7 +400,6 @@ public class StdioClientTransport implements ClientMcpTransport {
     @Override
     public <T> T unmarshalFrom(Object data, TypeReference<T> typeRef) {
 //        return this.objectMapper.convertValue(data, typeRef);
-        String json = JSON.toJSONString(data);
-        return JSON.parseObject(json, typeRef);
+        return McpJsonUtil.unmarshalFrom(data, typeRef);
     }
 }
\ No newline at end of file
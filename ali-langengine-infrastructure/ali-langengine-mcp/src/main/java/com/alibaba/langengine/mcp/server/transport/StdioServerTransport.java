@@ -21,6 +21,7 @@ import com.alibaba.fastjson.TypeReference;
 import com.alibaba.langengine.mcp.spec.JSONRPCMessage;
 import com.alibaba.langengine.mcp.spec.McpJsonUtil;
 import com.alibaba.langengine.mcp.spec.ServerMcpTransport;
+import com.alibaba.langengine.mcp.util.JsonLineReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
@@ -133,18 +134,21 @@ public class StdioServerTransport implements ServerMcpTransport {
 	private void startInboundProcessing() {
 		this.inboundScheduler.schedule(() -> {
 			inboundReady.tryEmitValue(null);
-			BufferedReader reader = null;
+			JsonLineReader reader = null;
 			try {
-				reader = new BufferedReader(new InputStreamReader(inputStream));
+				reader = new JsonLineReader(inputStream);
 				while (!isClosing) {
 					try {
-						String line = reader.readLine();
+						byte[] line = reader.readLine();
 						if (line == null || isClosing) {
 							break;
 						}
+						if (line.length == 0) {
+							continue;
+						}
 
 						try {
-							JSONRPCMessage message = McpJsonUtil.deserializeJsonRpcMessage(line);
+							JSONRPCMessage message = McpJsonUtil.deserializeJsonRpcMessage(line, 0, line.length);
 							if (!this.inboundSink.tryEmitNext(message).isSuccess()) {
 								logIfNotClosing("Failed to enqueue message");
 								break;
@@ -251,8 +255,7 @@ public class StdioServerTransport implements ServerMcpTransport {
 	@Override
 	public <T> T unmarshalFrom(Object data, TypeReference<T> typeRef) {
 //		return this.objectMapper.convertValue(data, typeRef);
-		String json = JSON.toJSONString(data);
-		return JSON.parseObject(json, typeRef);
+		return McpJsonUtil.unmarshalFrom(data, typeRef);
 	}
 
 	private void logIfNotClosing(String message, Exception e) {
@@ -0,0 +1,361 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.langengine.mcp.spec;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONException;
+import com.alibaba.fastjson.JSONObject;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decodes a JSON-RPC message in a single pass over its UTF-8 bytes.
+ *
+ * <p>
+ * Only the envelope is parsed: {@code jsonrpc}, {@code method} and {@code id} are read
+ * directly from the bytes, and the message type is decided from the fields that were seen.
+ * Object and array {@code params}/{@code result} values are skipped over and, when
+ * decoding lazily, kept as {@link RawJson} slices of the input that are parsed once, into
+ * the type the handler needs, by {@link McpJsonUtil#unmarshalFrom}. Otherwise they are
+ * parsed into a JSONObject or JSONArray as before.
+ *
+ * <p>
+ * Keys are compared byte by byte, so a message with an escaped key, or with an
+ * {@code error} that is not a well-formed error object or null, is handed to the full
+ * parser ({@link #parse(String)}) instead.
+ */
+public final class JsonRpcMessageDecoder {
+
+    private static final byte[] JSONRPC = "jsonrpc".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] METHOD = "method".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] ID = "id".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] PARAMS = "params".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] RESULT = "result".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] ERROR = "error".getBytes(StandardCharsets.US_ASCII);
+
+    private final byte[] bytes;
+
+    private final int start;
+
+    private final int end;
+
+    private final boolean lazy;
+
+    private int pos;
+
+    private JsonRpcMessageDecoder(byte[] bytes, int offset, int length, boolean lazy) {
+        if (offset < 0 || length < 0 || offset + length > bytes.length) {
+            throw new IndexOutOfBoundsException("offset " + offset + ", length " + length + ", size " + bytes.length);
+        }
+        this.bytes = bytes;
+        this.start = offset;
+        this.end = offset + length;
+        this.lazy = lazy;
+        this.pos = offset;
+    }
+
+    /**
+     * Decodes a message.
+     *
+     * @param bytes  the buffer holding the message; with {@code lazy} set it must not be
+     *               modified afterwards since the message keeps slices of it
+     * @param offset the offset of the message in the buffer
+     * @param length the length of the message in bytes
+     * @param lazy   whether to keep object and array params and result as {@link RawJson}
+     * @return the decoded message
+     * @throws JSONException            if the input is not valid JSON
+     * @throws IllegalArgumentException if the JSON is not a JSON-RPC message
+     */
+    public static JSONRPCMessage decode(byte[] bytes, int offset, int length, boolean lazy) {
+        return new JsonRpcMessageDecoder(bytes, offset, length, lazy).decode();
+    }
+
+    /**
+     * Decodes a message with the full parser: the whole text is parsed into a JSONObject
+     * and the envelope fields are read from it.
+     *
+     * @param jsonText the message
+     * @return the decoded message
+     * @throws JSONException            if the input is not valid JSON
+     * @throws IllegalArgumentException if the JSON is not a JSON-RPC message or its error is
+     *                                  not an error object
+     */
+    public static JSONRPCMessage parse(String jsonText) {
+        JSONObject map = JSON.parseObject(jsonText);
+        String jsonrpc = map.getString("jsonrpc");
+
+        // Determine message type based on specific JSON structure
+        if (map.containsKey("method") && map.containsKey("id")) {
+            return new JSONRPCRequest(jsonrpc, map.getString("method"), map.getString("id"), map.get("params"));
+        } else if (map.containsKey("method") && !map.containsKey("id")) {
+            return new JSONRPCNotification(jsonrpc, map.getString("method"), map.get("params"));
+        } else if (map.containsKey("result") || map.containsKey("error")) {
+            Object error = map.get("error");
+            if (error != null && !(error instanceof JSONObject)) {
+                throw new IllegalArgumentException("Invalid JSON-RPC error: " + jsonText);
+            }
+            return new JSONRPCResponse(jsonrpc, map.getString("id"), map.get("result"), toError((JSONObject) error));
+        }
+
+        throw new IllegalArgumentException("Cannot deserialize JSONRPCMessage: " + jsonText);
+    }
+
+    private static JSONRPCError toError(JSONObject error) {
+        if (error == null) {
+            return null;
+        }
+        return new JSONRPCError(error.getInteger("code"), error.getString("message"), error.get("data"));
+    }
+
+    private JSONRPCMessage decode() {
+        String jsonrpc = null;
+        String method = null;
+        String id = null;
+        Object params = null;
+        Object result = null;
+        JSONRPCError error = null;
+        boolean hasMethod = false;
+        boolean hasId = false;
+        boolean hasResult = false;
+        boolean hasError = false;
+
+        skipWhitespace();
+        expect('{');
+        skipWhitespace();
+        if (peek() == '}') {
+            pos++;
+        } else {
+            while (true) {
+                skipWhitespace();
+                int keyStart = pos;
+                skipString();
+                int keyEnd = pos;
+                if (hasEscape(keyStart, keyEnd)) {
+                    return parse(text(start, end));
+                }
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+                int valueStart = pos;
+                skipValue();
+                int valueEnd = pos;
+
+                if (isKey(keyStart, keyEnd, JSONRPC)) {
+                    jsonrpc = string(valueStart, valueEnd);
+                } else if (isKey(keyStart, keyEnd, METHOD)) {
+                    hasMethod = true;
+                    method = string(valueStart, valueEnd);
+                } else if (isKey(keyStart, keyEnd, ID)) {
+                    hasId = true;
+                    id = string(valueStart, valueEnd);
+                } else if (isKey(keyStart, keyEnd, PARAMS)) {
+                    params = value(valueStart, valueEnd);
+                } else if (isKey(keyStart, keyEnd, RESULT)) {
+                    hasResult = true;
+                    result = value(valueStart, valueEnd);
+                } else if (isKey(keyStart, keyEnd, ERROR)) {
+                    byte c = bytes[valueStart];
+                    if (c != '{' && c != 'n') {
+                        return parse(text(start, end));
+                    }
+                    hasError = true;
+                    try {
+                        error = error(valueStart, valueEnd);
+                    } catch (RuntimeException e) {
+                        // e.g. a code that is not a number
+                        return parse(text(start, end));
+                    }
+                }
+
+                skipWhitespace();
+                byte c = next();
+                if (c == '}') {
+                    break;
+                }
+                if (c != ',') {
+                    throw syntaxError("expect ',' or '}'");
+                }
+            }
+        }
+        skipWhitespace();
+        if (pos != end) {
+            throw syntaxError("unexpected content after message");
+        }
+
+        if (hasMethod && hasId) {
+            return new JSONRPCRequest(jsonrpc, method, id, params);
+        } else if (hasMethod) {
+            return new JSONRPCNotification(jsonrpc, method, params);
+        } else if (hasResult || hasError) {
+            return new JSONRPCResponse(jsonrpc, id, result, error);
+        }
+        throw new IllegalArgumentException("Cannot deserialize JSONRPCMessage: " + text(start, end));
+    }
+
+    /**
+     * Reads a scalar field as a String: string contents, the text of a number or boolean,
+     * or null.
+     */
+    private String string(int from, int to) {
+        byte c = bytes[from];
+        if (c == '"') {
+            for (int i = from + 1; i < to - 1; i++) {
+                if (bytes[i] == '\\') {
+                    return JSON.parseObject(bytes, from, to - from, StandardCharsets.UTF_8, String.class);
+                }
+            }
+            return new String(bytes, from + 1, to - from - 2, StandardCharsets.UTF_8);
+        }
+        if (c == 'n') {
+            return null;
+        }
+        if (c == '{' || c == '[') {
+            return text(from, to);
+        }
+        return new String(bytes, from, to - from, StandardCharsets.US_ASCII);
+    }
+
+    private Object value(int from, int to) {
+        byte c = bytes[from];
+        if (lazy && (c == '{' || c == '[')) {
+            return new RawJson(bytes, from, to - from);
+        }
+        return JSON.parseObject(bytes, from, to - from, StandardCharsets.UTF_8, Object.class);
+    }
+
+    private JSONRPCError error(int from, int to) {
+        return toError(JSON.parseObject(bytes, from, to - from, StandardCharsets.UTF_8, JSONObject.class));
+    }
+
+    private boolean hasEscape(int from, int to) {
+        for (int i = from + 1; i < to - 1; i++) {
+            if (bytes[i] == '\\') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isKey(int from, int to, byte[] key) {
+        // from and to include the quotes
+        if (to - from - 2 != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (bytes[from + 1 + i] != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Moves past one JSON value without interpreting it. Containers are only checked for
+     * balanced brackets; their content is validated when the slice is parsed.
+     */
+    private void skipValue() {
+        byte c = peek();
+        if (c == '"') {
+            skipString();
+        } else if (c == '{' || c == '[') {
+            int depth = 0;
+            while (pos < end) {
+                c = bytes[pos];
+                if (c == '"') {
+                    skipString();
+                    continue;
+                }
+                pos++;
+                if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    if (--depth == 0) {
+                        return;
+                    }
+                }
+            }
+            throw syntaxError("unclosed " + (char) bytes[pos - 1]);
+        } else {
+            int from = pos;
+            while (pos < end) {
+                c = bytes[pos];
+                if (c == ',' || c == '}' || c == ']' || c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+                    break;
+                }
+                pos++;
+            }
+            if (pos == from) {
+                throw syntaxError("expect value");
+            }
+        }
+    }
+
+    private void skipString() {
+        expect('"');
+        while (pos < end) {
+            byte c = bytes[pos++];
+            if (c == '\\') {
+                pos++;
+            } else if (c == '"') {
+                return;
+            }
+        }
+        throw syntaxError("unclosed string");
+    }
+
+    private void skipWhitespace() {
+        while (pos < end) {
+            byte c = bytes[pos];
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                return;
+            }
+            pos++;
+        }
+    }
+
+    private byte peek() {
+        if (pos >= end) {
+            throw syntaxError("unexpected end of message");
+        }
+        return bytes[pos];
+    }
+
+    private byte next() {
+        byte c = peek();
+        pos++;
+        return c;
+    }
+
+    private void expect(char c) {
+        if (next() != c) {
+            pos--;
+            throw syntaxError("expect '" + c + "'");
+        }
+    }
+
+    private JSONException syntaxError(String message) {
+        return new JSONException(message + " at " + (pos - start) + ": " + text(start, end));
+    }
+
+    private String text(int from, int to) {
+        return new String(bytes, from, to - from, StandardCharsets.UTF_8);
+    }
+}
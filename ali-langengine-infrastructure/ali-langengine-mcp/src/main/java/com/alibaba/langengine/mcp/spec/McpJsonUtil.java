@@ -17,26 +17,42 @@ package com.alibaba.langengine.mcp.spec;
 
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONException;
-import com.alibaba.fastjson.JSONObject;
+import com.alibaba.fastjson.TypeReference;
 import com.alibaba.langengine.mcp.spec.schema.JsonSchema;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 public class McpJsonUtil {
 
     public static JSONRPCMessage deserializeJsonRpcMessage(String jsonText) throws IOException {
-        JSONObject map = JSON.parseObject(jsonText);
+        byte[] bytes = jsonText.getBytes(StandardCharsets.UTF_8);
+        return JsonRpcMessageDecoder.decode(bytes, 0, bytes.length, false);
+    }
 
-        // Determine message type based on specific JSON structure
-        if (map.containsKey("method") && map.containsKey("id")) {
-            return map.toJavaObject(JSONRPCRequest.class);
-        } else if (map.containsKey("method") && !map.containsKey("id")) {
-            return map.toJavaObject(JSONRPCNotification.class);
-        } else if (map.containsKey("result") || map.containsKey("error")) {
-            return map.toJavaObject(JSONRPCResponse.class);
-        }
+    /**
+     * Decodes a message from UTF-8 bytes in a single pass. Object and array params and
+     * results are kept as {@link RawJson} slices of {@code bytes} until they are
+     * unmarshalled with {@link #unmarshalFrom(Object, TypeReference)}.
+     *
+     * @param bytes  the buffer holding the message, which must not be modified afterwards
+     * @param offset the offset of the message in the buffer
+     * @param length the length of the message in bytes
+     */
+    public static JSONRPCMessage deserializeJsonRpcMessage(byte[] bytes, int offset, int length) {
+        return JsonRpcMessageDecoder.decode(bytes, offset, length, true);
+    }
 
-        throw new IllegalArgumentException("Cannot deserialize JSONRPCMessage: " + jsonText);
+    /**
+     * Converts the params or result of a decoded message into the given type.
+     * {@link RawJson} values are parsed directly from their bytes.
+     */
+    public static <T> T unmarshalFrom(Object data, TypeReference<T> typeRef) {
+        if (data instanceof RawJson) {
+            return ((RawJson) data).toJavaObject(typeRef.getType());
+        }
+        String json = JSON.toJSONString(data);
+        return JSON.parseObject(json, typeRef);
     }
 
     public static JsonSchema parseSchema(String schema) {
@@ -0,0 +1,112 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.langengine.mcp.spec;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONAware;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An unparsed JSON value, kept as a slice of the UTF-8 bytes of the message it was read
+ * from. {@link JsonRpcMessageDecoder} leaves object and array {@code params} and
+ * {@code result} values in this form so that they are parsed only once, directly into
+ * the type a handler asks for through {@link McpJsonUtil#unmarshalFrom}.
+ *
+ * <p>
+ * Serializing a RawJson with fastjson writes the original JSON unchanged.
+ */
+public final class RawJson implements JSONAware {
+
+    private final byte[] bytes;
+
+    private final int offset;
+
+    private final int length;
+
+    public RawJson(byte[] bytes, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > bytes.length) {
+            throw new IndexOutOfBoundsException("offset " + offset + ", length " + length + ", size " + bytes.length);
+        }
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Parses the slice into the given type.
+     */
+    public <T> T toJavaObject(Type type) {
+        return JSON.parseObject(bytes, offset, length, StandardCharsets.UTF_8, type);
+    }
+
+    /**
+     * Parses the slice into fastjson's generic representation, a JSONObject or JSONArray.
+     */
+    public Object parse() {
+        return toJavaObject(Object.class);
+    }
+
+    /**
+     * @return the length of the JSON text in bytes
+     */
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public String toJSONString() {
+        return toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RawJson)) {
+            return false;
+        }
+        RawJson that = (RawJson) o;
+        if (length != that.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (bytes[offset + i] != that.bytes[that.offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = 1;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            h = 31 * h + bytes[i];
+        }
+        return h;
+    }
+
+    /**
+     * @return the JSON text
+     */
+    @Override
+    public String toString() {
+        return new String(bytes, offset, length, StandardCharsets.UTF_8);
+    }
+}
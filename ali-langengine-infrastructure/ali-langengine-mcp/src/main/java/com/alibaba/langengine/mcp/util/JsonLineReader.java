@@ -0,0 +1,126 @@
+/*
+ * Copyright 2024-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.langengine.mcp.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Reads newline-delimited messages from a byte stream as UTF-8 bytes, without decoding
+ * them into Strings.
+ *
+ * <p>
+ * Each line is returned in its own exactly sized array, so it can be kept by the decoded
+ * message. The trailing {@code \n} and an optional {@code \r} before it are removed.
+ */
+public final class JsonLineReader implements Closeable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final InputStream in;
+
+    private byte[] buffer;
+
+    /**
+     * Start of the unread data in the buffer.
+     */
+    private int position;
+
+    /**
+     * End of the valid data in the buffer.
+     */
+    private int limit;
+
+    public JsonLineReader(InputStream in) {
+        this(in, DEFAULT_BUFFER_SIZE);
+    }
+
+    public JsonLineReader(InputStream in, int bufferSize) {
+        Assert.notNull(in, "InputStream must not be null");
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize must be positive");
+        }
+        this.in = in;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Reads the next line.
+     * @return the bytes of the line without its terminator, or {@code null} at the end
+     * of the stream
+     * @throws IOException if reading fails
+     */
+    public byte[] readLine() throws IOException {
+        int scanned = position;
+        while (true) {
+            for (int i = scanned; i < limit; i++) {
+                if (buffer[i] == '\n') {
+                    byte[] line = copyLine(position, i);
+                    position = i + 1;
+                    return line;
+                }
+            }
+            int pending = limit - position;
+            if (!fill()) {
+                if (position == limit) {
+                    return null;
+                }
+                byte[] line = copyLine(position, limit);
+                position = limit;
+                return line;
+            }
+            // fill() may have moved the unread data to the start of the buffer
+            scanned = position + pending;
+        }
+    }
+
+    private byte[] copyLine(int start, int end) {
+        if (end > start && buffer[end - 1] == '\r') {
+            end--;
+        }
+        return Arrays.copyOfRange(buffer, start, end);
+    }
+
+    /**
+     * Reads more data, compacting or growing the buffer as needed.
+     * @return false at the end of the stream
+     */
+    private boolean fill() throws IOException {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        int n = in.read(buffer, limit, buffer.length - limit);
+        if (n < 0) {
+            return false;
+        }
+        limit += n;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.langengine.mcp.spec;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.alibaba.fastjson.TypeReference;
+import com.alibaba.langengine.mcp.spec.schema.tools.CallToolResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compares decoding a tools/call response line and binding its result to
+ * {@link CallToolResult}:
+ * <ul>
+ * <li>tree: the previous path, String line to JSONObject, JSONObject to message, result
+ * written back to a String and parsed into CallToolResult</li>
+ * <li>stream: UTF-8 line bytes through {@link JsonRpcMessageDecoder}, result parsed once
+ * from the {@link RawJson} slice</li>
+ * </ul>
+ * for a small (about 150 B) and a large (1 MB of text content) message. Run with
+ * {@code main}; it prints microseconds per message and MB/s.
+ */
+public class JsonRpcDecodeBenchmark {
+
+    private static final TypeReference<CallToolResult> RESULT_TYPE_REF = new TypeReference<CallToolResult>() {
+    };
+
+    private static volatile Object sink;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("message\tdecoder\tbytes\tusPerMessage\tMBps");
+        run("small", message(64));
+        run("large", message(1024 * 1024));
+    }
+
+    private static void run(String name, String line) throws Exception {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        if (!tree(line).equals(stream(bytes))) {
+            throw new IllegalStateException("decoders disagree for " + name);
+        }
+        int iterations = Math.max(20, 200_000_000 / bytes.length);
+        for (int round = 0; round < 3; round++) {
+            boolean report = round == 2;
+            measure(name, "tree", bytes.length, iterations, report, () -> tree(line));
+            measure(name, "stream", bytes.length, iterations, report, () -> stream(bytes));
+        }
+    }
+
+    private static void measure(String name, String decoder, int size, int iterations, boolean report,
+            Decode decode) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink = decode.run();
+        }
+        long nanos = System.nanoTime() - start;
+        if (report) {
+            double perMessage = nanos / 1000.0 / iterations;
+            double mbps = (double) size * iterations / (1024 * 1024) / (nanos / 1e9);
+            System.out.printf("%s\t%s\t%d\t%.2f\t%.1f%n", name, decoder, size, perMessage, mbps);
+        }
+    }
+
+    private static String tree(String line) {
+        JSONObject map = JSON.parseObject(line);
+        JSONRPCResponse response = map.toJavaObject(JSONRPCResponse.class);
+        CallToolResult result = JSON.parseObject(JSON.toJSONString(response.getResult()), RESULT_TYPE_REF);
+        return text(result);
+    }
+
+    private static String stream(byte[] bytes) throws Exception {
+        JSONRPCResponse response = (JSONRPCResponse) McpJsonUtil.deserializeJsonRpcMessage(bytes, 0, bytes.length);
+        CallToolResult result = McpJsonUtil.unmarshalFrom(response.getResult(), RESULT_TYPE_REF);
+        return text(result);
+    }
+
+    private static String text(CallToolResult result) {
+        return ((JSONArray) result.content()).getJSONObject(0).getString("text");
+    }
+
+    private static String message(int textLength) {
+        StringBuilder text = new StringBuilder(textLength);
+        for (int i = 0; text.length() < textLength; i++) {
+            text.append("line ").append(i).append(": progress \"ok\"\n");
+        }
+        text.setLength(textLength);
+        Map<String, Object> content = new HashMap<>();
+        content.put("type", "text");
+        content.put("text", text.toString());
+        Map<String, Object> result = new HashMap<>();
+        result.put("content", Collections.singletonList(content));
+        result.put("isError", false);
+        Map<String, Object> response = new HashMap<>();
+        response.put("jsonrpc", Schema.JSONRPC_VERSION);
+        response.put("id", "req-1");
+        response.put("result", result);
+        return JSON.toJSONString(response);
+    }
+
+    private interface Decode {
+
+        Object run() throws Exception;
+
+    }
+
+}
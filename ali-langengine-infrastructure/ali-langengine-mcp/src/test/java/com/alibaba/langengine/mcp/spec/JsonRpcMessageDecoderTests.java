@@ -0,0 +1,131 @@
+/**
+ * Copyright (C) 2024 AIDC-AI
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.langengine.mcp.spec;
+
+import com.alibaba.fastjson.JSON;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link JsonRpcMessageDecoder}: the byte scanner, eager and lazy, must decode
+ * every message exactly like the full parser.
+ */
+class JsonRpcMessageDecoderTests {
+
+	@Test
+	void testRequests() {
+		assertDecodersAgree("{\"jsonrpc\":\"2.0\",\"method\":\"tools/call\",\"id\":\"req-1\","
+				+ "\"params\":{\"name\":\"echo\",\"arguments\":{\"text\":\"a \\\"quoted\\\" \\u4e2d\\u6587 line\\n\"}}}");
+		assertDecodersAgree("{ \"id\" : \"2\" , \"method\" : \"roots/list\" , \"jsonrpc\" : \"2.0\" }");
+		assertDecodersAgree("{\"jsonrpc\":\"2.0\",\"method\":\"batch\",\"id\":\"3\",\"params\":[1,\"two\",{\"three\":[3]}]}");
+		assertDecodersAgree("{\"jsonrpc\":\"2.0\",\"method\":\"ping\",\"id\":\"4\",\"params\":null,\"extra\":{\"ignored\":[]}}");
+	}
+
+	@Test
+	void testResponses() {
+		assertDecodersAgree("{\"jsonrpc\":\"2.0\",\"id\":\"req-1\",\"result\":{\"content\":[{\"type\":\"text\","
+				+ "\"text\":\"}]{[\\\\\"}],\"isError\":false}}");
+		assertDecodersAgree("{\"jsonrpc\":\"2.0\",\"id\":\"2\",\"result\":\"plain\"}");
+		assertDecodersAgree("{\"jsonrpc\":\"2.0\",\"id\":\"3\",\"result\":[]}");
+		assertDecodersAgree("{\"jsonrpc\":\"2.0\",\"id\":\"4\",\"error\":{\"code\":-32601,"
+				+ "\"message\":\"Method not found\",\"data\":{\"method\":\"x\"}}}");
+		assertDecodersAgree("{\"jsonrpc\":\"2.0\",\"id\":\"5\",\"result\":{},\"error\":null}");
+	}
+
+	@Test
+	void testNotifications() {
+		assertDecodersAgree("{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"}");
+		assertDecodersAgree("{\"jsonrpc\":\"2.0\",\"method\":\"notifications/progress\","
+				+ "\"params\":{\"progressToken\":\"t\",\"progress\":0.5}}");
+	}
+
+	@Test
+	void testEscapedKeys() {
+		assertDecodersAgree("{\"jsonrpc\":\"2.0\",\"\\u006dethod\":\"ping\",\"id\":\"1\"}");
+		assertDecodersAgree("{\"jsonrpc\":\"2.0\",\"method\":\"ping\",\"i\\u0064\":\"2\"}");
+		assertDecodersAgree("{\"jsonrpc\":\"2.0\",\"id\":\"3\",\"\\u0065rror\":{\"code\":-32603,\"message\":\"failed\"}}");
+		assertDecodersAgree("{\"jsonrpc\":\"2.0\",\"id\":\"4\",\"r\\u0065sult\":{\"ok\":true}}");
+
+		// 转义的 method 不能被忽略，否则请求会被当成响应
+		byte[] bytes = "{\"jsonrpc\":\"2.0\",\"\\u006dethod\":\"ping\",\"id\":\"1\"}".getBytes(StandardCharsets.UTF_8);
+		assertThat(JsonRpcMessageDecoder.decode(bytes, 0, bytes.length, true)).isInstanceOf(JSONRPCRequest.class);
+	}
+
+	@Test
+	void testMalformedErrorsAreNotSuccesses() {
+		List<String> errors = Arrays.asList("\"boom\"", "5", "true", "[{\"code\":1}]",
+				"{\"code\":\"not a number\",\"message\":\"m\"}");
+		for (String error : errors) {
+			String json = "{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"error\":" + error + "}";
+			byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+			assertThatThrownBy(() -> JsonRpcMessageDecoder.parse(json)).as(json).isInstanceOf(RuntimeException.class);
+			assertThatThrownBy(() -> JsonRpcMessageDecoder.decode(bytes, 0, bytes.length, false)).as(json)
+				.isInstanceOf(RuntimeException.class);
+			assertThatThrownBy(() -> JsonRpcMessageDecoder.decode(bytes, 0, bytes.length, true)).as(json)
+				.isInstanceOf(RuntimeException.class);
+		}
+	}
+
+	private static void assertDecodersAgree(String json) {
+		String expected = describe(JsonRpcMessageDecoder.parse(json));
+		byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+		assertThat(describe(JsonRpcMessageDecoder.decode(bytes, 0, bytes.length, false))).as("eager: " + json)
+			.isEqualTo(expected);
+		assertThat(describe(JsonRpcMessageDecoder.decode(bytes, 0, bytes.length, true))).as("lazy: " + json)
+			.isEqualTo(expected);
+	}
+
+	private static String describe(JSONRPCMessage message) {
+		StringBuilder text = new StringBuilder(message.getClass().getSimpleName())
+			.append(" jsonrpc=").append(message.getJsonrpc());
+		if (message instanceof JSONRPCRequest) {
+			JSONRPCRequest request = (JSONRPCRequest) message;
+			text.append(" method=").append(request.getMethod())
+				.append(" id=").append(request.getId())
+				.append(" params=").append(json(request.getParams()));
+		}
+		else if (message instanceof JSONRPCNotification) {
+			JSONRPCNotification notification = (JSONRPCNotification) message;
+			text.append(" method=").append(notification.getMethod())
+				.append(" params=").append(json(notification.getParams()));
+		}
+		else {
+			JSONRPCResponse response = (JSONRPCResponse) message;
+			text.append(" id=").append(response.getId()).append(" result=").append(json(response.getResult()));
+			JSONRPCError error = response.getError();
+			if (error != null) {
+				text.append(" error=").append(error.getCode())
+					.append('/').append(error.getMessage())
+					.append('/').append(json(error.getData()));
+			}
+		}
+		return text.toString();
+	}
+
+	private static String json(Object value) {
+		if (value instanceof RawJson) {
+			value = ((RawJson) value).parse();
+		}
+		return JSON.toJSONString(value);
+	}
+
+}
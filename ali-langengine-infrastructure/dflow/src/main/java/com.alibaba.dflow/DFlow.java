@@ -16,7 +16,10 @@ import io.reactivex.functions.Function;
 
 import com.alibaba.dflow.InitEntry.Entry;
 import com.alibaba.dflow.InitEntry.RequestResender;
+import com.alibaba.dflow.config.ContextLogStoreInterface;
+import com.alibaba.dflow.config.DeltaContextStore;
 import com.alibaba.dflow.config.GlobalStoreInterface;
+import com.alibaba.dflow.config.LocalMessageChannel;
 import com.alibaba.dflow.config.RetryProtectedContentStoreInterface;
 import com.alibaba.dflow.config.RetryProtectedGlobalStoreInterface;
 import com.alibaba.dflow.config.StepHandler;
@@ -719,7 +722,8 @@ public abstract class DFlow<T> implements ValidClosure {
                 }
                 SimpleMessage message = new SimpleMessage(
                     msgId,
-                    name);
+                    name,
+                    traceId);
                 //此处没有先尝试找当前设置的消息。偷懒了，由于仅仅发生在内部转换以调用，几率少，少隔离一下问题不是特别大
                 return getMessageChannel().send(message);
             }
@@ -1026,22 +1030,34 @@ public abstract class DFlow<T> implements ValidClosure {
      * @param traceId
      */
     public void call(String traceId) throws RetryException, UserException {
+        call(traceId, null);
+    }
+
+    /**
+     * 同 {@link #call(String)}，current 为调用方刚读到或刚持久化的 context 时直接复用，省去一次读取和回放
+     *
+     * @param traceId
+     * @param current 为空时从存储读取
+     */
+    private void call(String traceId, ContextStack current) throws RetryException, UserException {
         DFlow.traceId.set(traceId);
         for (Pattern p : g_pattern) {
             if (p.matcher(traceId).find()) {
-                error(getOrCreateCurrent(traceId), new Exception("traceId is omitted by pattern:" + p.pattern()));
+                error(current != null ? current : getOrCreateCurrent(traceId),
+                    new Exception("traceId is omitted by pattern:" + p.pattern()));
                 return;
             }
         }
 
         //保护同一个节点同时处理，极端情况可能同时走过来，需保证代码自己幂等
-        ContextStack c = getStorage().getContext(traceId);
+        ContextStack c = current != null ? current : getStorage().getContext(traceId);
         if (c != null && c.getStack().peek() != null && STATUS_BEGIN.equals(c.getStack().peek().getStatus())) {
             logger.error("received duplicated call,already started:" + traceId + "@" + getIDName());
             return;
         }
 
-        ContextStack contextStack = getOrCreateCurrent(traceId);
+        //复用上面读到的context，新建的context不单独写入，随本步重建的栈一起持久化
+        ContextStack contextStack = c != null ? c : newContext(traceId);
         if (isLocal.get() != null && isLocal.get()) {
             contextStack.setLocal();
         }
@@ -1114,16 +1130,25 @@ public abstract class DFlow<T> implements ValidClosure {
      * @param traceId
      */
     private void triggerNext(String nextStepId, String traceId) throws RetryException, UserException {
+        triggerNext(nextStepId, traceId, null);
+    }
+
+    /**
+     * 同 {@link #triggerNext(String, String)}，persisted 为刚持久化、且已记录 nextStepId 的 context 时，
+     * 不再读取和写入存储，同步调用下一个节点时直接交给它
+     */
+    private void triggerNext(String nextStepId, String traceId, ContextStack persisted)
+        throws RetryException, UserException {
         getGlobalStorage().decr("Static-" + getIDName());
         if (nextStepId == null) {
-            ContextStack contextStack = getOrCreateCurrent(traceId);
+            ContextStack contextStack = persisted != null ? persisted : getOrCreateCurrent(traceId);
             contextStack.setFinished();
             InternalHelper.setNextStep(contextStack, "TERMINATED");
             getStorage().putContext(contextStack.getId(), contextStack);
             getStorage().expireContext(contextStack.getId());
             return;
         }
-        ContextStack stack = getStorage().getContext(traceId);
+        ContextStack stack = persisted != null ? persisted : getStorage().getContext(traceId);
         /*改到flatmap中做此逻辑
         //在异步模式且下一级flow已经初始化好的情况下一步调用，
         //if(!isAllInited(getIDName(),nextStepId)){
@@ -1139,13 +1164,14 @@ public abstract class DFlow<T> implements ValidClosure {
             logger.info("DFLow trigger nextMsg:" + msgId);
             SimpleMessage message = new SimpleMessage(
                 msgId,
-                JSON.toJSONString(new CallerMessage(traceId, nextStepId)));
+                JSON.toJSONString(new CallerMessage(traceId, nextStepId)),
+                traceId);
             if (!getMessageChannel(pipelineName).send(message)) {
                 logger.error("MQ send failed:" + traceId);
                 globalError(traceId, new Exception("MQ send fail"));
             }
             ;
-        } else {
+        } else if (persisted == null) {
             //记录下一次step
             InternalHelper.setNextStep(stack, nextStepId);
             getStorage().putContext(traceId, stack);
@@ -1160,14 +1186,15 @@ public abstract class DFlow<T> implements ValidClosure {
             }
             SimpleMessage message = new SimpleMessage(
                 msgId,
-                JSON.toJSONString(new CallerMessage(traceId, nextStepId)));
+                JSON.toJSONString(new CallerMessage(traceId, nextStepId)),
+                traceId);
             if (!getMessageChannel(pipelineName).send(message)) {
                 logger.error("MQ send failed:" + traceId);
                 globalError(traceId, new Exception("MQ send fail"));
             }
             ;
         } else {
-            STEPS.get(nextStepId).call(traceId);
+            STEPS.get(nextStepId).call(traceId, stack);
         }
     }
 
@@ -1220,7 +1247,7 @@ public abstract class DFlow<T> implements ValidClosure {
                 ;
             }
         } else {
-            flow.call(m.getTraceId());
+            flow.call(m.getTraceId(), contextStack);
         }
     }
 
@@ -1297,6 +1324,10 @@ public abstract class DFlow<T> implements ValidClosure {
      */
     protected void onReturn(ContextStack context, T t) throws RetryException, UserException {
         InternalHelper.setResultAndStatus(context, t, ContextStack.STATUS_END);
+        //下一个节点随结果一起写入，triggerNext 不用再读一遍、写一遍
+        if (nextStepId != null && !context.isNoStorage()) {
+            InternalHelper.setNextStep(context, nextStepId);
+        }
         //设好值后持久化，触发下一step
         getStorage().putContext(context.getId(), context);
 
@@ -1307,7 +1338,7 @@ public abstract class DFlow<T> implements ValidClosure {
         if (context.isNoStorage()) {
             return;
         }
-        triggerNext(nextStepId, context.getId());
+        triggerNext(nextStepId, context.getId(), context);
     }
 
     protected static void globalError(String traceId, Throwable t) {
@@ -1400,13 +1431,18 @@ public abstract class DFlow<T> implements ValidClosure {
     private ContextStack getOrCreateCurrent(String traceId, boolean forceCreate) throws PersistentException {
         ContextStack c = getStorage().getContext(traceId);
         if (c == null && forceCreate) {
-            c = new ContextStack();
-            c.setId(traceId);
+            c = newContext(traceId);
             getStorage().putContext(traceId, c);
         }
         return c;
     }
 
+    private static ContextStack newContext(String traceId) {
+        ContextStack c = new ContextStack();
+        c.setId(traceId);
+        return c;
+    }
+
     protected static String getCallingPosition() {
         StackTraceElement call = getCallingPositionOriginal();
         return (call == null) ? "" : call.toString();
@@ -1417,8 +1453,18 @@ public abstract class DFlow<T> implements ValidClosure {
         private MessageHeaders headers;
 
         public SimpleMessage(String id, String msg) {
+            this(id, msg, null);
+        }
+
+        /**
+         * @param traceId 写入消息头 TRACE_ID_HEADER, 本地通道据此保证同一 trace 的消息按序处理
+         */
+        public SimpleMessage(String id, String msg, String traceId) {
             HashMap map = new HashMap();
             map.put("KEYS", id);
+            if (traceId != null) {
+                map.put(LocalMessageChannel.TRACE_ID_HEADER, traceId);
+            }
             headers = new MessageHeaders(map);
             this.msg = msg;
         }
@@ -1549,66 +1595,50 @@ public abstract class DFlow<T> implements ValidClosure {
             }
         });
 
-        DFlow.setStorage(new ContextStoreInterface() {
+        DFlow.setStorage(new DeltaContextStore(new ContextLogStoreInterface() {
 
-            ConcurrentHashMap<String, String> m = new ConcurrentHashMap<>();
+            ConcurrentHashMap<String, List<String>> m = new ConcurrentHashMap<>();
 
             @Override
-            public ContextStack getContext(String s) {
-                String result = m.get(s);
-                if (result == null) {
+            public List<String> read(String s) {
+                List<String> records = m.get(s);
+                if (records == null) {
                     return null;
                 }
-                return ContextStack.rebuild(result);
-            }
-
-            @Override
-            public void putContext(String s, ContextStack contextStack) throws PersistentException {
-                m.put(s, contextStack.dump());
+                synchronized (records) {
+                    return new ArrayList<>(records);
+                }
             }
 
             @Override
-            public void expireContext(String traceId) {
-                m.remove(traceId);
+            public long append(String s, String record) {
+                List<String> records = m.computeIfAbsent(s, k -> new ArrayList<>());
+                synchronized (records) {
+                    records.add(record);
+                    return records.size();
+                }
             }
 
             @Override
-            public void removeContext(String s) {
-                m.remove(s);
+            public void reset(String s, String snapshot) {
+                List<String> records = new ArrayList<>();
+                records.add(snapshot);
+                m.put(s, records);
             }
-        });
-
-        DFlow.setSubscribableChannel(new org.springframework.messaging.SubscribableChannel() {
-
-            MessageHandler handler;
 
             @Override
-            public boolean send(Message<?> message) {
-                new Thread(new Runnable() {
-                    @Override
-                    public void run() {
-                        handler.handleMessage(message);
-                    }
-                }).start();
-                return true;
-            }
-
-            @Override
-            public boolean send(Message<?> message, long timeout) {
-                return send(message);
+            public void expire(String traceId) {
+                m.remove(traceId);
             }
 
             @Override
-            public boolean subscribe(MessageHandler messageHandler) {
-                handler = messageHandler;
-                return true;
+            public void remove(String s) {
+                m.remove(s);
             }
+        }));
 
-            @Override
-            public boolean unsubscribe(MessageHandler messageHandler) {
-                return true;
-            }
-        });
+        DFlow.setSubscribableChannel(new LocalMessageChannel(Runtime.getRuntime().availableProcessors(),
+            LocalMessageChannel.DEFAULT_LANE_CAPACITY));
 
         System.out.println("TestDFLow inited");
     }
@@ -0,0 +1,29 @@
+package com.alibaba.dflow.config;
+
+import java.util.List;
+
+/**
+ * 按 traceId 组织的追加日志存储, 供 {@link DeltaContextStore} 使用
+ * 第一条记录为完整快照, 其后为每步的增量; 可以直接映射到 redis list (LRANGE/RPUSH/DEL+RPUSH/EXPIRE/DEL)
+ */
+public interface ContextLogStoreInterface {
+    /**
+     * @return 该 traceId 的全部记录, 不存在时返回 null 或空列表
+     */
+    List<String> read(String traceId);
+
+    /**
+     * 追加一条增量记录
+     * @return 追加后的记录条数
+     */
+    long append(String traceId, String record);
+
+    /**
+     * 用一条完整快照替换该 traceId 的全部记录, 用于新建和压缩
+     */
+    void reset(String traceId, String snapshot);
+
+    void expire(String traceId);
+
+    void remove(String traceId);
+}
@@ -0,0 +1,63 @@
+package com.alibaba.dflow.config;
+
+import com.alibaba.dflow.PersistentException;
+import com.alibaba.dflow.internal.ContextStack;
+
+/**
+ * 增量持久化的 ContextStoreInterface
+ * 每步只追加新增/变化的 ContextNode 和变化的全局变量, 而不是重写整个 ContextStack;
+ * 日志条数超过 compactThreshold 时用完整快照替换, 控制读放大
+ *
+ * DFlow 每步的存储访问: 同步触发的下一步直接沿用刚持久化的 context, 不读取;
+ * 消息触发的一步只读取一次, 回放的记录数不超过 compactThreshold, 读取量与一份完整快照同量级.
+ * 读取不能与追加合并为一次 append-and-read: 消息只带 traceId, 这一步可能在另一台机器上执行, 执行前必须先取到当前状态,
+ * 而追加的内容要等这一步执行完才知道. 每步追加两次: 执行前的 BEGIN 状态要先落盘, 重复投递时靠它判重;
+ * 执行后的结果与下一步 id 一起写入
+ */
+public class DeltaContextStore implements ContextStoreInterface {
+    public static final int DEFAULT_COMPACT_THRESHOLD = 32;
+
+    private final ContextLogStoreInterface logStore;
+    private final int compactThreshold;
+
+    public DeltaContextStore(ContextLogStoreInterface logStore) {
+        this(logStore, DEFAULT_COMPACT_THRESHOLD);
+    }
+
+    public DeltaContextStore(ContextLogStoreInterface logStore, int compactThreshold) {
+        this.logStore = logStore;
+        this.compactThreshold = compactThreshold;
+    }
+
+    @Override
+    public ContextStack getContext(String traceId) {
+        return ContextStack.replay(traceId, logStore.read(traceId));
+    }
+
+    @Override
+    public void putContext(String key, ContextStack context) throws PersistentException {
+        String delta = context.dumpDelta(key);
+        if (delta == null) {
+            logStore.reset(key, context.dump());
+        } else if (delta.isEmpty()) {
+            return;
+        } else {
+            long size = logStore.append(key, delta);
+            //日志已过期或被删除时只剩这条增量, 以及日志过长时, 都改写为完整快照
+            if (size == 1 || size > compactThreshold) {
+                logStore.reset(key, context.dump());
+            }
+        }
+        context.markPersisted(key);
+    }
+
+    @Override
+    public void expireContext(String traceId) {
+        logStore.expire(traceId);
+    }
+
+    @Override
+    public void removeContext(String traceId) {
+        logStore.remove(traceId);
+    }
+}
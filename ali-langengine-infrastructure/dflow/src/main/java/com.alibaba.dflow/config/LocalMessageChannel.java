@@ -1,18 +1,79 @@
 package com.alibaba.dflow.config;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageHandler;
 import org.springframework.messaging.SubscribableChannel;
 
+/**
+ * 单机进程内的消息通道
+ * 默认与原来一致, 在发送线程上同步调用所有 handler; 指定 laneCount 大于 0 时改为异步:
+ * 消息按 traceId 哈希到固定的 lane, 每个 lane 是一个有界队列加一个消费线程: 同一 traceId 的消息按发送顺序串行处理,
+ * 不同 traceId 之间并行, scatter/multicall 的分支可以用满多核
+ * 外部线程在 lane 满时阻塞(send)或超时返回 false(send with timeout); 消费线程(handler 内触发下一步)发出的消息不受容量限制,
+ * 避免消费线程互相等待对方的队列而死锁
+ * traceId 取自发送时写入的 {@link #TRACE_ID_HEADER} 消息头, 不解析消息负载
+ */
 public class LocalMessageChannel implements SubscribableChannel {
-    private ArrayList<MessageHandler> handlers = new ArrayList<>();
+    private static final Logger logger = LoggerFactory.getLogger(LocalMessageChannel.class);
+
+    public static final int DEFAULT_LANE_CAPACITY = 1024;
+
+    /**
+     * 消息所属 traceId 的消息头, DFlow 发送步骤消息时写入; 消息 id(KEYS) 带有步骤序号或随机后缀, 不能用于分区
+     */
+    public static final String TRACE_ID_HEADER = "DFLOW_TRACE_ID";
+
+    private final List<MessageHandler> handlers = new CopyOnWriteArrayList<>();
+    private final Lane[] lanes;
+    private final Function<Message<?>, Object> partitionKey;
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+    /**
+     * 同步通道, 在发送线程上调用所有 handler
+     */
+    public LocalMessageChannel() {
+        this(0, DEFAULT_LANE_CAPACITY);
+    }
+
+    /**
+     * @param laneCount    lane 数, 即消费线程数; 小于等于 0 时退化为在发送线程上同步调用所有 handler
+     * @param laneCapacity 每个 lane 对外部发送者的容量
+     */
+    public LocalMessageChannel(int laneCount, int laneCapacity) {
+        this(laneCount, laneCapacity, LocalMessageChannel::traceIdOf);
+    }
 
-    public LocalMessageChannel() {}
+    public LocalMessageChannel(int laneCount, int laneCapacity, Function<Message<?>, Object> partitionKey) {
+        this.partitionKey = partitionKey;
+        this.lanes = new Lane[Math.max(laneCount, 0)];
+        ThreadFactory threadFactory = new BasicThreadFactory.Builder()
+            .namingPattern("dflow-local-channel-%d").daemon(true).build();
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane(laneCapacity);
+            lanes[i].worker = threadFactory.newThread(lanes[i]);
+            lanes[i].worker.start();
+        }
+    }
 
     @Override
     public boolean subscribe(MessageHandler messageHandler) {
@@ -27,13 +88,171 @@ public class LocalMessageChannel implements SubscribableChannel {
 
     @Override
     public boolean send(Message<?> message) {
-        ((ArrayList<MessageHandler>)handlers.clone()).forEach(x->x.handleMessage(message));
-        return true;
+        return send(message, -1);
     }
 
+    /**
+     * @param timeout 毫秒, 小于 0 表示 lane 满时一直等待
+     * @return 消息是否已入队(同步模式下是否已处理)
+     */
     @Override
-    public boolean send(Message<?> message, long l) {
-        ((ArrayList<MessageHandler>)handlers.clone()).forEach(x->x.handleMessage(message));
+    public boolean send(Message<?> message, long timeout) {
+        if (lanes.length == 0) {
+            sent.incrementAndGet();
+            dispatch(message);
+            return true;
+        }
+        Lane lane = laneOf(message);
+        try {
+            if (!lane.offer(message, timeout)) {
+                rejected.incrementAndGet();
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejected.incrementAndGet();
+            return false;
+        }
+        sent.incrementAndGet();
+        int depth = lane.queue.size();
+        int max;
+        while (depth > (max = maxQueueDepth.get()) && !maxQueueDepth.compareAndSet(max, depth)) {
+            //retry
+        }
         return true;
     }
-};
\ No newline at end of file
+
+    /**
+     * 停止所有消费线程, 未处理的消息被丢弃
+     */
+    public void shutdown() {
+        for (Lane lane : lanes) {
+            lane.worker.interrupt();
+        }
+    }
+
+    public int getQueueDepth() {
+        int depth = 0;
+        for (Lane lane : lanes) {
+            depth += lane.queue.size();
+        }
+        return depth;
+    }
+
+    public int getQueueDepth(int lane) {
+        return lanes[lane].queue.size();
+    }
+
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    public int getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    public long getSentCount() {
+        return sent.get();
+    }
+
+    public long getDeliveredCount() {
+        return delivered.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    private Lane laneOf(Message<?> message) {
+        Object key = partitionKey.apply(message);
+        int h = key == null ? 0 : key.hashCode();
+        h ^= (h >>> 16);
+        return lanes[(h & Integer.MAX_VALUE) % lanes.length];
+    }
+
+    private boolean isWorker(Thread thread) {
+        for (Lane lane : lanes) {
+            if (lane.worker == thread) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void dispatch(Message<?> message) {
+        for (MessageHandler handler : handlers) {
+            handler.handleMessage(message);
+        }
+    }
+
+    /**
+     * 按消息头 TRACE_ID_HEADER 分区; 没有该消息头的消息(非 DFlow 发出)按 KEYS 分区
+     */
+    static Object traceIdOf(Message<?> message) {
+        Object traceId = message.getHeaders().get(TRACE_ID_HEADER);
+        if (traceId != null) {
+            return traceId;
+        }
+        Object keys = message.getHeaders().get("KEYS");
+        return keys != null ? keys : message.getPayload();
+    }
+
+    private static final class Envelope {
+        private final Message<?> message;
+        private final boolean permit;
+
+        private Envelope(Message<?> message, boolean permit) {
+            this.message = message;
+            this.permit = permit;
+        }
+    }
+
+    private final class Lane implements Runnable {
+        private final BlockingQueue<Envelope> queue = new LinkedBlockingQueue<>();
+        private final Semaphore capacity;
+        private Thread worker;
+
+        private Lane(int capacity) {
+            this.capacity = new Semaphore(capacity);
+        }
+
+        private boolean offer(Message<?> message, long timeout) throws InterruptedException {
+            boolean permit = !isWorker(Thread.currentThread());
+            if (permit) {
+                if (timeout < 0) {
+                    capacity.acquire();
+                } else if (!capacity.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+                    return false;
+                }
+            }
+            queue.add(new Envelope(message, permit));
+            return true;
+        }
+
+        @Override
+        public void run() {
+            while (!Thread.currentThread().isInterrupted()) {
+                Envelope envelope;
+                try {
+                    envelope = queue.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (envelope.permit) {
+                    capacity.release();
+                }
+                try {
+                    dispatch(envelope.message);
+                    delivered.incrementAndGet();
+                } catch (Throwable t) {
+                    failed.incrementAndGet();
+                    logger.error("LocalMessageChannel handle message failed:" + envelope.message.getHeaders().get("KEYS"), t);
+                }
+            }
+        }
+    }
+}
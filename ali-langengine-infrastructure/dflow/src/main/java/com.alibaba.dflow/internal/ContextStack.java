@@ -1,8 +1,11 @@
 package com.alibaba.dflow.internal;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Stack;
 
 import com.alibaba.fastjson.JSON;
@@ -30,6 +33,23 @@ public class ContextStack{
 
     private Stack<ContextNode> stack = new Stack<>();
 
+    /**
+     * 单层 JSON 持久化格式的版本前缀, 没有该前缀的是旧的 JSON 套 JSON 格式
+     */
+    private static final String FORMAT_PREFIX = "{\"v\":2";
+
+    /**
+     * 上次持久化(或从存储重建)时的存储 key 及各节点/全局变量的编码, 用于计算增量; 为 null 表示没有基线
+     */
+    private transient String persistedKey;
+    private transient List<String> persistedNodes;
+    private transient Map<String,String> persistedGlobal;
+    /**
+     * 最近一次 dump/dumpDelta 的编码, 写入成功后由 markPersisted 提升为基线
+     */
+    private transient List<String> pendingNodes;
+    private transient Map<String,String> pendingGlobal;
+
     private static HashSet<String> INNERKEYS = new HashSet<String>(){{
         this.add(ContextNode.ID);
         this.add(ContextNode.NAME);
@@ -46,23 +66,210 @@ public class ContextStack{
         return stack;
     }
 
+    /**
+     * 完整快照, 单层 JSON: {"v":2,"id":..,"global":{..},"stack":[..]}
+     */
     public String dump(){
-        HashMap<String,Object> res = new HashMap<>();
-        res.put("id",getId());
-        res.put("global",JSON.toJSONString(global));
-        res.put("stack",JSON.toJSONString(stack));
-        return JSON.toJSONString(res);
+        List<String> nodes = encodeNodes();
+        Map<String,String> globals = encodeGlobal();
+        pendingNodes = nodes;
+        pendingGlobal = globals;
+
+        StringBuilder sb = new StringBuilder(FORMAT_PREFIX);
+        sb.append(",\"id\":").append(JSON.toJSONString(id));
+        appendGlobal(sb, globals);
+        appendNodes(sb.append(",\"stack\":"), nodes, 0);
+        return sb.append('}').toString();
     }
 
+    /**
+     * 相对上次持久化的增量, 单层 JSON: {"v":2,"keep":保留的栈底节点数,"stack":[其后的节点],"global":{变更的变量},"removed":[删除的变量]}
+     * 没有该 key 的基线(新建的上下文, 或换了 id 写到别的 key)时返回 null, 应改为写完整快照; 没有变化时返回空串
+     */
+    public String dumpDelta(String key){
+        if(persistedNodes == null || key == null || !key.equals(persistedKey) || !key.equals(id)){
+            return null;
+        }
+        List<String> nodes = encodeNodes();
+        Map<String,String> globals = encodeGlobal();
+        pendingNodes = nodes;
+        pendingGlobal = globals;
+
+        int keep = 0;
+        while(keep < nodes.size() && keep < persistedNodes.size() && nodes.get(keep).equals(persistedNodes.get(keep))){
+            keep++;
+        }
+        Map<String,String> changed = new LinkedHashMap<>();
+        for(Map.Entry<String,String> e : globals.entrySet()){
+            if(!e.getValue().equals(persistedGlobal.get(e.getKey()))){
+                changed.put(e.getKey(), e.getValue());
+            }
+        }
+        List<String> removed = new ArrayList<>();
+        for(String name : persistedGlobal.keySet()){
+            if(!globals.containsKey(name)){
+                removed.add(name);
+            }
+        }
+        if(keep == nodes.size() && keep == persistedNodes.size() && changed.isEmpty() && removed.isEmpty()){
+            return "";
+        }
+
+        StringBuilder sb = new StringBuilder(FORMAT_PREFIX);
+        sb.append(",\"keep\":").append(keep);
+        appendGlobal(sb, changed);
+        if(!removed.isEmpty()){
+            sb.append(",\"removed\":").append(JSON.toJSONString(removed));
+        }
+        appendNodes(sb.append(",\"stack\":"), nodes, keep);
+        return sb.append('}').toString();
+    }
+
+    /**
+     * 最近一次 dump/dumpDelta 的内容已经写入 key, 作为之后增量的基线
+     */
+    public void markPersisted(String key){
+        if(pendingNodes != null){
+            persistedKey = key;
+            persistedNodes = pendingNodes;
+            persistedGlobal = pendingGlobal;
+            pendingNodes = null;
+            pendingGlobal = null;
+        }
+    }
+
+    /**
+     * 从完整快照重建, 兼容旧的 JSON 套 JSON 格式
+     */
     public static ContextStack rebuild(String dumpString){
-        HashMap obj = JSON.parseObject(dumpString,HashMap.class);
         ContextStack s = new ContextStack();
-        s.setId((String)obj.get("id"));
-        s.global = JSON.parseObject((String)obj.get("global"),new TypeReference<HashMap<String, Object>>(){});
-        s.stack = JSON.parseObject((String)obj.get("stack"), new TypeReference<Stack<ContextNode>>(){});
+        if(!dumpString.startsWith(FORMAT_PREFIX)){
+            HashMap obj = JSON.parseObject(dumpString,HashMap.class);
+            s.setId((String)obj.get("id"));
+            s.global = JSON.parseObject((String)obj.get("global"),new TypeReference<HashMap<String, Object>>(){});
+            s.stack = JSON.parseObject((String)obj.get("stack"), new TypeReference<Stack<ContextNode>>(){});
+        }else{
+            StoreRecord record = JSON.parseObject(dumpString, StoreRecord.class);
+            s.setId(record.getId());
+            if(record.getGlobal() != null){
+                s.global = record.getGlobal();
+            }
+            if(record.getStack() != null){
+                s.stack = record.getStack();
+            }
+        }
+        return s;
+    }
+
+    /**
+     * 按顺序回放 key 下的一条快照及其后的增量, 结果以 key 为增量基线
+     */
+    public static ContextStack replay(String key, List<String> records){
+        if(records == null || records.isEmpty()){
+            return null;
+        }
+        ContextStack s = rebuild(records.get(0));
+        for(int i = 1; i < records.size(); i++){
+            s.applyDelta(JSON.parseObject(records.get(i), StoreRecord.class));
+        }
+        s.resetBaseline(key);
         return s;
     }
 
+    private void applyDelta(StoreRecord delta){
+        int keep = delta.getKeep() == null ? 0 : delta.getKeep();
+        while(stack.size() > keep){
+            stack.pop();
+        }
+        if(delta.getStack() != null){
+            stack.addAll(delta.getStack());
+        }
+        if(delta.getGlobal() != null){
+            global.putAll(delta.getGlobal());
+        }
+        if(delta.getRemoved() != null){
+            for(String key : delta.getRemoved()){
+                global.remove(key);
+            }
+        }
+    }
+
+    private void resetBaseline(String key){
+        persistedKey = key;
+        persistedNodes = encodeNodes();
+        persistedGlobal = encodeGlobal();
+        pendingNodes = null;
+        pendingGlobal = null;
+    }
+
+    private List<String> encodeNodes(){
+        List<String> nodes = new ArrayList<>(stack.size());
+        for(ContextNode n : stack){
+            nodes.add(JSON.toJSONString(n));
+        }
+        return nodes;
+    }
+
+    private Map<String,String> encodeGlobal(){
+        Map<String,String> globals = new LinkedHashMap<>();
+        for(Map.Entry<String,Object> e : global.entrySet()){
+            globals.put(e.getKey(), JSON.toJSONString(e.getValue()));
+        }
+        return globals;
+    }
+
+    private static void appendGlobal(StringBuilder sb, Map<String,String> globals){
+        if(globals.isEmpty()){
+            return;
+        }
+        sb.append(",\"global\":{");
+        boolean first = true;
+        for(Map.Entry<String,String> e : globals.entrySet()){
+            if(!first){
+                sb.append(',');
+            }
+            first = false;
+            sb.append(JSON.toJSONString(e.getKey())).append(':').append(e.getValue());
+        }
+        sb.append('}');
+    }
+
+    private static void appendNodes(StringBuilder sb, List<String> nodes, int from){
+        sb.append('[');
+        for(int i = from; i < nodes.size(); i++){
+            if(i > from){
+                sb.append(',');
+            }
+            sb.append(nodes.get(i));
+        }
+        sb.append(']');
+    }
+
+    /**
+     * 持久化记录(快照或增量)的反序列化结构
+     */
+    public static class StoreRecord{
+        private Integer v;
+        private String id;
+        private Integer keep;
+        private HashMap<String,Object> global;
+        private Stack<ContextNode> stack;
+        private List<String> removed;
+
+        public Integer getV() {return v;}
+        public void setV(Integer v) {this.v = v;}
+        public String getId() {return id;}
+        public void setId(String id) {this.id = id;}
+        public Integer getKeep() {return keep;}
+        public void setKeep(Integer keep) {this.keep = keep;}
+        public HashMap<String,Object> getGlobal() {return global;}
+        public void setGlobal(HashMap<String,Object> global) {this.global = global;}
+        public Stack<ContextNode> getStack() {return stack;}
+        public void setStack(Stack<ContextNode> stack) {this.stack = stack;}
+        public List<String> getRemoved() {return removed;}
+        public void setRemoved(List<String> removed) {this.removed = removed;}
+    }
+
 
 
     public ContextNode findNodeByDebugName(String debugName){
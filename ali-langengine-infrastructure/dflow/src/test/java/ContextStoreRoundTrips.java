@@ -0,0 +1,121 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.alibaba.dflow.DFlow;
+import com.alibaba.dflow.InitEntry.Entry;
+import com.alibaba.dflow.config.ContextLogStoreInterface;
+import com.alibaba.dflow.config.DeltaContextStore;
+
+/**
+ * 统计 DFlow 每执行一步对 ContextLogStoreInterface 的访问次数:
+ * 分别以消息异步触发(allAsync)和同步触发下一步跑一条 N 个 map 节点的计算流, 输出每步的读取、追加、重写次数和读取字节数
+ */
+public class ContextStoreRoundTrips {
+
+    private static final int STEPS = 50;
+
+    public static void main(String[] args) throws Exception {
+        DFlow.globalInitForTest();
+        CountingLogStore logStore = new CountingLogStore();
+        DFlow.setStorage(new DeltaContextStore(logStore));
+        System.out.println("mode\tsteps\treadsPerStep\tappendsPerStep\tresetsPerStep\tbytesReadPerStep");
+        run("async", true, logStore);
+        run("sync", false, logStore);
+        System.exit(0);
+    }
+
+    private static void run(String mode, boolean allAsync, CountingLogStore logStore) throws Exception {
+        DFlow.allAsync = allAsync;
+        String start = "roundTrips-" + mode;
+        DFlow<String> flow = DFlow.fromCall(start).id(start + "-entry");
+        for (int i = 0; i < STEPS; i++) {
+            //节点函数不能捕获外部变量
+            flow = flow.map((c, p) -> {
+                c.put("step", p.length());
+                return p + "x";
+            }).id(start + "-" + i);
+        }
+        Entry entry = flow.init().getEntry(start);
+
+        String traceId = "trace-" + mode;
+        CountDownLatch finished = logStore.await(traceId);
+        logStore.reads.set(0);
+        logStore.appends.set(0);
+        logStore.resets.set(0);
+        logStore.bytesRead.set(0);
+        DFlow.call(entry, "p", traceId);
+        if (!finished.await(60, TimeUnit.SECONDS)) {
+            throw new IllegalStateException(mode + " flow did not finish");
+        }
+        System.out.printf("%s\t%d\t%.2f\t%.2f\t%.2f\t%d%n", mode, STEPS, (double) logStore.reads.get() / STEPS,
+            (double) logStore.appends.get() / STEPS, (double) logStore.resets.get() / STEPS,
+            logStore.bytesRead.get() / STEPS);
+    }
+
+    private static class CountingLogStore implements ContextLogStoreInterface {
+        private final Map<String, List<String>> m = new ConcurrentHashMap<>();
+        private final Map<String, CountDownLatch> finished = new ConcurrentHashMap<>();
+        final AtomicLong reads = new AtomicLong();
+        final AtomicLong appends = new AtomicLong();
+        final AtomicLong resets = new AtomicLong();
+        final AtomicLong bytesRead = new AtomicLong();
+
+        CountDownLatch await(String traceId) {
+            CountDownLatch latch = new CountDownLatch(1);
+            finished.put(traceId, latch);
+            return latch;
+        }
+
+        @Override
+        public List<String> read(String traceId) {
+            reads.incrementAndGet();
+            List<String> records = m.get(traceId);
+            if (records == null) {
+                return null;
+            }
+            synchronized (records) {
+                for (String r : records) {
+                    bytesRead.addAndGet(r.length());
+                }
+                return new ArrayList<>(records);
+            }
+        }
+
+        @Override
+        public long append(String traceId, String record) {
+            appends.incrementAndGet();
+            List<String> records = m.computeIfAbsent(traceId, k -> new ArrayList<>());
+            synchronized (records) {
+                records.add(record);
+                return records.size();
+            }
+        }
+
+        @Override
+        public void reset(String traceId, String snapshot) {
+            resets.incrementAndGet();
+            List<String> records = new ArrayList<>();
+            records.add(snapshot);
+            m.put(traceId, records);
+        }
+
+        @Override
+        public void expire(String traceId) {
+            m.remove(traceId);
+            CountDownLatch latch = finished.get(traceId);
+            if (latch != null) {
+                latch.countDown();
+            }
+        }
+
+        @Override
+        public void remove(String traceId) {
+            m.remove(traceId);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.alibaba.dflow.config.ContextLogStoreInterface;
+import com.alibaba.dflow.config.ContextStoreInterface;
+import com.alibaba.dflow.config.DeltaContextStore;
+import com.alibaba.dflow.internal.ContextStack;
+import com.alibaba.dflow.internal.InternalHelper;
+import com.alibaba.fastjson.JSON;
+
+/**
+ * 对比 10/100/1000 步计算流的存储写放大:
+ * legacy 为原来的 JSON 套 JSON 全量快照, snapshot 为单层 JSON 全量快照, delta 为 DeltaContextStore 增量追加;
+ * 每步一次读取一次写入, 对应消息触发的一步, DFlow 实际的存储访问次数见 ContextStoreRoundTrips
+ */
+public class ContextStoreWriteAmplification {
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("steps\tstore\tbytesWritten\tbytesPerStep\tbytesRead\tmillis");
+        for (int steps : new int[] {10, 100, 1000}) {
+            CountingStore legacyStore = new CountingStore(true);
+            String legacy = run(steps, "legacy", legacyStore, legacyStore);
+            CountingStore snapshotStore = new CountingStore(false);
+            String snapshot = run(steps, "snapshot", snapshotStore, snapshotStore);
+            CountingLogStore logStore = new CountingLogStore();
+            String delta = run(steps, "delta", new DeltaContextStore(logStore), logStore);
+
+            //三种存储回放出的最终状态必须一致
+            if (!legacy.equals(snapshot) || !snapshot.equals(delta)) {
+                throw new IllegalStateException("final context differs after " + steps + " steps");
+            }
+        }
+    }
+
+    private static String run(int steps, String name, ContextStoreInterface store, Counter counter) throws Exception {
+        String traceId = "trace-" + steps;
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < steps; i++) {
+            ContextStack c = store.getContext(traceId);
+            if (c == null) {
+                c = new ContextStack();
+                c.setId(traceId);
+            }
+            InternalHelper.rebuildNewStack(c, "step" + i, "debug" + i);
+            c.getStack().peek().setStartTime(1000L + i);
+            HashMap<String, Object> ret = new HashMap<>();
+            ret.put("index", i);
+            ret.put("payload", "result of step " + i + " with some typical tool output text");
+            InternalHelper.setResultAndStatus(c, ret, ContextStack.STATUS_END);
+            c.getStack().peek().setCostTime(3L);
+            c.put("lastStep", i);
+            c.setNextStepId("step" + (i + 1));
+            store.putContext(traceId, c);
+        }
+        long millis = System.currentTimeMillis() - start;
+        System.out.println(steps + "\t" + name + "\t" + counter.written + "\t" + counter.written / steps
+            + "\t" + counter.read + "\t" + millis);
+        return store.getContext(traceId).dump();
+    }
+
+    private static class Counter {
+        long written;
+        long read;
+    }
+
+    private static class CountingStore extends Counter implements ContextStoreInterface {
+        private final boolean legacy;
+        private final Map<String, String> m = new HashMap<>();
+
+        CountingStore(boolean legacy) {
+            this.legacy = legacy;
+        }
+
+        @Override
+        public ContextStack getContext(String traceId) {
+            String s = m.get(traceId);
+            if (s == null) {
+                return null;
+            }
+            read += s.length();
+            return ContextStack.rebuild(s);
+        }
+
+        @Override
+        public void putContext(String key, ContextStack context) {
+            String s = legacy ? legacyDump(context) : context.dump();
+            written += s.length();
+            m.put(key, s);
+        }
+
+        @Override
+        public void expireContext(String traceId) {
+            m.remove(traceId);
+        }
+
+        @Override
+        public void removeContext(String traceId) {
+            m.remove(traceId);
+        }
+
+        private static String legacyDump(ContextStack context) {
+            HashMap<String, Object> res = new HashMap<>();
+            res.put("id", context.getId());
+            res.put("global", JSON.toJSONString(context.getGlobal()));
+            res.put("stack", JSON.toJSONString(context.getStack()));
+            return JSON.toJSONString(res);
+        }
+    }
+
+    private static class CountingLogStore extends Counter implements ContextLogStoreInterface {
+        private final Map<String, List<String>> m = new HashMap<>();
+
+        @Override
+        public List<String> read(String traceId) {
+            List<String> records = m.get(traceId);
+            if (records != null) {
+                for (String r : records) {
+                    read += r.length();
+                }
+            }
+            return records;
+        }
+
+        @Override
+        public long append(String traceId, String record) {
+            written += record.length();
+            List<String> records = m.computeIfAbsent(traceId, k -> new ArrayList<>());
+            records.add(record);
+            return records.size();
+        }
+
+        @Override
+        public void reset(String traceId, String snapshot) {
+            written += snapshot.length();
+            List<String> records = new ArrayList<>();
+            records.add(snapshot);
+            m.put(traceId, records);
+        }
+
+        @Override
+        public void expire(String traceId) {
+            m.remove(traceId);
+        }
+
+        @Override
+        public void remove(String traceId) {
+            m.remove(traceId);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.alibaba.dflow.DFlow.SimpleMessage;
+import com.alibaba.dflow.config.LocalMessageChannel;
+
+/**
+ * 校验 LocalMessageChannel:
+ * 默认同步调用; 异步模式下多个 trace 交错发送时每个 trace 内按发送顺序处理(消息 id 带随机后缀, 按 traceId 消息头分区);
+ * lane 满时外部发送阻塞, 带超时的发送返回 false
+ */
+public class LocalMessageChannelOrdering {
+
+    public static void main(String[] args) throws Exception {
+        syncByDefault();
+        perTraceOrder();
+        boundedLaneBlocks();
+        System.out.println("LocalMessageChannelOrdering passed");
+    }
+
+    private static void syncByDefault() {
+        LocalMessageChannel channel = new LocalMessageChannel();
+        Thread caller = Thread.currentThread();
+        AtomicBoolean sameThread = new AtomicBoolean();
+        channel.subscribe(message -> sameThread.set(Thread.currentThread() == caller));
+        channel.send(new SimpleMessage("id", "payload", "trace"));
+        check(channel.getLaneCount() == 0 && sameThread.get(), "default channel should deliver on the sender thread");
+    }
+
+    private static void perTraceOrder() throws Exception {
+        int traces = 16;
+        int perTrace = 2000;
+        LocalMessageChannel channel = new LocalMessageChannel(4, 8);
+        Map<String, List<Integer>> received = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(traces * perTrace);
+        channel.subscribe(message -> {
+            String[] parts = ((String)message.getPayload()).split(":");
+            received.computeIfAbsent(parts[0], k -> new ArrayList<>()).add(Integer.parseInt(parts[1]));
+            done.countDown();
+        });
+
+        //两个发送线程交错发送所有 trace 的消息, 每个 trace 只由一个线程按序发送
+        List<Thread> senders = new ArrayList<>();
+        for (int s = 0; s < 2; s++) {
+            int offset = s;
+            Thread sender = new Thread(() -> {
+                for (int i = 0; i < perTrace; i++) {
+                    for (int t = offset; t < traces; t += 2) {
+                        String traceId = "trace" + t;
+                        channel.send(new SimpleMessage(traceId + "_" + java.util.UUID.randomUUID(), traceId + ":" + i, traceId));
+                    }
+                }
+            });
+            sender.start();
+            senders.add(sender);
+        }
+        for (Thread sender : senders) {
+            sender.join();
+        }
+        check(done.await(30, TimeUnit.SECONDS), "messages not delivered in time");
+        for (int t = 0; t < traces; t++) {
+            List<Integer> sequence = received.get("trace" + t);
+            check(sequence.size() == perTrace, "trace" + t + " received " + sequence.size());
+            for (int i = 0; i < perTrace; i++) {
+                check(sequence.get(i) == i, "trace" + t + " out of order at " + i + ": " + sequence.get(i));
+            }
+        }
+        check(channel.getMaxQueueDepth() <= 8 * channel.getLaneCount(), "queue depth exceeded capacity: " + channel.getMaxQueueDepth());
+        channel.shutdown();
+    }
+
+    private static void boundedLaneBlocks() throws Exception {
+        LocalMessageChannel channel = new LocalMessageChannel(1, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch handling = new CountDownLatch(1);
+        channel.subscribe(message -> {
+            handling.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        //第一条被消费线程取走并阻塞在 handler 中, 随后两条占满容量
+        channel.send(new SimpleMessage("m0", "0", "trace"));
+        check(handling.await(5, TimeUnit.SECONDS), "first message not handled");
+        channel.send(new SimpleMessage("m1", "1", "trace"));
+        channel.send(new SimpleMessage("m2", "2", "trace"));
+
+        check(!channel.send(new SimpleMessage("m3", "3", "trace"), 100), "timed send on a full lane should be rejected");
+        check(channel.getRejectedCount() == 1, "rejected count: " + channel.getRejectedCount());
+
+        CountDownLatch sent = new CountDownLatch(1);
+        Thread blocked = new Thread(() -> {
+            channel.send(new SimpleMessage("m4", "4", "trace"));
+            sent.countDown();
+        });
+        blocked.start();
+        check(!sent.await(300, TimeUnit.MILLISECONDS), "send on a full lane should block");
+
+        release.countDown();
+        check(sent.await(5, TimeUnit.SECONDS), "blocked send should proceed once the lane drains");
+        channel.shutdown();
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException(message);
+        }
+    }
+}